@@ -83,6 +83,15 @@ public class BrooklynFeatureEnablement {
      */
     public static final String FEATURE_RENAME_THREADS = "brooklyn.executionManager.renameThreads";
 
+    /**
+     * Whether the execution manager should replace each task, once completed, with a compact immutable record
+     * (see {@link org.apache.brooklyn.util.core.task.CompletedTaskRecord}), so that the job, its closure and
+     * any large result can be garbage collected while the task is still retained for display.
+     * <p>
+     * Defaults to false if system property is not set.
+     */
+    public static final String FEATURE_COMPACT_COMPLETED_TASKS = "brooklyn.executionManager.compactCompletedTasks";
+
     /**
      * When rebinding to state created from very old versions, the catalogItemId properties will be missing which
      * results in errors when OSGi bundles are used. When enabled the code tries to infer the catalogItemId from
@@ -149,6 +158,7 @@ public class BrooklynFeatureEnablement {
         setDefault(FEATURE_DEFAULT_STANDBY_IS_HOT_PROPERTY, false);
         setDefault(FEATURE_USE_BROOKLYN_LIVE_OBJECTS_DATAGRID_STORAGE, false);
         setDefault(FEATURE_RENAME_THREADS, false);
+        setDefault(FEATURE_COMPACT_COMPLETED_TASKS, false);
         setDefault(FEATURE_BACKWARDS_COMPATIBILITY_INFER_CATALOG_ITEM_ON_REBIND, true);
         setDefault(FEATURE_AUTO_FIX_CATALOG_REF_ON_REBIND, false);
         setDefault(FEATURE_SSH_ASYNC_EXEC, false);
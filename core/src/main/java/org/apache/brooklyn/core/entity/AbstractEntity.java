@@ -1154,6 +1154,7 @@ public abstract class AbstractEntity extends AbstractBrooklynObject implements E
             
             attributesInternal.remove(attribute);
             entityType.removeSensor(attribute);
+            getManagementSupport().getEntityChangeListener().onAttributeChanged(attribute);
         }
 
         @Override
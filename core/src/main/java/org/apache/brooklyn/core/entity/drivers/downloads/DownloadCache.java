@@ -0,0 +1,397 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.entity.drivers.downloads;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.config.StringConfigMap;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.location.ssh.SshMachineLocation;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.ResourceUtils;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.stream.Streams;
+import org.apache.brooklyn.util.text.Identifiers;
+import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * A content-addressed cache, on the management node, of artifacts downloaded for installs, so that an artifact
+ * installed on many machines is fetched from upstream once and then copied to each machine over ssh.
+ * <p>
+ * Each artifact is stored under the SHA-256 of its contents, with an index of which URL resolved to which
+ * contents (so that URLs with the same contents share storage); the index is kept on disk, so the cache
+ * survives restarts. A URL is fetched again once its entry is older than {@link #URL_TTL}, so that URLs whose
+ * contents change (e.g. "latest" or snapshot URLs) are not served stale indefinitely. Concurrent requests for
+ * the same URL wait for a single fetch. When the cache exceeds its maximum size, the least recently used 
+ * artifacts are deleted, other than those being copied to machines. After copying to a machine, the checksum
+ * of the copy is verified (if {@code sha256sum} is available there). Only http(s) URLs are installed to
+ * machines from the cache.
+ * <p>
+ * Disabled by default; see {@link #ENABLED}.
+ */
+@Beta
+public class DownloadCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadCache.class);
+
+    public static final ConfigKey<Boolean> ENABLED = ConfigKeys.newBooleanConfigKey(
+            DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"cache.enabled",
+            "Whether to fetch install artifacts once on the management node and copy them to machines over ssh, "
+                    + "rather than each machine downloading them",
+            false);
+
+    public static final ConfigKey<String> DIR = ConfigKeys.newStringConfigKey(
+            DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"cache.dir",
+            "Directory of the download cache (defaults to ~/.brooklyn/download-cache)");
+
+    public static final ConfigKey<Long> MAX_SIZE = ConfigKeys.newLongConfigKey(
+            DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"cache.maxSize",
+            "Maximum total size in bytes of the download cache, beyond which the least recently used artifacts are deleted",
+            10L*1024*1024*1024);
+
+    public static final ConfigKey<Duration> URL_TTL = ConfigKeys.newDurationConfigKey(
+            DownloadProducerFromProperties.DOWNLOAD_CONF_PREFIX+"cache.urlTtl",
+            "How long the contents fetched from a URL are used before fetching it again, in case they have changed "
+                    + "(unchanged contents are not stored twice); 'forever' for URLs whose contents never change",
+            Duration.ONE_HOUR);
+
+    private static final String INDEX_FILE = "index.properties";
+
+    private static final String DOWNLOAD_CACHE_ATTRIBUTE = DownloadCache.class.getName();
+
+    /** the cache for the given management context, created if necessary */
+    public static DownloadCache get(ManagementContext mgmt) {
+        synchronized (mgmt) {
+            ConfigKey<DownloadCache> key = ConfigKeys.newConfigKey(DownloadCache.class, DOWNLOAD_CACHE_ATTRIBUTE);
+            DownloadCache result = mgmt.getConfig().getConfig(key);
+            if (result == null) {
+                StringConfigMap config = mgmt.getConfig();
+                String dir = config.getConfig(DIR);
+                if (dir == null) dir = Os.mergePaths(Os.home(), ".brooklyn", "download-cache");
+                result = new DownloadCache(config.getConfig(ENABLED), new File(Os.tidyPath(dir)), config.getConfig(MAX_SIZE), config.getConfig(URL_TTL));
+                ((BrooklynProperties) mgmt.getConfig()).put(key, result);
+            }
+            return result;
+        }
+    }
+
+    private final boolean enabled;
+    private final File dir;
+    private final File contentDir;
+    private final long maxSize;
+    private final Duration urlTtl;
+    /** url to "hash fetchTimeMillis" */
+    private final Properties index = new Properties();
+    /** hashes of artifacts being copied to machines, so not to be evicted; guarded by this */
+    private final Multiset<String> inUse = HashMultiset.create();
+    private final ConcurrentMap<String, Object> urlLocks = new ConcurrentHashMap<String, Object>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DownloadCache(boolean enabled, File dir, long maxSize) {
+        this(enabled, dir, maxSize, URL_TTL.getDefaultValue());
+    }
+
+    public DownloadCache(boolean enabled, File dir, long maxSize, Duration urlTtl) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.contentDir = new File(dir, "sha256");
+        this.maxSize = maxSize;
+        this.urlTtl = (urlTtl != null) ? urlTtl : Duration.PRACTICALLY_FOREVER;
+        if (enabled) loadIndex();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cached contents of the first of the given URLs which can be fetched, fetching it if it is not
+     * already cached.
+     */
+    public File get(ResourceUtils resolver, List<String> urls) {
+        return get(resolver, urls, false);
+    }
+
+    /** as {@link #get(ResourceUtils, List)}, and if {@code retain} then marks the result in use (see {@link #release(File)}) */
+    private File get(ResourceUtils resolver, List<String> urls, boolean retain) {
+        Exception lastError = null;
+        for (String url : urls) {
+            try {
+                return get(resolver, url, retain);
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                LOG.debug("Unable to fetch "+url+" into download cache (trying any other urls): "+e);
+                lastError = e;
+            }
+        }
+        throw new IllegalStateException("Unable to fetch any of "+urls+" into download cache", lastError);
+    }
+
+    /** the cached contents of the given URL, fetching it if it is not already cached (or its entry has expired) */
+    public File get(ResourceUtils resolver, String url) {
+        return get(resolver, url, false);
+    }
+
+    private File get(ResourceUtils resolver, String url, boolean retain) {
+        Object lock = urlLocks.get(url);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = urlLocks.putIfAbsent(url, newLock);
+            if (lock == null) lock = newLock;
+        }
+        synchronized (lock) {
+            String hash = lookup(url);
+            if (hash != null) {
+                File result = getContentFile(hash);
+                synchronized (this) {
+                    if (result.exists()) {
+                        hits.incrementAndGet();
+                        // last-modified records last use, for eviction
+                        result.setLastModified(System.currentTimeMillis());
+                        if (retain) inUse.add(hash);
+                        return result;
+                    }
+                }
+            }
+            return fetch(resolver, url, retain);
+        }
+    }
+
+    /** the hash of the contents of the given URL, if in the index and not expired */
+    private String lookup(String url) {
+        String entry;
+        synchronized (index) {
+            entry = index.getProperty(url);
+        }
+        if (entry == null) return null;
+        String[] parts = entry.split(" ");
+        long fetchTime = (parts.length > 1) ? Long.parseLong(parts[1]) : 0;
+        if (urlTtl.isShorterThan(Duration.millis(System.currentTimeMillis() - fetchTime))) {
+            LOG.debug("Download cache entry for {} has expired; fetching again", url);
+            return null;
+        }
+        return parts[0];
+    }
+
+    private File fetch(ResourceUtils resolver, String url, boolean retain) {
+        fetches.incrementAndGet();
+        Os.mkdirs(contentDir);
+        File tempFile = new File(dir, "fetching-"+Identifiers.makeRandomId(8));
+        try {
+            InputStream in = resolver.getResourceFromUrl(url);
+            try {
+                OutputStream out = new FileOutputStream(tempFile);
+                try {
+                    Streams.copy(in, out);
+                } finally {
+                    Streams.closeQuietly(out);
+                }
+            } finally {
+                Streams.closeQuietly(in);
+            }
+            String hash = Files.hash(tempFile, Hashing.sha256()).toString();
+            File result = getContentFile(hash);
+            synchronized (this) {
+                if (result.exists()) {
+                    tempFile.delete();
+                    result.setLastModified(System.currentTimeMillis());
+                } else if (!tempFile.renameTo(result)) {
+                    throw new IOException("Unable to move "+tempFile+" to "+result);
+                }
+                if (retain) inUse.add(hash);
+            }
+            LOG.debug("Fetched {} into download cache as {} ({} bytes)", new Object[] {url, hash, result.length()});
+            synchronized (index) {
+                index.setProperty(url, hash+" "+System.currentTimeMillis());
+                saveIndex();
+            }
+            evictIfNecessary(result);
+            return result;
+        } catch (Exception e) {
+            tempFile.delete();
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * Whether the given URL may be installed to machines from the cache; only http(s) URLs, as other URLs
+     * (such as {@code file:} and {@code classpath:}) are resolved on the management node, and so would copy 
+     * its files to the machine.
+     */
+    public static boolean isCacheable(String url) {
+        String lower = url.toLowerCase(Locale.ENGLISH);
+        return lower.startsWith("http://") || lower.startsWith("https://");
+    }
+
+    /**
+     * Copies the cached contents of the first of the given URLs which can be fetched to the given path on the
+     * machine, verifying the checksum of the copy. The URLs must be {@link #isCacheable(String) cacheable}.
+     *
+     * @return the exit code of the copy (0 for success)
+     */
+    public int installTo(ResourceUtils resolver, SshMachineLocation machine, List<String> urls, String destination) {
+        for (String url : urls) {
+            if (!isCacheable(url)) throw new IllegalArgumentException("Download cache only installs http(s) URLs, not "+url);
+        }
+        File file = get(resolver, urls, true);
+        String hash = file.getName();
+        int result;
+        try {
+            result = machine.copyTo(file, destination);
+        } finally {
+            release(file);
+        }
+        if (result != 0) return result;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String path = BashStringEscapes.wrapBash(destination);
+        int checkResult = machine.execCommands(MutableMap.of(SshTool.PROP_OUT_STREAM.getName(), out, SshTool.PROP_NO_EXTRA_OUTPUT.getName(), true),
+                "verify checksum of "+destination,
+                ImmutableList.of("if which sha256sum > /dev/null 2>&1; then sha256sum "+path+" | cut -d' ' -f1; else echo unknown; fi"));
+        String remoteHash = new String(out.toByteArray()).trim();
+        if (checkResult != 0 || remoteHash.equals("unknown")) {
+            LOG.debug("Unable to verify checksum of {} on {} (continuing)", destination, machine);
+        } else if (!remoteHash.equals(hash)) {
+            throw new IllegalStateException("Checksum mismatch installing "+urls+" to "+machine+":"+destination+": expected "+hash+", got "+remoteHash);
+        }
+        return 0;
+    }
+
+    /** marks a file returned by {@link #get(ResourceUtils, List, boolean)} with {@code retain} as no longer in use */
+    private synchronized void release(File file) {
+        inUse.remove(file.getName());
+    }
+
+    /** counts of cache {@code hits}, upstream {@code fetches} and {@code evictions}, and the current {@code size} in bytes */
+    public Map<String, Object> getMetrics() {
+        return MutableMap.<String, Object>of("hits", hits.get(), "fetches", fetches.get(), "evictions", evictions.get(), "size", getSize());
+    }
+
+    private long getSize() {
+        long result = 0;
+        for (File file : listContentFiles()) result += file.length();
+        return result;
+    }
+
+    private File getContentFile(String hash) {
+        return new File(contentDir, hash);
+    }
+
+    private File[] listContentFiles() {
+        File[] result = contentDir.listFiles();
+        return (result == null) ? new File[0] : result;
+    }
+
+    /** 
+     * deletes the least recently used artifacts (other than the one just used, and those being copied to machines) 
+     * until the cache is within its size 
+     */
+    private synchronized void evictIfNecessary(File justUsed) {
+        File[] files = listContentFiles();
+        long size = 0;
+        for (File file : files) size += file.length();
+        if (size <= maxSize) return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }});
+        for (File file : files) {
+            if (size <= maxSize) break;
+            if (file.equals(justUsed) || inUse.contains(file.getName())) continue;
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+                evictions.incrementAndGet();
+                LOG.debug("Evicted {} from download cache ({} bytes)", file.getName(), length);
+            }
+        }
+    }
+
+    private void loadIndex() {
+        File indexFile = new File(dir, INDEX_FILE);
+        if (!indexFile.exists()) return;
+        try {
+            InputStream in = new FileInputStream(indexFile);
+            try {
+                index.load(in);
+            } finally {
+                Streams.closeQuietly(in);
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to load download cache index "+indexFile+" (continuing with an empty index): "+e);
+        }
+    }
+
+    private void saveIndex() {
+        File indexFile = new File(dir, INDEX_FILE);
+        File tempFile = new File(dir, INDEX_FILE+".tmp");
+        try {
+            OutputStream out = new FileOutputStream(tempFile);
+            try {
+                index.store(out, "Brooklyn download cache: url to sha256 of contents");
+            } finally {
+                Streams.closeQuietly(out);
+            }
+            if (!tempFile.renameTo(indexFile)) {
+                throw new IOException("Unable to move "+tempFile+" to "+indexFile);
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to save download cache index "+indexFile+" (continuing): "+e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"["+dir+"; maxSize="+maxSize+"]";
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.entity.lifecycle;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.core.entity.Attributes;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.collections.QuorumCheck;
+import org.apache.brooklyn.util.core.flags.TypeCoercions;
+import org.apache.brooklyn.util.text.Strings;
+
+import com.google.common.base.Objects;
+
+/**
+ * Running counts of the {@link Attributes#SERVICE_UP} and {@link Attributes#SERVICE_STATE_ACTUAL} values
+ * of the children and/or members of an entity, used by
+ * {@link ServiceStateLogic.ComputeServiceIndicatorsFromChildrenAndMembers} in incremental mode.
+ * <p>
+ * Each change to a single entity is applied in O(log n) (the log factor is only to keep track of the
+ * first violators, in the order the entities were added, for the messages), rather than recomputing
+ * over all entities on every event. The messages produced are the same as those of
+ * {@link ServiceStateLogic.ComputeServiceIndicatorsFromChildrenAndMembers#computeServiceNotUp()} and
+ * {@link ServiceStateLogic.ComputeServiceIndicatorsFromChildrenAndMembers#computeServiceProblems()}.
+ * <p>
+ * Instances are thread-safe.
+ */
+class ServiceIndicatorCounts {
+
+    private enum UpKind { ABSENT, IGNORED, UP, NOT_UP_IGNORED_STATE, VIOLATOR }
+    private enum StateKind { ABSENT, IGNORED, RUNNING, NOT_HEALTHY }
+
+    private static class Member {
+        final Entity entity;
+        boolean hasUp;
+        Boolean up;
+        long upSeq;
+        UpKind upKind = UpKind.ABSENT;
+
+        boolean hasState;
+        Lifecycle state;
+        long stateSeq;
+        StateKind stateKind = StateKind.ABSENT;
+
+        Member(Entity entity) {
+            this.entity = entity;
+        }
+    }
+
+    private final Map<Entity, Member> members = MutableMap.of();
+    private long nextSeq = 0;
+
+    private boolean ignoreNull;
+    private Set<Lifecycle> ignoreStates;
+
+    // service up
+    private int upSize;
+    private int upEntries;
+    private int numUp;
+    private final TreeMap<Long, Entity> upViolators = new TreeMap<Long, Entity>();
+
+    // service state
+    private int numRunning;
+    private final TreeMap<Long, Entity> notHealthy = new TreeMap<Long, Entity>();
+
+    ServiceIndicatorCounts(boolean ignoreNull, Set<Lifecycle> ignoreStates) {
+        this.ignoreNull = ignoreNull;
+        this.ignoreStates = ignoreStates;
+    }
+
+    /**
+     * Applies the given config; if it differs from that previously used, all entities are re-classified
+     * (the only O(n) operation, only needed on reconfiguration).
+     */
+    synchronized void setConfig(boolean ignoreNull, Set<Lifecycle> ignoreStates) {
+        if (this.ignoreNull == ignoreNull && Objects.equal(this.ignoreStates, ignoreStates)) return;
+        this.ignoreNull = ignoreNull;
+        this.ignoreStates = ignoreStates;
+        for (Member m : members.values()) {
+            reclassify(m);
+        }
+    }
+
+    /** Records the initial values of an entity, unless it already has (non-null) values, mirroring {@code onProducerAdded}. */
+    synchronized void onAdded(Entity entity, Object initialUp, Object initialState) {
+        Member m = getOrCreate(entity);
+        boolean changed = false;
+        if (!m.hasUp || m.up == null) {
+            setUpUnclassified(m, initialUp);
+            changed = true;
+        }
+        if (!m.hasState || m.state == null) {
+            setStateUnclassified(m, initialState);
+            changed = true;
+        }
+        if (changed) reclassify(m);
+    }
+
+    synchronized void onRemoved(Entity entity) {
+        Member m = members.remove(entity);
+        if (m != null) {
+            m.hasUp = false;
+            m.hasState = false;
+            reclassify(m);
+        }
+    }
+
+    synchronized void onServiceUp(Entity entity, Object value) {
+        Member m = getOrCreate(entity);
+        setUpUnclassified(m, value);
+        reclassify(m);
+    }
+
+    synchronized void onServiceState(Entity entity, Object value) {
+        Member m = getOrCreate(entity);
+        setStateUnclassified(m, value);
+        // up classification also depends on the state, so reclassify both
+        reclassify(m);
+    }
+
+    /** @see ServiceStateLogic.ComputeServiceIndicatorsFromChildrenAndMembers#computeServiceNotUp() */
+    synchronized Object computeServiceNotUp(QuorumCheck qc) {
+        int violators = upViolators.size();
+        if (qc!=null) {
+            if (qc.isQuorate(numUp, violators+numUp))
+                // quorate
+                return null;
+
+            if (upSize==0) return "No entities present";
+            if (upEntries==0) return "No entities publishing service up";
+            if (violators==0) return "Not enough entities";
+        } else {
+            if (violators==0)
+                return null;
+        }
+
+        Entity first = upViolators.firstEntry().getValue();
+        if (violators==1) return first+" is not up";
+        if (violators==upEntries) return "None of the entities are up";
+        return violators+" entities are not up, including "+first;
+    }
+
+    /** @see ServiceStateLogic.ComputeServiceIndicatorsFromChildrenAndMembers#computeServiceProblems() */
+    synchronized Object computeServiceProblems(QuorumCheck qc) {
+        int unhealthy = notHealthy.size();
+        if (qc!=null) {
+            if (qc.isQuorate(numRunning, unhealthy+numRunning))
+                // quorate
+                return null;
+
+            if (unhealthy==0)
+                return "Not enough entities running to be quorate";
+        } else {
+            if (unhealthy==0)
+                return null;
+        }
+
+        if (unhealthy>3) {
+            return "Required entit"+Strings.ies(unhealthy)+" not healthy: "+
+                notHealthy.firstEntry().getValue()+" and "+(unhealthy-1)+" others";
+        }
+        return "Required entit"+Strings.ies(unhealthy)+" not healthy: "+Strings.join(notHealthy.values(), ", ");
+    }
+
+    private Member getOrCreate(Entity entity) {
+        Member m = members.get(entity);
+        if (m == null) {
+            m = new Member(entity);
+            members.put(entity, m);
+        }
+        return m;
+    }
+
+    private void setUpUnclassified(Member m, Object value) {
+        if (!m.hasUp) {
+            // as with a LinkedHashMap, order is that of first insertion (or re-insertion after removal)
+            m.hasUp = true;
+            m.upSeq = nextSeq++;
+        }
+        m.up = (Boolean) TypeCoercions.coerce(value, Boolean.class);
+    }
+
+    private void setStateUnclassified(Member m, Object value) {
+        if (!m.hasState) {
+            m.hasState = true;
+            m.stateSeq = nextSeq++;
+        }
+        m.state = (Lifecycle) TypeCoercions.coerce(value, Lifecycle.class);
+    }
+
+    private void reclassify(Member m) {
+        // remove old contributions
+        switch (m.upKind) {
+        case ABSENT: break;
+        case IGNORED: upSize--; break;
+        case UP: upSize--; upEntries--; numUp--; break;
+        case NOT_UP_IGNORED_STATE: upSize--; upEntries--; break;
+        case VIOLATOR: upSize--; upEntries--; upViolators.remove(m.upSeq); break;
+        }
+        switch (m.stateKind) {
+        case ABSENT: break;
+        case IGNORED: break;
+        case RUNNING: numRunning--; break;
+        case NOT_HEALTHY: notHealthy.remove(m.stateSeq); break;
+        }
+
+        m.upKind = classifyUp(m);
+        m.stateKind = classifyState(m);
+
+        // add new contributions
+        switch (m.upKind) {
+        case ABSENT: break;
+        case IGNORED: upSize++; break;
+        case UP: upSize++; upEntries++; numUp++; break;
+        case NOT_UP_IGNORED_STATE: upSize++; upEntries++; break;
+        case VIOLATOR: upSize++; upEntries++; upViolators.put(m.upSeq, m.entity); break;
+        }
+        switch (m.stateKind) {
+        case ABSENT: break;
+        case IGNORED: break;
+        case RUNNING: numRunning++; break;
+        case NOT_HEALTHY: notHealthy.put(m.stateSeq, m.entity); break;
+        }
+    }
+
+    private UpKind classifyUp(Member m) {
+        if (!m.hasUp) return UpKind.ABSENT;
+        if (ignoreNull && m.up==null) return UpKind.IGNORED;
+        if (Boolean.TRUE.equals(m.up)) return UpKind.UP;
+        // as in the full computation, consult the entity's current state (not just the last one we were told about)
+        Lifecycle entityState = m.entity.getAttribute(Attributes.SERVICE_STATE_ACTUAL);
+        if (ignoreStates.contains(entityState)) return UpKind.NOT_UP_IGNORED_STATE;
+        return UpKind.VIOLATOR;
+    }
+
+    private StateKind classifyState(Member m) {
+        if (!m.hasState) return StateKind.ABSENT;
+        if (m.state==Lifecycle.RUNNING) return StateKind.RUNNING;
+        if (ignoreStates.contains(m.state)) return StateKind.IGNORED;
+        return StateKind.NOT_HEALTHY;
+    }
+}
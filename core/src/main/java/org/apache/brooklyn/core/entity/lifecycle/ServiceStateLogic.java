@@ -66,6 +66,7 @@ import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Preconditions;
@@ -406,6 +407,13 @@ public class ServiceStateLogic {
             "enricher.service_state.children_and_members.ignore_entities.service_state_values", 
             "Service states (including null) which indicate an entity should be ignored when looking at children service states; anything apart from RUNNING not in this list will be treated as not healthy (by default just ON_FIRE will mean not healthy)", 
             MutableSet.<Lifecycle>builder().addAll(Lifecycle.values()).add(null).remove(Lifecycle.RUNNING).remove(Lifecycle.ON_FIRE).build().asUnmodifiable());
+        @Beta
+        public static final ConfigKey<Boolean> INCREMENTAL = ConfigKeys.newBooleanConfigKey("enricher.service_state.children_and_members.incremental", 
+            "Whether to keep running counts of the children and members' states, updated on each event, "
+            + "rather than recomputing over all of them on every event (recommended for large clusters)", false);
+
+        /** non-null iff {@link #INCREMENTAL} is set; access via {@link #getCounts()} */
+        private transient volatile ServiceIndicatorCounts counts;
 
         protected String getKeyForMapSensor() {
             return Preconditions.checkNotNull(super.getUniqueTag());
@@ -466,6 +474,54 @@ public class ServiceStateLogic {
             return SOURCE_SENSORS;
         }
 
+        protected boolean isIncremental() {
+            return Boolean.TRUE.equals(getConfig(INCREMENTAL));
+        }
+
+        /** returns the running counts if in {@link #INCREMENTAL} mode, otherwise null */
+        protected ServiceIndicatorCounts getCounts() {
+            if (counts==null && isIncremental()) {
+                synchronized (this) {
+                    if (counts==null) {
+                        counts = new ServiceIndicatorCounts(getConfig(IGNORE_ENTITIES_WITH_SERVICE_UP_NULL), getConfig(IGNORE_ENTITIES_WITH_THESE_SERVICE_STATES));
+                    }
+                }
+            }
+            return counts;
+        }
+
+        @Override
+        protected void onProducerAdded(Entity producer) {
+            super.onProducerAdded(producer);
+            ServiceIndicatorCounts c = getCounts();
+            if (c!=null) {
+                Object up = producer.getAttribute(SERVICE_UP);
+                Object state = producer.getAttribute(SERVICE_STATE_ACTUAL);
+                c.onAdded(producer, up!=null ? up : defaultMemberValue, state!=null ? state : defaultMemberValue);
+            }
+        }
+
+        @Override
+        protected void onProducerRemoved(Entity producer) {
+            // update counts first, as the superclass triggers onUpdated
+            ServiceIndicatorCounts c = getCounts();
+            if (c!=null) c.onRemoved(producer);
+            super.onProducerRemoved(producer);
+        }
+
+        @Override
+        public void onEvent(SensorEvent<Object> event) {
+            ServiceIndicatorCounts c = getCounts();
+            if (c!=null && event!=null && entityFilter.apply(event.getSource())) {
+                if (SERVICE_UP.getName().equals(event.getSensor().getName())) {
+                    c.onServiceUp(event.getSource(), event.getValue());
+                } else if (SERVICE_STATE_ACTUAL.getName().equals(event.getSensor().getName())) {
+                    c.onServiceState(event.getSource(), event.getValue());
+                }
+            }
+            super.onEvent(event);
+        }
+
         @Override
         protected void onUpdated() {
             if (entity==null || !Entities.isManaged(entity)) {
@@ -486,6 +542,12 @@ public class ServiceStateLogic {
         }
 
         protected Object computeServiceNotUp() {
+            ServiceIndicatorCounts c = getCounts();
+            if (c!=null) {
+                c.setConfig(getConfig(IGNORE_ENTITIES_WITH_SERVICE_UP_NULL), getConfig(IGNORE_ENTITIES_WITH_THESE_SERVICE_STATES));
+                return c.computeServiceNotUp(getConfig(UP_QUORUM_CHECK));
+            }
+            
             Map<Entity, Boolean> values = getValues(SERVICE_UP);
             List<Entity> violators = MutableList.of();
             boolean ignoreNull = getConfig(IGNORE_ENTITIES_WITH_SERVICE_UP_NULL);
@@ -524,6 +586,12 @@ public class ServiceStateLogic {
         }
 
         protected Object computeServiceProblems() {
+            ServiceIndicatorCounts c = getCounts();
+            if (c!=null) {
+                c.setConfig(getConfig(IGNORE_ENTITIES_WITH_SERVICE_UP_NULL), getConfig(IGNORE_ENTITIES_WITH_THESE_SERVICE_STATES));
+                return c.computeServiceProblems(getConfig(RUNNING_QUORUM_CHECK));
+            }
+            
             Map<Entity, Lifecycle> values = getValues(SERVICE_STATE_ACTUAL);
             int numRunning=0;
             List<Entity> onesNotHealthy=MutableList.of();
@@ -613,6 +681,13 @@ public class ServiceStateLogic {
             return self();
         }
         
+        /** @see ComputeServiceIndicatorsFromChildrenAndMembers#INCREMENTAL */
+        @Beta
+        public ComputeServiceIndicatorsFromChildrenAndMembersSpec incremental(boolean val) {
+            configure(ComputeServiceIndicatorsFromChildrenAndMembers.INCREMENTAL, val);
+            return self();
+        }
+
         public ComputeServiceIndicatorsFromChildrenAndMembersSpec entityFilter(Predicate<? super Entity> val) {
             configure(ComputeServiceIndicatorsFromChildrenAndMembers.ENTITY_FILTER, val);
             return self();
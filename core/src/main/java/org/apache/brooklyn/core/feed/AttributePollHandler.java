@@ -76,6 +76,11 @@ public class AttributePollHandler<V> implements PollHandler<V> {
         this.suppressDuplicates = config.getSupressDuplicates();
     }
 
+    /** the sensor set by this handler */
+    public AttributeSensor<?> getSensor() {
+        return sensor;
+    }
+
     @Override
     public boolean checkSuccess(V val) {
         // Always true if no checkSuccess predicate was configured.
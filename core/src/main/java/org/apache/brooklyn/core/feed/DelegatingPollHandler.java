@@ -36,6 +36,10 @@ public class DelegatingPollHandler<V> implements PollHandler<V> {
         this.delegates = ImmutableList.copyOf(delegates);
     }
 
+    public List<AttributePollHandler<? super V>> getDelegates() {
+        return delegates;
+    }
+
     @Override
     public boolean checkSuccess(V val) {
         for (AttributePollHandler<? super V> delegate : delegates) {
@@ -26,6 +26,8 @@ import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.time.Duration;
 
+import com.google.common.annotations.Beta;
+
 /**
  * Configuration for polling, which is being added to a feed (e.g. to poll a given URL over http).
  * 
@@ -34,6 +36,7 @@ import org.apache.brooklyn.util.time.Duration;
 public class PollConfig<V, T, F extends PollConfig<V, T, F>> extends FeedConfig<V, T, F> {
 
     private long period = -1;
+    private long maxPeriod = -1;
     private String description;
 
     public PollConfig(AttributeSensor<T> sensor) {
@@ -43,6 +46,7 @@ public class PollConfig<V, T, F extends PollConfig<V, T, F>> extends FeedConfig<
     public PollConfig(PollConfig<V,T,F> other) {
         super(other);
         this.period = other.period;
+        this.maxPeriod = other.maxPeriod;
     }
 
     public long getPeriod() {
@@ -65,6 +69,47 @@ public class PollConfig<V, T, F extends PollConfig<V, T, F>> extends FeedConfig<
         return period(units.toMillis(val));
     }
     
+    /**
+     * Polls adaptively: starting at (and never more often than) {@code minPeriod}, the period doubles after 
+     * each poll in which nothing changed, up to {@code maxPeriod}, and returns to {@code minPeriod} when a polled 
+     * value or the entity's service up or lifecycle state changes. Stable values are thus polled rarely, 
+     * without delaying the detection of changes for long.
+     * <p>
+     * Where several sensors are set from the same poll, it is adaptive only if all of their configs are.
+     */
+    @Beta
+    public F adaptivePeriod(Duration minPeriod, Duration maxPeriod) {
+        checkArgument(maxPeriod.compareTo(minPeriod) >= 0, "maxPeriod must be at least minPeriod");
+        period(minPeriod);
+        this.maxPeriod = maxPeriod.toMilliseconds();
+        return self();
+    }
+    
+    /** the longest period of an adaptive poll (see {@link #adaptivePeriod(Duration, Duration)}), or -1 if the period is fixed */
+    @Beta
+    public long getMaxPeriod() {
+        return maxPeriod;
+    }
+    
+    @Beta
+    public boolean isAdaptive() {
+        return maxPeriod > 0;
+    }
+    
+    /**
+     * The longest period with which to poll for all of the given configs (the smallest of their max periods),
+     * or null if any of them is not adaptive.
+     */
+    @Beta
+    public static Duration getAdaptiveMaxPeriod(Iterable<? extends PollConfig<?,?,?>> configs) {
+        long result = Long.MAX_VALUE;
+        for (PollConfig<?,?,?> config : configs) {
+            if (!config.isAdaptive()) return null;
+            result = Math.min(result, config.getMaxPeriod());
+        }
+        return (result == Long.MAX_VALUE) ? null : Duration.millis(result);
+    }
+    
     public F description(String description) {
         this.description = description;
         return self();
@@ -80,6 +125,6 @@ public class PollConfig<V, T, F extends PollConfig<V, T, F>> extends FeedConfig<
 
     @Override
     protected MutableList<Object> equalsFields() {
-        return super.equalsFields().appendIfNotNull(period);
+        return super.equalsFields().appendIfNotNull(period).appendIfNotNull(maxPeriod);
     }
 }
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.feed;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.config.StringConfigMap;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Settings and bookkeeping shared by the {@link Poller}s of all feeds in a management context.
+ * <p>
+ * This supplies:
+ * <ul>
+ *   <li>the jitter applied to each poll's period (see {@link #POLL_JITTER}), so that polls started
+ *       together (e.g. on rebind) drift apart rather than all firing at the same instant each period;
+ *   <li>a bound on the number of concurrent polls of the same target host (see {@link #MAX_CONCURRENT_POLLS_PER_TARGET});
+ *       a poll which would exceed this is skipped, rather than blocking a thread, and runs at its next period;
+ *   <li>metrics on how long polls waited for a thread after being due (scheduling lag), and on skipped polls.
+ * </ul>
+ */
+@Beta
+public class PollScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PollScheduler.class);
+
+    public static final ConfigKey<Double> POLL_JITTER = ConfigKeys.newDoubleConfigKey(
+            "brooklyn.feed.poll.jitter",
+            "Fraction of the period by which each poll's next run is randomly brought forward or delayed, between 0 (none) and 1",
+            0.1);
+
+    public static final ConfigKey<Integer> MAX_CONCURRENT_POLLS_PER_TARGET = ConfigKeys.newIntegerConfigKey(
+            "brooklyn.feed.poll.maxConcurrentPerTarget",
+            "Maximum number of concurrent polls of the same target host, for feeds which report their target; 0 for no limit",
+            0);
+
+    private static final String POLL_SCHEDULER_ATTRIBUTE = PollScheduler.class.getName();
+
+    /** the scheduler for the given management context, created if necessary (or a default one if null) */
+    public static PollScheduler get(ManagementContext mgmt) {
+        if (mgmt == null) return new PollScheduler(null);
+        synchronized (mgmt) {
+            ConfigKey<PollScheduler> key = ConfigKeys.newConfigKey(PollScheduler.class, POLL_SCHEDULER_ATTRIBUTE);
+            PollScheduler result = mgmt.getConfig().getConfig(key);
+            if (result == null) {
+                result = new PollScheduler(mgmt.getConfig());
+                ((BrooklynProperties) mgmt.getConfig()).put(key, result);
+            }
+            return result;
+        }
+    }
+
+    private final double jitter;
+    private final int maxConcurrentPerTarget;
+    private final ConcurrentMap<Object, AtomicInteger> activePollsByTarget = new ConcurrentHashMap<Object, AtomicInteger>();
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong lagCount = new AtomicLong();
+    private final AtomicLong totalLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    protected PollScheduler(StringConfigMap config) {
+        Double jitterVal = (config == null) ? POLL_JITTER.getDefaultValue() : config.getConfig(POLL_JITTER);
+        Integer maxVal = (config == null) ? MAX_CONCURRENT_POLLS_PER_TARGET.getDefaultValue() : config.getConfig(MAX_CONCURRENT_POLLS_PER_TARGET);
+        double j = (jitterVal == null) ? 0 : jitterVal;
+        if (j < 0 || j > 1) {
+            log.warn("Invalid poll jitter "+j+"; must be between 0 and 1; using no jitter");
+            j = 0;
+        }
+        this.jitter = j;
+        this.maxConcurrentPerTarget = (maxVal == null) ? 0 : maxVal;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public int getMaxConcurrentPollsPerTarget() {
+        return maxConcurrentPerTarget;
+    }
+
+    /**
+     * Records the start of a poll of the given target (which may be null, if unknown), returning false
+     * if the poll should be skipped because the target already has the maximum number of concurrent polls.
+     * If this returns true, the caller must call {@link #onPollEnded(Object)}.
+     */
+    public boolean tryStartPoll(Object target) {
+        if (target == null || maxConcurrentPerTarget <= 0) {
+            pollCount.incrementAndGet();
+            return true;
+        }
+        AtomicInteger active = activePollsByTarget.get(target);
+        if (active == null) {
+            AtomicInteger newActive = new AtomicInteger();
+            active = activePollsByTarget.putIfAbsent(target, newActive);
+            if (active == null) active = newActive;
+        }
+        if (active.incrementAndGet() > maxConcurrentPerTarget) {
+            active.decrementAndGet();
+            skippedCount.incrementAndGet();
+            return false;
+        }
+        pollCount.incrementAndGet();
+        return true;
+    }
+
+    public void onPollEnded(Object target) {
+        if (target == null || maxConcurrentPerTarget <= 0) return;
+        AtomicInteger active = activePollsByTarget.get(target);
+        if (active != null) active.decrementAndGet();
+    }
+
+    /** records the time between a poll being due and it starting */
+    public void recordLag(long lagMillis) {
+        if (lagMillis < 0) return;
+        lagCount.incrementAndGet();
+        totalLagMillis.addAndGet(lagMillis);
+        while (true) {
+            long max = maxLagMillis.get();
+            if (lagMillis <= max || maxLagMillis.compareAndSet(max, lagMillis)) break;
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        // lag is recorded for every poll that was due, including those then skipped
+        long lags = lagCount.get();
+        return MutableMap.<String, Object>of(
+                "polls", pollCount.get(),
+                "skipped", skippedCount.get(),
+                "lag.mean", (lags == 0) ? 0 : totalLagMillis.get() / lags,
+                "lag.max", maxLagMillis.get());
+    }
+
+    @Override
+    public String toString() {
+        return "PollScheduler[jitter="+jitter+"; maxConcurrentPerTarget="+maxConcurrentPerTarget+"; "+getMetrics()+"]";
+    }
+}
@@ -18,17 +18,31 @@
  */
 package org.apache.brooklyn.core.feed;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.brooklyn.api.entity.EntityLocal;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
 import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.objs.BrooklynObject.SubscriptionSupport;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.Sensor;
+import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.api.sensor.SensorEventListener;
 import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.DynamicSequentialTask;
 import org.apache.brooklyn.util.core.task.ScheduledTask;
@@ -38,7 +52,13 @@ import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 
 /** 
@@ -57,39 +77,163 @@ public class Poller<V> {
     private final Set<PollJob<V>> pollJobs = new LinkedHashSet<PollJob<V>>();
     private final Set<Task<?>> oneOffTasks = new LinkedHashSet<Task<?>>();
     private final Set<ScheduledTask> tasks = new LinkedHashSet<ScheduledTask>();
+    private final List<SubscriptionHandle> subscriptions = MutableList.of();
     private volatile boolean started = false;
     
+    /** factor by which the period of an adaptive poll grows after each poll in which nothing changed */
+    @VisibleForTesting
+    static final double ADAPTIVE_BACKOFF_FACTOR = 2;
+    
     private static class PollJob<V> {
         final PollHandler<? super V> handler;
         final Duration pollPeriod;
-        final Runnable wrappedJob;
-        private boolean loggedPreviousException = false;
+        /** the longest period of an adaptive poll, or null if the period is fixed */
+        final Duration maxPollPeriod;
+        final Supplier<?> targetSupplier;
+        final Callable<V> job;
+        final Callable<? extends ListenableFuture<V>> asyncJob;
+        final AtomicBoolean asyncPollInProgress = new AtomicBoolean();
+        private volatile boolean loggedPreviousException = false;
+        volatile ScheduledTask scheduledTask;
+        private Duration currentPeriod;
+        private List<Object> lastObserved;
         
-        PollJob(final Callable<V> job, final PollHandler<? super V> handler, Duration period) {
+        PollJob(Callable<V> job, Callable<? extends ListenableFuture<V>> asyncJob, PollHandler<? super V> handler, Duration period, Duration maxPeriod, Supplier<?> targetSupplier) {
+            this.job = job;
+            this.asyncJob = asyncJob;
             this.handler = handler;
             this.pollPeriod = period;
+            this.maxPollPeriod = (maxPeriod != null && maxPeriod.compareTo(period) > 0) ? maxPeriod : null;
+            this.targetSupplier = targetSupplier;
+            this.currentPeriod = period;
+        }
+        
+        /**
+         * For an adaptive poll, called after each poll with what it observed: backs off the period while
+         * the observations are unchanged, and returns to the shortest period when they change.
+         */
+        synchronized void adapt(List<Object> observed) {
+            ScheduledTask task = scheduledTask;
+            if (maxPollPeriod == null || task == null) return;
+            boolean changed = lastObserved != null && !lastObserved.equals(observed);
+            lastObserved = observed;
+            Duration newPeriod = nextAdaptivePeriod(currentPeriod, changed, pollPeriod, maxPollPeriod);
+            if (!newPeriod.equals(currentPeriod)) {
+                if (log.isTraceEnabled()) log.trace("Adaptive poll {} period now {} (was {})", new Object[] {handler.getDescription(), newPeriod, currentPeriod});
+                currentPeriod = newPeriod;
+                // an async poll adapts after the next poll has been scheduled, so bring that forward if now due sooner
+                task.periodFromNow(newPeriod);
+            }
+        }
+        
+        /** For an adaptive poll, returns to the shortest period now, rather than after the next poll. */
+        synchronized void resetPeriod() {
+            ScheduledTask task = scheduledTask;
+            if (maxPollPeriod == null || task == null || currentPeriod.equals(pollPeriod)) return;
+            if (log.isTraceEnabled()) log.trace("Adaptive poll {} period reset to {} (was {})", new Object[] {handler.getDescription(), pollPeriod, currentPeriod});
+            currentPeriod = pollPeriod;
+            task.periodFromNow(pollPeriod);
+        }
+        
+        /**
+         * Runs the job, calling the handler with the result then {@code onPolled}, then calls {@code onEnded}.
+         * For async jobs this returns once the job has been started, and the handler, {@code onPolled} and {@code onEnded}
+         * are run by {@code callbackExecutor} when its future completes (rather than in the thread completing
+         * the future, which may be an I/O thread); a poll is skipped if the previous one has not yet completed,
+         * in which case only {@code onEnded} is called.
+         */
+        void run(final Runnable onPolled, final Runnable onEnded, Executor callbackExecutor) {
+            if (asyncJob == null) {
+                try {
+                    V val = job.call();
+                    onResult(val);
+                } catch (Exception e) {
+                    onException(e);
+                } finally {
+                    try {
+                        onPolled.run();
+                    } finally {
+                        onEnded.run();
+                    }
+                }
+                return;
+            }
             
-            wrappedJob = new Runnable() {
-                public void run() {
+            if (!asyncPollInProgress.compareAndSet(false, true)) {
+                if (log.isTraceEnabled()) log.trace("PollJob for {} skipped; previous poll still in progress", asyncJob);
+                onEnded.run();
+                return;
+            }
+            ListenableFuture<V> future;
+            try {
+                future = asyncJob.call();
+            } catch (Exception e) {
+                asyncPollInProgress.set(false);
+                onEnded.run();
+                onException(e);
+                return;
+            }
+            Futures.addCallback(future, new FutureCallback<V>() {
+                @Override public void onSuccess(V val) {
+                    try {
+                        onResult(val);
+                        onPolled.run();
+                    } finally {
+                        asyncPollInProgress.set(false);
+                        onEnded.run();
+                    }
+                }
+                @Override public void onFailure(Throwable t) {
                     try {
-                        V val = job.call();
-                        loggedPreviousException = false;
-                        if (handler.checkSuccess(val)) {
-                            handler.onSuccess(val);
-                        } else {
-                            handler.onFailure(val);
-                        }
-                    } catch (Exception e) {
-                        if (loggedPreviousException) {
-                            if (log.isTraceEnabled()) log.trace("PollJob for {}, repeated consecutive failures, handling {} using {}", new Object[] {job, e, handler});
-                        } else {
-                            if (log.isDebugEnabled()) log.debug("PollJob for {} handling {} using {}", new Object[] {job, e, handler});
-                            loggedPreviousException = true;
-                        }
-                        handler.onException(e);
+                        onException((t instanceof Exception) ? (Exception)t : new ExecutionException(t));
+                        onPolled.run();
+                    } finally {
+                        asyncPollInProgress.set(false);
+                        onEnded.run();
                     }
                 }
-            };
+            }, rejectionHandling(callbackExecutor, onEnded));
+        }
+        
+        /**
+         * Wraps the executor so that if it rejects the completion callback (e.g. during shutdown), the poll is still
+         * ended, rather than the poll staying in progress and counted against its target for ever.
+         */
+        private Executor rejectionHandling(final Executor executor, final Runnable onEnded) {
+            return new Executor() {
+                @Override public void execute(Runnable command) {
+                    try {
+                        executor.execute(command);
+                    } catch (RejectedExecutionException e) {
+                        if (log.isDebugEnabled()) log.debug("Result of poll {} not handled, as rejected by executor: {}", asyncJob, e);
+                        asyncPollInProgress.set(false);
+                        onEnded.run();
+                    }
+                }};
+        }
+        
+        private void onResult(V val) {
+            try {
+                loggedPreviousException = false;
+                if (handler.checkSuccess(val)) {
+                    handler.onSuccess(val);
+                } else {
+                    handler.onFailure(val);
+                }
+            } catch (Exception e) {
+                onException(e);
+            }
+        }
+        
+        private void onException(Exception e) {
+            Object description = (asyncJob != null) ? asyncJob : job;
+            if (loggedPreviousException) {
+                if (log.isTraceEnabled()) log.trace("PollJob for {}, repeated consecutive failures, handling {} using {}", new Object[] {description, e, handler});
+            } else {
+                if (log.isDebugEnabled()) log.debug("PollJob for {} handling {} using {}", new Object[] {description, e, handler});
+                loggedPreviousException = true;
+            }
+            handler.onException(e);
         }
     }
     
@@ -115,10 +259,68 @@ public class Poller<V> {
         scheduleAtFixedRate(job, handler, Duration.millis(period));
     }
     public void scheduleAtFixedRate(Callable<V> job, PollHandler<? super V> handler, Duration period) {
+        scheduleAtFixedRate(job, handler, period, null);
+    }
+    /**
+     * As {@link #scheduleAtFixedRate(Callable, PollHandler, Duration)}, but with a supplier of the target
+     * (typically a host name) which the job polls, evaluated before each poll; concurrent polls of the same target 
+     * are limited by {@link PollScheduler#MAX_CONCURRENT_POLLS_PER_TARGET}.
+     */
+    public void scheduleAtFixedRate(Callable<V> job, PollHandler<? super V> handler, long period, Supplier<?> targetSupplier) {
+        scheduleAtFixedRate(job, handler, Duration.millis(period), targetSupplier);
+    }
+    public void scheduleAtFixedRate(Callable<V> job, PollHandler<? super V> handler, Duration period, Supplier<?> targetSupplier) {
+        if (started) {
+            throw new IllegalStateException("Cannot schedule additional tasks after poller has started");
+        }
+        PollJob<V> foo = new PollJob<V>(checkNotNull(job, "job"), null, handler, period, null, targetSupplier);
+        pollJobs.add(foo);
+    }
+    /**
+     * As {@link #scheduleAtFixedRate(Callable, PollHandler, Duration, Supplier)}, but with a period which adapts to
+     * how often the polled values change: each poll after which none of the handler's sensors, nor the entity's
+     * {@link Attributes#SERVICE_UP} or {@link Attributes#SERVICE_STATE_ACTUAL}, has changed increases the period
+     * (up to {@code maxPeriod}); any change returns it to {@code minPeriod}. A change to the entity's service up or state
+     * does so as soon as it happens, rather than at the next poll (which may be up to {@code maxPeriod} later).
+     * <p>
+     * If {@code maxPeriod} is null (or no more than {@code minPeriod}), the period is fixed.
+     * 
+     * @see PollConfig#adaptivePeriod(Duration, Duration)
+     */
+    @Beta
+    public void scheduleAdaptive(Callable<V> job, PollHandler<? super V> handler, Duration minPeriod, Duration maxPeriod, Supplier<?> targetSupplier) {
+        if (started) {
+            throw new IllegalStateException("Cannot schedule additional tasks after poller has started");
+        }
+        PollJob<V> foo = new PollJob<V>(checkNotNull(job, "job"), null, handler, minPeriod, maxPeriod, targetSupplier);
+        pollJobs.add(foo);
+    }
+    /**
+     * As {@link #scheduleAtFixedRate(Callable, PollHandler, Duration, Supplier)}, but for a job which starts
+     * a poll without blocking (e.g. with an {@link org.apache.brooklyn.util.http.executor.AsyncHttpExecutor}),
+     * returning a future for its result. The handler is called when the future completes, so no thread is held
+     * while waiting; it runs in a task in the entity's execution context, not in the thread completing the future.
+     * <p>
+     * A poll is skipped if the previous poll of the job has not yet completed.
+     */
+    @Beta
+    public void scheduleAsyncAtFixedRate(Callable<? extends ListenableFuture<V>> job, PollHandler<? super V> handler, Duration period, Supplier<?> targetSupplier) {
+        if (started) {
+            throw new IllegalStateException("Cannot schedule additional tasks after poller has started");
+        }
+        PollJob<V> foo = new PollJob<V>(null, checkNotNull(job, "job"), handler, period, null, targetSupplier);
+        pollJobs.add(foo);
+    }
+    /**
+     * As {@link #scheduleAsyncAtFixedRate(Callable, PollHandler, Duration, Supplier)}, but with a period which 
+     * adapts to how often the polled values change, as described for {@link #scheduleAdaptive(Callable, PollHandler, Duration, Duration, Supplier)}.
+     */
+    @Beta
+    public void scheduleAsyncAdaptive(Callable<? extends ListenableFuture<V>> job, PollHandler<? super V> handler, Duration minPeriod, Duration maxPeriod, Supplier<?> targetSupplier) {
         if (started) {
             throw new IllegalStateException("Cannot schedule additional tasks after poller has started");
         }
-        PollJob<V> foo = new PollJob<V>(job, handler, period);
+        PollJob<V> foo = new PollJob<V>(null, checkNotNull(job, "job"), handler, minPeriod, maxPeriod, targetSupplier);
         pollJobs.add(foo);
     }
 
@@ -134,6 +336,18 @@ public class Poller<V> {
         }
         
         started = true;
+        final PollScheduler scheduler = PollScheduler.get(((EntityInternal)entity).getManagementContext());
+        final Executor asyncResultExecutor = new Executor() {
+            @Override public void execute(Runnable command) {
+                Task<?> task = Tasks.builder().dynamic(false).displayName("Poll result").body(command).build();
+                BrooklynTaskTags.setTransient(task);
+                try {
+                    ((EntityInternal)entity).getExecutionContext().submit(task);
+                } catch (IllegalStateException e) {
+                    // e.g. management context no longer running
+                    throw new RejectedExecutionException(e);
+                }
+            }};
         
         for (final Callable<?> oneOffJob : oneOffJobs) {
             Task<?> task = Tasks.builder().dynamic(false).body((Callable<Object>) oneOffJob).displayName("Poll").description("One-time poll job "+oneOffJob).build();
@@ -153,7 +367,22 @@ public class Poller<V> {
                                 if (onlyIfServiceUp && !Boolean.TRUE.equals(entity.getAttribute(Attributes.SERVICE_UP))) {
                                     return null;
                                 }
-                                pollJob.wrappedJob.run();
+                                Task<?> current = Tasks.current();
+                                if (current != null && current.getSubmitTimeUtc() > 0) {
+                                    scheduler.recordLag(current.getStartTimeUtc() - current.getSubmitTimeUtc());
+                                }
+                                final Object target = getTarget(pollJob);
+                                if (!scheduler.tryStartPoll(target)) {
+                                    if (log.isTraceEnabled()) log.trace("Skipping poll {} for {}; too many concurrent polls of {}", new Object[] {scheduleName, entity, target});
+                                    return null;
+                                }
+                                pollJob.run(new Runnable() {
+                                    @Override public void run() {
+                                        if (pollJob.maxPollPeriod != null) pollJob.adapt(observe(pollJob));
+                                    }}, new Runnable() {
+                                    @Override public void run() {
+                                        scheduler.onPollEnded(target);
+                                    }}, asyncResultExecutor);
                                 return null; 
                             } } );
                         BrooklynTaskTags.setTransient(task);
@@ -163,12 +392,86 @@ public class Poller<V> {
                 Map<String, ?> taskFlags = MutableMap.of("displayName", "scheduled:" + scheduleName);
                 ScheduledTask task = new ScheduledTask(taskFlags, pollingTaskFactory)
                         .period(pollJob.pollPeriod)
+                        .jitter(scheduler.getJitter())
                         .cancelOnException(false);
+                pollJob.scheduledTask = task;
                 tasks.add(Entities.submit(entity, task));
             } else {
                 if (log.isDebugEnabled()) log.debug("Activating poll (but leaving off, as period {}) for {} (using {})", new Object[] {pollJob.pollPeriod, entity, this});
             }
         }
+        subscribeToServiceState();
+    }
+    
+    /** 
+     * For adaptive polls, subscribes to the entity's {@link Attributes#SERVICE_UP} and {@link Attributes#SERVICE_STATE_ACTUAL}, 
+     * returning the polls to their shortest period when either changes.
+     */
+    private void subscribeToServiceState() {
+        boolean anyAdaptive = false;
+        for (PollJob<V> pollJob : pollJobs) {
+            if (pollJob.maxPollPeriod != null && pollJob.scheduledTask != null) anyAdaptive = true;
+        }
+        if (!anyAdaptive) return;
+        
+        final Map<Sensor<?>, Object> lastValues = MutableMap.of();
+        lastValues.put(Attributes.SERVICE_UP, entity.getAttribute(Attributes.SERVICE_UP));
+        lastValues.put(Attributes.SERVICE_STATE_ACTUAL, entity.getAttribute(Attributes.SERVICE_STATE_ACTUAL));
+        SensorEventListener<Object> listener = new SensorEventListener<Object>() {
+            @Override public void onEvent(SensorEvent<Object> event) {
+                synchronized (lastValues) {
+                    // the sensors are often set again to the same value
+                    if (Objects.equal(lastValues.put(event.getSensor(), event.getValue()), event.getValue())) return;
+                }
+                for (PollJob<V> pollJob : pollJobs) {
+                    pollJob.resetPeriod();
+                }
+            }};
+        SubscriptionSupport subs = ((EntityInternal)entity).subscriptions();
+        subscriptions.add(subs.subscribe(entity, Attributes.SERVICE_UP, listener));
+        subscriptions.add(subs.subscribe(entity, Attributes.SERVICE_STATE_ACTUAL, listener));
+    }
+    
+    /** the current values of the sensors set by the job's handler, and of the entity's service state */
+    private List<Object> observe(PollJob<?> pollJob) {
+        List<Object> result = MutableList.of();
+        result.add(entity.getAttribute(Attributes.SERVICE_UP));
+        result.add(entity.getAttribute(Attributes.SERVICE_STATE_ACTUAL));
+        for (AttributeSensor<?> sensor : getSensors(pollJob.handler)) {
+            result.add(entity.getAttribute(sensor));
+        }
+        return result;
+    }
+    
+    private static List<AttributeSensor<?>> getSensors(PollHandler<?> handler) {
+        List<AttributeSensor<?>> result = MutableList.of();
+        if (handler instanceof AttributePollHandler) {
+            result.add(((AttributePollHandler<?>)handler).getSensor());
+        } else if (handler instanceof DelegatingPollHandler) {
+            for (AttributePollHandler<?> delegate : ((DelegatingPollHandler<?>)handler).getDelegates()) {
+                result.add(delegate.getSensor());
+            }
+        }
+        return result;
+    }
+    
+    /** the period of an adaptive poll after a poll: backed off if nothing changed, otherwise the shortest period */
+    @VisibleForTesting
+    static Duration nextAdaptivePeriod(Duration current, boolean changed, Duration minPeriod, Duration maxPeriod) {
+        if (changed) return minPeriod;
+        Duration result = Duration.millis((long) Math.ceil(current.toMilliseconds() * ADAPTIVE_BACKOFF_FACTOR));
+        return (result.compareTo(maxPeriod) > 0) ? maxPeriod : result;
+    }
+    
+    private Object getTarget(PollJob<?> pollJob) {
+        if (pollJob.targetSupplier == null) return null;
+        try {
+            return pollJob.targetSupplier.get();
+        } catch (Exception e) {
+            // e.g. the host is not yet known; the poll itself will report any problem
+            if (log.isTraceEnabled()) log.trace("Unable to determine target of poll for "+entity+": "+e);
+            return null;
+        }
     }
     
     public void stop() {
@@ -185,8 +488,12 @@ public class Poller<V> {
         for (ScheduledTask task : tasks) {
             if (task != null) task.cancel();
         }
+        for (SubscriptionHandle subscription : subscriptions) {
+            ((EntityInternal)entity).subscriptions().unsubscribe(entity, subscription);
+        }
         oneOffTasks.clear();
         tasks.clear();
+        subscriptions.clear();
     }
 
     public boolean isRunning() {
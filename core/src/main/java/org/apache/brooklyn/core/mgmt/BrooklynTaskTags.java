@@ -39,12 +39,14 @@ import org.apache.brooklyn.util.core.task.TaskTags;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.javalang.MemoryUsageTracker;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
 import org.apache.brooklyn.util.text.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.Beta;
 import com.google.common.base.Functions;
@@ -171,12 +173,21 @@ public class BrooklynTaskTags extends TaskTags {
         public final String streamType;
         public final Supplier<String> streamContents;
         public final Supplier<Integer> streamSize;
+        private final Supplier<SpoolingByteArrayOutputStream> spoolingStream;
+        /** held strongly (unlike a soft stream) so its spool files can be deleted once the stream is no longer wanted */
+        private final SpoolingByteArrayOutputStream.Spool spool;
         protected WrappedStream(String streamType, Supplier<String> streamContents, Supplier<Integer> streamSize) {
+            this(streamType, streamContents, streamSize, null, null);
+        }
+        protected WrappedStream(String streamType, Supplier<String> streamContents, Supplier<Integer> streamSize,
+                @Nullable Supplier<SpoolingByteArrayOutputStream> spoolingStream, @Nullable SpoolingByteArrayOutputStream.Spool spool) {
             Preconditions.checkNotNull(streamType);
             Preconditions.checkNotNull(streamContents);
             this.streamType = streamType;
             this.streamContents = streamContents;
             this.streamSize = streamSize != null ? streamSize : Suppliers.<Integer>ofInstance(streamContents.get().length());
+            this.spoolingStream = spoolingStream;
+            this.spool = spool;
         }
         protected WrappedStream(String streamType, ByteArrayOutputStream stream) {
             Preconditions.checkNotNull(streamType);
@@ -184,6 +195,27 @@ public class BrooklynTaskTags extends TaskTags {
             this.streamType = streamType;
             this.streamContents = Strings.toStringSupplier(stream);
             this.streamSize = Streams.sizeSupplier(stream);
+            this.spoolingStream = (stream instanceof SpoolingByteArrayOutputStream)
+                    ? Suppliers.ofInstance((SpoolingByteArrayOutputStream) stream) : null;
+            this.spool = (stream instanceof SpoolingByteArrayOutputStream)
+                    ? ((SpoolingByteArrayOutputStream) stream).getSpool() : null;
+        }
+        /**
+         * the stream, if it supports reading ranges of its contents without materialising all of them;
+         * otherwise (or if it has been GC'd) null
+         */
+        @Beta
+        @JsonIgnore
+        public SpoolingByteArrayOutputStream getSpoolingStream() {
+            return (spoolingStream != null) ? spoolingStream.get() : null;
+        }
+        /**
+         * discards any output spooled to disk, including if the stream has been GC'd;
+         * for use when the stream is no longer wanted, e.g. its task is deleted
+         */
+        @Beta
+        public void discardSpooledOutput() {
+            if (spool != null) spool.delete();
         }
         // fix for https://github.com/FasterXML/jackson-databind/issues/543 (which also applies to codehaus jackson)
         @JsonProperty
@@ -235,9 +267,21 @@ public class BrooklynTaskTags extends TaskTags {
     public static WrappedStream tagForStreamSoft(String streamType, ByteArrayOutputStream stream) {
         MemoryUsageTracker.SOFT_REFERENCES.track(stream, stream.size());
         Maybe<ByteArrayOutputStream> weakStream = Maybe.softThen(stream, STREAM_GARBAGE_COLLECTED_MAYBE);
+        Supplier<SpoolingByteArrayOutputStream> spoolingStream = null;
+        SpoolingByteArrayOutputStream.Spool spool = null;
+        if (stream instanceof SpoolingByteArrayOutputStream) {
+            // the spool is kept strongly, so its files can be deleted when the task is, even if the stream is GC'd first
+            spool = ((SpoolingByteArrayOutputStream) stream).getSpool();
+            final Maybe<SpoolingByteArrayOutputStream> weakSpoolingStream = Maybe.soft((SpoolingByteArrayOutputStream) stream);
+            spoolingStream = new Supplier<SpoolingByteArrayOutputStream>() {
+                @Override public SpoolingByteArrayOutputStream get() {
+                    return weakSpoolingStream.orNull();
+                }};
+        }
         return new WrappedStream(streamType,
             Suppliers.compose(Functions.toStringFunction(), weakStream),
-            Suppliers.compose(Streams.sizeFunction(), weakStream));
+            Suppliers.compose(Streams.sizeFunction(), weakStream),
+            spoolingStream, spool);
     }
 
     /** creates a tag suitable for marking a stream available on a task */
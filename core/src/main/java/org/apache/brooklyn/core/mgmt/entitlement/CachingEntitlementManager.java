@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.entitlement;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
+import org.apache.brooklyn.api.mgmt.SubscriptionManager;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementClass;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
+import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.entity.AbstractEntity;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.collections.MutableSet;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Caches the decisions of another {@link EntitlementManager}, per user, permission and argument,
+ * for managers which do expensive work (such as LDAP or group lookups) on each check.
+ * <p>
+ * Only the permissions to see things are cached, as these are checked for every item in REST listings;
+ * checks to invoke, modify or deploy always go to the delegate. Decisions are kept for at most
+ * {@link #CACHE_TTL}, so changes to a user's entitlements take effect within that time (or immediately,
+ * with {@link #invalidateAll()}). Decisions about an entity are keyed on its parent and application as well as
+ * its ID, and when given the management context the decisions about an entity and its descendants are discarded
+ * when it is added to or removed from a parent, so they are not reused if it or one of its ancestors is moved
+ * in the hierarchy.
+ * <p>
+ * Decisions are keyed on the user only, so this should not be used with managers whose decisions depend on
+ * other parts of the {@link EntitlementContext} (such as the source IP). Checks without a user are not cached.
+ * <p>
+ * Enabled by setting {@link #CACHE_MAX_SIZE}; see {@link #wrapIfConfigured(EntitlementManager, BrooklynProperties)}.
+ */
+@Beta
+public class CachingEntitlementManager implements EntitlementManager {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingEntitlementManager.class);
+
+    public final static String CACHE_CONFIG_PREFIX = Entitlements.ENTITLEMENTS_CONFIG_PREFIX+".cache";
+
+    public static final ConfigKey<Integer> CACHE_MAX_SIZE = ConfigKeys.newIntegerConfigKey(CACHE_CONFIG_PREFIX+".maxSize",
+        "Maximum number of entitlement decisions to cache; 0 (the default) disables caching", 0);
+
+    public static final ConfigKey<Duration> CACHE_TTL = ConfigKeys.newDurationConfigKey(CACHE_CONFIG_PREFIX+".ttl",
+        "Time for which an entitlement decision is cached", Duration.seconds(30));
+
+    private static final Set<String> CACHEABLE_PERMISSIONS = ImmutableSet.of(
+            Entitlements.SEE_ENTITY.entitlementClassIdentifier(),
+            Entitlements.SEE_SENSOR.entitlementClassIdentifier(),
+            Entitlements.SEE_CONFIG.entitlementClassIdentifier(),
+            Entitlements.SEE_CATALOG_ITEM.entitlementClassIdentifier(),
+            Entitlements.SEE_ACTIVITY_STREAMS.entitlementClassIdentifier(),
+            Entitlements.SEE_ALL_SERVER_INFO.entitlementClassIdentifier(),
+            Entitlements.SERVER_STATUS.entitlementClassIdentifier(),
+            Entitlements.ROOT.entitlementClassIdentifier());
+
+    /** returns the given manager wrapped in a cache, if {@link #CACHE_MAX_SIZE} is set, otherwise the manager unchanged */
+    public static EntitlementManager wrapIfConfigured(EntitlementManager delegate, @Nullable ManagementContext mgmt, BrooklynProperties brooklynProperties) {
+        Integer maxSize = brooklynProperties.getConfig(CACHE_MAX_SIZE);
+        if (maxSize == null || maxSize <= 0) return delegate;
+        return new CachingEntitlementManager(delegate, mgmt, maxSize, brooklynProperties.getConfig(CACHE_TTL));
+    }
+
+    protected final EntitlementManager delegate;
+    @Nullable protected final ManagementContext mgmt;
+    protected final Cache<List<Object>, Boolean> cache;
+    private final Object subscriptionMutex = new Object();
+    private volatile SubscriptionHandle[] hierarchySubscriptions;
+    private volatile boolean closed;
+
+    /** as {@link #CachingEntitlementManager(EntitlementManager, ManagementContext, int, Duration)}, without discarding decisions on hierarchy changes */
+    public CachingEntitlementManager(EntitlementManager delegate, int maxSize, Duration ttl) {
+        this(delegate, null, maxSize, ttl);
+    }
+
+    /**
+     * @param mgmt if set, used to subscribe to hierarchy changes once it is running (it need not be when this is constructed)
+     */
+    public CachingEntitlementManager(EntitlementManager delegate, @Nullable ManagementContext mgmt, int maxSize, Duration ttl) {
+        this.delegate = Preconditions.checkNotNull(delegate, "delegate");
+        this.mgmt = mgmt;
+        Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+        Preconditions.checkNotNull(ttl, "ttl");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.toMilliseconds(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        log.debug("Caching up to "+maxSize+" entitlement decisions of "+delegate+" for "+ttl);
+    }
+
+    public EntitlementManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T> boolean isEntitled(@Nullable final EntitlementContext context, final EntitlementClass<T> entitlementClass, @Nullable final T entitlementClassArgument) {
+        List<Object> key = key(context, entitlementClass, entitlementClassArgument);
+        if (key == null || !subscribeIfNecessary()) {
+            return delegate.isEntitled(context, entitlementClass, entitlementClassArgument);
+        }
+        try {
+            return cache.get(key, new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return delegate.isEntitled(context, entitlementClass, entitlementClassArgument);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    /** returns the cache key for the check, or null if it should not be cached */
+    @Nullable
+    protected List<Object> key(@Nullable EntitlementContext context, EntitlementClass<?> entitlementClass, @Nullable Object argument) {
+        if (context == null || context.user() == null) return null;
+        String permission = entitlementClass.entitlementClassIdentifier();
+        if (!CACHEABLE_PERMISSIONS.contains(permission)) return null;
+
+        if (argument == null || argument instanceof String) {
+            return Arrays.<Object>asList(context.user(), permission, argument);
+        } else if (argument instanceof Entity) {
+            return Arrays.<Object>asList(context.user(), permission, entityKey((Entity) argument));
+        } else if (argument instanceof Entitlements.EntityAndItem && ((Entitlements.EntityAndItem<?>) argument).getItem() instanceof String) {
+            Entitlements.EntityAndItem<?> entityAndItem = (Entitlements.EntityAndItem<?>) argument;
+            return Arrays.<Object>asList(context.user(), permission, entityKey(entityAndItem.getEntity()), entityAndItem.getItem());
+        } else if (argument instanceof Entitlements.TaskAndItem && ((Entitlements.TaskAndItem<?>) argument).getItem() instanceof String) {
+            Entitlements.TaskAndItem<?> taskAndItem = (Entitlements.TaskAndItem<?>) argument;
+            Task<?> task = taskAndItem.getTask();
+            return Arrays.<Object>asList(context.user(), permission, task == null ? null : task.getId(), taskAndItem.getItem());
+        }
+        return null;
+    }
+
+    /**
+     * Subscribes to entities being added to and removed from parents, if not already subscribed.
+     * The subscription manager is not available while the management context is being constructed, so this is done
+     * on the first cacheable check.
+     *
+     * @return whether decisions can be cached; false if the management context is not (or no longer) running
+     */
+    protected boolean subscribeIfNecessary() {
+        if (mgmt == null || hierarchySubscriptions != null) return !closed;
+        synchronized (subscriptionMutex) {
+            if (hierarchySubscriptions != null || closed) return !closed;
+            if (!mgmt.isRunning()) return false;
+            SensorEventListener<Entity> listener = new SensorEventListener<Entity>() {
+                @Override
+                public void onEvent(SensorEvent<Entity> event) {
+                    if (event.getValue() != null) invalidate(event.getValue());
+                }
+            };
+            SubscriptionManager subscriptions = mgmt.getSubscriptionManager();
+            hierarchySubscriptions = new SubscriptionHandle[] {
+                    subscriptions.subscribe(null, AbstractEntity.CHILD_ADDED, listener),
+                    subscriptions.subscribe(null, AbstractEntity.CHILD_REMOVED, listener) };
+            return true;
+        }
+    }
+
+    /** discards the cached decisions about the given entity and its descendants */
+    public void invalidate(Entity entity) {
+        Set<String> ids = MutableSet.of();
+        for (Entity e : Entities.descendantsAndSelf(entity)) {
+            ids.add(e.getId());
+        }
+        Iterator<List<Object>> keys = cache.asMap().keySet().iterator();
+        while (keys.hasNext()) {
+            List<Object> key = keys.next();
+            // the entity key, if any, is the third element; see key(...)
+            if (key.size() > 2 && key.get(2) instanceof List && ids.contains(((List<?>) key.get(2)).get(0))) {
+                keys.remove();
+            }
+        }
+    }
+
+    /** stops discarding decisions on hierarchy changes (and stops caching), e.g. when this manager is replaced */
+    public void close() {
+        synchronized (subscriptionMutex) {
+            closed = true;
+            SubscriptionHandle[] handles = hierarchySubscriptions;
+            if (handles != null && mgmt != null && mgmt.isRunning()) {
+                for (SubscriptionHandle handle : handles) {
+                    mgmt.getSubscriptionManager().unsubscribe(handle);
+                }
+            }
+        }
+        cache.invalidateAll();
+    }
+
+    private static List<Object> entityKey(@Nullable Entity entity) {
+        if (entity == null) return null;
+        Entity parent = entity.getParent();
+        return Arrays.<Object>asList(entity.getId(), parent == null ? null : parent.getId(), entity.getApplicationId());
+    }
+
+    /** discards all cached decisions, e.g. after a change to the entitlements of users */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /** returns the number of cached decisions and the hit, miss and eviction counts and hit rate */
+    public Map<String, Object> getMetrics() {
+        CacheStats stats = getStats();
+        return MutableMap.<String, Object>of(
+                "size", cache.size(),
+                "hitCount", stats.hitCount(),
+                "missCount", stats.missCount(),
+                "hitRate", stats.hitRate(),
+                "evictionCount", stats.evictionCount());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"["+delegate+"]";
+    }
+}
@@ -436,7 +436,7 @@ public class Entitlements {
         "root");
     
     public static EntitlementManager newManager(ManagementContext mgmt, BrooklynProperties brooklynProperties) {
-        return newGlobalManager(mgmt, brooklynProperties);
+        return CachingEntitlementManager.wrapIfConfigured(newGlobalManager(mgmt, brooklynProperties), mgmt, brooklynProperties);
     }
     private static EntitlementManager newGlobalManager(ManagementContext mgmt, BrooklynProperties brooklynProperties) {
         return load(mgmt, brooklynProperties, brooklynProperties.getConfig(GLOBAL_ENTITLEMENT_MANAGER));
@@ -71,6 +71,7 @@ import org.apache.brooklyn.core.mgmt.classloading.JavaBrooklynClassLoadingContex
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.core.mgmt.ha.HighAvailabilityManagerImpl;
 import org.apache.brooklyn.core.mgmt.rebind.RebindManagerImpl;
+import org.apache.brooklyn.core.server.BrooklynServerConfig;
 import org.apache.brooklyn.core.typereg.BasicBrooklynTypeRegistry;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
@@ -81,9 +82,11 @@ import org.apache.brooklyn.util.core.task.BasicExecutionContext;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.groovy.GroovyJavaMethods;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.http.HttpConnectionPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
@@ -168,6 +171,8 @@ public abstract class AbstractManagementContext implements ManagementContextInte
     private final HighAvailabilityManager highAvailabilityManager;
     
     protected volatile BrooklynGarbageCollector gc;
+    protected volatile EntityResourceAccounting resourceAccounting;
+    protected HttpConnectionPool httpConnectionPool;
 
     private final EntityDriverManager entityDriverManager;
     protected DownloadResolverManager downloadsManager;
@@ -465,6 +470,26 @@ public abstract class AbstractManagementContext implements ManagementContextInte
         return gc;
     }
 
+    @Beta
+    public EntityResourceAccounting getResourceAccounting() {
+        return resourceAccounting;
+    }
+
+    /**
+     * The pool of keep-alive http connections shared by the http feeds of this management context,
+     * created on first use; or null if disabled with {@link BrooklynServerConfig#HTTP_POOL_ENABLED}.
+     */
+    @Beta
+    public synchronized HttpConnectionPool getHttpConnectionPool() {
+        if (httpConnectionPool == null && Boolean.TRUE.equals(getConfig().getConfig(BrooklynServerConfig.HTTP_POOL_ENABLED))) {
+            httpConnectionPool = new HttpConnectionPool(
+                    getConfig().getConfig(BrooklynServerConfig.HTTP_POOL_MAX_TOTAL),
+                    getConfig().getConfig(BrooklynServerConfig.HTTP_POOL_MAX_PER_ROUTE),
+                    getConfig().getConfig(BrooklynServerConfig.HTTP_POOL_IDLE_TIMEOUT));
+        }
+        return httpConnectionPool;
+    }
+
     @Override
     public void setManagementNodeUri(URI uri) {
         this.uri = Maybe.of(checkNotNull(uri, "uri"));
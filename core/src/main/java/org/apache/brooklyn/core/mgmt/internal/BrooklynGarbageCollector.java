@@ -61,6 +61,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
 import com.google.common.annotations.Beta;
 import com.google.common.collect.Iterables;
 
@@ -80,6 +81,10 @@ import com.google.common.collect.Iterables;
  * and keeping at most 100000 tasks in the system,
  * max 1000 tasks per entity, 50 per effector within that entity, and 50 per other non-effector tag
  * within that entity (or global if not attached to an entity).
+ * <p>
+ * If {@link #INCREMENTAL_RETENTION} is enabled, the per-entity, per-tag and global limits are instead
+ * applied as each task completes, using bounded {@link TaskRetentionBuffers}; the periodic run then
+ * only deals with aged, transient and unmanaged-entity tasks.
  * 
  * @author aled
  */
@@ -133,6 +138,18 @@ public class BrooklynGarbageCollector {
             "the duration after which a completed task will be automatically deleted", 
             Duration.days(30));
     
+    /**
+     * Whether to apply the task limits incrementally, as tasks complete, rather than in a periodic sweep.
+     * When enabled, tasks over the limit in any of their categories are deleted immediately, 
+     * preferring to keep failed tasks and effector tasks over subscription deliveries and scheduled (e.g. poll) tasks.
+     * @since 0.10.0 */
+    @Beta
+    public static final ConfigKey<Boolean> INCREMENTAL_RETENTION = ConfigKeys.newBooleanConfigKey(
+        "brooklyn.gc.incremental",
+        "whether to apply the task limits as tasks complete, using bounded per-entity and per-tag buffers, "
+        + "rather than periodically sweeping all tasks",
+        false);
+
     protected final static Comparator<Task<?>> TASKS_OLDEST_FIRST_COMPARATOR = new Comparator<Task<?>>() {
         @Override public int compare(Task<?> t1, Task<?> t2) {
             long end1 = t1.getEndTimeUtc();
@@ -150,6 +167,8 @@ public class BrooklynGarbageCollector {
     
     private Duration gcPeriod;
     private final boolean doSystemGc;
+    private final TaskRetentionBuffers retention = new TaskRetentionBuffers();
+    private volatile boolean incrementalRetention;
     private volatile boolean running = true;
     
     public BrooklynGarbageCollector(BrooklynProperties brooklynProperties, BasicExecutionManager executionManager, BrooklynStorage storage) {
@@ -158,6 +177,7 @@ public class BrooklynGarbageCollector {
         this.brooklynProperties = brooklynProperties;
 
         doSystemGc = brooklynProperties.getConfig(DO_SYSTEM_GC);
+        incrementalRetention = Boolean.TRUE.equals(brooklynProperties.getConfig(INCREMENTAL_RETENTION));
         
         executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
                 @Override public Thread newThread(Runnable r) {
@@ -230,7 +250,18 @@ public class BrooklynGarbageCollector {
             executionManager.getNumActiveTasks()+" active, "+
             executionManager.getNumIncompleteTasks()+" unfinished; "+
             executionManager.getNumInMemoryTasks()+" remembered, "+
-            executionManager.getTotalTasksSubmitted()+" total submitted)";
+            executionManager.getTotalTasksSubmitted()+" total submitted)" +
+            (incrementalRetention ? "; retention: "+retention.getMetrics() : "");
+    }
+
+    /**
+     * Metrics on completed tasks being retained when {@link #INCREMENTAL_RETENTION} is enabled
+     * (counts retained, by priority, number of buffers, and number evicted); empty otherwise.
+     */
+    @Beta
+    public Map<String, Object> getRetentionMetrics() {
+        if (!incrementalRetention) return MutableMap.of();
+        return retention.getMetrics();
     }
     
     public void shutdownNow() {
@@ -253,6 +284,12 @@ public class BrooklynGarbageCollector {
         executionManager.deleteTag(BrooklynTaskTags.tagForContextEntity(entity));
         executionManager.deleteTag(BrooklynTaskTags.tagForCallerEntity(entity));
         executionManager.deleteTag(BrooklynTaskTags.tagForTargetEntity(entity));
+        if (incrementalRetention) {
+            retention.removeTag(entity);
+            retention.removeTag(BrooklynTaskTags.tagForContextEntity(entity));
+            retention.removeTag(BrooklynTaskTags.tagForCallerEntity(entity));
+            retention.removeTag(BrooklynTaskTags.tagForTargetEntity(entity));
+        }
     }
     
     public void onUnmanaged(Location loc) {
@@ -262,6 +299,15 @@ public class BrooklynGarbageCollector {
     public void onTaskDone(Task<?> task) {
         if (shouldDeleteTaskImmediately(task)) {
             executionManager.deleteTask(task);
+        } else if (incrementalRetention && task.isDone() && !BrooklynTaskTags.isSubTask(task)) {
+            // sub-tasks are deleted along with their parent
+            List<Task<?>> evicted = retention.add(task, 
+                brooklynProperties.getConfig(MAX_TASKS_PER_ENTITY), 
+                brooklynProperties.getConfig(MAX_TASKS_PER_TAG), 
+                brooklynProperties.getConfig(MAX_TASKS_GLOBAL));
+            for (Task<?> t: evicted) {
+                executionManager.deleteTask(t);
+            }
         }
     }
     
@@ -329,11 +375,22 @@ public class BrooklynGarbageCollector {
             // caller has changed period, reschedule on next run
             scheduleCollector(false);
         }
+        incrementalRetention = Boolean.TRUE.equals(brooklynProperties.getConfig(INCREMENTAL_RETENTION));
     
         expireUnmanagedEntityTasks();
         expireAgedTasks();
         expireTransientTasks();
         
+        if (incrementalRetention) {
+            // limits are applied as tasks complete; here just forget any tasks deleted by other means
+            retention.prune(new Predicate<Task<?>>() {
+                @Override public boolean apply(Task<?> input) {
+                    return executionManager.getTask(input.getId())==null;
+                }
+            });
+            return expireSubTasksWhoseSubmitterIsExpired();
+        }
+        
         // now look at overcapacity tags, non-entity tags first
         
         Set<Object> taskTags = executionManager.getTaskTags();
@@ -22,6 +22,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.brooklyn.api.effector.Effector;
 import org.apache.brooklyn.api.entity.Application;
@@ -32,6 +33,7 @@ import org.apache.brooklyn.api.mgmt.SubscriptionContext;
 import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
 import org.apache.brooklyn.api.policy.Policy;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.AttributeSensor.SensorPersistenceMode;
 import org.apache.brooklyn.api.sensor.Enricher;
 import org.apache.brooklyn.api.sensor.Feed;
 import org.apache.brooklyn.config.ConfigKey;
@@ -93,6 +95,10 @@ public class EntityManagementSupport {
     
     private volatile EntityChangeListener entityChangeListener = EntityChangeListener.NOOP;
 
+    /** shared by all entities, so that a change to any entity in a set increases the maximum version of the set */
+    private static final AtomicLong CHANGE_VERSION_SEQUENCE = new AtomicLong();
+    private final AtomicLong changeVersion = new AtomicLong(CHANGE_VERSION_SEQUENCE.incrementAndGet());
+
     /**
      * Whether this entity is managed (i.e. "onManagementStarting" has been called, so the framework knows about it,
      * and it has not been unmanaged).
@@ -401,67 +407,106 @@ public class EntityManagementSupport {
     public EntityChangeListener getEntityChangeListener() {
         return entityChangeListener;
     }
+
+    /**
+     * A version stamp which increases whenever a sensor, config, child, member, location, tag or adjunct of the
+     * (managed) entity changes, for clients (such as REST) to cheaply tell whether anything they read may have changed.
+     * <p>
+     * Versions are drawn from a sequence shared by all entities in this JVM, so the maximum version of a set of
+     * entities increases when any of them changes. They are not persisted, so are only comparable within
+     * one management node's lifetime.
+     */
+    @Beta
+    public long getChangeVersion() {
+        return changeVersion.get();
+    }
+
+    private void incrementChangeVersion() {
+        long next = CHANGE_VERSION_SEQUENCE.incrementAndGet();
+        // never go backwards, if concurrent changes set their versions out of order
+        long current;
+        do {
+            current = changeVersion.get();
+        } while (current < next && !changeVersion.compareAndSet(current, next));
+    }
     
     private class EntityChangeListenerImpl implements EntityChangeListener {
         @Override
         public void onChanged() {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onChildrenChanged() {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onLocationsChanged() {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onTagsChanged() {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onMembersChanged() {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onPolicyAdded(Policy policy) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(policy);
         }
         @Override
         public void onEnricherAdded(Enricher enricher) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(enricher);
         }
         @Override
         public void onFeedAdded(Feed feed) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onManaged(feed);
         }
         @Override
         public void onPolicyRemoved(Policy policy) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(policy);
         }
         @Override
         public void onEnricherRemoved(Enricher enricher) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(enricher);
         }
         @Override
         public void onFeedRemoved(Feed feed) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
             getManagementContext().getRebindManager().getChangeListener().onUnmanaged(feed);
         }
         @Override
         public void onAttributeChanged(AttributeSensor<?> attribute) {
+            incrementChangeVersion();
             // TODO Could make this more efficient by inspecting the attribute to decide if needs persisted
-            // immediately, or not important, or transient (e.g. do we really need to persist 
+            // immediately, or not important (e.g. do we really need to persist 
             // request-per-second count for rebind purposes?!)
+            if (attribute != null && attribute.getPersistenceMode() == SensorPersistenceMode.NONE) {
+                // not included in the memento, so nothing to persist
+                return;
+            }
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
         public void onConfigChanged(ConfigKey<?> key) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
         @Override
@@ -470,6 +515,7 @@ public class EntityManagementSupport {
         }
         @Override
         public void onEffectorCompleted(Effector<?> effector) {
+            incrementChangeVersion();
             getManagementContext().getRebindManager().getChangeListener().onChanged(entity);
         }
     }
@@ -0,0 +1,337 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.internal;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.api.entity.Application;
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
+import org.apache.brooklyn.api.mgmt.SubscriptionManager;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.rebind.mementos.BrooklynMementoPersister;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.AttributeSensor.SensorPersistenceMode;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.persist.BrooklynMementoPersisterToObjectStore;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.BasicExecutionManager;
+import org.apache.brooklyn.util.core.task.ExecutionListener;
+import org.apache.brooklyn.util.core.task.TaskCpuTimeListener;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Attributes the management plane's resource usage to entities and applications, so that the
+ * source of a slow-down can be found.
+ * <p>
+ * The following are recorded per entity:
+ * <ul>
+ *   <li>tasks completed, and the CPU time of those tasks, for tasks whose context entity is the entity
+ *       or which deliver subscription events to the entity (only if {@link #ENABLED});
+ *   <li>tasks currently retained in memory;
+ *   <li>subscriptions held by the entity, and the events delivered to them;
+ *   <li>the size of the entity's most recently persisted memento.
+ * </ul>
+ * Only the first requires bookkeeping as tasks run; the others are read on demand from the
+ * execution manager, subscription manager and persister.
+ * <p>
+ * If enabled, the totals for each application are periodically published as sensors on that application.
+ */
+@Beta
+public class EntityResourceAccounting {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityResourceAccounting.class);
+
+    public static final ConfigKey<Boolean> ENABLED = ConfigKeys.newBooleanConfigKey(
+        "brooklyn.accounting.enabled",
+        "whether to record the number and CPU time of tasks run for each entity, and publish usage on applications",
+        false);
+
+    public static final ConfigKey<Duration> PUBLISH_PERIOD = ConfigKeys.newDurationConfigKey(
+        "brooklyn.accounting.publishPeriod",
+        "the period for publishing resource usage as sensors on each application, if enabled (0 to not publish)",
+        Duration.seconds(30));
+
+    // not persisted: the counts are recomputed after a restart, and persisting them would write every application each period
+    public static final AttributeSensor<Long> TASKS_COMPLETED = newUsageSensor(
+        "brooklyn.resources.tasks.completed", "Number of tasks completed for entities in this application");
+    public static final AttributeSensor<Long> TASK_CPU_TIME = newUsageSensor(
+        "brooklyn.resources.tasks.cpuTime", "CPU time (in milliseconds) of tasks completed for entities in this application");
+    public static final AttributeSensor<Long> TASKS_RETAINED = newUsageSensor(
+        "brooklyn.resources.tasks.retained", "Number of tasks retained in memory for entities in this application");
+    public static final AttributeSensor<Long> SUBSCRIPTIONS = newUsageSensor(
+        "brooklyn.resources.subscriptions", "Number of subscriptions held by entities in this application");
+    public static final AttributeSensor<Long> SUBSCRIPTION_DELIVERIES = newUsageSensor(
+        "brooklyn.resources.subscriptions.delivered", "Number of events delivered to current subscriptions of entities in this application");
+    public static final AttributeSensor<Long> PERSISTED_BYTES = newUsageSensor(
+        "brooklyn.resources.persisted.size", "Size (in characters) of the most recently persisted mementos of entities in this application");
+
+    private static AttributeSensor<Long> newUsageSensor(String name, String description) {
+        return Sensors.builder(Long.class, name).description(description).persistence(SensorPersistenceMode.NONE).build();
+    }
+
+    /** Resource usage of an entity, or the total for a group of entities (e.g. an application). */
+    public static class Usage {
+        private final long tasksCompleted;
+        private final long taskCpuTimeNanos;
+        private final long tasksRetained;
+        private final long subscriptions;
+        private final long subscriptionDeliveries;
+        private final long persistedBytes;
+
+        public static final Usage EMPTY = new Usage(0, 0, 0, 0, 0, 0);
+
+        public Usage(long tasksCompleted, long taskCpuTimeNanos, long tasksRetained, long subscriptions, long subscriptionDeliveries, long persistedBytes) {
+            this.tasksCompleted = tasksCompleted;
+            this.taskCpuTimeNanos = taskCpuTimeNanos;
+            this.tasksRetained = tasksRetained;
+            this.subscriptions = subscriptions;
+            this.subscriptionDeliveries = subscriptionDeliveries;
+            this.persistedBytes = persistedBytes;
+        }
+
+        public long getTasksCompleted() { return tasksCompleted; }
+        public long getTaskCpuTimeNanos() { return taskCpuTimeNanos; }
+        public long getTasksRetained() { return tasksRetained; }
+        public long getSubscriptions() { return subscriptions; }
+        public long getSubscriptionDeliveries() { return subscriptionDeliveries; }
+        public long getPersistedBytes() { return persistedBytes; }
+
+        public Usage plus(Usage other) {
+            return new Usage(tasksCompleted + other.tasksCompleted, taskCpuTimeNanos + other.taskCpuTimeNanos,
+                tasksRetained + other.tasksRetained, subscriptions + other.subscriptions,
+                subscriptionDeliveries + other.subscriptionDeliveries, persistedBytes + other.persistedBytes);
+        }
+
+        @Override
+        public String toString() {
+            return "Usage[tasksCompleted="+tasksCompleted+"; taskCpuTime="+Duration.nanos(taskCpuTimeNanos)+"; tasksRetained="+tasksRetained
+                +"; subscriptions="+subscriptions+"; subscriptionDeliveries="+subscriptionDeliveries+"; persistedBytes="+persistedBytes+"]";
+        }
+    }
+
+    private static class Counters {
+        final AtomicLong tasksCompleted = new AtomicLong();
+        final AtomicLong taskCpuTimeNanos = new AtomicLong();
+    }
+
+    /** as set by {@link LocalSubscriptionManager} for deliveries to an entity, followed by the entity id */
+    private static final String SUBSCRIPTION_DELIVERY_ENTITY_TAG_PREFIX = "subscription-delivery-entity-";
+
+    private final ManagementContextInternal managementContext;
+    private final BasicExecutionManager executionManager;
+    private final boolean enabled;
+    private final ScheduledExecutorService executor;
+    private final ConcurrentMap<String, Counters> countersByEntityId = new ConcurrentHashMap<String, Counters>();
+
+    private final ExecutionListener taskDoneListener = new ExecutionListener() {
+        @Override public void onTaskDone(Task<?> task) {
+            String entityId = getAccountableEntityId(task);
+            if (entityId != null) getCounters(entityId).tasksCompleted.incrementAndGet();
+        }
+    };
+
+    private final TaskCpuTimeListener cpuTimeListener = new TaskCpuTimeListener() {
+        @Override public void onTaskCpuTime(Task<?> task, long cpuTimeNanos) {
+            String entityId = getAccountableEntityId(task);
+            if (entityId != null) getCounters(entityId).taskCpuTimeNanos.addAndGet(cpuTimeNanos);
+        }
+    };
+
+    public EntityResourceAccounting(BrooklynProperties brooklynProperties, ManagementContextInternal managementContext, BasicExecutionManager executionManager) {
+        this.managementContext = managementContext;
+        this.executionManager = executionManager;
+        this.enabled = Boolean.TRUE.equals(brooklynProperties.getConfig(ENABLED));
+
+        if (enabled) {
+            executionManager.addListener(taskDoneListener);
+            executionManager.addCpuTimeListener(cpuTimeListener);
+        }
+
+        Duration period = brooklynProperties.getConfig(PUBLISH_PERIOD);
+        if (enabled && period != null && period.isPositive()) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override public Thread newThread(Runnable r) {
+                        Thread result = new Thread(r, "brooklyn-accounting");
+                        result.setDaemon(true);
+                        return result;
+                    }});
+            executor.scheduleWithFixedDelay(
+                new Runnable() {
+                    @Override public void run() {
+                        try {
+                            publishToApplications();
+                        } catch (Throwable t) {
+                            Exceptions.propagateIfFatal(t);
+                            LOG.warn("Error publishing resource usage in "+EntityResourceAccounting.this.managementContext+" (continuing): "+t, t);
+                        }
+                    }},
+                period.toMillisecondsRoundingUp(),
+                period.toMillisecondsRoundingUp(),
+                TimeUnit.MILLISECONDS);
+        } else {
+            executor = null;
+        }
+    }
+
+    /** whether task counts and CPU time are being recorded */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void shutdownNow() {
+        if (executor != null) executor.shutdownNow();
+        if (enabled) {
+            executionManager.removeListener(taskDoneListener);
+            executionManager.removeCpuTimeListener(cpuTimeListener);
+        }
+    }
+
+    /** the usage of the given entity (not including its descendants) */
+    public Usage getUsage(Entity entity) {
+        Counters counters = countersByEntityId.get(entity.getId());
+
+        long tasksRetained = executionManager.getTasksWithTag(BrooklynTaskTags.tagForContextEntity(entity)).size();
+
+        long subscriptions = 0;
+        long deliveries = 0;
+        SubscriptionManager subscriptionManager = managementContext.getSubscriptionManager();
+        if (subscriptionManager instanceof LocalSubscriptionManager) {
+            for (SubscriptionHandle handle : ((LocalSubscriptionManager)subscriptionManager).getSubscriptionsForSubscriber(entity)) {
+                subscriptions++;
+                if (handle instanceof Subscription) deliveries += ((Subscription<?>)handle).eventCount.get();
+            }
+        }
+
+        long persistedBytes = 0;
+        BrooklynMementoPersister persister = managementContext.getRebindManager().getPersister();
+        if (persister instanceof BrooklynMementoPersisterToObjectStore) {
+            Integer size = ((BrooklynMementoPersisterToObjectStore)persister).getPersistedEntitySize(entity.getId());
+            if (size != null) persistedBytes = size;
+        }
+
+        return new Usage(
+            counters == null ? 0 : counters.tasksCompleted.get(),
+            counters == null ? 0 : counters.taskCpuTimeNanos.get(),
+            tasksRetained, subscriptions, deliveries, persistedBytes);
+    }
+
+    /** the usage of all managed entities, by entity id */
+    public Map<String, Usage> getUsageByEntity() {
+        Map<String, Usage> result = MutableMap.of();
+        for (Entity entity : managementContext.getEntityManager().getEntities()) {
+            result.put(entity.getId(), getUsage(entity));
+        }
+        return result;
+    }
+
+    /** the total usage of the given application and all its descendants */
+    public Usage getApplicationUsage(Application app) {
+        Usage result = Usage.EMPTY;
+        for (Entity entity : Entities.descendantsAndSelf(app)) {
+            result = result.plus(getUsage(entity));
+        }
+        return result;
+    }
+
+    /** the total usage of each application, by application id */
+    public Map<String, Usage> getUsageByApplication() {
+        Map<String, Usage> result = MutableMap.of();
+        for (Application app : managementContext.getApplications()) {
+            result.put(app.getId(), getApplicationUsage(app));
+        }
+        return result;
+    }
+
+    /** publishes the usage of each application as sensors on that application, and forgets entities no longer managed */
+    public void publishToApplications() {
+        for (Application app : managementContext.getApplications()) {
+            if (!Entities.isManaged(app)) continue;
+            Usage usage = getApplicationUsage(app);
+            EntityInternal appInternal = (EntityInternal) app;
+            setIfChanged(appInternal, TASKS_COMPLETED, usage.getTasksCompleted());
+            setIfChanged(appInternal, TASK_CPU_TIME, TimeUnit.NANOSECONDS.toMillis(usage.getTaskCpuTimeNanos()));
+            setIfChanged(appInternal, TASKS_RETAINED, usage.getTasksRetained());
+            setIfChanged(appInternal, SUBSCRIPTIONS, usage.getSubscriptions());
+            setIfChanged(appInternal, SUBSCRIPTION_DELIVERIES, usage.getSubscriptionDeliveries());
+            setIfChanged(appInternal, PERSISTED_BYTES, usage.getPersistedBytes());
+        }
+        Set<String> ids = countersByEntityId.keySet();
+        for (String id : ids) {
+            if (managementContext.getEntityManager().getEntity(id) == null) ids.remove(id);
+        }
+    }
+
+    /** sets the sensor only if the value differs, so idle applications do not emit events or bump their change version */
+    private static void setIfChanged(EntityInternal entity, AttributeSensor<Long> sensor, long value) {
+        Long current = entity.getAttribute(sensor);
+        if (current == null || current != value) {
+            entity.sensors().set(sensor, value);
+        }
+    }
+
+    private Counters getCounters(String entityId) {
+        Counters result = countersByEntityId.get(entityId);
+        if (result == null) {
+            Counters newCounters = new Counters();
+            result = countersByEntityId.putIfAbsent(entityId, newCounters);
+            if (result == null) result = newCounters;
+        }
+        return result;
+    }
+
+    /** the id of the context entity of the task, or of the entity to which it delivers subscription events */
+    protected String getAccountableEntityId(Task<?> task) {
+        Entity entity = BrooklynTaskTags.getContextEntity(task);
+        if (entity != null) return entity.getId();
+        for (Object tag : task.getTags()) {
+            if (tag instanceof String && ((String)tag).startsWith(SUBSCRIPTION_DELIVERY_ENTITY_TAG_PREFIX)) {
+                // format is prefix + id + "[" + entity + "]"
+                String rest = ((String)tag).substring(SUBSCRIPTION_DELIVERY_ENTITY_TAG_PREFIX.length());
+                int end = rest.indexOf('[');
+                return end >= 0 ? rest.substring(0, end) : rest;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityResourceAccounting["+managementContext+"]";
+    }
+}
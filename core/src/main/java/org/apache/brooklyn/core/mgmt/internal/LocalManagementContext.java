@@ -49,6 +49,7 @@ import org.apache.brooklyn.core.entity.drivers.downloads.BasicDownloadsManager;
 import org.apache.brooklyn.core.internal.BrooklynProperties;
 import org.apache.brooklyn.core.internal.BrooklynProperties.Factory.Builder;
 import org.apache.brooklyn.core.internal.storage.DataGridFactory;
+import org.apache.brooklyn.core.mgmt.entitlement.CachingEntitlementManager;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.core.mgmt.ha.OsgiManager;
 import org.apache.brooklyn.core.objs.proxy.InternalEntityFactory;
@@ -312,6 +313,7 @@ public class LocalManagementContext extends AbstractManagementContext {
         if (execution == null) {
             execution = new BasicExecutionManager(getManagementNodeId());
             gc = new BrooklynGarbageCollector(configMap, execution, getStorage());
+            resourceAccounting = new EntityResourceAccounting(configMap, this, execution);
         }
         return execution;
     }
@@ -334,6 +336,10 @@ public class LocalManagementContext extends AbstractManagementContext {
         if (usageManager != null) usageManager.terminate();
         if (execution != null) execution.shutdownNow();
         if (gc != null) gc.shutdownNow();
+        if (resourceAccounting != null) resourceAccounting.shutdownNow();
+        synchronized (this) {
+            if (httpConnectionPool != null) httpConnectionPool.close();
+        }
 
         log.debug("Terminated management context "+this);
     }
@@ -397,6 +403,9 @@ public class LocalManagementContext extends AbstractManagementContext {
             configMap.addFromMap(brooklynAdditionalProperties);
         }
         this.downloadsManager = BasicDownloadsManager.newDefault(configMap);
+        if (entitlementManager instanceof CachingEntitlementManager) {
+            ((CachingEntitlementManager) entitlementManager).close();
+        }
         this.entitlementManager = Entitlements.newManager(this, configMap);
         
         clearLocationRegistry();
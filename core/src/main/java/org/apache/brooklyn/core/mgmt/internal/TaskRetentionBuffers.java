@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags.WrappedEntity;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.task.ScheduledTask;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Predicate;
+
+/**
+ * Bounded buffers of completed tasks, per entity, per tag and globally, used by the
+ * {@link BrooklynGarbageCollector} when {@link BrooklynGarbageCollector#INCREMENTAL_RETENTION} is enabled.
+ * <p>
+ * Tasks are added as they complete. When a buffer exceeds its capacity, a task is evicted
+ * immediately (rather than waiting for the next GC period), choosing the oldest task of the lowest
+ * {@link Priority} held in that buffer. Failed tasks and effector tasks are therefore kept in
+ * preference to subscription deliveries and scheduled (e.g. poll) iterations.
+ * <p>
+ * All operations other than {@link #prune(Predicate)} are O(number of tags on the task).
+ * Instances are thread-safe.
+ */
+@Beta
+class TaskRetentionBuffers {
+
+    /** in increasing order of importance, i.e. {@link #LOW} is evicted first */
+    enum Priority {
+        /** subscription deliveries and scheduled iterations, such as feed polls */
+        LOW,
+        NORMAL,
+        /** effector invocations and failed tasks */
+        HIGH;
+
+        static Priority of(Task<?> task) {
+            if (task.isError()) return HIGH;
+            Set<Object> tags = task.getTags();
+            if (tags.contains(ManagementContextInternal.EFFECTOR_TAG)) return HIGH;
+            if (task.getSubmittedByTask() instanceof ScheduledTask) return LOW;
+            for (Object tag : tags) {
+                if (tag instanceof String && ((String)tag).startsWith(SUBSCRIPTION_DELIVERY_TAG_PREFIX)) return LOW;
+            }
+            return NORMAL;
+        }
+    }
+
+    /** prefix of the tags used by {@link LocalSubscriptionManager} for its delivery tasks */
+    static final String SUBSCRIPTION_DELIVERY_TAG_PREFIX = "subscription-delivery-";
+
+    static final Object GLOBAL_KEY = "GLOBAL";
+
+    private static class Buffer {
+        @SuppressWarnings("unchecked")
+        final Set<Task<?>>[] byPriority = new Set[Priority.values().length];
+        int size;
+
+        Buffer() {
+            for (int i = 0; i < byPriority.length; i++) byPriority[i] = new LinkedHashSet<Task<?>>();
+        }
+
+        void add(Task<?> task, Priority priority) {
+            if (byPriority[priority.ordinal()].add(task)) size++;
+        }
+
+        boolean remove(Task<?> task) {
+            for (Set<Task<?>> tasks : byPriority) {
+                if (tasks.remove(task)) {
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** the oldest task of the lowest priority */
+        Task<?> nextToEvict() {
+            for (Set<Task<?>> tasks : byPriority) {
+                if (!tasks.isEmpty()) return tasks.iterator().next();
+            }
+            return null;
+        }
+    }
+
+    /** a retained task's priority, and the keys of the buffers it was added to */
+    private static class Retained {
+        final Priority priority;
+        final List<Object> keys;
+
+        Retained(Priority priority, List<Object> keys) {
+            this.priority = priority;
+            this.keys = keys;
+        }
+    }
+
+    private final Map<Object, Buffer> buffers = MutableMap.of();
+    private final Map<Task<?>, Retained> retained = MutableMap.of();
+    private long evictedCount = 0;
+
+    /**
+     * Records a completed task, returning any tasks which should now be deleted because one of
+     * the buffers is over capacity (possibly including the given task).
+     */
+    synchronized List<Task<?>> add(Task<?> task, int maxPerEntity, int maxPerTag, int maxGlobal) {
+        if (retained.containsKey(task)) return MutableList.of();
+        Priority priority = Priority.of(task);
+        // record the keys now, as tags can be added to the task later
+        List<Object> keys = MutableList.<Object>of(GLOBAL_KEY);
+        for (Object tag : task.getTags()) {
+            if (!BrooklynGarbageCollector.isTagIgnoredForGc(tag)) keys.add(tag);
+        }
+        retained.put(task, new Retained(priority, keys));
+
+        List<Task<?>> evicted = MutableList.of();
+        for (Object key : keys) {
+            int capacity = (key == GLOBAL_KEY) ? maxGlobal : (key instanceof WrappedEntity) ? maxPerEntity : maxPerTag;
+            addAndEvict(key, task, priority, capacity, evicted);
+        }
+        return evicted;
+    }
+
+    private void addAndEvict(Object key, Task<?> task, Priority priority, int capacity, List<Task<?>> evicted) {
+        if (!retained.containsKey(task)) {
+            // already evicted via another buffer
+            return;
+        }
+        Buffer buffer = buffers.get(key);
+        if (buffer == null) {
+            buffer = new Buffer();
+            buffers.put(key, buffer);
+        }
+        buffer.add(task, priority);
+        while (buffer.size > Math.max(capacity, 0)) {
+            Task<?> victim = buffer.nextToEvict();
+            if (victim == null) break;
+            removeInternal(victim);
+            evicted.add(victim);
+            evictedCount++;
+        }
+    }
+
+    /** Forgets the given task (e.g. because it has been deleted by other means). */
+    synchronized void remove(Task<?> task) {
+        removeInternal(task);
+    }
+
+    /** Forgets all tasks in the buffer for the given tag (e.g. an entity tag, when the entity is unmanaged). */
+    synchronized void removeTag(Object tag) {
+        Buffer buffer = buffers.get(tag);
+        if (buffer == null) return;
+        for (Set<Task<?>> tasks : buffer.byPriority) {
+            for (Task<?> task : MutableList.copyOf(tasks)) {
+                removeInternal(task);
+            }
+        }
+        buffers.remove(tag);
+    }
+
+    /** Forgets all tasks matching the given predicate; O(n), intended to be called periodically for tasks deleted elsewhere. */
+    synchronized int prune(Predicate<? super Task<?>> shouldForget) {
+        int count = 0;
+        Iterator<Task<?>> ti = MutableList.copyOf(retained.keySet()).iterator();
+        while (ti.hasNext()) {
+            Task<?> task = ti.next();
+            if (shouldForget.apply(task)) {
+                removeInternal(task);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void removeInternal(Task<?> task) {
+        Retained entry = retained.remove(task);
+        if (entry == null) return;
+        for (Object key : entry.keys) {
+            removeFromBuffer(key, task);
+        }
+    }
+
+    private void removeFromBuffer(Object key, Task<?> task) {
+        Buffer buffer = buffers.get(key);
+        if (buffer != null && buffer.remove(task) && buffer.size == 0) {
+            buffers.remove(key);
+        }
+    }
+
+    synchronized int size() {
+        return retained.size();
+    }
+
+    /** metrics describing the retained tasks, suitable for logging or publishing */
+    synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> result = MutableMap.of();
+        int[] countByPriority = new int[Priority.values().length];
+        for (Retained entry : retained.values()) countByPriority[entry.priority.ordinal()]++;
+        result.put("retained", retained.size());
+        for (Priority p : Priority.values()) {
+            result.put("retained."+p.name().toLowerCase(), countByPriority[p.ordinal()]);
+        }
+        // each buffer includes the global one
+        result.put("buffers", buffers.size());
+        result.put("evicted", evictedCount);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskRetentionBuffers"+getMetrics();
+    }
+}
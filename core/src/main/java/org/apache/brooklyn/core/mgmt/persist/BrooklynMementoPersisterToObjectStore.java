@@ -25,6 +25,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -104,6 +106,9 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
 
     private final Map<String, StoreObjectAccessorWithLock> writers = new LinkedHashMap<String, PersistenceObjectStore.StoreObjectAccessorWithLock>();
 
+    /** size (in characters) of the most recently written memento of each entity, for resource accounting */
+    private final ConcurrentMap<String, Integer> entityMementoSizes = new ConcurrentHashMap<String, Integer>();
+
     private final ListeningExecutorService executor;
 
     private volatile boolean writesAllowed = false;
@@ -643,7 +648,9 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
 
     private void persist(String subPath, Memento memento, PersistenceExceptionHandler exceptionHandler) {
         try {
-            getWriter(getPath(subPath, memento.getId())).put(getSerializerWithStandardClassLoader().toString(memento));
+            String content = getSerializerWithStandardClassLoader().toString(memento);
+            getWriter(getPath(subPath, memento.getId())).put(content);
+            recordSize(subPath, memento.getId(), content);
         } catch (Exception e) {
             exceptionHandler.onPersistMementoFailed(memento, e);
         }
@@ -655,10 +662,26 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
                 LOG.warn("Null content for "+type+" "+id);
             }
             getWriter(getPath(subPath, id)).put(content);
+            recordSize(subPath, id, content);
         } catch (Exception e) {
             exceptionHandler.onPersistRawMementoFailed(type, id, e);
         }
     }
+
+    private void recordSize(String subPath, String id, String content) {
+        if (content!=null && BrooklynObjectType.ENTITY.getSubPathName().equals(subPath)) {
+            entityMementoSizes.put(id, content.length());
+        }
+    }
+
+    /**
+     * Returns the size (in characters) of the most recently persisted memento for the given entity,
+     * or null if none has been written by this persister.
+     */
+    @Beta
+    public Integer getPersistedEntitySize(String entityId) {
+        return entityMementoSizes.get(entityId);
+    }
     
     private void delete(String subPath, String id, PersistenceExceptionHandler exceptionHandler) {
         try {
@@ -667,6 +690,9 @@ public class BrooklynMementoPersisterToObjectStore implements BrooklynMementoPer
             synchronized (writers) {
                 writers.remove(id);
             }
+            if (BrooklynObjectType.ENTITY.getSubPathName().equals(subPath)) {
+                entityMementoSizes.remove(id);
+            }
         } catch (Exception e) {
             exceptionHandler.onDeleteMementoFailed(id, e);
         }
@@ -22,7 +22,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.sensor.AttributeSensor;
@@ -37,11 +42,26 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 
 /**
  * A {@link Map} of {@link Entity} attribute values.
+ * <p>
+ * By default values are held in a {@link ConcurrentMap} keyed by interned sensor name paths,
+ * so reads and writes of different sensors do not contend. Compound operations such as
+ * {@link #modify(AttributeSensor, Function)} are atomic per sensor, using a lock striped on the key
+ * rather than a lock on the whole map. {@link #asMap()} returns an immutable snapshot which is
+ * only rebuilt after a change; as with the previous synchronized {@link java.util.LinkedHashMap},
+ * sensors in the snapshot are in the order in which they were first set.
+ * <p>
+ * If a non-concurrent (e.g. synchronized) map is supplied as storage, the previous behaviour
+ * of synchronizing on that map for compound operations is retained.
  */
 public final class AttributeMap {
 
@@ -50,12 +70,41 @@ public final class AttributeMap {
     private static enum Marker {
         NULL;
     }
-    
+
+    /** Shared across all entities; sensor names are almost always the same handful of (static) sensors. */
+    private static final Interner<List<String>> NAME_PARTS_INTERNER = Interners.newWeakInterner();
+
+    /** Number of snapshot attempts in {@link #asMap()} before accepting a weakly consistent view. */
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 3;
+
     private final AbstractEntity entity;
 
     // Assumed to be something like a ConcurrentMap passed in.
     private final Map<Collection<String>, Object> values;
 
+    /** Whether {@link #values} is a {@link ConcurrentMap}; if not, compound operations synchronize on it. */
+    private final boolean concurrent;
+
+    private final Striped<Lock> keyLocks;
+
+    /** Sequence number of when each key was first set, so that {@link #asMap()} keeps insertion order. */
+    private final ConcurrentMap<Collection<String>, Long> insertionOrder;
+    private final AtomicLong insertionSequence = new AtomicLong();
+
+    /** Incremented on every change, so that {@link #asMap()} can detect a concurrent modification. */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    private static class Snapshot {
+        final long version;
+        final Map<String, Object> map;
+        Snapshot(long version, Map<String, Object> map) {
+            this.version = version;
+            this.map = map;
+        }
+    }
+
     /**
      * Creates a new AttributeMap.
      *
@@ -63,9 +112,8 @@ public final class AttributeMap {
      * @throws NullPointerException if entity is null
      */
     public AttributeMap(AbstractEntity entity) {
-        // Not using ConcurrentMap, because want to (continue to) allow null values.
-        // Could use ConcurrentMapAcceptingNullVals (with the associated performance hit on entrySet() etc).
-        this(entity, Collections.synchronizedMap(Maps.<Collection<String>, Object>newLinkedHashMap()));
+        // Null values are stored as Marker.NULL, so a ConcurrentMap can be used.
+        this(entity, Maps.<Collection<String>, Object>newConcurrentMap());
     }
 
     /**
@@ -78,6 +126,9 @@ public final class AttributeMap {
     public AttributeMap(AbstractEntity entity, Map<Collection<String>, Object> storage) {
         this.entity = checkNotNull(entity, "entity must be specified");
         this.values = checkNotNull(storage, "storage map must not be null");
+        this.concurrent = (storage instanceof ConcurrentMap);
+        this.keyLocks = concurrent ? Striped.<Lock>lazyWeakLock(64) : null;
+        this.insertionOrder = concurrent ? Maps.<Collection<String>, Long>newConcurrentMap() : null;
     }
 
     public Map<Collection<String>, Object> asRawMap() {
@@ -86,18 +137,65 @@ public final class AttributeMap {
         }
     }
 
+    /**
+     * Returns an unmodifiable snapshot of the current values, keyed by sensor name.
+     * <p>
+     * The same instance is returned on subsequent calls until an attribute is changed.
+     */
     public Map<String, Object> asMap() {
-        Map<String, Object> result = Maps.newLinkedHashMap();
-        synchronized (values) {
-            for (Map.Entry<Collection<String>, Object> entry : values.entrySet()) {
-                String sensorName = Joiner.on('.').join(entry.getKey());
-                Object val = (isNull(entry.getValue())) ? null : entry.getValue();
-                result.put(sensorName, val);
+        Snapshot current = snapshot;
+        long v = version.get();
+        if (current != null && current.version == v) {
+            return current.map;
+        }
+
+        Map<String, Object> result = null;
+        for (int i = 0; i < MAX_SNAPSHOT_ATTEMPTS; i++) {
+            v = version.get();
+            result = copyValues();
+            if (version.get() == v) {
+                snapshot = new Snapshot(v, result);
+                return result;
             }
         }
+        // Constantly changing; don't cache, but return the (weakly consistent) most recent copy
         return result;
     }
-    
+
+    private Map<String, Object> copyValues() {
+        Map<String, Object> result = Maps.newLinkedHashMap();
+        if (concurrent) {
+            List<Map.Entry<Collection<String>, Object>> entries = Lists.newArrayList(values.entrySet());
+            Collections.sort(entries, insertionOrdering);
+            for (Map.Entry<Collection<String>, Object> entry : entries) {
+                putSensorEntry(result, entry);
+            }
+        } else {
+            synchronized (values) {
+                for (Map.Entry<Collection<String>, Object> entry : values.entrySet()) {
+                    putSensorEntry(result, entry);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private final Comparator<Map.Entry<Collection<String>, Object>> insertionOrdering = new Comparator<Map.Entry<Collection<String>, Object>>() {
+        @Override
+        public int compare(Map.Entry<Collection<String>, Object> o1, Map.Entry<Collection<String>, Object> o2) {
+            // entries already in a supplied storage map (not set through this instance) go last
+            Long s1 = insertionOrder.get(o1.getKey());
+            Long s2 = insertionOrder.get(o2.getKey());
+            return Long.compare(s1 == null ? Long.MAX_VALUE : s1, s2 == null ? Long.MAX_VALUE : s2);
+        }
+    };
+
+    private void putSensorEntry(Map<String, Object> result, Map.Entry<Collection<String>, Object> entry) {
+        String sensorName = Joiner.on('.').join(entry.getKey());
+        Object val = (isNull(entry.getValue())) ? null : entry.getValue();
+        result.put(sensorName, val);
+    }
+
     /**
      * Updates the value.
      *
@@ -109,6 +207,7 @@ public final class AttributeMap {
     // TODO path must be ordered(and legal to contain duplicates like "a.b.a"; list would be better
     public <T> T update(Collection<String> path, T newValue) {
         checkPath(path);
+        Collection<String> key = toKey(path);
 
         if (newValue == null) {
             newValue = typedNull();
@@ -118,22 +217,51 @@ public final class AttributeMap {
             log.trace("setting sensor {}={} for {}", new Object[] {path, newValue, entity});
         }
 
-        @SuppressWarnings("unchecked")
-        T oldValue = (T) values.put(path, newValue);
+        T oldValue;
+        if (concurrent) {
+            // lock so that we do not interleave with a modify of the same key
+            Lock lock = keyLocks.get(key);
+            lock.lock();
+            try {
+                oldValue = put(key, newValue);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            oldValue = put(key, newValue);
+        }
         return (isNull(oldValue)) ? null : oldValue;
     }
 
+    @SuppressWarnings("unchecked")
+    private <T> T put(Collection<String> key, T newValue) {
+        T result = (T) values.put(key, newValue);
+        if (insertionOrder != null && result == null) {
+            insertionOrder.putIfAbsent(key, insertionSequence.incrementAndGet());
+        }
+        version.incrementAndGet();
+        return result;
+    }
+
     private void checkPath(Collection<String> path) {
         Preconditions.checkNotNull(path, "path can't be null");
         Preconditions.checkArgument(!path.isEmpty(), "path can't be empty");
     }
 
+    /**
+     * Returns the canonical key for this path; sensors' name parts are already immutable lists,
+     * so typically this is just a lookup in the interner.
+     */
+    private Collection<String> toKey(Collection<String> path) {
+        return NAME_PARTS_INTERNER.intern(ImmutableList.copyOf(path));
+    }
+
     public <T> T update(AttributeSensor<T> attribute, T newValue) {
         T oldValue = updateWithoutPublishing(attribute, newValue);
         entity.emitInternal(attribute, newValue);
         return oldValue;
     }
-    
+
     public <T> T updateWithoutPublishing(AttributeSensor<T> attribute, T newValue) {
         if (log.isTraceEnabled()) {
             Object oldValue = getValue(attribute);
@@ -145,28 +273,46 @@ public final class AttributeMap {
         }
 
         T oldValue = (T) update(attribute.getNameParts(), newValue);
-        
+
         return (isNull(oldValue)) ? null : oldValue;
     }
 
     /**
-     * Where atomicity is desired, the methods in this class synchronize on the {@link #values} map.
+     * Where atomicity is desired, the methods in this class lock on the key being modified
+     * (or synchronize on the {@link #values} map, if it was not supplied as a {@link ConcurrentMap}).
+     * <p>
+     * The new value is published while the lock is held, so that concurrent modifications of the
+     * same sensor are emitted in the order they were applied.
      */
     public <T> T modify(AttributeSensor<T> attribute, Function<? super T, Maybe<T>> modifier) {
-        synchronized (values) {
-            T oldValue = getValue(attribute);
-            Maybe<? extends T> newValue = modifier.apply(oldValue);
-
-            if (newValue.isPresent()) {
-                if (log.isTraceEnabled()) log.trace("modified attribute {} to {} (was {}) on {}", new Object[] {attribute.getName(), newValue, oldValue, entity});
-                return update(attribute, newValue.get());
-            } else {
-                if (log.isTraceEnabled()) log.trace("modified attribute {} unchanged; not emitting on {}", new Object[] {attribute.getName(), newValue, this});
-                return oldValue;
+        if (concurrent) {
+            Lock lock = keyLocks.get(toKey(attribute.getNameParts()));
+            lock.lock();
+            try {
+                return modifyUnlocked(attribute, modifier);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            synchronized (values) {
+                return modifyUnlocked(attribute, modifier);
             }
         }
     }
 
+    private <T> T modifyUnlocked(AttributeSensor<T> attribute, Function<? super T, Maybe<T>> modifier) {
+        T oldValue = getValue(attribute);
+        Maybe<? extends T> newValue = modifier.apply(oldValue);
+
+        if (newValue.isPresent()) {
+            if (log.isTraceEnabled()) log.trace("modified attribute {} to {} (was {}) on {}", new Object[] {attribute.getName(), newValue, oldValue, entity});
+            return update(attribute, newValue.get());
+        } else {
+            if (log.isTraceEnabled()) log.trace("modified attribute {} unchanged; not emitting on {}", new Object[] {attribute.getName(), newValue, this});
+            return oldValue;
+        }
+    }
+
     public void remove(AttributeSensor<?> attribute) {
         BrooklynLogging.log(log, BrooklynLogging.levelDebugOrTraceIfReadOnly(entity),
             "removing attribute {} on {}", attribute.getName(), entity);
@@ -182,7 +328,21 @@ public final class AttributeMap {
             log.trace("removing sensor {} for {}", new Object[] {path, entity});
         }
 
-        values.remove(path);
+        if (concurrent) {
+            Collection<String> key = toKey(path);
+            Lock lock = keyLocks.get(key);
+            lock.lock();
+            try {
+                values.remove(key);
+                insertionOrder.remove(key);
+                version.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            values.remove(path);
+            version.incrementAndGet();
+        }
     }
 
     /**
@@ -193,9 +353,9 @@ public final class AttributeMap {
      * @throws IllegalArgumentException path is null or empty.
      */
     public Object getValue(Collection<String> path) {
-        // TODO previously this would return a map of the sub-tree if the path matched a prefix of a group of sensors, 
+        // TODO previously this would return a map of the sub-tree if the path matched a prefix of a group of sensors,
         // or the leaf value if only one value. Arguably that is not required - what is/was the use-case?
-        // 
+        //
         checkPath(path);
         Object result = values.get(path);
         return (isNull(result)) ? null : result;
@@ -210,7 +370,7 @@ public final class AttributeMap {
     private <T> T typedNull() {
         return (T) Marker.NULL;
     }
-    
+
     private boolean isNull(Object t) {
         return t == Marker.NULL;
     }
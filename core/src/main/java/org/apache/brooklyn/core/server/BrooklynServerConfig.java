@@ -31,6 +31,7 @@ import org.apache.brooklyn.core.catalog.internal.CatalogInitialization;
 import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -121,6 +122,15 @@ public class BrooklynServerConfig {
     public static final ConfigKey<Boolean> OSGI_CACHE_CLEAN = ConfigKeys.newBooleanConfigKey("brooklyn.osgi.cache.clean",
         "Whether to delete the OSGi directory before and after use; if unset, it will delete if the node ID forms part of the cache dir path (which by default it does) to avoid file leaks");
 
+    public static final ConfigKey<Boolean> HTTP_POOL_ENABLED = ConfigKeys.newBooleanConfigKey("brooklyn.http.pool.enabled",
+        "Whether http feeds share a pool of keep-alive connections; off by default, in which case each poll uses a new connection", false);
+    public static final ConfigKey<Integer> HTTP_POOL_MAX_TOTAL = ConfigKeys.newIntegerConfigKey("brooklyn.http.pool.maxTotal",
+        "Maximum number of connections in the shared http connection pool (for each trust mode)", 500);
+    public static final ConfigKey<Integer> HTTP_POOL_MAX_PER_ROUTE = ConfigKeys.newIntegerConfigKey("brooklyn.http.pool.maxPerRoute",
+        "Maximum number of connections in the shared http connection pool to any one host:port", 50);
+    public static final ConfigKey<Duration> HTTP_POOL_IDLE_TIMEOUT = ConfigKeys.newDurationConfigKey("brooklyn.http.pool.idleTimeout",
+        "Time after which idle connections in the shared http connection pool are closed", Duration.THIRTY_SECONDS);
+
     /** @see BrooklynServerPaths#getMgmtBaseDir(ManagementContext) */
     public static String getMgmtBaseDir(ManagementContext mgmt) {
         return BrooklynServerPaths.getMgmtBaseDir(mgmt);
@@ -31,6 +31,7 @@ import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
+import org.apache.brooklyn.core.feed.PollConfig;
 import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -199,10 +200,12 @@ public class FunctionFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
             
-            getPoller().scheduleAtFixedRate(
+            getPoller().scheduleAdaptive(
                     (Callable)pollInfo.job,
                     new DelegatingPollHandler(handlers), 
-                    minPeriod);
+                    Duration.millis(minPeriod),
+                    PollConfig.getAdaptiveMaxPeriod(configs),
+                    null);
         }
     }
 }
@@ -40,17 +40,23 @@ import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
+import org.apache.brooklyn.core.feed.PollConfig;
 import org.apache.brooklyn.core.feed.Poller;
 import org.apache.brooklyn.core.location.Locations;
 import org.apache.brooklyn.core.location.Machines;
+import org.apache.brooklyn.core.mgmt.internal.AbstractManagementContext;
+import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.executor.HttpExecutorFactory;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.http.HttpConnectionPool;
 import org.apache.brooklyn.util.http.HttpToolResponse;
 import org.apache.brooklyn.util.http.executor.UsernamePassword;
+import org.apache.brooklyn.util.http.executor.AsyncHttpExecutor;
 import org.apache.brooklyn.util.http.executor.HttpConfig;
 import org.apache.brooklyn.util.http.executor.HttpExecutor;
 import org.apache.brooklyn.util.http.executor.HttpRequest;
 import org.apache.brooklyn.util.http.executor.HttpResponse;
+import org.apache.brooklyn.util.http.executor.apacheclient.AsyncHttpExecutorImpl;
 import org.apache.brooklyn.util.http.executor.apacheclient.HttpExecutorImpl;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.time.Duration;
@@ -59,6 +65,8 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
@@ -72,6 +80,8 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * Provides a feed of attribute values, by polling over http.
@@ -143,6 +153,7 @@ public class HttpFeed extends AbstractFeed {
         private Credentials credentials;
         private String uniqueTag;
         private HttpExecutor httpExecutor;
+        private boolean async = false;
         private volatile boolean built;
 
         public Builder entity(EntityLocal val) {
@@ -223,10 +234,29 @@ public class HttpFeed extends AbstractFeed {
             this.uniqueTag = uniqueTag;
             return this;
         }
+        /**
+         * The executor to use for polls. If this is an {@link AsyncHttpExecutorImpl} other than the
+         * {@link AsyncHttpExecutorImpl#getShared() shared instance}, it is closed when the feed stops.
+         */
         public Builder httpExecutor(HttpExecutor val) {
             this.httpExecutor = val;
             return this;
         }
+        /**
+         * Whether to poll without blocking a thread for each request, using the shared
+         * {@link AsyncHttpExecutorImpl} (unless an {@link #httpExecutor(HttpExecutor)} is supplied,
+         * or the entity's location supplies one). Polls are always done asynchronously if the
+         * http executor is an {@link AsyncHttpExecutor}.
+         */
+        @Beta
+        public Builder async(boolean val) {
+            this.async = val;
+            return this;
+        }
+        @Beta
+        public Builder async() {
+            return async(true);
+        }
         public HttpFeed build() {
             built = true;
             HttpFeed result = new HttpFeed(this);
@@ -310,6 +340,8 @@ public class HttpFeed extends AbstractFeed {
                 httpExecutorFactory = location.get().getExtension(HttpExecutorFactory.class);
                 Map<String, Object> httpExecutorProps = location.get().getAllConfig(true);
                 httpExecutor = httpExecutorFactory.getHttpExecutor(httpExecutorProps);
+            } else if (builder.async) {
+                httpExecutor = AsyncHttpExecutorImpl.getShared();
             } else {
                 httpExecutor = HttpExecutorImpl.newInstance();
             }
@@ -368,43 +400,108 @@ public class HttpFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
 
-            Callable<HttpToolResponse> pollJob;
-            pollJob = new Callable<HttpToolResponse>() {
-                public HttpToolResponse call() throws Exception {
-                    if (log.isTraceEnabled()) log.trace("http polling for {} sensors at {}", entity, pollInfo);
+            Supplier<String> target = new Supplier<String>() {
+                @Override public String get() {
+                    URI uri = pollInfo.uriProvider.get();
+                    return (uri == null) ? null : uri.getHost()+":"+uri.getPort();
+                }};
 
-                    UsernamePassword creds = null;
-                    if (pollInfo.credentials.isPresent()) {
-                        creds =  new UsernamePassword(
-                                pollInfo.credentials.get().getUserPrincipal().getName(),
-                                pollInfo.credentials.get().getPassword());
+            Duration maxPeriod = PollConfig.getAdaptiveMaxPeriod(configs);
+            final HttpExecutor httpExecutor = withSharedConnectionPool(pollInfo.httpExecutor);
+            if (httpExecutor instanceof AsyncHttpExecutor) {
+                Callable<ListenableFuture<HttpToolResponse>> pollJob = new Callable<ListenableFuture<HttpToolResponse>>() {
+                    public ListenableFuture<HttpToolResponse> call() {
+                        if (log.isTraceEnabled()) log.trace("http polling (async) for {} sensors at {}", entity, pollInfo);
+                        final long startTime = System.currentTimeMillis();
+                        ListenableFuture<HttpResponse> response = ((AsyncHttpExecutor)httpExecutor).executeAsync(newRequest(pollInfo));
+                        return Futures.transform(response, new Function<HttpResponse, HttpToolResponse>() {
+                            @Override public HttpToolResponse apply(HttpResponse input) {
+                                try {
+                                    return createHttpToolRespose(input, startTime);
+                                } catch (IOException e) {
+                                    throw Exceptions.propagate(e);
+                                }
+                            }});
                     }
+                    @Override public String toString() {
+                        return "http poll of "+pollInfo.uriProvider;
+                    }};
+                getPoller().scheduleAsyncAdaptive(pollJob, new DelegatingPollHandler(handlers), Duration.millis(minPeriod), maxPeriod, target);
+            } else {
+                Callable<HttpToolResponse> pollJob = new Callable<HttpToolResponse>() {
+                    public HttpToolResponse call() throws Exception {
+                        if (log.isTraceEnabled()) log.trace("http polling for {} sensors at {}", entity, pollInfo);
+                        HttpResponse response = httpExecutor.execute(newRequest(pollInfo));
+                        return createHttpToolRespose(response);
+                    }};
+                getPoller().scheduleAdaptive(pollJob, new DelegatingPollHandler(handlers), Duration.millis(minPeriod), maxPeriod, target);
+            }
+        }
+    }
 
-                    HttpResponse response =  pollInfo.httpExecutor.execute(new HttpRequest.Builder()
-                            .headers(pollInfo.headers)
-                            .uri(pollInfo.uriProvider.get())
-                            .credentials(creds)
-                            .method(pollInfo.method)
-                            .body(pollInfo.body)
-                            .config(HttpConfig.builder()
-                                    .trustSelfSigned(true)
-                                    .trustAll(true)
-                                    .laxRedirect(true)
-                                    .build())
-                            .build());
-                    return createHttpToolRespose(response);
-                }};
-                getPoller().scheduleAtFixedRate(pollJob, new DelegatingPollHandler(handlers), minPeriod);
+    /**
+     * Closes any async executor used only by this feed, releasing its I/O threads and connections.
+     * The shared executor is left open for other feeds.
+     */
+    @Override
+    protected void postStop() {
+        super.postStop();
+        SetMultimap<HttpPollIdentifier, HttpPollConfig<?>> polls = getConfig(POLLS);
+        if (polls == null) return;
+        for (HttpPollIdentifier pollInfo : polls.keySet()) {
+            if (pollInfo.httpExecutor instanceof AsyncHttpExecutorImpl && !((AsyncHttpExecutorImpl)pollInfo.httpExecutor).isShared()) {
+                ((AsyncHttpExecutorImpl)pollInfo.httpExecutor).close();
+            }
         }
     }
 
+    /**
+     * Uses the management context's shared keep-alive connection pool for the default executor;
+     * done here rather than when building, as the pool is not persisted.
+     */
+    private HttpExecutor withSharedConnectionPool(HttpExecutor httpExecutor) {
+        if (httpExecutor instanceof HttpExecutorImpl && ((HttpExecutorImpl)httpExecutor).getConnectionPool() == null
+                && getManagementContext() instanceof AbstractManagementContext) {
+            HttpConnectionPool pool = ((AbstractManagementContext)getManagementContext()).getHttpConnectionPool();
+            if (pool != null) return ((HttpExecutorImpl)httpExecutor).withConnectionPool(pool);
+        }
+        return httpExecutor;
+    }
+
+    private HttpRequest newRequest(HttpPollIdentifier pollInfo) {
+        UsernamePassword creds = null;
+        if (pollInfo.credentials.isPresent()) {
+            creds =  new UsernamePassword(
+                    pollInfo.credentials.get().getUserPrincipal().getName(),
+                    pollInfo.credentials.get().getPassword());
+        }
+
+        return new HttpRequest.Builder()
+                .headers(pollInfo.headers)
+                .uri(pollInfo.uriProvider.get())
+                .credentials(creds)
+                .method(pollInfo.method)
+                .body(pollInfo.body)
+                .config(HttpConfig.builder()
+                        .trustSelfSigned(true)
+                        .trustAll(true)
+                        .laxRedirect(true)
+                        .build())
+                .build();
+    }
+
     @SuppressWarnings("unchecked")
     protected Poller<HttpToolResponse> getPoller() {
         return  (Poller<HttpToolResponse>) super.getPoller();
     }
 
-    @SuppressWarnings("unchecked")
     private HttpToolResponse createHttpToolRespose(HttpResponse response) throws IOException {
+        return createHttpToolRespose(response, System.currentTimeMillis());
+    }
+
+    /** @param startTime the time the request was sent or, if not known, when the response was received */
+    @SuppressWarnings("unchecked")
+    private HttpToolResponse createHttpToolRespose(HttpResponse response, long startTime) throws IOException {
         int responseCode = response.code();
 
         Map<String,? extends List<String>> headers = (Map<String, List<String>>) (Map<?, ?>) response.headers().asMap();
@@ -412,7 +509,6 @@ public class HttpFeed extends AbstractFeed {
         byte[] content = null;
         final long durationMillisOfFirstResponse;
         final long durationMillisOfFullContent;
-        final long startTime = System.currentTimeMillis();
 
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         durationMillisOfFirstResponse = Duration.sinceUtc(startTime).toMilliseconds();
@@ -35,6 +35,7 @@ import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
+import org.apache.brooklyn.core.feed.PollConfig;
 import org.apache.brooklyn.core.feed.Poller;
 import org.apache.brooklyn.core.location.Locations;
 import org.apache.brooklyn.core.location.Machines;
@@ -43,8 +44,12 @@ import org.slf4j.LoggerFactory;
 import org.apache.brooklyn.location.ssh.SshMachineLocation;
 import org.apache.brooklyn.util.core.config.ConfigBag;
 import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.core.internal.ssh.sshj.SshjMultiplexedSession;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.guava.Maybe;
 import org.apache.brooklyn.util.time.Duration;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Objects;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
@@ -100,6 +105,23 @@ public class SshFeed extends AbstractFeed {
     
     public static final ConfigKey<Boolean> EXEC_AS_COMMAND = ConfigKeys.newBooleanConfigKey("execAsCommand");
     
+    /**
+     * Whether to run polls over the machine's long-lived multiplexed ssh session (see {@link SshMachineLocation#getMultiplexedSession()}),
+     * rather than opening a session (and, unless {@link #EXEC_AS_COMMAND}, uploading a script) for each poll;
+     * falls back to the latter if the multiplexed session is not supported or fails.
+     */
+    @Beta
+    public static final ConfigKey<Boolean> MULTIPLEXED = ConfigKeys.newBooleanConfigKey("multiplexed", 
+            "Whether to run polls over a single long-lived ssh session to the machine", false);
+    
+    /**
+     * The maximum time for a {@link #MULTIPLEXED} poll, including any wait for other polls on the same session
+     * (which is shared by all feeds on the machine), before falling back to polling over a new session.
+     */
+    @Beta
+    public static final ConfigKey<Duration> MULTIPLEXED_TIMEOUT = ConfigKeys.newDurationConfigKey("multiplexedTimeout", 
+            "Maximum time for a poll over the multiplexed ssh session, before falling back to a new session", Duration.seconds(30));
+    
     @SuppressWarnings("serial")
     public static final ConfigKey<SetMultimap<SshPollIdentifier, SshPollConfig<?>>> POLLS = ConfigKeys.newConfigKey(
             new TypeToken<SetMultimap<SshPollIdentifier, SshPollConfig<?>>>() {},
@@ -116,6 +138,8 @@ public class SshFeed extends AbstractFeed {
         private Duration period = Duration.of(500, TimeUnit.MILLISECONDS);
         private List<SshPollConfig<?>> polls = Lists.newArrayList();
         private boolean execAsCommand = false;
+        private boolean multiplexed = false;
+        private Duration multiplexedTimeout = null;
         private String uniqueTag;
         private volatile boolean built;
         
@@ -157,6 +181,23 @@ public class SshFeed extends AbstractFeed {
             execAsCommand = false;
             return this;
         }
+        /** @see SshFeed#MULTIPLEXED */
+        @Beta
+        public Builder multiplexed() {
+            return multiplexed(true);
+        }
+        /** @see SshFeed#MULTIPLEXED */
+        @Beta
+        public Builder multiplexed(boolean val) {
+            multiplexed = val;
+            return this;
+        }
+        /** @see SshFeed#MULTIPLEXED_TIMEOUT */
+        @Beta
+        public Builder multiplexedTimeout(Duration val) {
+            multiplexedTimeout = val;
+            return this;
+        }
         public Builder uniqueTag(String uniqueTag) {
             this.uniqueTag = uniqueTag;
             return this;
@@ -209,6 +250,8 @@ public class SshFeed extends AbstractFeed {
         config().set(ONLY_IF_SERVICE_UP, builder.onlyIfServiceUp);
         config().set(MACHINE, builder.machine);
         config().set(EXEC_AS_COMMAND, builder.execAsCommand);
+        config().set(MULTIPLEXED, builder.multiplexed);
+        if (builder.multiplexedTimeout != null) config().set(MULTIPLEXED_TIMEOUT, builder.multiplexedTimeout);
         
         SetMultimap<SshPollIdentifier, SshPollConfig<?>> polls = HashMultimap.<SshPollIdentifier,SshPollConfig<?>>create();
         for (SshPollConfig<?> config : builder.polls) {
@@ -244,13 +287,18 @@ public class SshFeed extends AbstractFeed {
                 if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
             }
             
-            getPoller().scheduleAtFixedRate(
+            getPoller().scheduleAdaptive(
                     new Callable<SshPollValue>() {
                         public SshPollValue call() throws Exception {
                             return exec(pollInfo.command.get(), pollInfo.env.get());
                         }}, 
                     new DelegatingPollHandler<SshPollValue>(handlers),
-                    minPeriod);
+                    Duration.millis(minPeriod),
+                    PollConfig.getAdaptiveMaxPeriod(configs),
+                    new Supplier<String>() {
+                        public String get() {
+                            return getMachine().getAddress().getHostAddress();
+                        }});
         }
     }
     
@@ -263,6 +311,10 @@ public class SshFeed extends AbstractFeed {
         SshMachineLocation machine = getMachine();
         Boolean execAsCommand = config().get(EXEC_AS_COMMAND);
         if (log.isTraceEnabled()) log.trace("Ssh polling for {}, executing {} with env {}", new Object[] {machine, command, env});
+        if (Boolean.TRUE.equals(config().get(MULTIPLEXED))) {
+            Maybe<SshPollValue> result = execMultiplexed(machine, command, env);
+            if (result.isPresent()) return result.get();
+        }
         ByteArrayOutputStream stdout = new ByteArrayOutputStream();
         ByteArrayOutputStream stderr = new ByteArrayOutputStream();
 
@@ -281,4 +333,21 @@ public class SshFeed extends AbstractFeed {
 
         return new SshPollValue(machine, exitStatus, new String(stdout.toByteArray()), new String(stderr.toByteArray()));
     }
+
+    private Maybe<SshPollValue> execMultiplexed(SshMachineLocation machine, String command, Map<String,String> env) {
+        try {
+            Maybe<SshjMultiplexedSession> session = machine.getMultiplexedSession();
+            if (session.isAbsent()) {
+                if (log.isTraceEnabled()) log.trace("Ssh polling for {} not multiplexed, as not supported", machine);
+                return Maybe.absent();
+            }
+            SshjMultiplexedSession.Result result = session.get().exec(command, env, config().get(MULTIPLEXED_TIMEOUT));
+            return Maybe.of(new SshPollValue(machine, result.getExitCode(), result.getStdout(), result.getStderr()));
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            // the session re-opens on its next use; meanwhile poll in the usual way
+            if (log.isDebugEnabled()) log.debug("Multiplexed ssh poll failed for "+machine+" (falling back to new session): "+e);
+            return Maybe.absent(e);
+        }
+    }
 }
@@ -22,8 +22,6 @@ import static org.apache.brooklyn.util.groovy.GroovyJavaMethods.truth;
 
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -81,7 +79,9 @@ import org.apache.brooklyn.util.core.flags.SetFromFlag;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.core.internal.ssh.ShellTool;
 import org.apache.brooklyn.util.core.internal.ssh.SshException;
+import org.apache.brooklyn.util.core.internal.ssh.SshHostAdmission;
 import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.core.internal.ssh.sshj.SshjMultiplexedSession;
 import org.apache.brooklyn.util.core.internal.ssh.sshj.SshjTool;
 import org.apache.brooklyn.util.core.mutex.MutexSupport;
 import org.apache.brooklyn.util.core.mutex.WithMutexes;
@@ -256,7 +256,8 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     public static final Set<ConfigKey<?>> REUSABLE_SSH_PROPS = ImmutableSet.<ConfigKey<?>>of(
             STDOUT, STDERR, SCRIPT_DIR, CLOSE_CONNECTION,
             SshTool.PROP_SCRIPT_HEADER, SshTool.PROP_PERMISSIONS, SshTool.PROP_LAST_MODIFICATION_DATE,
-            SshTool.PROP_LAST_ACCESS_DATE, SshTool.PROP_OWNER_UID, SshTool.PROP_SSH_RETRY_DELAY);
+            SshTool.PROP_LAST_ACCESS_DATE, SshTool.PROP_OWNER_UID, SshTool.PROP_SSH_RETRY_DELAY,
+            SshTool.PROP_TRANSFER_PARALLELISM, SshTool.PROP_TRANSFER_CHUNK_SIZE, SshTool.PROP_TRANSFER_RESUME);
 
     public static final Set<HasConfigKey<?>> ALL_SSH_CONFIG_KEYS =
             ImmutableSet.<HasConfigKey<?>>builder()
@@ -286,6 +287,12 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     private transient LoadingCache<Map<String, ?>, Pool<SshTool>> sshPoolCacheOrNull;
 
     private transient volatile boolean loggedLegcySshToolClassConfig;
+
+    /** callers should use {@link #getMultiplexedSession()} */
+    @Nullable
+    private transient SshTool multiplexedSessionTool;
+    @Nullable
+    private transient SshjMultiplexedSession multiplexedSessionOrNull;
     
     public SshMachineLocation() {
         this(MutableMap.of());
@@ -516,6 +523,51 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
         }
         cleanupTask = null;
         sshPoolCacheOrNull = null;
+        closeMultiplexedSession();
+    }
+
+    /**
+     * A session for running many commands in turn over a single long-lived ssh connection to this machine,
+     * created if necessary; or absent if the configured ssh tool does not support this (or allocates a PTY).
+     * The session is shared by all callers, and closed when this location is closed.
+     * 
+     * @see SshjMultiplexedSession
+     */
+    @Beta
+    public Maybe<SshjMultiplexedSession> getMultiplexedSession() {
+        synchronized (poolCacheMutex) {
+            if (multiplexedSessionOrNull == null) {
+                if (Boolean.TRUE.equals(config().get(SshTool.PROP_ALLOCATE_PTY))) {
+                    return Maybe.absent("Multiplexed ssh sessions do not support allocating a PTY, for "+this);
+                }
+                SshTool tool = connectSsh();
+                if (!(tool instanceof SshjTool)) {
+                    tool.disconnect();
+                    return Maybe.absent("Multiplexed ssh sessions not supported by "+tool.getClass().getName()+", for "+this);
+                }
+                multiplexedSessionTool = tool;
+                multiplexedSessionOrNull = ((SshjTool) tool).newMultiplexedSession();
+            }
+            return Maybe.of(multiplexedSessionOrNull);
+        }
+    }
+
+    private void closeMultiplexedSession() {
+        synchronized (poolCacheMutex) {
+            if (multiplexedSessionOrNull != null) {
+                multiplexedSessionOrNull.close();
+                multiplexedSessionOrNull = null;
+            }
+            if (multiplexedSessionTool != null) {
+                try {
+                    multiplexedSessionTool.disconnect();
+                } catch (Exception e) {
+                    Exceptions.propagateIfFatal(e);
+                    LOG.debug("Problem disconnecting multiplexed ssh session of "+this+" (continuing): "+e);
+                }
+                multiplexedSessionTool = null;
+            }
+        }
     }
 
     // should not be necessary, and causes objects to be kept around a lot longer than desired
@@ -588,6 +640,17 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     }
 
     protected <T> T execSsh(final Map<String, ?> props, final Function<ShellTool, T> task) {
+        // wait for a channel to the host before leasing a tool, so that callers over the limit
+        // queue here rather than each opening another pooled connection
+        SshHostAdmission.Permit permit = getSshHostAdmission(props).acquire(SshHostAdmission.Kind.CHANNEL, getSshTriesTimeout(props));
+        try {
+            return execSshAdmitted(props, task);
+        } finally {
+            permit.release();
+        }
+    }
+
+    private <T> T execSshAdmitted(final Map<String, ?> props, final Function<ShellTool, T> task) {
         final LoadingCache<Map<String, ?>, Pool<SshTool>> sshPoolCache = getSshPoolCache();
         Pool<SshTool> pool = sshPoolCache.getUnchecked(props);
         if (LOG.isTraceEnabled()) {
@@ -617,6 +680,36 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
         return connectSsh(ImmutableMap.of());
     }
 
+    /**
+     * The admission control for ssh to this machine (shared with all ssh tools to the same host:port).
+     * 
+     * @see SshHostAdmission
+     */
+    @Beta
+    public SshHostAdmission getSshHostAdmission() {
+        return getSshHostAdmission(ImmutableMap.<String, Object>of());
+    }
+
+    private SshHostAdmission getSshHostAdmission(Map<String, ?> props) {
+        HostAndPort hostAndPort = getSshHostAndPort();
+        return SshHostAdmission.forHost(hostAndPort.getHostText(), hostAndPort.getPort(),
+                getSshIntProperty(props, SshTool.PROP_MAX_CONCURRENT_CONNECTS_PER_HOST),
+                getSshIntProperty(props, SshTool.PROP_MAX_CONCURRENT_CHANNELS_PER_HOST));
+    }
+
+    private int getSshIntProperty(Map<String, ?> props, ConfigKey<Integer> key) {
+        Object val = props.get(key.getName());
+        if (val == null) val = config().get(key);
+        return (val == null) ? key.getDefaultValue() : TypeCoercions.coerce(val, Integer.class);
+    }
+
+    private Duration getSshTriesTimeout(Map<String, ?> props) {
+        Object val = props.get(SshTool.PROP_SSH_TRIES_TIMEOUT.getName());
+        if (val == null) val = config().get(SshTool.PROP_SSH_TRIES_TIMEOUT);
+        long millis = (val == null) ? SshTool.PROP_SSH_TRIES_TIMEOUT.getDefaultValue() : TypeCoercions.coerce(val, Long.class);
+        return (millis == 0) ? Duration.PRACTICALLY_FOREVER : Duration.millis(millis);
+    }
+
     protected boolean previouslyConnected = false;
     protected SshTool connectSsh(Map props) {
         try {
@@ -830,14 +923,14 @@ public class SshMachineLocation extends AbstractLocation implements MachineLocat
     public int copyTo(File src, String destination) {
         return copyTo(MutableMap.<String,Object>of(), src, destination);
     }
-    public int copyTo(Map<String,?> props, File src, String destination) {
+    public int copyTo(final Map<String,?> props, final File src, final String destination) {
         Preconditions.checkNotNull(address, "Host address must be specified for scp");
         Preconditions.checkArgument(src.exists(), "File %s must exist for scp", src.getPath());
-        try {
-            return copyTo(props, new FileInputStream(src), src.length(), destination);
-        } catch (FileNotFoundException e) {
-            throw Throwables.propagate(e);
-        }
+        // pass the file itself, so the tool can copy large files in chunks (see SshTool#PROP_TRANSFER_PARALLELISM)
+        return execSsh(props, new Function<ShellTool,Integer>() {
+            public Integer apply(ShellTool ssh) {
+                return ((SshTool) ssh).copyToServer(props, src, destination);
+            }});
     }
     public int copyTo(Reader src, String destination) {
         return copyTo(MutableMap.<String,Object>of(), src, destination);
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.MapMaker;
+
+/**
+ * Admission control for ssh to a single host:port, shared by all ssh tools in the JVM.
+ * <p>
+ * This bounds the number of connections being established at once (see {@link SshTool#PROP_MAX_CONCURRENT_CONNECTS_PER_HOST}),
+ * so that a burst of connections (e.g. when many entities start on the same machine) is not refused by sshd's
+ * {@code MaxStartups} and then retried; and optionally bounds the number of concurrent commands and file transfers
+ * (see {@link SshTool#PROP_MAX_CONCURRENT_CHANNELS_PER_HOST}). Callers over the limit wait their turn, first come
+ * first served, for up to a given timeout, after which the request is rejected.
+ * <p>
+ * Permits are re-entrant per thread: a thread already holding a permit of a kind for a host is admitted again
+ * immediately, so that nested callers (e.g. {@code SshMachineLocation} then the tool it uses) are counted once.
+ * <p>
+ * The limits of a host are those given by its most recent user, so changes to the configured limits take effect
+ * (for new requests) without a restart. A host's admission control is discarded once nothing is using it or 
+ * holding a permit.
+ */
+@Beta
+public class SshHostAdmission {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SshHostAdmission.class);
+
+    public enum Kind {
+        CONNECT,
+        CHANNEL
+    }
+
+    /** A permit to release when done (in a finally block). */
+    public interface Permit {
+        void release();
+    }
+
+    private static final Permit NO_OP_PERMIT = new Permit() {
+        @Override public void release() {}
+    };
+
+    /** 
+     * Weak values, so that hosts no longer used are forgotten: tools hold their host's instance, 
+     * and held or awaited permits reference theirs, so an instance is only discarded when idle.
+     */
+    private static final ConcurrentMap<String, SshHostAdmission> INSTANCES = new MapMaker().weakValues().makeMap();
+
+    /**
+     * The admission control for the given host:port, with its limits set to those given (0 for no limit).
+     */
+    public static SshHostAdmission forHost(String host, int port, int maxConnects, int maxChannels) {
+        String key = host+":"+port;
+        SshHostAdmission result = INSTANCES.get(key);
+        if (result == null) {
+            SshHostAdmission newResult = new SshHostAdmission(key, maxConnects, maxChannels);
+            result = INSTANCES.putIfAbsent(key, newResult);
+            if (result == null) return newResult;
+        }
+        result.connects.setMax(maxConnects);
+        result.channels.setMax(maxChannels);
+        return result;
+    }
+
+    /** metrics of every host used, keyed by host:port */
+    public static Map<String, Map<String, Object>> getAllMetrics() {
+        Map<String, Map<String, Object>> result = MutableMap.of();
+        for (SshHostAdmission admission : INSTANCES.values()) {
+            result.put(admission.hostAndPort, admission.getMetrics());
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    public static void clearAll() {
+        INSTANCES.clear();
+    }
+
+    private final String hostAndPort;
+    private final Limit connects;
+    private final Limit channels;
+
+    protected SshHostAdmission(String hostAndPort, int maxConnects, int maxChannels) {
+        this.hostAndPort = hostAndPort;
+        this.connects = new Limit(maxConnects);
+        this.channels = new Limit(maxChannels);
+    }
+
+    /**
+     * Waits (for up to the given timeout) for a permit of the given kind, returning a permit which must be released.
+     *
+     * @throws SshException if the timeout passes before a permit is available
+     */
+    public Permit acquire(Kind kind, Duration timeout) {
+        return (kind == Kind.CONNECT ? connects : channels).acquire(kind, timeout);
+    }
+
+    /**
+     * Utilisation of each kind of permit: {@code max} (0 for no limit), {@code inUse}, {@code waiting},
+     * {@code admitted}, {@code rejected} (timed out waiting), and {@code wait.mean} and {@code wait.max} in millis.
+     */
+    public Map<String, Object> getMetrics() {
+        return MutableMap.<String, Object>of("connect", connects.getMetrics(), "channel", channels.getMetrics());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"["+hostAndPort+"]";
+    }
+
+    /** a semaphore whose number of permits can be reduced, even while permits are in use */
+    private static class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    private class Limit {
+        /** the limit, or 0 for none (in which case the semaphore is not used) */
+        private volatile int max;
+        /** the number of permits given to the semaphore; kept when unlimited, so permits still held are accounted for */
+        private int permits;
+        private final ResizableSemaphore semaphore;
+        private final ThreadLocal<int[]> held = new ThreadLocal<int[]>();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalWaitMillis = new AtomicLong();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+
+        Limit(int max) {
+            this.max = Math.max(0, max);
+            this.permits = this.max;
+            this.semaphore = new ResizableSemaphore(this.max);
+        }
+
+        synchronized void setMax(int newMax) {
+            newMax = Math.max(0, newMax);
+            if (newMax == max) return;
+            if (newMax > 0) {
+                if (newMax > permits) {
+                    semaphore.release(newMax - permits);
+                } else if (newMax < permits) {
+                    semaphore.reducePermits(permits - newMax);
+                }
+                permits = newMax;
+            }
+            max = newMax;
+        }
+
+        Permit acquire(Kind kind, Duration timeout) {
+            final int max = this.max;
+            if (max <= 0) {
+                admitted.incrementAndGet();
+                return NO_OP_PERMIT;
+            }
+            final int[] count = held.get();
+            if (count != null) {
+                count[0]++;
+                return new Permit() {
+                    @Override public void release() {
+                        count[0]--;
+                    }};
+            }
+            long start = System.currentTimeMillis();
+            boolean acquired;
+            waiting.incrementAndGet();
+            try {
+                if (semaphore.tryAcquire()) {
+                    acquired = true;
+                } else {
+                    if (LOG.isTraceEnabled()) LOG.trace("Waiting for ssh {} permit for {} ({} in use)", new Object[] {kind, hostAndPort, max});
+                    acquired = semaphore.tryAcquire(timeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                throw Exceptions.propagate(e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+            long waitMillis = System.currentTimeMillis() - start;
+            if (!acquired) {
+                rejected.incrementAndGet();
+                throw new SshException("Timeout after "+timeout+" waiting for ssh "+kind.name().toLowerCase()+" permit for "+hostAndPort
+                        +" (max "+max+" concurrent)");
+            }
+            admitted.incrementAndGet();
+            totalWaitMillis.addAndGet(waitMillis);
+            while (true) {
+                long prevMax = maxWaitMillis.get();
+                if (waitMillis <= prevMax || maxWaitMillis.compareAndSet(prevMax, waitMillis)) break;
+            }
+            final int[] newCount = new int[] {1};
+            held.set(newCount);
+            return new Permit() {
+                @Override public void release() {
+                    if (--newCount[0] == 0) {
+                        held.remove();
+                        semaphore.release();
+                    }
+                }};
+        }
+
+        Map<String, Object> getMetrics() {
+            long admittedCount = admitted.get();
+            int max = this.max;
+            return MutableMap.<String, Object>of(
+                    "max", max,
+                    "inUse", (max <= 0) ? 0 : max - semaphore.availablePermits(),
+                    "waiting", waiting.get(),
+                    "admitted", admittedCount,
+                    "rejected", rejected.get(),
+                    "wait.mean", (admittedCount == 0) ? 0 : totalWaitMillis.get() / admittedCount,
+                    "wait.max", maxWaitMillis.get());
+        }
+    }
+}
@@ -79,6 +79,8 @@ public interface SshTool extends ShellTool {
     public static final ConfigKey<Integer> PROP_SSH_TRIES = newConfigKey("sshTries", "Max number of times to attempt ssh operations", 4);
     public static final ConfigKey<Long> PROP_SSH_TRIES_TIMEOUT = newConfigKey("sshTriesTimeout", "Time limit for attempting retries; will not interrupt tasks, but stops retrying after a total amount of elapsed time", Duration.TWO_MINUTES.toMilliseconds());
     public static final ConfigKey<Long> PROP_SSH_RETRY_DELAY = newConfigKey("sshRetryDelay", "Time (in milliseconds) before first ssh-retry, after which it will do exponential backoff", 50L);
+    public static final ConfigKey<Integer> PROP_MAX_CONCURRENT_CONNECTS_PER_HOST = newConfigKey("maxConcurrentConnectsPerHost", "Max number of ssh connections being established to the same host:port at once (others wait their turn, up to sshTriesTimeout); should be below the host's sshd MaxStartups; 0 for no limit", 8);
+    public static final ConfigKey<Integer> PROP_MAX_CONCURRENT_CHANNELS_PER_HOST = newConfigKey("maxConcurrentChannelsPerHost", "Max number of concurrent ssh commands and file transfers to the same host:port (others wait their turn, up to sshTriesTimeout); 0 for no limit", 0);
 
     // NB -- items above apply for _session_ (a tool), below apply for a _call_
     // TODO would be nice to track which arguments are used, so we can indicate whether extras are supplied
@@ -87,6 +89,9 @@ public interface SshTool extends ShellTool {
     public static final ConfigKey<Long> PROP_LAST_MODIFICATION_DATE = newConfigKey("lastModificationDate", "Last-modification-date to be set on files copied/created (should be UTC/1000, ie seconds since 1970; default 0 usually means current)", 0L);
     public static final ConfigKey<Long> PROP_LAST_ACCESS_DATE = newConfigKey("lastAccessDate", "Last-access-date to be set on files copied/created (should be UTC/1000, ie seconds since 1970; default 0 usually means lastModificationDate)", 0L);
     public static final ConfigKey<Integer> PROP_OWNER_UID = newConfigKey("ownerUid", "Default owner UID (not username) for files created on remote machine; default is unset", -1);
+    public static final ConfigKey<Integer> PROP_TRANSFER_PARALLELISM = newConfigKey("transferParallelism", "Number of concurrent connections used to copy a large file to the remote machine, each writing different chunks; 1 for a single stream (if supported by the tool)", 1);
+    public static final ConfigKey<Long> PROP_TRANSFER_CHUNK_SIZE = newConfigKey("transferChunkSize", "Size in bytes of the chunks in which a large file is copied to the remote machine, when using more than one transferParallelism or transferResume (if supported by the tool)", 8L*1024*1024);
+    public static final ConfigKey<Boolean> PROP_TRANSFER_RESUME = newConfigKey("transferResume", "Whether, when copying a large file to the remote machine, to only send the chunks whose checksums differ from those of any existing remote file, and to verify the checksum of the result (if supported by the tool; requires md5sum on the remote machine)", false);
     
     // TODO remove unnecessary "public static final" modifiers
     
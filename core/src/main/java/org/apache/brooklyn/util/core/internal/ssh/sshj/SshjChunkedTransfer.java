@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh.sshj;
+
+import static org.apache.brooklyn.util.core.internal.ssh.ShellAbstractTool.getOptionalVal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.schmizz.sshj.sftp.FileAttributes;
+import net.schmizz.sshj.sftp.OpenMode;
+import net.schmizz.sshj.sftp.RemoteFile;
+import net.schmizz.sshj.sftp.SFTPClient;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.internal.ssh.SshException;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.stream.Streams;
+import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
+import org.apache.brooklyn.util.time.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Copies a large local file to the server in chunks, over several connections at once (see
+ * {@link SshTool#PROP_TRANSFER_PARALLELISM}), and optionally resuming an earlier partial copy by only sending
+ * the chunks whose checksums differ from those of the existing remote file (see {@link SshTool#PROP_TRANSFER_RESUME}).
+ * <p>
+ * When resuming, the checksum of the whole remote file is verified after the copy.
+ * <p>
+ * Each worker uses its own tool (and so its own connection), as a tool is not safe for concurrent use
+ * and a failure in one worker should not disconnect the others.
+ */
+@Beta
+public class SshjChunkedTransfer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SshjChunkedTransfer.class);
+
+    /** size of each sftp write request */
+    private static final int WRITE_SIZE = 32*1024;
+
+    /** whether a chunked transfer should be used for a file of the given length, with the given props */
+    public static boolean isApplicable(Map<String,?> props, long length) {
+        int parallelism = getOptionalVal(props, SshTool.PROP_TRANSFER_PARALLELISM);
+        boolean resume = getOptionalVal(props, SshTool.PROP_TRANSFER_RESUME);
+        long chunkSize = getOptionalVal(props, SshTool.PROP_TRANSFER_CHUNK_SIZE);
+        return (parallelism > 1 || resume) && chunkSize > 0 && length > chunkSize;
+    }
+
+    private final SshjTool tool;
+    private final int parallelism;
+    private final long chunkSize;
+    private final boolean resume;
+    private final SshjTool.RemoteFileAttributes attributes;
+
+    public SshjChunkedTransfer(SshjTool tool, Map<String,?> props) {
+        this.tool = tool;
+        this.parallelism = Math.max(1, getOptionalVal(props, SshTool.PROP_TRANSFER_PARALLELISM));
+        this.chunkSize = getOptionalVal(props, SshTool.PROP_TRANSFER_CHUNK_SIZE);
+        this.resume = getOptionalVal(props, SshTool.PROP_TRANSFER_RESUME);
+        this.attributes = new SshjTool.RemoteFileAttributes(props);
+    }
+
+    public void put(File localFile, final String path) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        final long length = localFile.length();
+        int numChunks = (int) ((length + chunkSize - 1) / chunkSize);
+
+        ConcurrentLinkedQueue<Integer> chunks = new ConcurrentLinkedQueue<Integer>();
+        boolean existing = false;
+        try {
+            if (resume) {
+                RemoteChecksums remote = getRemoteChecksums(path);
+                existing = remote.size >= 0;
+                for (int i = 0; i < numChunks; i++) {
+                    String remoteChecksum = remote.chunks.get(i);
+                    if (remoteChecksum == null || !remoteChecksum.equals(checksum(localFile, i, length))) chunks.add(i);
+                }
+            } else {
+                for (int i = 0; i < numChunks; i++) chunks.add(i);
+            }
+            if (LOG.isDebugEnabled()) LOG.debug("Copying {} to {}:{} in {} of {} chunks, {} at a time", new Object[] {localFile, tool, path, chunks.size(), numChunks, parallelism});
+
+            SFTPClient sftp = tool.acquire(tool.newSftpClientAction());
+            try {
+                if (!existing) {
+                    sftp.open(path, EnumSet.of(OpenMode.WRITE, OpenMode.CREAT, OpenMode.TRUNC)).close();
+                }
+                sftp.setattr(path, new FileAttributes.Builder().withSize(length).build());
+
+                long bytesSent = sendChunks(localFile, path, length, chunks);
+
+                attributes.apply(sftp, path);
+                if (LOG.isDebugEnabled()) LOG.debug("Copied {} to {}:{}; sent {} of {} bytes in {}", new Object[] {localFile, tool, path, bytesSent, length, Time.makeTimeStringRounded(stopwatch)});
+            } finally {
+                Streams.closeQuietly(sftp);
+            }
+
+            if (resume) {
+                String expected = Files.hash(localFile, Hashing.md5()).toString();
+                String actual = execForOutput(ImmutableList.of("md5sum "+BashStringEscapes.wrapBash(path)+" | cut -d' ' -f1")).trim();
+                if (!expected.equals(actual)) {
+                    throw new SshException("Checksum mismatch copying "+localFile+" to "+tool+":"+path+": expected "+expected+", got "+actual);
+                }
+            }
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            if (e instanceof SshException) throw (SshException) e;
+            throw new SshException("Failed to copy "+localFile+" to "+tool+":"+path, e);
+        }
+    }
+
+    private long sendChunks(final File localFile, final String path, final long length, final ConcurrentLinkedQueue<Integer> chunks) throws Exception {
+        final AtomicLong bytesSent = new AtomicLong();
+        int numWorkers = Math.min(parallelism, chunks.size());
+        if (numWorkers == 0) return 0;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+            @Override public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, "brooklyn-ssh-transfer-"+tool.getHostAddress()+"-"+threadCount.incrementAndGet());
+                result.setDaemon(true);
+                return result;
+            }});
+        try {
+            List<Future<?>> futures = MutableList.of();
+            for (int i = 0; i < numWorkers; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override public Void call() throws Exception {
+                        SshjTool workerTool = tool.newTool();
+                        SFTPClient sftp = null;
+                        RemoteFile remoteFile = null;
+                        RandomAccessFile file = null;
+                        try {
+                            workerTool.connect();
+                            sftp = workerTool.acquire(workerTool.newSftpClientAction());
+                            remoteFile = sftp.open(path, EnumSet.of(OpenMode.WRITE));
+                            file = new RandomAccessFile(localFile, "r");
+                            byte[] buf = new byte[WRITE_SIZE];
+                            Integer chunk;
+                            while ((chunk = chunks.poll()) != null) {
+                                long offset = chunk * chunkSize;
+                                long end = Math.min(offset + chunkSize, length);
+                                file.seek(offset);
+                                while (offset < end) {
+                                    int len = (int) Math.min(buf.length, end - offset);
+                                    file.readFully(buf, 0, len);
+                                    remoteFile.write(offset, buf, 0, len);
+                                    offset += len;
+                                    bytesSent.addAndGet(len);
+                                }
+                            }
+                        } finally {
+                            if (file != null) Streams.closeQuietly(file);
+                            if (remoteFile != null) Streams.closeQuietly(remoteFile);
+                            if (sftp != null) Streams.closeQuietly(sftp);
+                            try {
+                                workerTool.disconnect();
+                            } catch (Exception e) {
+                                Exceptions.propagateIfFatal(e);
+                                LOG.debug("Problem disconnecting "+workerTool+" after copying chunks of "+localFile+" (continuing): "+e);
+                            }
+                        }
+                        return null;
+                    }}));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return bytesSent.get();
+    }
+
+    private String checksum(File localFile, int chunk, long length) throws IOException {
+        long offset = chunk * chunkSize;
+        return Files.asByteSource(localFile).slice(offset, Math.min(chunkSize, length - offset)).hash(Hashing.md5()).toString();
+    }
+
+    private RemoteChecksums getRemoteChecksums(String path) {
+        return parseRemoteChecksums(execForOutput(ImmutableList.of(remoteChecksumsCommand(path, chunkSize))));
+    }
+
+    private String execForOutput(List<String> commands) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = tool.execCommands(MutableMap.<String,Object>of(SshTool.PROP_OUT_STREAM.getName(), out, SshTool.PROP_NO_EXTRA_OUTPUT.getName(), true), commands);
+        if (exitCode != 0) {
+            throw new SshException("Failed to run "+commands+" on "+tool+": exit code "+exitCode);
+        }
+        return new String(out.toByteArray());
+    }
+
+    /** prints "size N" and then "chunk I MD5" for each chunk of the remote file, or nothing if it does not exist */
+    @VisibleForTesting
+    static String remoteChecksumsCommand(String path, long chunkSize) {
+        String f = BashStringEscapes.wrapBash(path);
+        return "if [ -f "+f+" ]; then "
+                + "size=$(wc -c < "+f+" | tr -d ' '); echo \"size $size\"; "
+                + "i=0; while [ $((i*"+chunkSize+")) -lt $size ]; do "
+                + "echo \"chunk $i $(dd if="+f+" bs="+chunkSize+" skip=$i count=1 2>/dev/null | md5sum | cut -d' ' -f1)\"; "
+                + "i=$((i+1)); done; "
+                + "fi";
+    }
+
+    @VisibleForTesting
+    static RemoteChecksums parseRemoteChecksums(String output) {
+        RemoteChecksums result = new RemoteChecksums();
+        for (String line : output.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length == 2 && parts[0].equals("size")) {
+                result.size = Long.parseLong(parts[1]);
+            } else if (parts.length == 3 && parts[0].equals("chunk")) {
+                result.chunks.put(Integer.parseInt(parts[1]), parts[2]);
+            }
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    static class RemoteChecksums {
+        /** size of the remote file, or -1 if it does not exist */
+        long size = -1;
+        final Map<Integer, String> chunks = MutableMap.of();
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh.sshj;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.schmizz.sshj.connection.channel.direct.Session;
+import net.schmizz.sshj.connection.channel.direct.Session.Command;
+
+import org.apache.brooklyn.util.core.internal.ssh.SshException;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.stream.Streams;
+import org.apache.brooklyn.util.text.Identifiers;
+import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+
+/**
+ * Runs many commands in turn over a single long-lived ssh session, rather than opening a new session
+ * channel (and, for scripts, uploading a file) for each command.
+ * <p>
+ * The session runs a small bash loop which reads one request per line from stdin, runs it in a subshell
+ * (with stdin from {@code /dev/null}, so that it cannot consume later requests), and then writes a marker
+ * line with the request's sequence number and exit code to stdout, and a marker line to stderr. Each
+ * request's stdout and stderr are everything written before those markers.
+ * <p>
+ * Requests are run one at a time. If a request fails or times out the session is closed (as the
+ * remote command may still be running), and is re-opened on the next request. A request's timeout
+ * includes the time spent waiting for earlier requests, so callers are not blocked indefinitely by
+ * a hung request.
+ */
+@Beta
+public class SshjMultiplexedSession implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SshjMultiplexedSession.class);
+
+    public static class Result {
+        private final int exitCode;
+        private final String stdout;
+        private final String stderr;
+
+        public Result(int exitCode, String stdout, String stderr) {
+            this.exitCode = exitCode;
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+        public int getExitCode() {
+            return exitCode;
+        }
+        public String getStdout() {
+            return stdout;
+        }
+        public String getStderr() {
+            return stderr;
+        }
+        @Override
+        public String toString() {
+            return "Result[exitCode="+exitCode+"]";
+        }
+    }
+
+    /** The streams of the remote loop; see {@link SshjMultiplexedSession#openChannel()}. */
+    protected static abstract class Channel implements Closeable {
+        protected abstract OutputStream getStdin();
+        protected abstract InputStream getStdout();
+        protected abstract InputStream getStderr();
+        protected abstract boolean isOpen();
+    }
+
+    private final SshjTool tool;
+    private final String marker;
+    /** held while a request runs; waited for no longer than the caller's timeout, so a hung request cannot block others indefinitely */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private volatile Channel channel;
+    private OutputStream stdin;
+    private OutputPump stdoutPump;
+    private OutputPump stderrPump;
+    private long sequence;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private volatile boolean closed;
+
+    protected SshjMultiplexedSession(SshjTool tool) {
+        this.tool = tool;
+        this.marker = "BROOKLYN_MUX_"+Identifiers.makeRandomId(8);
+    }
+
+    /**
+     * Runs the given script (which may span multiple lines), with the given environment variables exported,
+     * returning its exit code and output. Opens the session if it is not already open.
+     * <p>
+     * The timeout includes any time spent waiting for other requests on this session to complete.
+     *
+     * @throws SshException if the session could not be opened or failed, or the script did not complete within the timeout
+     */
+    public Result exec(String script, Map<String, ?> env, Duration timeout) {
+        if (closed) throw new IllegalStateException("Multiplexed session "+this+" has been closed");
+        long deadline = System.currentTimeMillis() + (timeout == null ? Duration.PRACTICALLY_FOREVER : timeout).toMilliseconds();
+        try {
+            if (!lock.tryLock(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                throw new SshException("Timeout after "+timeout+" waiting for other multiplexed commands on "+tool+" (to run: "+script+")");
+            }
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        }
+        try {
+            if (closed) throw new IllegalStateException("Multiplexed session "+this+" has been closed");
+            if (channel == null || !channel.isOpen()) {
+                closeSession();
+                openSession();
+            }
+            long id = ++sequence;
+            requestCount.incrementAndGet();
+            try {
+                stdin.write(toRequestLine(script, env).getBytes(Charsets.UTF_8));
+                stdin.flush();
+
+                String[] out = stdoutPump.awaitFrame("\n"+marker+" "+id+" ", deadline);
+                String[] err = (out == null) ? null : stderrPump.awaitFrame("\n"+marker+" "+id, deadline);
+                if (out == null || err == null) {
+                    throw new SshException("Timeout after "+timeout+" waiting for multiplexed command on "+tool+": "+script);
+                }
+                return new Result(Integer.parseInt(out[1].trim()), out[0], err[0]);
+            } catch (Exception e) {
+                closeSession();
+                Exceptions.propagateIfFatal(e);
+                if (e instanceof SshException) throw (SshException) e;
+                throw new SshException("Failed to run multiplexed command on "+tool+": "+script, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** the number of requests sent over this session (including those which failed) */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public boolean isOpen() {
+        Channel c = channel;
+        return !closed && c != null && c.isOpen();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // fails any request in progress (rather than waiting for it to complete or time out)
+        Channel c = channel;
+        if (c != null) Streams.closeQuietly(c);
+        lock.lock();
+        try {
+            closeSession();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** opens a channel running the given command; by default an exec channel of a session of the ssh tool */
+    protected Channel openChannel(String remoteCommand) throws Exception {
+        if (!tool.isConnected()) tool.connect();
+        final Session session = tool.acquire(tool.newSessionAction(false));
+        final Command command;
+        try {
+            command = session.exec(remoteCommand);
+        } catch (Exception e) {
+            Streams.closeQuietly(session);
+            throw e;
+        }
+        return new Channel() {
+            @Override protected OutputStream getStdin() { return command.getOutputStream(); }
+            @Override protected InputStream getStdout() { return command.getInputStream(); }
+            @Override protected InputStream getStderr() { return command.getErrorStream(); }
+            @Override protected boolean isOpen() { return command.isOpen(); }
+            @Override public void close() {
+                Streams.closeQuietly(command);
+                Streams.closeQuietly(session);
+            }
+        };
+    }
+
+    protected void openSession() {
+        try {
+            channel = openChannel("bash -c "+BashStringEscapes.wrapBash(loopScript(marker)));
+            stdin = channel.getStdin();
+            String host = (tool == null) ? "local" : tool.getHostAddress();
+            stdoutPump = new OutputPump(channel.getStdout(), "brooklyn-ssh-mux-out-"+host);
+            stderrPump = new OutputPump(channel.getStderr(), "brooklyn-ssh-mux-err-"+host);
+            stdoutPump.start();
+            stderrPump.start();
+            sequence = 0;
+            if (LOG.isDebugEnabled()) LOG.debug("Opened multiplexed ssh session {} on {}", marker, tool);
+        } catch (Exception e) {
+            closeSession();
+            throw new SshException("Failed to open multiplexed ssh session on "+tool, e);
+        }
+    }
+
+    protected void closeSession() {
+        if (stdin != null) Streams.closeQuietly(stdin);
+        if (channel != null) Streams.closeQuietly(channel);
+        if (stdoutPump != null) stdoutPump.interrupt();
+        if (stderrPump != null) stderrPump.interrupt();
+        stdin = null;
+        channel = null;
+        stdoutPump = null;
+        stderrPump = null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"["+tool+"]";
+    }
+
+    @VisibleForTesting
+    static String loopScript(String marker) {
+        return "n=0; "
+                + "while IFS= read -r line; do "
+                + "n=$((n+1)); "
+                + "( eval \"$line\" ) </dev/null; "
+                + "rc=$?; "
+                + "printf '\\n%s %d %d\\n' "+marker+" $n $rc; "
+                + "printf '\\n%s %d\\n' "+marker+" $n >&2; "
+                + "done";
+    }
+
+    /**
+     * A single line which, when evaluated by bash, runs the given script with the given environment;
+     * the script is passed as an ANSI-C quoted string, so that it can contain newlines and quotes.
+     */
+    @VisibleForTesting
+    static String toRequestLine(String script, Map<String, ?> env) {
+        StringBuilder full = new StringBuilder();
+        if (env != null) {
+            for (Map.Entry<String, ?> entry : env.entrySet()) {
+                full.append("export ").append(entry.getKey()).append("=")
+                        .append(BashStringEscapes.wrapBash(String.valueOf(entry.getValue()))).append("\n");
+            }
+        }
+        full.append(script);
+
+        StringBuilder result = new StringBuilder("eval $'");
+        for (int i = 0; i < full.length(); i++) {
+            char c = full.charAt(i);
+            switch (c) {
+            case '\\': result.append("\\\\"); break;
+            case '\'': result.append("\\'"); break;
+            case '\n': result.append("\\n"); break;
+            case '\r': result.append("\\r"); break;
+            case '\t': result.append("\\t"); break;
+            default:
+                if (c < 0x20 || c == 0x7f) {
+                    result.append(String.format("\\x%02x", (int) c));
+                } else {
+                    result.append(c);
+                }
+            }
+        }
+        return result.append("'\n").toString();
+    }
+
+    /** Buffers a stream of the session, so that each request's output can be read up to its marker. */
+    private static class OutputPump extends Thread {
+        private static final Charset BYTES = Charsets.ISO_8859_1;
+
+        private final InputStream in;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean ended;
+
+        OutputPump(InputStream in, String name) {
+            super(name);
+            this.in = in;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            byte[] buf = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buf)) >= 0) {
+                    synchronized (this) {
+                        buffer.write(buf, 0, n);
+                        notifyAll();
+                    }
+                }
+            } catch (IOException e) {
+                if (LOG.isTraceEnabled()) LOG.trace("Multiplexed ssh session stream "+getName()+" ended: "+e);
+            } finally {
+                synchronized (this) {
+                    ended = true;
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits for the given marker, followed by the end of its line, returning the output before the marker
+         * and the rest of the marker's line, and discarding both from the buffer; or returns null if the
+         * deadline passes first.
+         */
+        synchronized String[] awaitFrame(String prefix, long deadline) throws InterruptedException {
+            while (true) {
+                byte[] bytes = buffer.toByteArray();
+                // ISO-8859-1 maps each byte to one char, so indexes in the string are indexes in the bytes
+                String text = new String(bytes, BYTES);
+                int start = text.indexOf(prefix);
+                int end = (start < 0) ? -1 : text.indexOf('\n', start + prefix.length());
+                if (end >= 0) {
+                    String output = new String(bytes, 0, start, Charsets.UTF_8);
+                    String rest = text.substring(start + prefix.length(), end);
+                    buffer.reset();
+                    buffer.write(bytes, end + 1, bytes.length - end - 1);
+                    return new String[] {output, rest};
+                }
+                if (ended) {
+                    throw new SshException("Multiplexed ssh session stream "+getName()+" ended unexpectedly");
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return null;
+                wait(remaining);
+            }
+        }
+    }
+}
@@ -53,6 +53,7 @@ import org.apache.brooklyn.core.BrooklynFeatureEnablement;
 import org.apache.brooklyn.util.core.internal.ssh.BackoffLimitedRetryHandler;
 import org.apache.brooklyn.util.core.internal.ssh.ShellTool;
 import org.apache.brooklyn.util.core.internal.ssh.SshAbstractTool;
+import org.apache.brooklyn.util.core.internal.ssh.SshHostAdmission;
 import org.apache.brooklyn.util.core.internal.ssh.SshTool;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.exceptions.RuntimeTimeoutException;
@@ -68,6 +69,7 @@ import org.apache.commons.io.input.ProxyInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
@@ -105,6 +107,9 @@ public class SshjTool extends SshAbstractTool implements SshTool {
     protected final int sshTries;
     protected final long sshTriesTimeout;
     protected final BackoffLimitedRetryHandler backoffLimitedRetryHandler;
+    protected final SshHostAdmission admission;
+    /** the builder this was created from, for creating further tools with the same settings (see {@link #newTool()}) */
+    private final Builder<?,?> builder;
 
     /** Terminal type name for {@code allocatePTY} option. */
     final static String TERM = "vt100"; // "dumb"
@@ -139,6 +144,8 @@ public class SshjTool extends SshAbstractTool implements SshTool {
         protected int sshTries = 4;  //allow 4 tries by default, much safer
         protected long sshTriesTimeout = 2*60*1000;  //allow 2 minutes by default (so if too slow trying sshTries times, abort anyway)
         protected long sshRetryDelay = 50L;
+        protected int maxConcurrentConnectsPerHost = PROP_MAX_CONCURRENT_CONNECTS_PER_HOST.getDefaultValue();
+        protected int maxConcurrentChannelsPerHost = PROP_MAX_CONCURRENT_CHANNELS_PER_HOST.getDefaultValue();
         
         @Override
         public B from(Map<String,?> props) {
@@ -148,6 +155,8 @@ public class SshjTool extends SshAbstractTool implements SshTool {
             sshRetryDelay = getOptionalVal(props, PROP_SSH_RETRY_DELAY);
             connectTimeout = getOptionalVal(props, PROP_CONNECT_TIMEOUT);
             sessionTimeout = getOptionalVal(props, PROP_SESSION_TIMEOUT);
+            maxConcurrentConnectsPerHost = getOptionalVal(props, PROP_MAX_CONCURRENT_CONNECTS_PER_HOST);
+            maxConcurrentChannelsPerHost = getOptionalVal(props, PROP_MAX_CONCURRENT_CHANNELS_PER_HOST);
             return self();
         }
         public B connectTimeout(int val) {
@@ -165,6 +174,12 @@ public class SshjTool extends SshAbstractTool implements SshTool {
         public B sshRetryDelay(long val) {
             this.sshRetryDelay = val; return self();
         }
+        public B maxConcurrentConnectsPerHost(int val) {
+            this.maxConcurrentConnectsPerHost = val; return self();
+        }
+        public B maxConcurrentChannelsPerHost(int val) {
+            this.maxConcurrentChannelsPerHost = val; return self();
+        }
         @Override
         @SuppressWarnings("unchecked")
         public T build() {
@@ -179,9 +194,11 @@ public class SshjTool extends SshAbstractTool implements SshTool {
     protected SshjTool(Builder<?,?> builder) {
         super(builder);
         
+        this.builder = builder;
         sshTries = builder.sshTries;
         sshTriesTimeout = builder.sshTriesTimeout;
         backoffLimitedRetryHandler = new BackoffLimitedRetryHandler(sshTries, builder.sshRetryDelay);
+        admission = SshHostAdmission.forHost(host, port, builder.maxConcurrentConnectsPerHost, builder.maxConcurrentChannelsPerHost);
 
         sshClientConnection = SshjClientConnection.builder()
                 .hostAndPort(HostAndPort.fromParts(host, port))
@@ -231,6 +248,25 @@ public class SshjTool extends SshAbstractTool implements SshTool {
     public boolean isConnected() {
         return sshClientConnection.isConnected() && sshClientConnection.isAuthenticated();
     }
+
+    /**
+     * A new tool with the same settings as this one, so with its own connection; 
+     * e.g. for transfers over several connections at once.
+     */
+    protected SshjTool newTool() {
+        return builder.build();
+    }
+
+    /**
+     * A session on this tool's connection for running many commands in turn, without opening a channel
+     * (or uploading a script) for each; the caller must close it.
+     * 
+     * @see SshjMultiplexedSession
+     */
+    @Beta
+    public SshjMultiplexedSession newMultiplexedSession() {
+        return new SshjMultiplexedSession(this);
+    }
     
     @Override
     public int copyToServer(java.util.Map<String,?> props, byte[] contents, String pathAndFileOnRemoteServer) {
@@ -248,9 +284,10 @@ public class SshjTool extends SshAbstractTool implements SshTool {
          * but most the routines should supply a string or byte array or similar,
          * so we probably don't come here too often.)
          */
-        if (contents instanceof KnownSizeInputStream) {
+        if (contents instanceof KnownSizeInputStream && !SshjChunkedTransfer.isApplicable(props, ((KnownSizeInputStream)contents).length())) {
             return copyToServer(props, Suppliers.ofInstance(contents), ((KnownSizeInputStream)contents).length(), pathAndFileOnRemoteServer);
         } else {
+            // also for large streams of known size, which are copied in chunks from the file
             File tempFile = writeTempFile(contents);
             try {
                 return copyToServer(props, tempFile, pathAndFileOnRemoteServer);
@@ -262,6 +299,10 @@ public class SshjTool extends SshAbstractTool implements SshTool {
     
     @Override
     public int copyToServer(Map<String,?> props, File localFile, String pathAndFileOnRemoteServer) {
+        if (SshjChunkedTransfer.isApplicable(props, localFile.length())) {
+            new SshjChunkedTransfer(this, props).put(localFile, pathAndFileOnRemoteServer);
+            return 0;
+        }
         return copyToServer(props, newInputStreamSupplier(localFile), (int)localFile.length(), pathAndFileOnRemoteServer);
     }
     
@@ -620,13 +661,19 @@ public class SshjTool extends SshAbstractTool implements SshTool {
         Stopwatch stopwatch = Stopwatch.createStarted();
         
         for (int i = 0; i < sshTries; i++) {
+            // wait for a permit outside the try below: timing out waiting for our turn says nothing about 
+            // the connection, so is rethrown as is, rather than disconnecting (perhaps a healthy connection) and retrying
+            SshHostAdmission.Kind admissionKind = getAdmissionKind(action);
+            SshHostAdmission.Permit permit = (admissionKind == null) ? null
+                    : admission.acquire(admissionKind, Duration.millis(Math.max(0, sshTriesTimeout.toMilliseconds() - stopwatch.elapsed(TimeUnit.MILLISECONDS))));
             try {
-                action.clear();
-                if (LOG.isTraceEnabled()) LOG.trace(">> ({}) acquiring {}", toString(), action);
-                Stopwatch perfStopwatch = Stopwatch.createStarted();
-                
                 T returnVal;
+                Stopwatch perfStopwatch;
                 try {
+                    action.clear();
+                    if (LOG.isTraceEnabled()) LOG.trace(">> ({}) acquiring {}", toString(), action);
+                    perfStopwatch = Stopwatch.createStarted();
+                    
                     returnVal = action.create();
                 } catch (AssertionError e) {
                     /*
@@ -637,6 +684,8 @@ public class SshjTool extends SshAbstractTool implements SshTool {
                      * For now, we'll retry. See "TODO" at top of class about synchronization.
                      */
                     throw new IllegalStateException("Problem in "+toString()+" for "+action, e);
+                } finally {
+                    if (permit != null) permit.release();
                 }
                 
                 if (LOG.isTraceEnabled()) LOG.trace("<< ({}) acquired {}", toString(), returnVal);
@@ -677,28 +726,48 @@ public class SshjTool extends SshAbstractTool implements SshTool {
         return null;
     }
 
-    private final SshAction<SFTPClient> sftpConnection = new SshAction<SFTPClient>() {
+    /**
+     * The kind of {@link SshHostAdmission} permit needed for the given action, or null if none: connections need
+     * a connect permit, and commands and file transfers a channel permit (but not the sessions and sftp
+     * clients that they use in turn).
+     */
+    protected SshHostAdmission.Kind getAdmissionKind(SshAction<?> action) {
+        if (action == sshClientConnection) {
+            return SshHostAdmission.Kind.CONNECT;
+        } else if (action instanceof ExecAction || action instanceof ShellAction || action instanceof GetFileAction || action instanceof PutFileAction) {
+            return SshHostAdmission.Kind.CHANNEL;
+        } else {
+            return null;
+        }
+    }
 
-        private SFTPClient sftp;
+    private final SshAction<SFTPClient> sftpConnection = newSftpClientAction();
 
-        @Override
-        public void clear() {
-            closeWhispering(sftp, this);
-            sftp = null;
-        }
+    /** an action to open a new sftp client (on its own channel) */
+    protected SshAction<SFTPClient> newSftpClientAction() {
+        return new SshAction<SFTPClient>() {
 
-        @Override
-        public SFTPClient create() throws IOException {
-            checkConnected();
-            sftp = sshClientConnection.ssh.newSFTPClient();
-            return sftp;
-        }
+            private SFTPClient sftp;
 
-        @Override
-        public String toString() {
-            return "SFTPClient()";
-        }
-    };
+            @Override
+            public void clear() {
+                closeWhispering(sftp, this);
+                sftp = null;
+            }
+
+            @Override
+            public SFTPClient create() throws IOException {
+                checkConnected();
+                sftp = sshClientConnection.ssh.newSFTPClient();
+                return sftp;
+            }
+
+            @Override
+            public String toString() {
+                return "SFTPClient()";
+            }
+        };
+    }
 
     private class GetFileAction implements SshAction<InputStream> {
         private final String path;
@@ -727,19 +796,14 @@ public class SshjTool extends SshAbstractTool implements SshTool {
         }
     }
 
-    private class PutFileAction implements SshAction<Void> {
-        // TODO support backup as a property?
-        
-        private SFTPClient sftp;
-        private final String path;
+    /** the permissions, owner and dates to set on files copied to the server, from {@link SshTool#PROP_PERMISSIONS} etc */
+    static class RemoteFileAttributes {
         private final int permissionsMask;
         private final long lastModificationDate;
         private final long lastAccessDate;
         private final int uid;
-        private final Supplier<InputStream> contentsSupplier;
-        private final Integer length;
-        
-        PutFileAction(Map<String,?> props, String path, Supplier<InputStream> contentsSupplier, long length) {
+
+        RemoteFileAttributes(Map<String,?> props) {
             String permissions = getOptionalVal(props, PROP_PERMISSIONS);
             long lastModificationDateVal = getOptionalVal(props, PROP_LAST_MODIFICATION_DATE);
             long lastAccessDateVal = getOptionalVal(props, PROP_LAST_ACCESS_DATE);
@@ -751,6 +815,32 @@ public class SshjTool extends SshAbstractTool implements SshTool {
             this.lastAccessDate = lastAccessDateVal;
             this.lastModificationDate = lastModificationDateVal;
             this.uid = getOptionalVal(props, PROP_OWNER_UID);
+        }
+
+        void apply(SFTPClient sftp, String path) throws IOException {
+            sftp.chmod(path, permissionsMask);
+            if (uid != -1) {
+                sftp.chown(path, uid);
+            }
+            if (lastAccessDate > 0) {
+                sftp.setattr(path, new FileAttributes.Builder()
+                        .withAtimeMtime(lastAccessDate, lastModificationDate)
+                        .build());
+            }
+        }
+    }
+
+    private class PutFileAction implements SshAction<Void> {
+        // TODO support backup as a property?
+        
+        private SFTPClient sftp;
+        private final String path;
+        private final RemoteFileAttributes attributes;
+        private final Supplier<InputStream> contentsSupplier;
+        private final Integer length;
+        
+        PutFileAction(Map<String,?> props, String path, Supplier<InputStream> contentsSupplier, long length) {
+            this.attributes = new RemoteFileAttributes(props);
             this.path = checkNotNull(path, "path");
             this.contentsSupplier = checkNotNull(contentsSupplier, "contents");
             this.length = Ints.checkedCast(checkNotNull((long)length, "size"));
@@ -780,15 +870,7 @@ public class SshjTool extends SshAbstractTool implements SshTool {
                         return contents;
                     }
                 }, path);
-                sftp.chmod(path, permissionsMask);
-                if (uid != -1) {
-                    sftp.chown(path, uid);
-                }
-                if (lastAccessDate > 0) {
-                    sftp.setattr(path, new FileAttributes.Builder()
-                            .withAtimeMtime(lastAccessDate, lastModificationDate)
-                            .build());
-                }
+                attributes.apply(sftp, path);
             } finally {
                 closeWhispering(inputStreamRef.get(), this);
             }
@@ -819,6 +901,10 @@ public class SshjTool extends SshAbstractTool implements SshTool {
     }
     
     protected SshAction<Session> newSessionAction() {
+        return newSessionAction(allocatePTY);
+    }
+
+    protected SshAction<Session> newSessionAction(final boolean allocatePty) {
 
         return new SshAction<Session>() {
 
@@ -834,7 +920,7 @@ public class SshjTool extends SshAbstractTool implements SshTool {
             public Session create() throws Exception {
                 checkConnected();
                 session = sshClientConnection.ssh.startSession();
-                if (allocatePTY) {
+                if (allocatePty) {
                     session.allocatePTY(TERM, 80, 24, 0, 0, Collections.<PTYMode, Integer> emptyMap());
                 }
                 return session;
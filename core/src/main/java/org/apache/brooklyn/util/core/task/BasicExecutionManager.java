@@ -21,8 +21,12 @@ package org.apache.brooklyn.util.core.task;
 import static com.google.common.base.Preconditions.checkNotNull;
 import groovy.lang.Closure;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -38,11 +42,13 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -53,6 +59,7 @@ import org.apache.brooklyn.api.mgmt.TaskAdaptable;
 import org.apache.brooklyn.core.BrooklynFeatureEnablement;
 import org.apache.brooklyn.core.config.Sanitizer;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags.WrappedStream;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.core.task.TaskInternal.TaskCancellationMode;
 import org.apache.brooklyn.util.exceptions.Exceptions;
@@ -74,6 +81,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ExecutionList;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
@@ -125,6 +133,32 @@ public class BasicExecutionManager implements ExecutionManager {
     private final AtomicInteger activeTaskCount = new AtomicInteger();
     
     private final List<ExecutionListener> listeners = new CopyOnWriteArrayList<ExecutionListener>();
+
+    private final List<TaskCpuTimeListener> cpuTimeListeners = new CopyOnWriteArrayList<TaskCpuTimeListener>();
+    
+    /**
+     * The tasks running in this thread (innermost last) whose CPU time is being measured, when there are
+     * {@link #cpuTimeListeners}. A task run within another in the same thread has its CPU time deducted
+     * from the outer task, so that it is only counted once.
+     */
+    private final ThreadLocal<Deque<CpuTimeFrame>> cpuTimeFrames = new ThreadLocal<Deque<CpuTimeFrame>>() {
+        @Override protected Deque<CpuTimeFrame> initialValue() {
+            return new ArrayDeque<CpuTimeFrame>();
+        }
+    };
+
+    private static class CpuTimeFrame {
+        final String taskId;
+        final long cpuTimeAtStart;
+        long nestedCpuTime = 0;
+
+        CpuTimeFrame(String taskId, long cpuTimeAtStart) {
+            this.taskId = taskId;
+            this.cpuTimeAtStart = cpuTimeAtStart;
+        }
+    }
+
+    private volatile boolean compactCompletedTasks = BrooklynFeatureEnablement.isEnabled(BrooklynFeatureEnablement.FEATURE_COMPACT_COMPLETED_TASKS);
     
     private final static ThreadLocal<String> threadOriginalName = new ThreadLocal<String>() {
         protected String initialValue() {
@@ -193,6 +227,42 @@ public class BasicExecutionManager implements ExecutionManager {
     public void addListener(ExecutionListener listener) {
         listeners.add(listener);
     }
+
+    /**
+     * Adds a listener to be told of the CPU time of each task run. Measurement is only done while there
+     * are such listeners, and only if the JVM supports measuring the CPU time of the current thread.
+     */
+    @Beta
+    public void addCpuTimeListener(TaskCpuTimeListener listener) {
+        if (!isThreadCpuTimeAvailable()) {
+            log.debug("Thread CPU time not supported or not enabled; "+listener+" will not be notified in "+this);
+        }
+        cpuTimeListeners.add(listener);
+    }
+    
+    @Beta
+    public void removeCpuTimeListener(TaskCpuTimeListener listener) {
+        cpuTimeListeners.remove(listener);
+    }
+
+    private static boolean isThreadCpuTimeAvailable() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    }
+
+    /**
+     * Whether completed tasks should be replaced by a {@link CompletedTaskRecord}, releasing the job and
+     * any large result; defaults to {@link BrooklynFeatureEnablement#FEATURE_COMPACT_COMPLETED_TASKS}.
+     */
+    @Beta
+    public void setCompactCompletedTasks(boolean compactCompletedTasks) {
+        this.compactCompletedTasks = compactCompletedTasks;
+    }
+
+    @Beta
+    public boolean isCompactCompletedTasks() {
+        return compactCompletedTasks;
+    }
     
     public void removeListener(ExecutionListener listener) {
         listeners.remove(listener);
@@ -245,10 +315,26 @@ public class BasicExecutionManager implements ExecutionManager {
         incompleteTaskIds.remove(task.getId());
         if (removed!=null && removed.isSubmitted() && !removed.isDone()) {
             log.warn("Deleting submitted task before completion: "+removed+"; this task will continue to run in the background outwith "+this+", but perhaps it should have been cancelled?");
+            // it may still be writing its output, so discard that when it ends
+            final Set<WrappedStream> streams = BrooklynTaskTags.streams(removed);
+            removed.addListener(new Runnable() {
+                @Override public void run() {
+                    discardSpooledOutput(streams);
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        } else if (removed!=null) {
+            discardSpooledOutput(BrooklynTaskTags.streams(removed));
         }
         return removed != null;
     }
 
+    /** deletes output spooled to disk, which is otherwise only deleted when GC'd or on exit */
+    private static void discardSpooledOutput(Set<WrappedStream> streams) {
+        for (WrappedStream stream : streams) {
+            stream.discardSpooledOutput();
+        }
+    }
+
     public boolean isShutdown() {
         return runner.isShutdown();
     }
@@ -397,8 +483,11 @@ public class BasicExecutionManager implements ExecutionManager {
     
     protected Task<?> submitSubsequentScheduledTask(final Map<?,?> flags, final ScheduledTask task) {
         if (!task.isDone()) {
-            task.internalFuture = delayedRunner.schedule(new ScheduledTaskCallable(task, flags),
-                task.delay.toNanoseconds(), TimeUnit.NANOSECONDS);
+            ScheduledTaskCallable iteration = new ScheduledTaskCallable(task, flags);
+            synchronized (task) {
+                task.pendingIteration = iteration;
+                task.internalFuture = delayedRunner.schedule(iteration, task.delay.toNanoseconds(), TimeUnit.NANOSECONDS);
+            }
         } else {
             afterEndScheduledTaskAllIterations(flags, task);
         }
@@ -409,13 +498,34 @@ public class BasicExecutionManager implements ExecutionManager {
         public ScheduledTask task;
         public Map<?,?> flags;
 
+        /** set when this iteration starts, or when it is replaced by one brought forward, so that it runs at most once */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
         public ScheduledTaskCallable(ScheduledTask task, Map<?, ?> flags) {
             this.task = task;
             this.flags = flags;
         }
 
+        /**
+         * If this iteration is still waiting and not due within the given delay, replaces it with
+         * one which runs after that delay.
+         */
+        void bringForward(Duration newDelay) {
+            synchronized (task) {
+                if (task.pendingIteration != this || task.isDone()) return;
+                ScheduledFuture<?> scheduled = task.getNextScheduled();
+                if (scheduled == null || scheduled.getDelay(TimeUnit.NANOSECONDS) <= newDelay.toNanoseconds()) return;
+                if (!claimed.compareAndSet(false, true)) return;
+                ScheduledTaskCallable replacement = new ScheduledTaskCallable(task, flags);
+                task.pendingIteration = replacement;
+                task.internalFuture = delayedRunner.schedule(replacement, newDelay.toNanoseconds(), TimeUnit.NANOSECONDS);
+            }
+        }
+
         @SuppressWarnings({ "rawtypes", "unchecked" })
         public Object call() {
+            // superseded by an iteration brought forward; anything waiting on this one's future will re-check the task
+            if (!claimed.compareAndSet(false, true)) return null;
             if (task.startTimeUtc==-1) task.startTimeUtc = System.currentTimeMillis();
             TaskInternal<?> taskScheduled = null;
             try {
@@ -461,7 +571,7 @@ public class BasicExecutionManager implements ExecutionManager {
         private void resubmit() {
             task.runCount++;
             if (task.period!=null && !task.isCancelled()) {
-                task.delay = task.period;
+                task.delay = task.nextDelay();
                 submitSubsequentScheduledTask(flags, task);
             }
         }
@@ -644,9 +754,12 @@ public class BasicExecutionManager implements ExecutionManager {
                 log.warn("Error running task listeners for task "+task+" done", e);
             }
             
+            // compact before notifying, so that listeners which retain the task (e.g. the GC) hold the record
+            Task<?> doneTask = compactCompletedTasks ? compactIfDone(task) : task;
+            
             for (ExecutionListener listener : listeners) {
                 try {
-                    listener.onTaskDone(task);
+                    listener.onTaskDone(doneTask);
                 } catch (Exception e) {
                     log.warn("Error running execution listener "+listener+" of task "+task+" done", e);
                 }
@@ -654,6 +767,44 @@ public class BasicExecutionManager implements ExecutionManager {
         }
     }
 
+    /**
+     * Replaces the given task with a {@link CompletedTaskRecord}, in {@link #tasksById} and in the 
+     * sets of tasks for each tag, if it is done and still known to this execution manager.
+     * Returns the record, or the task itself if it was not compacted.
+     */
+    protected Task<?> compactIfDone(Task<?> task) {
+        if (!task.isDone() || task instanceof ScheduledTask || task instanceof CompletedTaskRecord) return task;
+        CompletedTaskRecord record;
+        try {
+            record = CompletedTaskRecord.of(task, this);
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            log.debug("Unable to compact completed task "+task+" (continuing with original): "+e);
+            return task;
+        }
+        if (!tasksById.replace(task.getId(), task, record)) {
+            // deleted (or already replaced) concurrently
+            return task;
+        }
+        for (Object tag : record.getTags()) {
+            synchronized (tasksByTag) {
+                Set<Task<?>> tasks = tasksWithTagLiveOrNull(tag);
+                // records are equal to (and have the same hash as) the task, so must remove before adding
+                if (tasks != null && tasks.remove(task)) {
+                    tasks.add(record);
+                }
+            }
+        }
+        // the parent (which submitted its children) would otherwise keep the original reachable
+        Task<?> parent = task.getSubmittedByTask();
+        if (parent instanceof DynamicSequentialTask) {
+            ((DynamicSequentialTask<?>) parent).replaceChild(task, record);
+        } else if (parent instanceof CompoundTask) {
+            ((CompoundTask<?>) parent).replaceChild(task, record);
+        }
+        return record;
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> Task<T> submitNewTask(final Map<?,?> flags, final Task<T> task) {
         if (log.isTraceEnabled()) {
@@ -756,6 +907,9 @@ public class BasicExecutionManager implements ExecutionManager {
             }
             PerThreadCurrentTaskHolder.perThreadCurrentTask.set(task);
             ((TaskInternal<?>)task).setStartTimeUtc(System.currentTimeMillis());
+            if (!cpuTimeListeners.isEmpty() && isThreadCpuTimeAvailable()) {
+                cpuTimeFrames.get().addLast(new CpuTimeFrame(task.getId(), ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime()));
+            }
         }
         invokeCallback(flags.get("newTaskStartCallback"), task);
     }
@@ -808,6 +962,24 @@ public class BasicExecutionManager implements ExecutionManager {
         }
 
         if (startedInThisThread) {
+            Deque<CpuTimeFrame> frames = cpuTimeFrames.get();
+            if (!frames.isEmpty() && frames.peekLast().taskId.equals(task.getId())) {
+                CpuTimeFrame frame = frames.removeLast();
+                long totalCpuTime = ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime() - frame.cpuTimeAtStart;
+                if (frames.isEmpty()) {
+                    cpuTimeFrames.remove();
+                } else {
+                    frames.peekLast().nestedCpuTime += totalCpuTime;
+                }
+                long cpuTime = totalCpuTime - frame.nestedCpuTime;
+                for (TaskCpuTimeListener listener : cpuTimeListeners) {
+                    try {
+                        listener.onTaskCpuTime(task, cpuTime);
+                    } catch (Exception e) {
+                        log.warn("Error running cpu time listener "+listener+" of task "+task, e);
+                    }
+                }
+            }
             PerThreadCurrentTaskHolder.perThreadCurrentTask.remove();
             //clear thread _after_ endTime set, so we won't get a null thread when there is no end-time
             if (RENAME_THREADS && startedInThisThread) {
@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.api.mgmt.ExecutionManager;
+import org.apache.brooklyn.api.mgmt.HasTaskChildren;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * A compact, immutable record of a task which has completed, used by the {@link BasicExecutionManager}
+ * in place of the original task (if {@link BasicExecutionManager#setCompactCompletedTasks(boolean)} is set),
+ * so that the job, listeners, blocking details and references to other tasks can be garbage collected.
+ * <p>
+ * Parent, submitter and children are held only by id and are looked up in the execution manager on demand.
+ * The result (or, for failed tasks, the error) is kept, so {@link #get()} behaves as it did on the original task.
+ * Tags can still be added, e.g. with {@link TaskTags#addTagDynamically(org.apache.brooklyn.api.mgmt.TaskAdaptable, Object)}.
+ */
+@Beta
+public class CompletedTaskRecord implements TaskInternal<Object>, HasTaskChildren {
+
+    private final ExecutionManager executionManager;
+    private final String id;
+    private final String displayName;
+    private final String description;
+    private final Set<Object> tags;
+    private final long queuedTimeUtc;
+    private final long submitTimeUtc;
+    private final long startTimeUtc;
+    private final long endTimeUtc;
+    private final String submittedByTaskId;
+    private final String submittedByTaskName;
+    private final List<String> childIds;
+    private final boolean cancelled;
+    private final boolean isError;
+    private final Object result;
+    private final Throwable error;
+    private final String errorSummary;
+    private final String statusSummary;
+    private final String statusDetail;
+    private final String statusDetailMultiline;
+
+    /** Creates a record of the given task, which must be done. */
+    public static CompletedTaskRecord of(Task<?> task, ExecutionManager executionManager) {
+        if (!task.isDone()) throw new IllegalStateException("Cannot create record of "+task+"; not done");
+        return new CompletedTaskRecord(task, executionManager);
+    }
+
+    protected CompletedTaskRecord(Task<?> task, ExecutionManager executionManager) {
+        this.executionManager = executionManager;
+        this.id = task.getId();
+        this.displayName = task.getDisplayName();
+        this.description = task.getDescription();
+        this.tags = Sets.newConcurrentHashSet(task.getTags());
+        this.queuedTimeUtc = (task instanceof TaskInternal) ? ((TaskInternal<?>)task).getQueuedTimeUtc() : -1;
+        this.submitTimeUtc = task.getSubmitTimeUtc();
+        this.startTimeUtc = task.getStartTimeUtc();
+        this.endTimeUtc = task.getEndTimeUtc();
+        Task<?> submitter = task.getSubmittedByTask();
+        this.submittedByTaskId = (submitter != null) ? submitter.getId() : null;
+        this.submittedByTaskName = (submitter != null) ? submitter.getDisplayName() : null;
+        if (task instanceof HasTaskChildren) {
+            List<String> ids = MutableList.of();
+            for (Task<?> child : ((HasTaskChildren)task).getChildren()) {
+                ids.add(child.getId());
+            }
+            this.childIds = ImmutableList.copyOf(ids);
+        } else {
+            this.childIds = ImmutableList.of();
+        }
+        this.cancelled = task.isCancelled();
+        this.isError = task.isError();
+
+        Object resultVal = null;
+        Throwable errorVal = null;
+        if (!cancelled) {
+            try {
+                resultVal = task.get();
+            } catch (ExecutionException e) {
+                errorVal = (e.getCause() != null) ? e.getCause() : e;
+            } catch (Throwable t) {
+                Exceptions.propagateIfFatal(t);
+                errorVal = t;
+            }
+        }
+        this.result = resultVal;
+        this.error = errorVal;
+        this.errorSummary = (errorVal != null) ? Exceptions.collapseText(errorVal) : null;
+        this.statusSummary = task.getStatusSummary();
+        this.statusDetail = task.getStatusDetail(false);
+        this.statusDetailMultiline = task.getStatusDetail(true);
+    }
+
+    /** a record of a task which the execution manager no longer knows about */
+    private CompletedTaskRecord(String id, String displayName) {
+        this.executionManager = null;
+        this.id = id;
+        this.displayName = displayName;
+        this.description = "Details of the original task "+displayName+" ("+id+") have been forgotten.";
+        this.tags = Sets.newConcurrentHashSet();
+        this.queuedTimeUtc = -1;
+        this.submitTimeUtc = -1;
+        this.startTimeUtc = -1;
+        this.endTimeUtc = -1;
+        this.submittedByTaskId = null;
+        this.submittedByTaskName = null;
+        this.childIds = ImmutableList.of();
+        this.cancelled = false;
+        this.isError = false;
+        this.result = null;
+        this.error = null;
+        this.errorSummary = null;
+        this.statusSummary = "Forgotten";
+        this.statusDetail = description;
+        this.statusDetailMultiline = description;
+    }
+
+    /** the error summary, if the task failed (other than by cancellation), otherwise null */
+    public String getErrorSummary() {
+        return errorSummary;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public int hashCode() {
+        // must match BasicTask, as records replace those tasks in hash sets
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof Task)
+            return ((Task<?>)obj).getId().equals(getId());
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "Task["+displayName+"]@"+id;
+    }
+
+    @Override
+    public Task<Object> asTask() {
+        return this;
+    }
+
+    @Override
+    public Set<Object> getTags() {
+        return Collections.unmodifiableSet(new LinkedHashSet<Object>(tags));
+    }
+
+    @Override
+    public long getQueuedTimeUtc() {
+        return queuedTimeUtc;
+    }
+
+    @Override
+    public long getSubmitTimeUtc() {
+        return submitTimeUtc;
+    }
+
+    @Override
+    public long getStartTimeUtc() {
+        return startTimeUtc;
+    }
+
+    @Override
+    public long getEndTimeUtc() {
+        return endTimeUtc;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Task<?> getSubmittedByTask() {
+        if (submittedByTaskId == null) return null;
+        Task<?> result = (executionManager != null) ? executionManager.getTask(submittedByTaskId) : null;
+        if (result != null) return result;
+        return new CompletedTaskRecord(submittedByTaskId, submittedByTaskName);
+    }
+
+    @Override
+    public Iterable<Task<?>> getChildren() {
+        if (childIds.isEmpty() || executionManager == null) return ImmutableList.of();
+        List<Task<?>> result = MutableList.of();
+        for (String childId : childIds) {
+            Task<?> child = executionManager.getTask(childId);
+            if (child != null) result.add(child);
+        }
+        return result;
+    }
+
+    @Override
+    public Thread getThread() {
+        return null;
+    }
+
+    @Override
+    public boolean isSubmitted() {
+        return submitTimeUtc > 0;
+    }
+
+    @Override
+    public boolean isBegun() {
+        return startTimeUtc > 0;
+    }
+
+    @Override
+    public boolean isQueued() {
+        return queuedTimeUtc > 0;
+    }
+
+    @Override
+    public boolean isQueuedOrSubmitted() {
+        return isQueued() || isSubmitted();
+    }
+
+    @Override
+    public boolean isQueuedAndNotSubmitted() {
+        return false;
+    }
+
+    @Override
+    public boolean isError() {
+        return isError;
+    }
+
+    @Override
+    public boolean isDone() {
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean cancel() {
+        return false;
+    }
+
+    @Override
+    public boolean cancel(TaskCancellationMode mode) {
+        return false;
+    }
+
+    @Override
+    public void blockUntilStarted() {
+    }
+
+    @Override
+    public boolean blockUntilStarted(Duration timeout) {
+        return true;
+    }
+
+    @Override
+    public void blockUntilEnded() {
+    }
+
+    @Override
+    public boolean blockUntilEnded(Duration timeout) {
+        return true;
+    }
+
+    @Override
+    public String getStatusSummary() {
+        return statusSummary;
+    }
+
+    @Override
+    public String getStatusDetail(boolean multiline) {
+        return multiline ? statusDetailMultiline : statusDetail;
+    }
+
+    @Override
+    public Object get() throws ExecutionException {
+        if (cancelled) throw new CancellationException("Task "+this+" was cancelled");
+        if (error != null) throw new ExecutionException(error);
+        return result;
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws ExecutionException {
+        return get();
+    }
+
+    @Override
+    public Object get(Duration duration) throws ExecutionException {
+        return get();
+    }
+
+    @Override
+    public Object getUnchecked() {
+        try {
+            return get();
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    @Override
+    public Object getUnchecked(Duration duration) {
+        return getUnchecked();
+    }
+
+    @Override
+    public void addListener(Runnable listener, Executor executor) {
+        // already done, so run now
+        executor.execute(listener);
+    }
+
+    // TaskInternal methods; this task is complete and immutable, so most are no-ops
+
+    @Override
+    public void initInternalFuture(ListenableFuture<Object> result) {
+        throw new IllegalStateException("Task "+this+" is already complete");
+    }
+
+    @Override
+    public Future<Object> getInternalFuture() {
+        if (cancelled) return Futures.immediateCancelledFuture();
+        if (error != null) return Futures.immediateFailedFuture(error);
+        return Futures.immediateFuture(result);
+    }
+
+    @Override
+    public void markQueued() {
+    }
+
+    @Override
+    public String setBlockingDetails(String blockingDetails) {
+        return null;
+    }
+
+    @Override
+    public Task<?> setBlockingTask(Task<?> blockingTask) {
+        return null;
+    }
+
+    @Override
+    public void resetBlockingDetails() {
+    }
+
+    @Override
+    public void resetBlockingTask() {
+    }
+
+    @Override
+    public String getBlockingDetails() {
+        return null;
+    }
+
+    @Override
+    public Task<?> getBlockingTask() {
+        return null;
+    }
+
+    @Override
+    public void setExtraStatusText(Object extraStatus) {
+    }
+
+    @Override
+    public Object getExtraStatusText() {
+        return null;
+    }
+
+    @Override
+    public void runListeners() {
+    }
+
+    @Override
+    public void setEndTimeUtc(long val) {
+    }
+
+    @Override
+    public void setThread(Thread thread) {
+    }
+
+    @Override
+    public Callable<Object> getJob() {
+        return null;
+    }
+
+    @Override
+    public void setJob(Callable<Object> job) {
+        throw new IllegalStateException("Task "+this+" is already complete");
+    }
+
+    @Override
+    public ExecutionList getListeners() {
+        return new ExecutionList();
+    }
+
+    @Override
+    public void setSubmitTimeUtc(long currentTimeMillis) {
+    }
+
+    @Override
+    public void setSubmittedByTask(Task<?> task) {
+    }
+
+    @Override
+    public Set<Object> getMutableTags() {
+        return tags;
+    }
+
+    @Override
+    public void setStartTimeUtc(long currentTimeMillis) {
+    }
+
+    @Override
+    public void applyTagModifier(Function<Set<Object>, Void> modifier) {
+        modifier.apply(tags);
+    }
+
+    @Override
+    public Task<?> getProxyTarget() {
+        return null;
+    }
+}
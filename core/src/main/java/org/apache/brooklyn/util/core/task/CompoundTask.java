@@ -37,6 +37,8 @@ import org.apache.brooklyn.util.collections.MutableMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
+
 
 /**
  * A {@link Task} that is comprised of other units of work: possibly a heterogeneous mix of {@link Task},
@@ -118,6 +120,25 @@ public abstract class CompoundTask<T> extends BasicTask<List<T>> implements HasT
         }
     }
     
+    /**
+     * Replaces a child with the given (equal) task, such as a {@link CompletedTaskRecord} of it,
+     * so that this task does not keep the original child reachable; returns false if it is not a child.
+     */
+    @Beta
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    boolean replaceChild(Task<?> child, Task<?> replacement) {
+        synchronized (children) {
+            for (int i = 0; i < children.size(); i++) {
+                if (children.get(i) == child) {
+                    // set does not change the structure of the list, so is safe for concurrent iteration
+                    ((List) children).set(i, replacement);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
     public List<Task<? extends T>> getChildrenTyped() {
         return children;
     }
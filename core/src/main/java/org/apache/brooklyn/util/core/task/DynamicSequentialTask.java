@@ -27,6 +27,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.brooklyn.api.mgmt.HasTaskChildren;
 import org.apache.brooklyn.api.mgmt.Task;
@@ -66,7 +67,8 @@ public class DynamicSequentialTask<T> extends BasicTask<T> implements HasTaskChi
 
     private static final Logger log = LoggerFactory.getLogger(CompoundTask.class);
                 
-    protected final Queue<Task<?>> secondaryJobsAll = new ConcurrentLinkedQueue<Task<?>>();
+    // a list (rather than a queue) so that completed children can be replaced in place; see replaceChild
+    protected final List<Task<?>> secondaryJobsAll = new CopyOnWriteArrayList<Task<?>>();
     protected final Queue<Task<?>> secondaryJobsRemaining = new ConcurrentLinkedQueue<Task<?>>();
     protected final Object jobTransitionLock = new Object();
     protected volatile boolean primaryStarted = false;
@@ -209,6 +211,23 @@ public class DynamicSequentialTask<T> extends BasicTask<T> implements HasTaskChi
         return Collections.unmodifiableCollection(secondaryJobsAll);
     }
     
+    /**
+     * Replaces a child with the given (equal) task, such as a {@link CompletedTaskRecord} of it,
+     * so that this task does not keep the original child reachable; returns false if it is not a child.
+     */
+    @Beta
+    boolean replaceChild(Task<?> child, Task<?> replacement) {
+        synchronized (jobTransitionLock) {
+            for (int i = 0; i < secondaryJobsAll.size(); i++) {
+                if (secondaryJobsAll.get(i) == child) {
+                    secondaryJobsAll.set(i, replacement);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
     /** submits the indicated task for execution in the current execution context, and returns immediately */
     protected void submitBackgroundInheritingContext(Task<?> task) {
         BasicExecutionContext ec = BasicExecutionContext.getCurrentExecutionContext();
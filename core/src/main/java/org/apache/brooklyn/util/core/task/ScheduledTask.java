@@ -26,6 +26,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.brooklyn.api.mgmt.Task;
@@ -55,9 +56,15 @@ public class ScheduledTask extends BasicTask<Object> {
     /**
      * The time to wait between executions, or null if not to repeat (default), set as flag to constructor;
      * this may be modified for subsequent submissions by a running task generated by the factory 
-     * using {@link #getSubmittedByTask().setPeriod(Duration)}
+     * using {@link #getSubmittedByTask().setPeriod(Duration)}, or from elsewhere using {@link #periodFromNow(Duration)}
      */
-    protected Duration period = null;
+    protected volatile Duration period = null;
+
+    /**
+     * Fraction of the period by which each subsequent delay may be randomly shortened or lengthened, so that tasks
+     * started at the same time drift apart rather than running in lock-step; defaults to 0 (no jitter).
+     */
+    protected double jitter = 0;
 
     /**
      * Optional, set as flag in constructor; defaults to null meaning no limit.
@@ -72,6 +79,8 @@ public class ScheduledTask extends BasicTask<Object> {
     protected int runCount=0;
     protected Task<?> recentRun, nextRun;
     Class<? extends Exception> lastThrownType;
+    /** the iteration waiting to run, set by the execution manager (guarded by this) */
+    BasicExecutionManager.ScheduledTaskCallable pendingIteration;
 
     public int getRunCount() { return runCount; }
     public ScheduledFuture<?> getNextScheduled() { return (ScheduledFuture<?>)internalFuture; }
@@ -121,6 +130,42 @@ public class ScheduledTask extends BasicTask<Object> {
         return period(Duration.millis(val));
     }
 
+    /**
+     * As {@link #period(Duration)}, but if the next iteration is already scheduled and not due within the new period,
+     * it is brought forward to run the new period from now. For changing the period other than from a running
+     * iteration, where the change would otherwise only apply after the iteration already scheduled.
+     */
+    @Beta
+    public ScheduledTask periodFromNow(Duration d) {
+        period(d);
+        BasicExecutionManager.ScheduledTaskCallable pending;
+        synchronized (this) {
+            pending = pendingIteration;
+        }
+        if (pending != null) pending.bringForward(d);
+        return this;
+    }
+
+    /** 
+     * Sets the fraction (between 0 and 1) of the period by which each subsequent delay is randomly 
+     * varied, e.g. 0.1 for a delay between 90% and 110% of the period. The variation is symmetric, 
+     * so on average the task still runs once per period. 
+     */
+    @Beta
+    public ScheduledTask jitter(double fraction) {
+        if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Jitter must be between 0 and 1, not "+fraction);
+        this.jitter = fraction;
+        return this;
+    }
+
+    /** the delay before the next iteration: the period, plus or minus any jitter */
+    protected Duration nextDelay() {
+        if (period == null || jitter <= 0) return period;
+        long periodNanos = period.toNanoseconds();
+        long variation = (long) (periodNanos * jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1));
+        return Duration.nanos(periodNanos + variation);
+    }
+
     public ScheduledTask maxIterations(int val) {
         this.maxIterations = val;
         return this;
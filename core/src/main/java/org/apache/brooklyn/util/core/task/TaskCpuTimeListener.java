@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import org.apache.brooklyn.api.mgmt.Task;
+
+import com.google.common.annotations.Beta;
+
+/** Notified by {@link BasicExecutionManager} of the CPU time used by tasks, where the JVM supports measuring it. */
+@Beta
+public interface TaskCpuTimeListener {
+
+    /** invoked in the task's thread, after each run of a task (or of an iteration of a scheduled task),
+     * with the CPU time used by that thread during the run (including any tasks run inline in that thread) */
+    public void onTaskCpuTime(Task<?> task, long cpuTimeNanos);
+
+}
@@ -36,7 +36,7 @@ public class TaskTags {
     public static final String SUB_TASK_TAG = "SUB-TASK";
 
     public static void addTagDynamically(TaskAdaptable<?> task, final Object tag) {
-        ((BasicTask<?>)task.asTask()).applyTagModifier(new Function<Set<Object>, Void>() {
+        ((TaskInternal<?>)task.asTask()).applyTagModifier(new Function<Set<Object>, Void>() {
             public Void apply(@Nullable Set<Object> input) {
                 input.add(tag);
                 return null;
@@ -45,7 +45,7 @@ public class TaskTags {
     }
     
     public static void addTagsDynamically(TaskAdaptable<?> task, final Object tag1, final Object ...tags) {
-        ((BasicTask<?>)task.asTask()).applyTagModifier(new Function<Set<Object>, Void>() {
+        ((TaskInternal<?>)task.asTask()).applyTagModifier(new Function<Set<Object>, Void>() {
             public Void apply(@Nullable Set<Object> input) {
                 input.add(tag1);
                 for (Object tag: tags) input.add(tag);
@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task.ssh;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.TaskFactory;
+import org.apache.brooklyn.location.ssh.SshMachineLocation;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.core.config.ConfigBag;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.core.task.CompoundTask;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Runs the same commands on many machines as a single task, at most {@link #maxConcurrency(int)} machines at a time,
+ * returning the {@link Result} of each machine (in the order the machines were given).
+ * <p>
+ * Each machine is run in a child task submitted through the current execution context, so shows up in the activity
+ * view and inherits the task's context. Unlike an {@link SshTasks#newSshExecTaskFactory(SshMachineLocation, String...)}
+ * task, the output is not streamed to the task; each machine's output is collected in memory and returned in its result.
+ * Each machine's pooled ssh connection is reused. A machine given more than once is run on (and has a result) each time.
+ * <p>
+ * By default the task fails if the commands fail on any machine (after running on all of them);
+ * see {@link #allowingNonZeroExitCode()}.
+ * <p>
+ * The task must be run in an execution context (e.g. submitted via an entity), as for other compound tasks.
+ *
+ * @see SshTasks#newSshBatchExecTaskFactory(Iterable, String...)
+ */
+@Beta
+public class SshBatchExecTaskFactory implements TaskFactory<Task<List<SshBatchExecTaskFactory.Result>>> {
+
+    private static final Logger log = LoggerFactory.getLogger(SshBatchExecTaskFactory.class);
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+    /** The outcome of running the commands on one machine. */
+    public static class Result {
+        private final SshMachineLocation machine;
+        private final int exitCode;
+        private final String stdout;
+        private final String stderr;
+        private final Throwable error;
+
+        protected Result(SshMachineLocation machine, int exitCode, String stdout, String stderr, Throwable error) {
+            this.machine = machine;
+            this.exitCode = exitCode;
+            this.stdout = stdout;
+            this.stderr = stderr;
+            this.error = error;
+        }
+
+        public SshMachineLocation getMachine() {
+            return machine;
+        }
+
+        /** the exit code, or -1 if the commands could not be run (see {@link #getError()}) */
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public String getStdout() {
+            return stdout;
+        }
+
+        public String getStderr() {
+            return stderr;
+        }
+
+        /** the exception running the commands, or null */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null && exitCode == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Result["+machine+"; exitCode="+exitCode+(error != null ? "; error="+error : "")+"]";
+        }
+    }
+
+    protected final List<SshMachineLocation> machines;
+    protected final List<String> commands;
+    protected final ConfigBag config = ConfigBag.newInstance();
+    protected String summary;
+    protected int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+    protected boolean requireExitCodeZero = true;
+    protected boolean runAsScript = true;
+    protected boolean useMachineConfig = true;
+
+    public SshBatchExecTaskFactory(Iterable<? extends SshMachineLocation> machines, List<String> commands) {
+        this.machines = ImmutableList.copyOf(Preconditions.checkNotNull(machines, "machines"));
+        this.commands = ImmutableList.copyOf(Preconditions.checkNotNull(commands, "commands"));
+    }
+
+    /** the maximum number of machines to run on at once (default {@value #DEFAULT_MAX_CONCURRENCY}) */
+    public SshBatchExecTaskFactory maxConcurrency(int maxConcurrency) {
+        Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public SshBatchExecTaskFactory summary(String summary) {
+        this.summary = summary;
+        return this;
+    }
+
+    /** adds ssh flags to use on every machine (in addition to each machine's own config) */
+    public SshBatchExecTaskFactory configure(Map<?, ?> flags) {
+        config.putAll(flags);
+        return this;
+    }
+
+    /** returns the results rather than failing the task if the commands fail on some machines */
+    public SshBatchExecTaskFactory allowingNonZeroExitCode() {
+        this.requireExitCodeZero = false;
+        return this;
+    }
+
+    /** runs the commands individually, rather than as a script (see {@link SshTool#execCommands(Map, List)}) */
+    public SshBatchExecTaskFactory runAsCommand() {
+        this.runAsScript = false;
+        return this;
+    }
+
+    /** whether to take ssh flags from each machine's (and the management context's) {@code brooklyn.ssh.config.*} config (default true) */
+    public SshBatchExecTaskFactory useMachineConfig(boolean useMachineConfig) {
+        this.useMachineConfig = useMachineConfig;
+        return this;
+    }
+
+    public List<SshMachineLocation> getMachines() {
+        return machines;
+    }
+
+    public ConfigBag getConfig() {
+        return config;
+    }
+
+    @Override
+    public Task<List<Result>> newTask() {
+        final String displayName = (summary != null ? summary : "ssh: "+Iterables.getFirst(commands, ""))
+                +" (on "+machines.size()+" machine"+(machines.size() == 1 ? "" : "s")+")";
+        final Map<String, Object> flags = config.getAllConfig();
+        final List<String> commands = this.commands;
+        final String summaryForLogging = (summary != null ? summary : "batch ssh");
+        final boolean runAsScript = this.runAsScript;
+        final boolean useMachineConfig = this.useMachineConfig;
+        final Semaphore slots = new Semaphore(maxConcurrency);
+
+        List<Task<Result>> children = MutableList.of();
+        for (final SshMachineLocation machine : machines) {
+            children.add(Tasks.<Result>builder().dynamic(false).displayName("ssh on "+machine)
+                    .body(new Callable<Result>() {
+                        @Override public Result call() {
+                            return runOn(machine, commands, flags, summaryForLogging, runAsScript, useMachineConfig);
+                        }})
+                    .build());
+        }
+        return new BatchTask(MutableMap.of("displayName", displayName, "description", "Running on "+machines+": "+commands),
+                children, slots, requireExitCodeZero);
+    }
+
+    /**
+     * Submits each machine's child task in turn through the current execution context,
+     * waiting for one of the {@link SshBatchExecTaskFactory#maxConcurrency(int)} slots before each;
+     * the slot is given back when the child completes (or is cancelled), or if it cannot be submitted.
+     */
+    private static class BatchTask extends CompoundTask<Result> {
+        private final Semaphore slots;
+        private final boolean requireExitCodeZero;
+
+        BatchTask(Map<String, ?> flags, List<Task<Result>> children, Semaphore slots, boolean requireExitCodeZero) {
+            super(flags, children);
+            this.slots = slots;
+            this.requireExitCodeZero = requireExitCodeZero;
+        }
+
+        @Override
+        protected List<Result> runJobs() throws InterruptedException, ExecutionException {
+            List<Result> results = MutableList.of();
+            int submitted = 0;
+            try {
+                for (Task<? extends Result> child : children) {
+                    setBlockingDetails("Submitted on "+submitted+" of "+children.size()+" machines");
+                    slots.acquire();
+                    Runnable release = newSlotRelease();
+                    boolean ok = false;
+                    try {
+                        // released when the child completes, however it completes (including if cancelled before it starts)
+                        child.addListener(release, MoreExecutors.sameThreadExecutor());
+                        submitIfNecessary(child);
+                        ok = true;
+                    } finally {
+                        // listeners are not run for a child cancelled before it is submitted
+                        if (!ok || child.isDone()) release.run();
+                    }
+                    submitted++;
+                }
+            } catch (InterruptedException e) {
+                for (Task<? extends Result> child : children) {
+                    child.cancel(true);
+                }
+                throw e;
+            }
+            List<Result> failures = MutableList.of();
+            for (Task<? extends Result> child : children) {
+                setBlockingDetails("Completed on "+results.size()+" of "+children.size()+" machines"
+                        +(failures.size() > 0 ? " ("+failures.size()+" failed)" : ""));
+                Result result = child.get();
+                results.add(result);
+                if (!result.isSuccess()) failures.add(result);
+            }
+            resetBlockingDetails();
+            if (requireExitCodeZero && !failures.isEmpty()) {
+                throw new IllegalStateException("Failed on "+failures.size()+" of "+results.size()+" machines, in "+this+": "+failures);
+            }
+            return results;
+        }
+
+        /** gives back a slot, at most once however many times it is run */
+        private Runnable newSlotRelease() {
+            final AtomicBoolean released = new AtomicBoolean();
+            return new Runnable() {
+                @Override public void run() {
+                    if (released.compareAndSet(false, true)) slots.release();
+                }
+            };
+        }
+    }
+
+    private static Result runOn(SshMachineLocation machine, List<String> commands, Map<String, Object> flags,
+            String summaryForLogging, boolean runAsScript, boolean useMachineConfig) {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        Map<String, Object> machineFlags = MutableMap.of();
+        if (useMachineConfig) machineFlags.putAll(SshTasks.getSshFlags(machine));
+        machineFlags.putAll(flags);
+        machineFlags.put(SshTool.PROP_OUT_STREAM.getName(), stdout);
+        machineFlags.put(SshTool.PROP_ERR_STREAM.getName(), stderr);
+        try {
+            int exitCode = runAsScript
+                    ? machine.execScript(machineFlags, summaryForLogging, commands)
+                    : machine.execCommands(machineFlags, summaryForLogging, commands);
+            return new Result(machine, exitCode, new String(stdout.toByteArray()), new String(stderr.toByteArray()), null);
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            log.debug("Failed to run "+summaryForLogging+" on "+machine+" (continuing with other machines): "+e);
+            return new Result(machine, -1, new String(stdout.toByteArray()), new String(stderr.toByteArray()), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"["+machines.size()+" machines; "+commands+"]";
+    }
+}
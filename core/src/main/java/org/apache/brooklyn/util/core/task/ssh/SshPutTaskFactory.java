@@ -25,9 +25,11 @@ import org.apache.brooklyn.api.mgmt.TaskFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.brooklyn.location.ssh.SshMachineLocation;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
 import org.apache.brooklyn.util.stream.KnownSizeInputStream;
 import org.apache.brooklyn.util.stream.ReaderInputStream;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Suppliers;
 
 // cannot be (cleanly) instantiated due to nested generic self-referential type; however trivial subclasses do allow it 
@@ -107,6 +109,28 @@ public class SshPutTaskFactory extends SshPutTaskStub implements TaskFactory<Ssh
         return self();
     }
     
+    /**
+     * Copies large files in chunks, over the given number of concurrent channels (if supported by the ssh tool).
+     * @see SshTool#PROP_TRANSFER_PARALLELISM
+     */
+    @Beta
+    public SshPutTaskFactory transferParallelism(int parallelism) {
+        markDirty();
+        config.put(SshTool.PROP_TRANSFER_PARALLELISM, parallelism);
+        return self();
+    }
+
+    /**
+     * Resumes an earlier partial copy of a large file, only sending the chunks which differ (if supported by the ssh tool).
+     * @see SshTool#PROP_TRANSFER_RESUME
+     */
+    @Beta
+    public SshPutTaskFactory resumable() {
+        markDirty();
+        config.put(SshTool.PROP_TRANSFER_RESUME, true);
+        return self();
+    }
+
     public SshPutTaskWrapper newTask() {
         dirty = false;
         return new SshPutTaskWrapper(this);
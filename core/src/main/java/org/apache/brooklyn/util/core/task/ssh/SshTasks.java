@@ -121,7 +121,23 @@ public class SshTasks {
         };
     }
 
-    private static Map<String, Object> getSshFlags(Location location) {
+    /**
+     * Returns a factory for a single task which runs the given commands on all the given machines, a bounded number
+     * at a time, returning each machine's result (with its output collected in memory) in the order given.
+     *
+     * @see SshBatchExecTaskFactory
+     */
+    @Beta
+    public static SshBatchExecTaskFactory newSshBatchExecTaskFactory(Iterable<? extends SshMachineLocation> machines, String ...commands) {
+        return newSshBatchExecTaskFactory(machines, Arrays.asList(commands));
+    }
+
+    @Beta
+    public static SshBatchExecTaskFactory newSshBatchExecTaskFactory(Iterable<? extends SshMachineLocation> machines, List<String> commands) {
+        return new SshBatchExecTaskFactory(machines, commands);
+    }
+
+    static Map<String, Object> getSshFlags(Location location) {
         ConfigBag allConfig = ConfigBag.newInstance();
         
         if (location instanceof AbstractLocation) {
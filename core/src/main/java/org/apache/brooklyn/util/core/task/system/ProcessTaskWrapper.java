@@ -29,6 +29,7 @@ import org.apache.brooklyn.util.core.internal.ssh.ShellTool;
 import org.apache.brooklyn.util.core.task.TaskBuilder;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.core.task.system.internal.AbstractProcessTaskFactory;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.text.Strings;
 import org.slf4j.Logger;
@@ -46,8 +47,8 @@ public abstract class ProcessTaskWrapper<RET> extends ProcessTaskStub implements
     private final Task<RET> task;
 
     // execution details
-    protected ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-    protected ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+    protected ByteArrayOutputStream stdout = new SpoolingByteArrayOutputStream();
+    protected ByteArrayOutputStream stderr = new SpoolingByteArrayOutputStream();
     protected Integer exitCode = null;
     
     @SuppressWarnings("unchecked")
@@ -96,7 +97,13 @@ public abstract class ProcessTaskWrapper<RET> extends ProcessTaskStub implements
     protected class ProcessTaskInternalJob implements Callable<Object> {
         @Override
         public Object call() throws Exception {
-            run( getConfigForRunning() );
+            try {
+                run( getConfigForRunning() );
+            } finally {
+                // the output is still readable; this just releases any file being spooled to
+                if (stdout!=null) Streams.closeQuietly(stdout);
+                if (stderr!=null) Streams.closeQuietly(stderr);
+            }
             
             for (Function<ProcessTaskWrapper<?>, Void> listener: completionListeners) {
                 try {
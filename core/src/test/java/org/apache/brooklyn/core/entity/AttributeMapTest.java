@@ -19,11 +19,13 @@
 package org.apache.brooklyn.core.entity;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -221,6 +223,50 @@ public class AttributeMapTest {
             }});
     }
     
+    @Test
+    public void testConcurrentModifyAttributeCallsWithDefaultStorage() throws Exception {
+        map = new AttributeMap(entityImpl);
+        testConcurrentModifyAttributeCalls();
+    }
+    
+    @Test
+    public void testAsMapReturnsSnapshotUntilChanged() throws Exception {
+        map = new AttributeMap(entityImpl);
+        AttributeSensor<String> sensor1 = Sensors.newStringSensor("a", "");
+        AttributeSensor<String> sensor2 = Sensors.newStringSensor("b.c", "");
+        
+        map.update(sensor1, "1val");
+        map.update(sensor2, null);
+        Map<String, Object> snapshot = map.asMap();
+        assertEquals(snapshot, MutableMap.of("a", "1val", "b.c", null));
+        assertSame(map.asMap(), snapshot);
+        
+        map.update(sensor1, "1val-b");
+        assertEquals(snapshot.get("a"), "1val");
+        assertEquals(map.asMap().get("a"), "1val-b");
+        
+        map.remove(sensor2);
+        assertEquals(map.asMap(), MutableMap.of("a", "1val-b"));
+    }
+    
+    @Test
+    public void testAsMapKeepsInsertionOrder() throws Exception {
+        map = new AttributeMap(entityImpl);
+        List<String> names = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            names.add("sensor"+(50-i));
+            map.update(Sensors.newStringSensor("sensor"+(50-i), ""), "val"+i);
+        }
+        // updating an existing sensor keeps its position; removing and re-adding moves it to the end
+        map.update(Sensors.newStringSensor("sensor50", ""), "changed");
+        map.remove(Sensors.newStringSensor("sensor49", ""));
+        map.update(Sensors.newStringSensor("sensor49", ""), "readded");
+        names.remove("sensor49");
+        names.add("sensor49");
+        
+        assertEquals(ImmutableList.copyOf(map.asMap().keySet()), names);
+    }
+    
     protected <T> Runnable newUpdateMapRunnable(final AttributeMap map, final AttributeSensor<T> attribute, final T val) {
         return new Runnable() {
             @Override public void run() {
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.entity.drivers.downloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.core.ResourceUtils;
+import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+public class DownloadCacheTest {
+
+    private File cacheDir;
+    private File sourceDir;
+    private ResourceUtils resolver;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        cacheDir = Os.newTempDir(getClass());
+        sourceDir = Os.newTempDir(getClass());
+        resolver = ResourceUtils.create(this);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (cacheDir != null) Os.deleteRecursively(cacheDir);
+        if (sourceDir != null) Os.deleteRecursively(sourceDir);
+    }
+
+    @Test
+    public void testFetchesOnceAndStoresByContentHash() throws Exception {
+        DownloadCache cache = new DownloadCache(true, cacheDir, 1024*1024);
+        String url = newSourceFile("a.txt", "hello").toURI().toString();
+
+        File first = cache.get(resolver, url);
+        File second = cache.get(resolver, url);
+
+        assertEquals(first, second);
+        assertEquals(first.getName(), Hashing.sha256().hashString("hello", Charsets.UTF_8).toString());
+        assertEquals(Files.toString(first, Charsets.UTF_8), "hello");
+        assertEquals(cache.getMetrics().get("fetches"), 1L);
+        assertEquals(cache.getMetrics().get("hits"), 1L);
+    }
+
+    @Test
+    public void testIndexSurvivesRestart() throws Exception {
+        String url = newSourceFile("a.txt", "hello").toURI().toString();
+        File first = new DownloadCache(true, cacheDir, 1024*1024).get(resolver, url);
+
+        DownloadCache cache2 = new DownloadCache(true, cacheDir, 1024*1024);
+        assertEquals(cache2.get(resolver, url), first);
+        assertEquals(cache2.getMetrics().get("fetches"), 0L);
+    }
+
+    @Test
+    public void testTriesEachUrl() throws Exception {
+        DownloadCache cache = new DownloadCache(true, cacheDir, 1024*1024);
+        String missing = new File(sourceDir, "missing.txt").toURI().toString();
+        String url = newSourceFile("a.txt", "hello").toURI().toString();
+
+        File result = cache.get(resolver, ImmutableList.of(missing, url));
+        assertEquals(Files.toString(result, Charsets.UTF_8), "hello");
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        DownloadCache cache = new DownloadCache(true, cacheDir, 10);
+        File a = cache.get(resolver, newSourceFile("a.txt", "aaaaaa").toURI().toString());
+        a.setLastModified(System.currentTimeMillis() - 60*1000);
+        File b = cache.get(resolver, newSourceFile("b.txt", "bbbbbb").toURI().toString());
+
+        assertFalse(a.exists());
+        assertTrue(b.exists());
+        assertEquals(cache.getMetrics().get("evictions"), 1L);
+    }
+
+    @Test
+    public void testFetchesAgainAfterTtl() throws Exception {
+        DownloadCache cache = new DownloadCache(true, cacheDir, 1024*1024, Duration.ZERO);
+        File source = newSourceFile("latest.txt", "v1");
+        String url = source.toURI().toString();
+        assertEquals(Files.toString(cache.get(resolver, url), Charsets.UTF_8), "v1");
+        
+        Files.write("v2", source, Charsets.UTF_8);
+        Thread.sleep(10);
+        assertEquals(Files.toString(cache.get(resolver, url), Charsets.UTF_8), "v2");
+        assertEquals(cache.getMetrics().get("fetches"), 2L);
+    }
+
+    @Test
+    public void testEntriesFromBeforeTtlRecordedAreFetchedAgain() throws Exception {
+        String url = newSourceFile("a.txt", "hello").toURI().toString();
+        new DownloadCache(true, cacheDir, 1024*1024).get(resolver, url);
+        // an index entry without a fetch time is treated as expired
+        File indexFile = new File(cacheDir, "index.properties");
+        String hash = Hashing.sha256().hashString("hello", Charsets.UTF_8).toString();
+        Files.write(url.replace(":", "\\:")+"="+hash+"\n", indexFile, Charsets.UTF_8);
+        
+        DownloadCache cache2 = new DownloadCache(true, cacheDir, 1024*1024);
+        cache2.get(resolver, url);
+        assertEquals(cache2.getMetrics().get("fetches"), 1L);
+    }
+
+    @Test
+    public void testOnlyInstallsHttpUrls() throws Exception {
+        assertTrue(DownloadCache.isCacheable("http://example.com/a.tgz"));
+        assertTrue(DownloadCache.isCacheable("HTTPS://example.com/a.tgz"));
+        assertFalse(DownloadCache.isCacheable("classpath://brooklyn.properties"));
+        
+        DownloadCache cache = new DownloadCache(true, cacheDir, 1024*1024);
+        String url = newSourceFile("a.txt", "hello").toURI().toString();
+        assertFalse(DownloadCache.isCacheable(url));
+        try {
+            cache.installTo(resolver, null, ImmutableList.of(url), "/tmp/a.txt");
+            Asserts.shouldHaveFailedPreviously();
+        } catch (IllegalArgumentException e) {
+            Asserts.expectedFailureContains(e, url);
+        }
+        assertEquals(cache.getMetrics().get("fetches"), 0L);
+    }
+
+    private File newSourceFile(String name, String contents) throws Exception {
+        File result = new File(sourceDir, name);
+        Files.write(contents, result, Charsets.UTF_8);
+        return result;
+    }
+}
@@ -18,6 +18,11 @@
  */
 package org.apache.brooklyn.core.entity.lifecycle;
 
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.entity.EntitySpec;
 import org.apache.brooklyn.api.location.Location;
@@ -36,6 +41,7 @@ import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.core.test.entity.TestEntityImpl.TestEntityWithoutEnrichers;
 import org.apache.brooklyn.entity.group.DynamicCluster;
+import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.QuorumCheck.QuorumChecks;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.time.Duration;
@@ -46,6 +52,7 @@ import org.testng.annotations.Test;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 @Test
 public class ServiceStateLogicTest extends BrooklynAppUnitTestSupport {
@@ -281,6 +288,57 @@ public class ServiceStateLogicTest extends BrooklynAppUnitTestSupport {
         EntityAsserts.assertAttributeEqualsContinually(cluster, Attributes.SERVICE_STATE_ACTUAL, Lifecycle.RUNNING);
     }
 
+    @Test
+    public void testIncrementalComputationMatchesFullComputation() {
+        final TestEntity parent = app.createAndManageChild(EntitySpec.create(TestEntity.class)
+                .enricher(ServiceStateLogic.newEnricherFromChildren().checkChildrenOnly()
+                        .uniqueTag("full").requireUpChildren(QuorumChecks.atLeastOne()))
+                .enricher(ServiceStateLogic.newEnricherFromChildren().checkChildrenOnly()
+                        .uniqueTag("incremental").requireUpChildren(QuorumChecks.atLeastOne()).incremental(true)));
+        // expected running, so the state is RUNNING only when up and without problems, and ON_FIRE otherwise
+        ServiceStateLogic.setExpectedState(parent, Lifecycle.RUNNING);
+        List<EntityInternal> children = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            children.add((EntityInternal) parent.addChild(EntitySpec.create(TestEntityWithoutEnrichers.class)));
+        }
+        assertIndicatorsMatchEventually(parent, false, Lifecycle.ON_FIRE);
+
+        for (EntityInternal child : children) {
+            child.sensors().set(Attributes.SERVICE_UP, true);
+            child.sensors().set(Attributes.SERVICE_STATE_ACTUAL, Lifecycle.RUNNING);
+        }
+        assertIndicatorsMatchEventually(parent, true, Lifecycle.RUNNING);
+
+        children.get(1).sensors().set(Attributes.SERVICE_STATE_ACTUAL, Lifecycle.ON_FIRE);
+        children.get(3).sensors().set(Attributes.SERVICE_UP, false);
+        children.get(3).sensors().set(Attributes.SERVICE_STATE_ACTUAL, Lifecycle.ON_FIRE);
+        assertIndicatorsMatchEventually(parent, true, Lifecycle.ON_FIRE);
+
+        for (EntityInternal child : children) {
+            child.sensors().set(Attributes.SERVICE_UP, false);
+            child.sensors().set(Attributes.SERVICE_STATE_ACTUAL, Lifecycle.STARTING);
+        }
+        assertIndicatorsMatchEventually(parent, false, Lifecycle.ON_FIRE);
+
+        Entities.unmanage(children.get(0));
+        assertIndicatorsMatchEventually(parent, false, Lifecycle.ON_FIRE);
+    }
+
+    /** asserts the incremental and full indicators agree, and also the resulting up and state, as both could be wrong */
+    private static void assertIndicatorsMatchEventually(final Entity entity, final Boolean expectedUp, final Lifecycle expectedState) {
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(entity.getAttribute(Attributes.SERVICE_UP), expectedUp, "up; indicators="+entity.getAttribute(Attributes.SERVICE_NOT_UP_INDICATORS));
+                assertEquals(entity.getAttribute(Attributes.SERVICE_STATE_ACTUAL), expectedState, "state; problems="+entity.getAttribute(Attributes.SERVICE_PROBLEMS));
+                for (AttributeSensor<Map<String, Object>> sensor : ImmutableList.of(Attributes.SERVICE_NOT_UP_INDICATORS, Attributes.SERVICE_PROBLEMS)) {
+                    Map<String, Object> indicators = entity.getAttribute(sensor);
+                    Object full = indicators == null ? null : indicators.get("full");
+                    Object incremental = indicators == null ? null : indicators.get("incremental");
+                    assertEquals(incremental, full, "sensor="+sensor+"; indicators="+indicators);
+                }
+            }});
+    }
+
     private static <T> void assertAttributeEqualsEventually(Entity x, AttributeSensor<T> sensor, T value) {
         try {
             EntityAsserts.assertAttributeEqualsEventually(ImmutableMap.of("timeout", Duration.seconds(3)), x, sensor, value);
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.feed;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.test.BrooklynMgmtUnitTestSupport;
+import org.testng.annotations.Test;
+
+public class PollSchedulerTest extends BrooklynMgmtUnitTestSupport {
+
+    @Override
+    protected BrooklynProperties getBrooklynProperties() {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(PollScheduler.MAX_CONCURRENT_POLLS_PER_TARGET, 2);
+        result.put(PollScheduler.POLL_JITTER, 0.25);
+        return result;
+    }
+
+    @Test
+    public void testSharedPerManagementContext() throws Exception {
+        PollScheduler scheduler = PollScheduler.get(mgmt);
+        assertSame(PollScheduler.get(mgmt), scheduler);
+        assertEquals(scheduler.getJitter(), 0.25);
+        assertEquals(scheduler.getMaxConcurrentPollsPerTarget(), 2);
+    }
+
+    @Test
+    public void testLimitsConcurrentPollsPerTarget() throws Exception {
+        PollScheduler scheduler = PollScheduler.get(mgmt);
+        assertTrue(scheduler.tryStartPoll("host1"));
+        assertTrue(scheduler.tryStartPoll("host1"));
+        assertFalse(scheduler.tryStartPoll("host1"));
+        // other targets, and polls with no known target, are not affected
+        assertTrue(scheduler.tryStartPoll("host2"));
+        assertTrue(scheduler.tryStartPoll(null));
+        
+        scheduler.onPollEnded("host1");
+        assertTrue(scheduler.tryStartPoll("host1"));
+        
+        Map<String, Object> metrics = scheduler.getMetrics();
+        assertEquals(metrics.get("polls"), 5L);
+        assertEquals(metrics.get("skipped"), 1L);
+    }
+
+    @Test
+    public void testRecordsLag() throws Exception {
+        PollScheduler scheduler = PollScheduler.get(mgmt);
+        scheduler.recordLag(10);
+        scheduler.tryStartPoll(null);
+        scheduler.recordLag(30);
+        scheduler.tryStartPoll(null);
+        // a skipped poll still contributes its lag
+        scheduler.recordLag(50);
+        assertTrue(scheduler.tryStartPoll("host1"));
+        assertTrue(scheduler.tryStartPoll("host1"));
+        assertFalse(scheduler.tryStartPoll("host1"));
+        
+        Map<String, Object> metrics = scheduler.getMetrics();
+        assertEquals(metrics.get("lag.mean"), 30L);
+        assertEquals(metrics.get("lag.max"), 50L);
+    }
+}
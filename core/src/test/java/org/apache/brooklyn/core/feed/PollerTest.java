@@ -18,6 +18,8 @@
  */
 package org.apache.brooklyn.core.feed;
 
+import static org.testng.Assert.assertEquals;
+
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -36,6 +38,7 @@ import org.apache.brooklyn.feed.function.FunctionFeed;
 import org.apache.brooklyn.feed.function.FunctionPollConfig;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
 import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.time.Duration;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -83,6 +86,16 @@ public class PollerTest extends BrooklynAppUnitTestSupport {
         EntityAsserts.assertAttributeEqualsContinually(timeoutFlags, fee, FeedExceptionEntity.FLAG, true);
     }
 
+    @Test
+    public void testNextAdaptivePeriod() {
+        Duration min = Duration.millis(100);
+        Duration max = Duration.millis(1000);
+        assertEquals(Poller.nextAdaptivePeriod(min, false, min, max), Duration.millis(200));
+        assertEquals(Poller.nextAdaptivePeriod(Duration.millis(800), false, min, max), max);
+        assertEquals(Poller.nextAdaptivePeriod(max, false, min, max), max);
+        assertEquals(Poller.nextAdaptivePeriod(max, true, min, max), min);
+    }
+
     @ImplementedBy(FeedExceptionEntityImpl.class)
     public static interface FeedExceptionEntity extends Entity {
         ConfigKey<ThrowingPoller> POLLER = ConfigKeys.newConfigKey(ThrowingPoller.class, "poller");
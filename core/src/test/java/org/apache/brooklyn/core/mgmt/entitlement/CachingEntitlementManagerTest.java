@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.entitlement;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementClass;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CachingEntitlementManagerTest extends BrooklynAppUnitTestSupport {
+
+    private static final EntitlementContext ALICE = new WebEntitlementContext("alice", "127.0.0.1", "/v1/applications", "req1");
+    private static final EntitlementContext BOB = new WebEntitlementContext("bob", "127.0.0.1", "/v1/applications", "req2");
+
+    private CountingEntitlementManager delegate;
+    private CachingEntitlementManager caching;
+    private TestEntity entity;
+
+    @BeforeMethod(alwaysRun = true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        delegate = new CountingEntitlementManager();
+        caching = new CachingEntitlementManager(delegate, 100, Duration.ONE_MINUTE);
+        entity = app.addChild(EntitySpec.create(TestEntity.class));
+    }
+
+    @Test
+    public void testCachesPerUserAndPermission() throws Exception {
+        assertTrue(caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity));
+        assertTrue(caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity));
+        assertEquals(delegate.count.get(), 1);
+
+        assertTrue(caching.isEntitled(BOB, Entitlements.SEE_ENTITY, entity));
+        assertTrue(caching.isEntitled(ALICE, Entitlements.SEE_SENSOR, Entitlements.EntityAndItem.of(entity, "foo")));
+        assertTrue(caching.isEntitled(ALICE, Entitlements.SEE_SENSOR, Entitlements.EntityAndItem.of(entity, "foo")));
+        assertEquals(delegate.count.get(), 3);
+
+        assertEquals(caching.getStats().hitCount(), 2);
+        assertEquals(caching.getMetrics().get("size"), 3L);
+    }
+
+    @Test
+    public void testDoesNotCacheWithoutUserOrForModifications() throws Exception {
+        caching.isEntitled(null, Entitlements.SEE_ENTITY, entity);
+        caching.isEntitled(null, Entitlements.SEE_ENTITY, entity);
+        caching.isEntitled(ALICE, Entitlements.MODIFY_ENTITY, entity);
+        caching.isEntitled(ALICE, Entitlements.MODIFY_ENTITY, entity);
+        assertEquals(delegate.count.get(), 4);
+        assertEquals(caching.getStats().requestCount(), 0);
+    }
+
+    @Test
+    public void testNotReusedWhenEntityMoved() throws Exception {
+        TestEntity other = app.addChild(EntitySpec.create(TestEntity.class));
+        caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity);
+        entity.setParent(other);
+        caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity);
+        assertEquals(delegate.count.get(), 2);
+    }
+
+    @Test
+    public void testNotReusedWhenAncestorMoved() throws Exception {
+        final CachingEntitlementManager subscribing = new CachingEntitlementManager(delegate, mgmt, 100, Duration.ONE_MINUTE);
+        try {
+            TestEntity middle = app.addChild(EntitySpec.create(TestEntity.class));
+            final TestEntity child = middle.addChild(EntitySpec.create(TestEntity.class));
+            TestEntity other = app.addChild(EntitySpec.create(TestEntity.class));
+            subscribing.isEntitled(ALICE, Entitlements.SEE_ENTITY, child);
+            middle.setParent(other);
+
+            // hierarchy events are delivered asynchronously
+            Asserts.succeedsEventually(new Runnable() {
+                @Override
+                public void run() {
+                    subscribing.isEntitled(ALICE, Entitlements.SEE_ENTITY, child);
+                    assertEquals(delegate.count.get(), 2);
+                }
+            });
+        } finally {
+            subscribing.close();
+        }
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity);
+        caching.invalidateAll();
+        caching.isEntitled(ALICE, Entitlements.SEE_ENTITY, entity);
+        assertEquals(delegate.count.get(), 2);
+    }
+
+    @Test
+    public void testWrapIfConfigured() throws Exception {
+        BrooklynProperties props = BrooklynProperties.Factory.newEmpty();
+        assertSame(CachingEntitlementManager.wrapIfConfigured(delegate, mgmt, props), delegate);
+
+        props.put(CachingEntitlementManager.CACHE_MAX_SIZE, 1000);
+        EntitlementManager wrapped = CachingEntitlementManager.wrapIfConfigured(delegate, mgmt, props);
+        assertTrue(wrapped instanceof CachingEntitlementManager, "wrapped="+wrapped);
+        assertSame(((CachingEntitlementManager) wrapped).getDelegate(), delegate);
+    }
+
+    private static class CountingEntitlementManager implements EntitlementManager {
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public <T> boolean isEntitled(EntitlementContext context, EntitlementClass<T> entitlementClass, T entitlementClassArgument) {
+            count.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -52,6 +52,7 @@ import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.BasicExecutionManager;
 import org.apache.brooklyn.util.core.task.ExecutionListener;
 import org.apache.brooklyn.util.core.task.TaskBuilder;
+import org.apache.brooklyn.util.core.task.TaskTags;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.javalang.JavaClassNames;
 import org.apache.brooklyn.util.repeat.Repeater;
@@ -238,6 +239,61 @@ public class EntityExecutionManagerTest {
         assertTaskCountForEntitySoon(e, 5);
     }
     
+    @Test
+    public void testIncrementalRetentionAtNormalTagLimit() throws Exception {
+        BrooklynProperties brooklynProperties = BrooklynProperties.Factory.newEmpty();
+        brooklynProperties.put(BrooklynGarbageCollector.INCREMENTAL_RETENTION, true);
+        brooklynProperties.put(BrooklynGarbageCollector.MAX_TASKS_PER_TAG, 2);
+        app = ApplicationBuilder.newManagedApp(TestApplication.class, LocalManagementContextForTests.newInstance(brooklynProperties));
+        e = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+
+        for (int count=0; count<5; count++)
+            runEmptyTaskWithNameAndTags(e, "task"+count, ManagementContextInternal.NON_TRANSIENT_TASK_TAG, "boring-tag");
+
+        assertTaskCountForEntitySoon(e, 2);
+        Map<String, Object> metrics = ((LocalManagementContext)app.getManagementContext()).getGarbageCollector().getRetentionMetrics();
+        assertTrue(((Number)metrics.get("evicted")).longValue() >= 3, "metrics="+metrics);
+    }
+    
+    @Test
+    public void testIncrementalRetentionKeepsFailedTasksLonger() throws Exception {
+        BrooklynProperties brooklynProperties = BrooklynProperties.Factory.newEmpty();
+        brooklynProperties.put(BrooklynGarbageCollector.INCREMENTAL_RETENTION, true);
+        brooklynProperties.put(BrooklynGarbageCollector.MAX_TASKS_PER_TAG, 2);
+        app = ApplicationBuilder.newManagedApp(TestApplication.class, LocalManagementContextForTests.newInstance(brooklynProperties));
+        e = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+
+        Task<?> failed = ((EntityInternal)e).getExecutionContext().submit(Tasks.builder().displayName("failing").dynamic(false)
+            .tag(ManagementContextInternal.NON_TRANSIENT_TASK_TAG).tag("boring-tag")
+            .body(new Callable<Object>() { @Override public Object call() { throw new IllegalStateException("simulated failure"); } })
+            .build());
+        try {
+            failed.get();
+            fail("should have failed");
+        } catch (Exception expected) {
+            // expected
+        }
+        for (int count=0; count<5; count++)
+            runEmptyTaskWithNameAndTags(e, "task"+count, ManagementContextInternal.NON_TRANSIENT_TASK_TAG, "boring-tag");
+
+        assertTaskCountForEntitySoon(e, 2);
+        Collection<Task<?>> tasks = BrooklynTaskTags.getTasksInEntityContext(app.getManagementContext().getExecutionManager(), e);
+        assertTrue(tasks.contains(failed), "tasks="+tasks);
+    }
+    
+    @Test
+    public void testRetentionBuffersForgetTaskWithTagsAddedLater() throws Exception {
+        TaskRetentionBuffers buffers = new TaskRetentionBuffers();
+        Task<?> task = Tasks.builder().displayName("task").tag("early-tag").body(new Runnable() { @Override public void run() {} }).build();
+        buffers.add(task, 10, 10, 10);
+        TaskTags.addTagDynamically(task, "late-tag");
+        assertEquals(buffers.getMetrics().get("buffers"), 2);
+
+        buffers.remove(task);
+        assertEquals(buffers.size(), 0);
+        assertEquals(buffers.getMetrics().get("buffers"), 0);
+    }
+    
     @Test
     public void testGcDynamicTaskAtNormalTagLimit() throws Exception {
         app = TestApplication.Factory.newManagedInstanceForTests();
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.core.mgmt.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.internal.EntityResourceAccounting.Usage;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Callables;
+
+public class EntityResourceAccountingTest extends BrooklynAppUnitTestSupport {
+
+    private TestEntity entity;
+    private EntityResourceAccounting accounting;
+
+    @Override
+    protected BrooklynProperties getBrooklynProperties() {
+        BrooklynProperties result = BrooklynProperties.Factory.newEmpty();
+        result.put(EntityResourceAccounting.ENABLED, true);
+        result.put(EntityResourceAccounting.PUBLISH_PERIOD, Duration.millis(10));
+        return result;
+    }
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        accounting = ((LocalManagementContext)mgmt).getResourceAccounting();
+        assertNotNull(accounting);
+        assertTrue(accounting.isEnabled());
+    }
+
+    @Test
+    public void testCountsTasksOfEntity() throws Exception {
+        final long initial = accounting.getUsage(entity).getTasksCompleted();
+        for (int i = 0; i < 5; i++) {
+            entity.getExecutionContext().submit(Callables.returning(i)).get();
+        }
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                Usage usage = accounting.getUsage(entity);
+                assertTrue(usage.getTasksCompleted() >= initial + 5, "usage="+usage);
+                assertTrue(usage.getTasksRetained() > 0, "usage="+usage);
+            }});
+    }
+
+    @Test
+    public void testCountsSubscriptionDeliveries() throws Exception {
+        entity.subscriptions().subscribe(entity, TestEntity.SEQUENCE, new SensorEventListener<Integer>() {
+            @Override public void onEvent(SensorEvent<Integer> event) {
+            }});
+        for (int i = 0; i < 3; i++) {
+            entity.setSequenceValue(i);
+        }
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                Usage usage = accounting.getUsage(entity);
+                assertTrue(usage.getSubscriptions() >= 1, "usage="+usage);
+                assertTrue(usage.getSubscriptionDeliveries() >= 3, "usage="+usage);
+            }});
+    }
+
+    @Test
+    public void testPublishesApplicationTotals() throws Exception {
+        entity.getExecutionContext().submit(Callables.returning("foo")).get();
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                Long tasks = app.getAttribute(EntityResourceAccounting.TASKS_COMPLETED);
+                assertNotNull(tasks);
+                assertTrue(tasks > 0, "tasks="+tasks);
+                assertEquals(accounting.getUsageByApplication().keySet(), ImmutableSet.of(app.getId()));
+            }});
+    }
+
+    @Test
+    public void testPublishingUnchangedUsageDoesNotChangeApplication() throws Exception {
+        final EntityManagementSupport managementSupport = ((EntityInternal)app).getManagementSupport();
+        // retried, in case other activity (e.g. the periodic publish) changes the usage in between
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                accounting.publishToApplications();
+                long version = managementSupport.getChangeVersion();
+                accounting.publishToApplications();
+                assertEquals(managementSupport.getChangeVersion(), version);
+            }});
+    }
+}
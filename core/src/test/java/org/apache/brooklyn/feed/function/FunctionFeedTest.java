@@ -36,13 +36,17 @@ import org.apache.brooklyn.api.sensor.AttributeSensor;
 import org.apache.brooklyn.api.sensor.Feed;
 import org.apache.brooklyn.api.sensor.SensorEvent;
 import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.EntityAsserts;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.entity.EntityInternal.FeedSupport;
+import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.brooklyn.util.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -56,6 +60,7 @@ import com.google.common.base.Functions;
 import com.google.common.base.Predicates;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Callables;
 
@@ -260,6 +265,71 @@ public class FunctionFeedTest extends BrooklynAppUnitTestSupport {
                 .onFailureOrException(Functions.<Integer>constant(null));
     }
     
+    @Test
+    public void testAdaptivePollBacksOffWhileUnchangedAndTightensOnChange() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger value = new AtomicInteger(1);
+        feed = FunctionFeed.builder()
+                .entity(entity)
+                .poll(new FunctionPollConfig<Integer,Integer>(SENSOR_INT)
+                        .adaptivePeriod(Duration.millis(10), Duration.ONE_SECOND)
+                        .callable(new Callable<Integer>() {
+                            @Override public Integer call() {
+                                calls.incrementAndGet();
+                                return value.get();
+                            }}))
+                .build();
+        
+        EntityAsserts.assertAttributeEqualsEventually(entity, SENSOR_INT, 1);
+        // backs off until polls are rare (at a fixed 10ms there would be ~20 in each 200ms)
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                int before = calls.get();
+                Time.sleep(Duration.millis(200));
+                assertTrue(calls.get() - before <= 1, "calls in 200ms="+(calls.get() - before));
+            }});
+        
+        value.set(2);
+        EntityAsserts.assertAttributeEqualsEventually(entity, SENSOR_INT, 2);
+        // after the change, polls are frequent again (at the max period, 3 polls would take 3s)
+        final int callsAfterChange = calls.get();
+        Asserts.succeedsEventually(ImmutableMap.of("timeout", Duration.seconds(2)), new Runnable() {
+            @Override public void run() {
+                assertTrue(calls.get() >= callsAfterChange + 3, "calls="+calls.get()+"; after change="+callsAfterChange);
+            }});
+    }
+    
+    @Test
+    public void testAdaptivePollTightensPromptlyOnServiceStateChange() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        feed = FunctionFeed.builder()
+                .entity(entity)
+                .poll(new FunctionPollConfig<Integer,Integer>(SENSOR_INT)
+                        .adaptivePeriod(Duration.millis(10), Duration.seconds(30))
+                        .callable(new Callable<Integer>() {
+                            @Override public Integer call() {
+                                calls.incrementAndGet();
+                                return 1;
+                            }}))
+                .build();
+        
+        EntityAsserts.assertAttributeEqualsEventually(entity, SENSOR_INT, 1);
+        // backs off until there are no polls for a second
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                int before = calls.get();
+                Time.sleep(Duration.ONE_SECOND);
+                assertEquals(calls.get(), before);
+            }});
+        
+        // polls are frequent again at once, not only after the next (backed off) poll
+        final int callsBeforeChange = calls.get();
+        entity.sensors().set(Attributes.SERVICE_STATE_ACTUAL, Lifecycle.ON_FIRE);
+        Asserts.succeedsEventually(ImmutableMap.of("timeout", Duration.millis(500)), new Runnable() {
+            @Override public void run() {
+                assertTrue(calls.get() >= callsBeforeChange + 3, "calls="+calls.get()+"; before change="+callsBeforeChange);
+            }});
+    }
     
     private void assertFeedIsPolling() {
         final Integer val = entity.getAttribute(SENSOR_INT);
@@ -19,6 +19,7 @@
 package org.apache.brooklyn.feed.http;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.net.URL;
@@ -42,6 +43,8 @@ import org.apache.brooklyn.test.Asserts;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.http.BetterMockWebServer;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.http.executor.apacheclient.AsyncHttpExecutorImpl;
 import org.apache.brooklyn.util.http.HttpToolResponse;
 import org.apache.brooklyn.util.guava.Functionals;
 import org.apache.brooklyn.util.net.Networking;
@@ -61,6 +64,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.mockwebserver.MockResponse;
 import com.google.mockwebserver.SocketPolicy;
+import com.thoughtworks.xstream.XStream;
 
 public class HttpFeedTest extends BrooklynAppUnitTestSupport {
 
@@ -249,6 +253,91 @@ public class HttpFeedTest extends BrooklynAppUnitTestSupport {
         server.shutdown();
     }
 
+    @Test
+    public void testPollsAsynchronously() throws Exception {
+        feed = HttpFeed.builder()
+                .entity(entity)
+                .baseUrl(baseUrl)
+                .async()
+                .poll(HttpPollConfig.forSensor(SENSOR_INT)
+                        .period(100)
+                        .onSuccess(HttpValueFunctions.responseCode()))
+                .poll(HttpPollConfig.forSensor(SENSOR_STRING)
+                        .period(100)
+                        .onSuccess(HttpValueFunctions.stringContentsFunction()))
+                .build();
+        
+        assertSensorEventually(SENSOR_INT, (Integer)200, TIMEOUT_MS);
+        assertSensorEventually(SENSOR_STRING, "{\"foo\":\"myfoo\"}", TIMEOUT_MS);
+    }
+
+    @Test
+    public void testAsyncUsesExceptionHandlerWhenServerDisconnects() throws Exception {
+        if (server != null) server.shutdown();
+        server = BetterMockWebServer.newInstanceLocalhost();
+        for (int i = 0; i < 100; i++) {
+            server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        }
+        server.play();
+        feed = HttpFeed.builder()
+                .entity(entity)
+                .baseUrl(server.getUrl("/"))
+                .async()
+                .poll(new HttpPollConfig<Integer>(SENSOR_INT)
+                        .period(100)
+                        .onSuccess(HttpValueFunctions.responseCode())
+                        .onException(Functions.constant(-1)))
+                .build();
+
+        assertSensorEventually(SENSOR_INT, -1, TIMEOUT_MS);
+    }
+
+    @Test
+    public void testAsyncHandlerRunsInTask() throws Exception {
+        final AttributeSensor<Boolean> inTask = Sensors.newBooleanSensor("inTask", "");
+        feed = HttpFeed.builder()
+                .entity(entity)
+                .baseUrl(baseUrl)
+                .async()
+                .poll(new HttpPollConfig<Boolean>(inTask)
+                        .period(100)
+                        .onSuccess(new Function<HttpToolResponse, Boolean>() {
+                            @Override public Boolean apply(HttpToolResponse input) {
+                                // i.e. not called from the async client's I/O thread
+                                return Tasks.current() != null;
+                            }}))
+                .build();
+        
+        assertSensorEventually(inTask, true, TIMEOUT_MS);
+    }
+
+    @Test
+    public void testSharedAsyncExecutorNotCopiedWhenDeserialized() throws Exception {
+        XStream xstream = new XStream();
+        AsyncHttpExecutorImpl shared = AsyncHttpExecutorImpl.getShared();
+        assertSame(xstream.fromXML(xstream.toXML(shared)), shared);
+        
+        AsyncHttpExecutorImpl other = AsyncHttpExecutorImpl.newInstance();
+        Assert.assertNotSame(xstream.fromXML(xstream.toXML(other)), other);
+    }
+
+    @Test
+    public void testClosesOwnAsyncExecutorWhenStopped() throws Exception {
+        AsyncHttpExecutorImpl executor = AsyncHttpExecutorImpl.newInstance();
+        feed = HttpFeed.builder()
+                .entity(entity)
+                .baseUrl(baseUrl)
+                .httpExecutor(executor)
+                .poll(HttpPollConfig.forSensor(SENSOR_INT)
+                        .period(100)
+                        .onSuccess(HttpValueFunctions.responseCode()))
+                .build();
+        assertSensorEventually(SENSOR_INT, (Integer)200, TIMEOUT_MS);
+        
+        feed.stop();
+        assertTrue(executor.isClosed());
+    }
+
     @Test(groups="Integration")
     // marked integration as it takes a wee while
     public void testSuspendResume() throws Exception {
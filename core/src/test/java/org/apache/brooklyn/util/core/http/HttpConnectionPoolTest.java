@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.http;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.http.HttpConnectionPool;
+import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.HttpToolResponse;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.http.client.HttpClient;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.mockwebserver.MockResponse;
+
+public class HttpConnectionPoolTest {
+
+    private BetterMockWebServer server;
+    private HttpConnectionPool pool;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        server = BetterMockWebServer.newInstanceLocalhost();
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(200).setBody("hello"));
+        }
+        server.play();
+        pool = new HttpConnectionPool(10, 2, Duration.ONE_MINUTE);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (pool != null) pool.close();
+        if (server != null) server.shutdown();
+    }
+
+    @Test
+    public void testClientsReuseConnectionsFromPool() throws Exception {
+        URI uri = server.getUrl("/").toURI();
+        for (int i = 0; i < 3; i++) {
+            // a new client each time, as HttpExecutorImpl does
+            HttpClient client = HttpTool.httpClientBuilder().uri(uri).connectionPool(pool).build();
+            HttpToolResponse response = HttpTool.httpGet(client, uri, ImmutableMap.<String,String>of());
+            assertEquals(response.getResponseCode(), 200);
+        }
+        assertEquals(server.takeRequest().getSequenceNumber(), 0);
+        assertEquals(server.takeRequest().getSequenceNumber(), 1);
+        assertEquals(server.takeRequest().getSequenceNumber(), 2);
+
+        Map<String, Object> metrics = pool.getMetrics();
+        assertEquals(metrics.get("leased"), 0, "metrics="+metrics);
+        assertEquals(metrics.get("available"), 1, "metrics="+metrics);
+    }
+
+    @Test
+    public void testSameConnectionManagerForSameTrustMode() throws Exception {
+        assertSame(pool.getConnectionManager(true, false), pool.getConnectionManager(true, true));
+        assertSame(pool.getConnectionManager(false, false), pool.getConnectionManager(false, false));
+    }
+
+    @Test
+    public void testClosedPoolCannotBeUsed() throws Exception {
+        pool.getConnectionManager(false, false);
+        pool.close();
+        try {
+            pool.getConnectionManager(false, false);
+            Asserts.shouldHaveFailedPreviously();
+        } catch (IllegalStateException e) {
+            Asserts.expectedFailureContains(e, "closed");
+        }
+    }
+}
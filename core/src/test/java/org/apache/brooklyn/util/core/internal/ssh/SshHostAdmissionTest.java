@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.core.internal.ssh.SshHostAdmission.Kind;
+import org.apache.brooklyn.util.core.internal.ssh.SshHostAdmission.Permit;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SshHostAdmissionTest {
+
+    private SshHostAdmission admission;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() throws Exception {
+        SshHostAdmission.clearAll();
+        admission = SshHostAdmission.forHost("myhost", 22, 1, 0);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        SshHostAdmission.clearAll();
+    }
+
+    @Test
+    public void testSameInstanceForHost() throws Exception {
+        assertSame(SshHostAdmission.forHost("myhost", 22, 1, 0), admission);
+        assertFalse(SshHostAdmission.forHost("myhost", 2222, 1, 0) == admission);
+    }
+
+    @Test
+    public void testLimitsUpdatedByLaterUse() throws Exception {
+        Permit p1 = admission.acquire(Kind.CONNECT, Duration.ONE_MINUTE);
+        assertSame(SshHostAdmission.forHost("myhost", 22, 2, 0), admission);
+        assertEquals(getConnectMetrics().get("max"), 2);
+        Permit p2 = runInOtherThread(Kind.CONNECT);
+        assertEquals(getConnectMetrics().get("inUse"), 2);
+        
+        // reducing the limit below the number in use admits no more until enough are released
+        SshHostAdmission.forHost("myhost", 22, 1, 0);
+        p1.release();
+        try {
+            runInOtherThread(Kind.CONNECT);
+            Asserts.shouldHaveFailedPreviously();
+        } catch (SshException e) {
+            Asserts.expectedFailureContains(e, "Timeout");
+        }
+        p2.release();
+        runInOtherThread(Kind.CONNECT).release();
+    }
+
+    @Test
+    public void testWaitsForPermitThenAdmits() throws Exception {
+        Permit permit = admission.acquire(Kind.CONNECT, Duration.ONE_MINUTE);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean admitted = new AtomicBoolean();
+        Thread t = new Thread() {
+            @Override public void run() {
+                started.countDown();
+                admission.acquire(Kind.CONNECT, Duration.ONE_MINUTE).release();
+                admitted.set(true);
+            }};
+        t.start();
+        try {
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Asserts.succeedsEventually(new Runnable() {
+                @Override public void run() {
+                    assertEquals(getConnectMetrics().get("waiting"), 1);
+                }});
+            assertFalse(admitted.get());
+        } finally {
+            permit.release();
+        }
+        t.join(10*1000);
+        assertTrue(admitted.get());
+        assertEquals(getConnectMetrics().get("admitted"), 2L);
+        assertEquals(getConnectMetrics().get("inUse"), 0);
+    }
+
+    @Test
+    public void testRejectsAfterTimeout() throws Exception {
+        Permit permit = admission.acquire(Kind.CONNECT, Duration.ONE_MINUTE);
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+        Thread t = new Thread() {
+            @Override public void run() {
+                try {
+                    admission.acquire(Kind.CONNECT, Duration.millis(10)).release();
+                } catch (Exception e) {
+                    error.set(e);
+                }
+            }};
+        t.start();
+        t.join(10*1000);
+        permit.release();
+        assertTrue(error.get() instanceof SshException, "error="+error.get());
+        Asserts.expectedFailureContains(error.get(), "Timeout");
+        assertEquals(getConnectMetrics().get("rejected"), 1L);
+    }
+
+    @Test
+    public void testReentrantOnSameThread() throws Exception {
+        Permit outer = admission.acquire(Kind.CONNECT, Duration.ONE_MINUTE);
+        Permit inner = admission.acquire(Kind.CONNECT, Duration.millis(10));
+        inner.release();
+        assertEquals(getConnectMetrics().get("inUse"), 1);
+        outer.release();
+        assertEquals(getConnectMetrics().get("inUse"), 0);
+    }
+
+    @Test
+    public void testNoLimitForChannelsByDefault() throws Exception {
+        Permit p1 = admission.acquire(Kind.CHANNEL, Duration.millis(10));
+        Permit p2 = admission.acquire(Kind.CHANNEL, Duration.millis(10));
+        p1.release();
+        p2.release();
+    }
+
+    /** acquires a permit in another thread (so not re-entrant with this thread's), waiting briefly */
+    private Permit runInOtherThread(final Kind kind) throws Exception {
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        Thread t = new Thread() {
+            @Override public void run() {
+                try {
+                    result.set(admission.acquire(kind, Duration.millis(100)));
+                } catch (Exception e) {
+                    result.set(e);
+                }
+            }};
+        t.start();
+        t.join(10*1000);
+        if (result.get() instanceof SshException) throw (SshException) result.get();
+        return (Permit) result.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getConnectMetrics() {
+        return (Map<String, Object>) admission.getMetrics().get("connect");
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh.sshj;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.apache.brooklyn.util.core.internal.ssh.sshj.SshjChunkedTransfer.RemoteChecksums;
+import org.apache.brooklyn.util.os.Os;
+import org.apache.brooklyn.util.stream.Streams;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+public class SshjChunkedTransferTest {
+
+    @Test
+    public void testIsApplicable() throws Exception {
+        assertFalse(SshjChunkedTransfer.isApplicable(ImmutableMap.<String,Object>of(), 100L*1024*1024));
+        assertTrue(SshjChunkedTransfer.isApplicable(ImmutableMap.of(SshTool.PROP_TRANSFER_PARALLELISM.getName(), 4), 100L*1024*1024));
+        assertTrue(SshjChunkedTransfer.isApplicable(ImmutableMap.of(SshTool.PROP_TRANSFER_RESUME.getName(), true), 100L*1024*1024));
+        // small files are sent in one stream
+        assertFalse(SshjChunkedTransfer.isApplicable(ImmutableMap.of(SshTool.PROP_TRANSFER_PARALLELISM.getName(), 4), 1024));
+    }
+
+    @Test
+    public void testParseRemoteChecksums() throws Exception {
+        RemoteChecksums result = SshjChunkedTransfer.parseRemoteChecksums("size 12\nchunk 0 abc\nchunk 1 def\n");
+        assertEquals(result.size, 12);
+        assertEquals(result.chunks, ImmutableMap.of(0, "abc", 1, "def"));
+
+        assertEquals(SshjChunkedTransfer.parseRemoteChecksums("").size, -1);
+    }
+
+    /** runs the checksum command with a local bash, rather than over ssh */
+    @Test(groups="Integration")
+    public void testRemoteChecksumsCommandMatchesLocalChecksums() throws Exception {
+        File file = Os.newTempFile(getClass(), "dat");
+        try {
+            Files.write("abcdefghij", file, Charsets.UTF_8);
+            Process process = new ProcessBuilder("bash", "-c", SshjChunkedTransfer.remoteChecksumsCommand(file.getAbsolutePath(), 4)).start();
+            process.waitFor();
+            RemoteChecksums result = SshjChunkedTransfer.parseRemoteChecksums(Streams.readFullyString(process.getInputStream()));
+
+            assertEquals(result.size, 10);
+            assertEquals(result.chunks.size(), 3);
+            assertEquals(result.chunks.get(2), Hashing.md5().hashString("ij", Charsets.UTF_8).toString());
+        } finally {
+            file.delete();
+        }
+    }
+}
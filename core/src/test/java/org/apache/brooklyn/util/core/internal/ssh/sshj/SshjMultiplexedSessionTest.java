@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.internal.ssh.sshj;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.core.internal.ssh.SshException;
+import org.apache.brooklyn.util.stream.Streams;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+
+public class SshjMultiplexedSessionTest {
+
+    @Test
+    public void testRequestLineIsSingleLine() throws Exception {
+        assertEquals(SshjMultiplexedSession.toRequestLine("echo 'a\\b'\necho c", null), "eval $'echo \\'a\\\\b\\'\\necho c'\n");
+        assertEquals(SshjMultiplexedSession.toRequestLine("true", ImmutableMap.of("FOO", "bar")), "eval $'export FOO=\"bar\"\\ntrue'\n");
+    }
+
+    /** runs the multiplexer loop with a local bash, rather than over ssh */
+    @Test(groups="Integration")
+    public void testLoopFramesEachRequest() throws Exception {
+        Process process = new ProcessBuilder("bash", "-c", SshjMultiplexedSession.loopScript("MARKER")).start();
+        OutputStream stdin = process.getOutputStream();
+        stdin.write(SshjMultiplexedSession.toRequestLine("echo \"$FOO\"\necho err >&2\nexit 3", ImmutableMap.of("FOO", "a 'b' \"c\" $d")).getBytes(Charsets.UTF_8));
+        stdin.write(SshjMultiplexedSession.toRequestLine("cat; printf 'no newline'", null).getBytes(Charsets.UTF_8));
+        stdin.close();
+        process.waitFor();
+
+        assertEquals(Streams.readFullyString(process.getInputStream()), "a 'b' \"c\" $d\n\nMARKER 1 3\nno newline\nMARKER 2 0\n");
+        assertEquals(Streams.readFullyString(process.getErrorStream()), "err\n\nMARKER 1\n\nMARKER 2\n");
+    }
+
+    /** a hung request must not block other requests on the session beyond their own timeout */
+    @Test(groups="Integration")
+    public void testHungRequestDoesNotBlockOthers() throws Exception {
+        final SshjMultiplexedSession session = new LocalSession();
+        final AtomicReference<Exception> hungError = new AtomicReference<Exception>();
+        Thread hung = new Thread() {
+            @Override public void run() {
+                try {
+                    session.exec("sleep 60", null, Duration.seconds(5));
+                } catch (Exception e) {
+                    hungError.set(e);
+                }
+            }
+        };
+        try {
+            hung.start();
+            Asserts.succeedsEventually(new Runnable() {
+                @Override public void run() {
+                    assertEquals(session.getRequestCount(), 1);
+                }
+            });
+
+            try {
+                session.exec("echo hi", null, Duration.millis(500));
+                fail("Expected timeout while other request running");
+            } catch (SshException e) {
+                assertTrue(hung.isAlive(), "request should have given up before the hung request timed out");
+            }
+
+            hung.join(30*1000);
+            assertTrue(hungError.get() instanceof SshException, "error="+hungError.get());
+            SshjMultiplexedSession.Result result = session.exec("echo hi", null, Duration.seconds(10));
+            assertEquals(result.getStdout(), "hi\n");
+        } finally {
+            session.close();
+            hung.join(30*1000);
+        }
+    }
+
+    /** runs the multiplexer loop with a local bash, rather than over ssh */
+    private static class LocalSession extends SshjMultiplexedSession {
+        LocalSession() {
+            super(null);
+        }
+        @Override
+        protected Channel openChannel(String remoteCommand) throws Exception {
+            final Process process = new ProcessBuilder("bash", "-c", remoteCommand).start();
+            return new Channel() {
+                @Override protected OutputStream getStdin() { return process.getOutputStream(); }
+                @Override protected InputStream getStdout() { return process.getInputStream(); }
+                @Override protected InputStream getStderr() { return process.getErrorStream(); }
+                @Override protected boolean isOpen() {
+                    try {
+                        process.exitValue();
+                        return false;
+                    } catch (IllegalThreadStateException e) {
+                        return true;
+                    }
+                }
+                @Override public void close() { process.destroy(); }
+            };
+        }
+    }
+}
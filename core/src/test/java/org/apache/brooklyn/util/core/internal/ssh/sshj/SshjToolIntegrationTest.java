@@ -29,6 +29,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -51,6 +52,7 @@ import org.testng.annotations.Test;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 
 /**
  * Test the operation of the {@link SshJschTool} utility class.
@@ -282,6 +284,44 @@ public class SshjToolIntegrationTest extends SshToolAbstractIntegrationTest {
     }
 
     
+    @Test(groups = {"Integration"})
+    public void testCopyLargeFileInChunksOverSeveralConnections() throws Exception {
+        byte[] contents = new byte[100*1024+123];
+        new Random().nextBytes(contents);
+        File localFile = new File(localFilePath);
+        Files.write(contents, localFile);
+        
+        final AtomicInteger toolsCreated = new AtomicInteger();
+        SshjTool localtool = new SshjTool(ImmutableMap.of("host", "localhost", "privateKeyFile", SSH_DEFAULT_KEYFILE)) {
+            @Override protected SshjTool newTool() {
+                toolsCreated.incrementAndGet();
+                return super.newTool();
+            }};
+        try {
+            localtool.connect();
+            Map<String, ?> props = ImmutableMap.of(SshTool.PROP_TRANSFER_PARALLELISM.getName(), 3, SshTool.PROP_TRANSFER_CHUNK_SIZE.getName(), 8*1024L);
+            localtool.copyToServer(props, localFile, remoteFilePath);
+            assertEquals(toolsCreated.get(), 3);
+            assertRemoteFileBytes(localtool, contents);
+            
+            // change one chunk, then resume: the result matches, so only the changed chunk was needed
+            contents[50*1024] ^= 1;
+            Files.write(contents, localFile);
+            localtool.copyToServer(ImmutableMap.<String,Object>builder().putAll(props).put(SshTool.PROP_TRANSFER_RESUME.getName(), true).build(), 
+                    localFile, remoteFilePath);
+            assertRemoteFileBytes(localtool, contents);
+        } finally {
+            localtool.disconnect();
+        }
+    }
+
+    private void assertRemoteFileBytes(SshTool localtool, byte[] expected) throws Exception {
+        File copied = new File(localFilePath+"-copy");
+        filesCreated.add(copied.getAbsolutePath());
+        localtool.copyFromServer(ImmutableMap.<String,Object>of(), remoteFilePath, copied);
+        assertTrue(Arrays.equals(Files.toByteArray(copied), expected));
+    }
+
     protected String execShellDirect(List<String> cmds) {
         return execShellDirect(cmds, ImmutableMap.<String,Object>of());
     }
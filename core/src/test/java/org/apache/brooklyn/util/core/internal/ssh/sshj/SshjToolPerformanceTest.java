@@ -18,13 +18,21 @@
  */
 package org.apache.brooklyn.util.core.internal.ssh.sshj;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.Map;
+import java.util.Random;
 
+import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.internal.ssh.SshTool;
 import org.apache.brooklyn.util.core.internal.ssh.SshToolAbstractPerformanceTest;
 import org.apache.brooklyn.util.core.internal.ssh.sshj.SshjTool;
+import org.apache.brooklyn.util.text.Identifiers;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+
 /**
  * Test the performance of different variants of invoking the sshj tool.
  * 
@@ -37,6 +45,45 @@ public class SshjToolPerformanceTest extends SshToolAbstractPerformanceTest {
         return new SshjTool(flags);
     }
     
+    @Test(groups = {"Integration"})
+    public void testCopyLargeFile() throws Exception {
+        runCopyLargeFile(1, "copy-large-file", 3);
+    }
+
+    @Test(groups = {"Integration"})
+    public void testCopyLargeFileInParallelChunks() throws Exception {
+        runCopyLargeFile(4, "copy-large-file-parallel", 3);
+    }
+
+    private void runCopyLargeFile(final int parallelism, String context, int iterations) throws Exception {
+        final File localFile = File.createTempFile("sshjToolPerformanceTest", ".dat");
+        final String remotePath = "/tmp/sshjToolPerformanceTest-"+Identifiers.makeRandomId(8)+".dat";
+        try {
+            byte[] block = new byte[1024*1024];
+            new Random().nextBytes(block);
+            OutputStream out = new FileOutputStream(localFile);
+            try {
+                for (int i = 0; i < 100; i++) out.write(block);
+            } finally {
+                out.close();
+            }
+            final SshTool tool = newSshTool(MutableMap.of("host", "localhost"));
+            tool.connect();
+            try {
+                runMany(new Runnable() {
+                    @Override public void run() {
+                        tool.copyToServer(MutableMap.of(SshTool.PROP_TRANSFER_PARALLELISM.getName(), parallelism, 
+                                SshTool.PROP_TRANSFER_CHUNK_SIZE.getName(), 4L*1024*1024), localFile, remotePath);
+                    }}, context, iterations);
+            } finally {
+                tool.execCommands(MutableMap.<String,Object>of(), ImmutableList.of("rm -f "+remotePath));
+                tool.disconnect();
+            }
+        } finally {
+            localFile.delete();
+        }
+    }
+
     // Need to have at least one test method here (rather than just inherited) for eclipse to recognize it
     @Test(enabled = false)
     public void testDummy() throws Exception {
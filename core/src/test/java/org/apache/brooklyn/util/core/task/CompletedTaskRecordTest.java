@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.brooklyn.api.mgmt.HasTaskChildren;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Callables;
+
+public class CompletedTaskRecordTest {
+
+    private BasicExecutionManager em;
+
+    @BeforeMethod(alwaysRun=true)
+    public void setUp() {
+        em = new BasicExecutionManager("mycontext");
+        em.setCompactCompletedTasks(true);
+    }
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (em != null) em.shutdownNow();
+    }
+
+    @Test
+    public void testCompletedTaskReplacedByRecord() throws Exception {
+        Task<String> t = em.submit(MutableMap.of("tag", "A"), Tasks.<String>builder().displayName("t1")
+            .dynamic(false).body(Callables.returning("foo")).build());
+        assertEquals(t.get(), "foo");
+
+        Task<?> record = assertCompactedEventually(t);
+        assertEquals(record.getDisplayName(), "t1");
+        assertEquals(record.get(), "foo");
+        assertTrue(record.isDone());
+        assertFalse(record.isError());
+        assertEquals(record.getEndTimeUtc(), t.getEndTimeUtc());
+        assertEquals(record.getStatusSummary(), t.getStatusSummary());
+        assertTrue(record.getTags().contains("A"));
+
+        List<Task<?>> tagged = MutableList.copyOf(em.getTasksWithTag("A"));
+        assertEquals(tagged.size(), 1);
+        assertTrue(tagged.get(0) instanceof CompletedTaskRecord, "tagged="+tagged);
+    }
+
+    @Test
+    public void testRecordOfFailedTaskKeepsErrorSummary() throws Exception {
+        Task<String> t = em.submit(Tasks.<String>builder().displayName("failing").dynamic(false).body(new Callable<String>() {
+            @Override public String call() {
+                throw new IllegalStateException("simulated failure");
+            }}).build());
+        t.blockUntilEnded();
+
+        Task<?> record = assertCompactedEventually(t);
+        assertTrue(record.isError());
+        try {
+            record.get();
+            Asserts.shouldHaveFailedPreviously();
+        } catch (ExecutionException e) {
+            Asserts.expectedFailureContains(e, "simulated failure");
+        }
+    }
+
+    @Test
+    public void testRecordKeepsResult() throws Exception {
+        final Object result = new Object();
+        Task<Object> t = em.submit(Tasks.<Object>builder().dynamic(false).body(Callables.returning(result)).build());
+        t.get();
+
+        Task<?> record = assertCompactedEventually(t);
+        assertSame(record.get(), result);
+    }
+
+    @Test
+    public void testTagsCanBeAddedToRecord() throws Exception {
+        Task<String> t = em.submit(Tasks.<String>builder().dynamic(false).body(Callables.returning("foo")).build());
+        t.get();
+
+        Task<?> record = assertCompactedEventually(t);
+        TaskTags.markInessential(record);
+        assertTrue(TaskTags.isInessential(record));
+    }
+
+    @Test
+    public void testRecordResolvesChildrenAndSubmitter() throws Exception {
+        final Task<String> child = Tasks.<String>builder().displayName("child").body(Callables.returning("c")).build();
+        // children are submitted via the parent's execution context
+        Task<String> parent = new BasicExecutionContext(em).submit(Tasks.<String>builder().displayName("parent").body(new Callable<String>() {
+            @Override public String call() {
+                return DynamicTasks.queue(child).getUnchecked();
+            }}).build());
+        assertEquals(parent.get(), "c");
+
+        Task<?> parentRecord = assertCompactedEventually(parent);
+        Task<?> childRecord = assertCompactedEventually(child);
+        assertEquals(MutableList.copyOf(((HasTaskChildren)parentRecord).getChildren()), MutableList.of(childRecord));
+        assertEquals(childRecord.getSubmittedByTask(), parentRecord);
+        // the original parent no longer refers to the original child
+        final Task<String> parentOriginal = parent;
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                Task<?> childRef = Iterables.getOnlyElement(((HasTaskChildren)parentOriginal).getChildren());
+                assertTrue(childRef instanceof CompletedTaskRecord, "child="+childRef);
+            }});
+
+        // a submitter which has been deleted is still reported, by id
+        em.deleteTask(parentRecord);
+        assertEquals(childRecord.getSubmittedByTask().getId(), parent.getId());
+    }
+
+    @Test
+    public void testNotCompactedWhenDisabled() throws Exception {
+        em.setCompactCompletedTasks(false);
+        final Task<String> t = em.submit(Tasks.<String>builder().dynamic(false).body(Callables.returning("foo")).build());
+        t.get();
+        Asserts.succeedsContinually(MutableMap.of("timeout", 100), new Runnable() {
+            @Override public void run() {
+                assertFalse(em.getTask(t.getId()) instanceof CompletedTaskRecord);
+            }});
+    }
+
+    private Task<?> assertCompactedEventually(final Task<?> task) {
+        // listeners run asynchronously after the task completes
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertTrue(em.getTask(task.getId()) instanceof CompletedTaskRecord, "task="+em.getTask(task.getId()));
+            }});
+        Task<?> record = em.getTask(task.getId());
+        assertEquals(record, task);
+        assertEquals(record.hashCode(), task.hashCode());
+        return record;
+    }
+}
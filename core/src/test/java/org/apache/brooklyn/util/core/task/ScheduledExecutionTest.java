@@ -327,4 +327,55 @@ public class ScheduledExecutionTest {
             if (timeDiff < (SLEEP_TIME - EARLY_RETURN_GRACE)) fail("timeDiffs="+timeDiffs+"; execTimes="+execTimes);
         }
     }
+
+    @Test
+    public void testJitterVariesDelayWithinBounds() throws Exception {
+        ScheduledTask t = new ScheduledTask(MutableMap.of("period", 1000), new Callable<Task<?>>() {
+            public Task<?> call() throws Exception {
+                return new BasicTask<Void>(new Callable<Void>() { public Void call() { return null; } });
+            }}).jitter(0.2);
+        
+        boolean anyShortened = false;
+        boolean anyLengthened = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = t.nextDelay().toMilliseconds();
+            assertTrue(delay >= 800 && delay <= 1200, "delay="+delay);
+            if (delay < 1000) anyShortened = true;
+            if (delay > 1000) anyLengthened = true;
+        }
+        assertTrue(anyShortened);
+        assertTrue(anyLengthened);
+        
+        assertEquals(t.jitter(0).nextDelay(), Duration.ONE_SECOND);
+    }
+
+    @Test
+    public void testPeriodFromNowBringsForwardNextIteration() throws Exception {
+        BasicExecutionManager m = new BasicExecutionManager("mycontextid");
+        final AtomicInteger i = new AtomicInteger(0);
+        ScheduledTask t = new ScheduledTask(MutableMap.of("period", Duration.ONE_HOUR), new Callable<Task<?>>() {
+            public Task<?> call() throws Exception {
+                return new BasicTask<Integer>(new Callable<Integer>() {
+                    public Integer call() {
+                        return i.incrementAndGet();
+                    }});
+            }});
+        try {
+            m.submit(t);
+            Asserts.succeedsEventually(new Runnable() {
+                public void run() {
+                    assertEquals(i.get(), 1);
+                }});
+            
+            // not from a running iteration, so the next (due in an hour) must be brought forward
+            t.periodFromNow(Duration.millis(10));
+            Asserts.succeedsEventually(new Runnable() {
+                public void run() {
+                    assertTrue(i.get() >= 3, "i="+i);
+                }});
+        } finally {
+            t.cancel(true);
+            m.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.core.task.ssh;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.brooklyn.api.location.LocationSpec;
+import org.apache.brooklyn.api.mgmt.HasTaskChildren;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.location.ssh.SshMachineLocation;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.core.internal.ssh.RecordingSshTool;
+import org.apache.brooklyn.util.core.internal.ssh.RecordingSshTool.CustomResponse;
+import org.apache.brooklyn.util.core.internal.ssh.RecordingSshTool.CustomResponseGenerator;
+import org.apache.brooklyn.util.core.internal.ssh.RecordingSshTool.ExecParams;
+import org.apache.brooklyn.util.core.internal.ssh.SshTool;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+public class SshBatchExecTaskFactoryTest extends BrooklynAppUnitTestSupport {
+
+    private List<SshMachineLocation> machines;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        RecordingSshTool.clear();
+        // the machine configured with "fail" fails any command
+        RecordingSshTool.setCustomResponse(".*", new CustomResponseGenerator() {
+            @Override public CustomResponse generate(ExecParams execParams) {
+                return Boolean.TRUE.equals(execParams.props.get("fail"))
+                        ? new CustomResponse(1, "", "failed")
+                        : new CustomResponse(0, "hello", "");
+            }});
+        machines = ImmutableList.of(newMachine("1.1.1.1", false), newMachine("1.1.1.2", true), newMachine("1.1.1.3", false));
+    }
+
+    @AfterMethod(alwaysRun=true)
+    @Override
+    public void tearDown() throws Exception {
+        RecordingSshTool.clear();
+        super.tearDown();
+    }
+
+    @Test
+    public void testRunsOnEachMachineAndGathersResultsInOrder() throws Exception {
+        Task<List<SshBatchExecTaskFactory.Result>> t = SshTasks.newSshBatchExecTaskFactory(machines, "echo hello")
+                .maxConcurrency(2)
+                .allowingNonZeroExitCode()
+                .newTask();
+        List<SshBatchExecTaskFactory.Result> results = Entities.submit(app, t).get();
+
+        assertEquals(results.size(), 3);
+        for (int i = 0; i < machines.size(); i++) {
+            assertEquals(results.get(i).getMachine(), machines.get(i));
+        }
+        assertEquals(RecordingSshTool.getExecCmds().size(), 3);
+
+        SshBatchExecTaskFactory.Result ok = results.get(0);
+        assertTrue(ok.isSuccess());
+        assertEquals(ok.getStdout(), "hello");
+        SshBatchExecTaskFactory.Result failed = results.get(1);
+        assertFalse(failed.isSuccess());
+        assertEquals(failed.getExitCode(), 1);
+        assertEquals(failed.getStderr(), "failed");
+    }
+
+    @Test
+    public void testFailsIfAnyMachineFails() throws Exception {
+        Task<List<SshBatchExecTaskFactory.Result>> t = SshTasks.newSshBatchExecTaskFactory(machines, "echo hello").newTask();
+        Entities.submit(app, t).blockUntilEnded();
+
+        assertTrue(t.isError());
+        // still runs on all machines before failing
+        assertEquals(RecordingSshTool.getExecCmds().size(), 3);
+        try {
+            t.get();
+            Asserts.shouldHaveFailedPreviously();
+        } catch (Exception e) {
+            Asserts.expectedFailureContains(e, "Failed on 1 of 3 machines");
+        }
+    }
+
+    @Test
+    public void testRunsInChildTasksAndKeepsDuplicateMachines() throws Exception {
+        SshMachineLocation machine = machines.get(0);
+        Task<List<SshBatchExecTaskFactory.Result>> t = SshTasks.newSshBatchExecTaskFactory(ImmutableList.of(machine, machine), "echo hello")
+                .newTask();
+        List<SshBatchExecTaskFactory.Result> results = Entities.submit(app, t).get();
+
+        assertEquals(results.size(), 2);
+        assertEquals(RecordingSshTool.getExecCmds().size(), 2);
+        List<Task<?>> children = ImmutableList.copyOf(((HasTaskChildren)t).getChildren());
+        assertEquals(children.size(), 2);
+        for (Task<?> child : children) {
+            assertEquals(BrooklynTaskTags.getContextEntity(child), app);
+            assertEquals(child.getSubmittedByTask(), t);
+        }
+    }
+
+    @Test
+    public void testCancelledChildGivesBackItsSlot() throws Exception {
+        Task<List<SshBatchExecTaskFactory.Result>> t = SshTasks.newSshBatchExecTaskFactory(machines, "echo hello")
+                .maxConcurrency(1)
+                .allowingNonZeroExitCode()
+                .newTask();
+        // cancelled before it is submitted, so never runs
+        Iterables.get(((HasTaskChildren)t).getChildren(), 1).cancel(true);
+        
+        assertTrue(Entities.submit(app, t).blockUntilEnded(Asserts.DEFAULT_LONG_TIMEOUT), "batch did not complete");
+        assertEquals(RecordingSshTool.getExecCmds().size(), 2);
+    }
+
+    private SshMachineLocation newMachine(String address, boolean fail) {
+        LocationSpec<SshMachineLocation> spec = LocationSpec.create(SshMachineLocation.class)
+                .configure("address", address)
+                .configure(SshMachineLocation.SSH_TOOL_CLASS, RecordingSshTool.class.getName());
+        if (fail) spec.configure(SshTool.BROOKLYN_CONFIG_KEY_PREFIX+"fail", true);
+        return mgmt.getLocationManager().createLocation(spec);
+    }
+}
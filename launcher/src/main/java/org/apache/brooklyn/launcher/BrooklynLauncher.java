@@ -89,6 +89,7 @@ public class BrooklynLauncher extends BasicLauncher<BrooklynLauncher> {
     private boolean startWebApps = true;
     private PortRange port = null;
     private Boolean useHttps = null;
+    private Boolean useGzip = null;
     private InetAddress bindAddress = null;
     private InetAddress publicAddress = null;
     private List<WebAppContextProvider> webApps = new LinkedList<>();
@@ -159,6 +160,15 @@ public class BrooklynLauncher extends BasicLauncher<BrooklynLauncher> {
         return this;
     }
 
+    /**
+     * Specifies whether the webconsole should gzip-compress responses to clients which accept it
+     * (the REST API compresses its own responses regardless).
+     */ 
+    public BrooklynLauncher webconsoleGzip(Boolean useGzip) {
+        this.useGzip = useGzip;
+        return this;
+    }
+
     /**
      * Specifies the NIC where the web console (and any additional webapps specified) will be bound;
      * default 0.0.0.0, unless no security is specified (e.g. users) in which case it is localhost.
@@ -317,6 +327,7 @@ public class BrooklynLauncher extends BasicLauncher<BrooklynLauncher> {
             webServer.setPublicAddress(publicAddress);
             if (port!=null) webServer.setPort(port);
             if (useHttps!=null) webServer.setHttpsEnabled(useHttps);
+            if (useGzip!=null) webServer.setGzipEnabled(useGzip);
             webServer.setShutdownHandler(shutdownHandler);
             webServer.putAttributes(brooklynProperties);
             webServer.skipSecurity(Boolean.TRUE.equals(skipSecurityFilter) || anyoneSecurityProvider);
@@ -19,6 +19,7 @@
 package org.apache.brooklyn.launcher;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.URI;
@@ -35,6 +36,9 @@ import java.util.Map;
 
 import javax.annotation.Nullable;
 import javax.security.auth.spi.LoginModule;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.brooklyn.rest.NopSecurityHandler;
 import org.apache.brooklyn.api.location.PortRange;
@@ -50,6 +54,8 @@ import org.apache.brooklyn.launcher.config.CustomResourceLocator;
 import org.apache.brooklyn.location.localhost.LocalhostMachineProvisioningLocation;
 import org.apache.brooklyn.rest.BrooklynWebConfig;
 import org.apache.brooklyn.rest.RestApiSetup;
+import org.apache.brooklyn.rest.filter.AdmissionControlFilter;
+import org.apache.brooklyn.rest.filter.AdmissionControlReleaseFilter;
 import org.apache.brooklyn.rest.filter.EntitlementContextFilter;
 import org.apache.brooklyn.rest.filter.HaHotCheckResourceFilter;
 import org.apache.brooklyn.rest.filter.LoggingFilter;
@@ -82,11 +88,15 @@ import org.apache.brooklyn.util.web.ContextHandlerCollectionHotSwappable;
 import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.jaas.JAASLoginService;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.GzipHandler;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.webapp.WebAppContext;
@@ -195,6 +205,12 @@ public class BrooklynWebServer {
     @SetFromFlag
     private String transportCiphers;
 
+    @SetFromFlag
+    private Boolean gzipEnabled;
+
+    @SetFromFlag
+    private Integer gzipMinSize;
+
     private File webappTempDir;
     
     /**
@@ -278,6 +294,25 @@ public class BrooklynWebServer {
         return getConfig(httpsEnabled, BrooklynWebConfig.HTTPS_REQUIRED);
     }
     
+    /**
+     * whether web console responses are gzip-compressed for clients which accept it; see {@link BrooklynWebConfig#GZIP_ENABLED}
+     * (the REST API compresses its own responses)
+     */
+    public BrooklynWebServer setGzipEnabled(Boolean gzipEnabled) {
+        this.gzipEnabled = gzipEnabled;
+        return this;
+    }
+
+    public boolean getGzipEnabled() {
+        return getConfig(gzipEnabled, BrooklynWebConfig.GZIP_ENABLED);
+    }
+
+    /** minimum size in bytes of a response to compress; see {@link BrooklynWebConfig#GZIP_MIN_SIZE} */
+    public BrooklynWebServer setGzipMinSize(Integer gzipMinSize) {
+        this.gzipMinSize = gzipMinSize;
+        return this;
+    }
+
     public PortRange getRequestedPort() {
         return requestedPort;
     }
@@ -441,7 +476,7 @@ public class BrooklynWebServer {
         deployRestApi(rootContext);
         rootContext.setTempDirectory(Os.mkdirs(new File(webappTempDir, "war-root")));
 
-        server.setHandler(handlers);
+        server.setHandler(getGzipEnabled() ? newGzipHandler(handlers) : handlers);
         server.start();
         //reinit required because some webapps (eg grails) might wipe our language extension bindings
         BrooklynInitialization.reinitAll();
@@ -453,6 +488,37 @@ public class BrooklynWebServer {
         log.info("Started Brooklyn console at "+getRootUrl()+", running " + rootWar + (allWars!=null && !allWars.isEmpty() ? " and " + wars.values() : ""));
     }
 
+    /** where {@link RestApiSetup#installRest(org.eclipse.jetty.servlet.ServletContextHandler, Object...)} installs the REST API */
+    private static final String REST_API_PATH = "/v1/";
+
+    /**
+     * Compresses the responses of the web console, but not of the REST API: that compresses its own responses
+     * (see {@link RestApiSetup}) except those it streams, which must not be buffered for compression.
+     */
+    private Handler newGzipHandler(final Handler handler) {
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setMinGzipSize(getConfig(gzipMinSize, BrooklynWebConfig.GZIP_MIN_SIZE));
+        String mimeTypes = managementContext.getConfig().getConfig(BrooklynWebConfig.GZIP_MIME_TYPES);
+        if (Strings.isNonBlank(mimeTypes)) {
+            gzipHandler.setMimeTypes(mimeTypes);
+        }
+        gzipHandler.setHandler(handler);
+        log.debug("Compressing web console responses of "+this+" over "+gzipHandler.getMinGzipSize()+" bytes");
+
+        HandlerWrapper result = new HandlerWrapper() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                if (target.startsWith(REST_API_PATH)) {
+                    handler.handle(target, baseRequest, request, response);
+                } else {
+                    super.handle(target, baseRequest, request, response);
+                }
+            }
+        };
+        result.setHandler(gzipHandler);
+        return result;
+    }
+
     private WebAppContext deployRestApi(WebAppContext context) {
         RestApiSetup.installRest(context,
                 new ManagementContextProvider(),
@@ -460,10 +526,12 @@ public class BrooklynWebServer {
                 new RequestTaggingRsFilter(),
                 new NoCacheFilter(),
                 new HaHotCheckResourceFilter(),
-                new EntitlementContextFilter());
+                new EntitlementContextFilter(),
+                new AdmissionControlFilter());
         RestApiSetup.installServletFilters(context,
                 RequestTaggingFilter.class,
-                LoggingFilter.class);
+                LoggingFilter.class,
+                AdmissionControlReleaseFilter.class);
         if (securityFilterClazz != null) {
             RestApiSetup.installServletFilters(context, securityFilterClazz);
         }
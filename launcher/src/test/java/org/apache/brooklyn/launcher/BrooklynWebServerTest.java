@@ -18,12 +18,15 @@
  */
 package org.apache.brooklyn.launcher;
 
+import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
 import org.apache.brooklyn.core.mgmt.internal.LocalManagementContext;
 import org.apache.brooklyn.core.test.entity.LocalManagementContextForTests;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -52,9 +55,14 @@ import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.http.HttpTool;
 import org.apache.brooklyn.util.http.HttpToolResponse;
 import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
+import org.apache.brooklyn.util.text.Strings;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Runnables;
 import java.net.SocketException;
 
 public class BrooklynWebServerTest {
@@ -99,6 +107,69 @@ public class BrooklynWebServerTest {
         }
     }
 
+    @Test
+    public void verifyGzip() throws Exception {
+        brooklynProperties.put(BrooklynWebConfig.GZIP_ENABLED, true);
+        webServer = new BrooklynWebServer(newManagementContext(brooklynProperties));
+        webServer.skipSecurity();
+        webServer.setGzipMinSize(1);
+        try {
+            webServer.start();
+
+            // web console content is compressed by the web server
+            HttpToolResponse response = getAcceptingGzip(webServer.getRootUrl());
+            assertEquals(response.getResponseCode(), 200);
+            assertEquals(response.getHeaderLists().get("Content-Encoding"), ImmutableList.of("gzip"));
+
+            response = HttpTool.execAndConsume(new DefaultHttpClient(), new HttpGet(webServer.getRootUrl()));
+            assertEquals(response.getResponseCode(), 200);
+            assertNull(response.getHeaderLists().get("Content-Encoding"), "headers="+response.getHeaderLists());
+        } finally {
+            webServer.stop();
+        }
+    }
+
+    @Test
+    public void verifyGzipLeavesRestApiToItself() throws Exception {
+        brooklynProperties.put(BrooklynWebConfig.GZIP_ENABLED, true);
+        LocalManagementContext mgmt = newManagementContext(brooklynProperties);
+        webServer = new BrooklynWebServer(mgmt);
+        webServer.skipSecurity();
+        webServer.setGzipMinSize(1);
+        try {
+            webServer.start();
+
+            SpoolingByteArrayOutputStream stdout = new SpoolingByteArrayOutputStream();
+            stdout.write(Strings.repeat("output\n", 1000).getBytes());
+            Task<?> task = mgmt.getExecutionManager().submit(Tasks.builder()
+                    .displayName("with output")
+                    .tag(BrooklynTaskTags.tagForStream(BrooklynTaskTags.STREAM_STDOUT, stdout))
+                    .body(Runnables.doNothing())
+                    .build());
+            task.get();
+            String range = webServer.getRootUrl()+"v1/activities/"+task.getId()+"/stream/"+BrooklynTaskTags.STREAM_STDOUT+"/range";
+
+            // compressed once, by the REST API
+            HttpToolResponse response = getAcceptingGzip(range);
+            assertEquals(response.getResponseCode(), 200);
+            assertEquals(response.getHeaderLists().get("Content-Encoding"), ImmutableList.of("gzip"));
+
+            // followed streams are not compressed at all, so they are not buffered
+            response = getAcceptingGzip(range+"?follow=true");
+            assertEquals(response.getResponseCode(), 200);
+            assertNull(response.getHeaderLists().get("Content-Encoding"), "headers="+response.getHeaderLists());
+            assertEquals(response.getContentAsString(), Strings.repeat("output\n", 1000));
+        } finally {
+            webServer.stop();
+        }
+    }
+
+    private HttpToolResponse getAcceptingGzip(String url) {
+        HttpGet get = new HttpGet(url);
+        get.setHeader("Accept-Encoding", "gzip");
+        return HttpTool.execAndConsume(new DefaultHttpClient(), get);
+    }
+
     @DataProvider(name="keystorePaths")
     public Object[][] getKeystorePaths() {
         return new Object[][] {
@@ -24,6 +24,8 @@ import java.util.Map;
 
 import org.apache.brooklyn.rest.domain.TaskSummary;
 
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
@@ -31,6 +33,9 @@ import io.swagger.annotations.ApiResponses;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.google.common.annotations.Beta;
 
 @Path("/activities")
 @Api("Activities")
@@ -38,6 +43,11 @@ import javax.ws.rs.core.MediaType;
 @Consumes(MediaType.APPLICATION_JSON)
 public interface ActivityApi {
 
+    /** response header giving the offset in the stream of the first byte returned by {@link #streamRange} */
+    public static final String STREAM_OFFSET_HEADER = "X-Stream-Offset";
+    /** response header giving the size of the stream (all bytes written to it) when read by {@link #streamRange} */
+    public static final String STREAM_SIZE_HEADER = "X-Stream-Size";
+
     @GET
     @Path("/{task}")
     @ApiOperation(value = "Fetch task details", response = org.apache.brooklyn.rest.domain.TaskSummary.class)
@@ -53,6 +63,11 @@ public interface ActivityApi {
     @ApiResponses(value = {
             @ApiResponse(code = 404, message = "Could not find task")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('tags', 'result', 'children', 'streams', 'detailedStatus', 'links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<TaskSummary> children(
             @ApiParam(value = "Task ID", required = true) @PathParam("task") String taskId);
 
@@ -76,4 +91,30 @@ public interface ActivityApi {
     public String stream(
             @ApiParam(value = "Task ID", required = true) @PathParam("task") String taskId,
             @ApiParam(value = "Stream ID", required = true) @PathParam("streamId") String streamId);
+
+    @GET
+    @Path("/{task}/stream/{streamId}/range")
+    @Produces(MediaType.TEXT_PLAIN)
+    @ApiOperation(value = "Return part of the given stream, optionally following it as it is written",
+            notes = "Offsets are in bytes from the start of the stream. The "+STREAM_OFFSET_HEADER+" header gives the offset "
+                    + "of the first byte returned (which is later than requested if that output is no longer kept), and "
+                    + STREAM_SIZE_HEADER+" the size of the stream when read, so clients can poll for more from the offset "
+                    + "plus the number of bytes received.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Could not find task or stream"),
+            @ApiResponse(code = 503, message = "Too many streams being followed")
+    })
+    @Beta
+    public Response streamRange(
+            @ApiParam(value = "Task ID", required = true) @PathParam("task") String taskId,
+            @ApiParam(value = "Stream ID", required = true) @PathParam("streamId") String streamId,
+            @ApiParam(value = "Offset to read from; if negative, relative to the end of the stream (e.g. -1000 for the last 1000 bytes)", required = false)
+            @QueryParam("offset") @DefaultValue("0") Long offset,
+            @ApiParam(value = "Maximum number of bytes to return, or -1 for no limit", required = false)
+            @QueryParam("length") @DefaultValue("-1") Long length,
+            @ApiParam(value = "Whether to keep returning output as it is written, until the task ends", required = false)
+            @QueryParam("follow") @DefaultValue("false") Boolean follow,
+            @ApiParam(value = "Maximum time to follow the stream, e.g. '5m'; it is followed until the task ends or this time, "
+                    + "for which the server applies a default (10m) and a maximum (1h)", required = false)
+            @QueryParam("timeout") String timeout);
 }
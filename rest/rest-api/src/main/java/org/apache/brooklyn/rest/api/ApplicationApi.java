@@ -42,6 +42,8 @@ import org.apache.brooklyn.rest.domain.EntityDetail;
 
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
@@ -66,6 +68,11 @@ public interface ApplicationApi {
             value = "Fetch list of applications, as ApplicationSummary objects",
             response = org.apache.brooklyn.rest.domain.ApplicationSummary.class
     )
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<ApplicationSummary> list(
             @ApiParam(value = "Regular expression to filter by", required = false)
             @DefaultValue(".*")
@@ -187,6 +194,11 @@ public interface ApplicationApi {
     @ApiResponses(value = {
             @ApiResponse(code = 404, message = "Application or entity missing")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<EntitySummary> getDescendants(
             @ApiParam(value = "Application ID or name", required = true)
             @PathParam("application") String application,
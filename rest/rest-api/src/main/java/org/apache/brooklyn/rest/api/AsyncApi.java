@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.api;
+
+import io.swagger.annotations.Api;
+
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.MediaType;
+
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Variants of calls which wait for a task, where the request is suspended rather than holding a server thread
+ * while it waits; the response is resumed when the task completes, or when the timeout expires.
+ * <p>
+ * These are kept separate from {@link EffectorApi} and {@link ActivityApi} so that the client proxies
+ * for those APIs are unaffected.
+ */
+@Path("/async")
+@Api("Async")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Beta
+public interface AsyncApi {
+
+    @POST
+    @Path("/applications/{application}/entities/{entity}/effectors/{effector}")
+    @ApiOperation(value = "Trigger an effector, without holding a server thread while waiting for it",
+            notes = "As for the effector API: returns the return value if it completes within the timeout, "
+                    + "otherwise the activity task (status 202)")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Could not find application, entity or effector")
+    })
+    @Consumes({MediaType.APPLICATION_JSON, MediaType.APPLICATION_FORM_URLENCODED})
+    public void invoke(
+            @ApiParam(name = "application", value = "Application ID or name", required = true)
+            @PathParam("application") String application,
+            @ApiParam(name = "entity", value = "Entity ID or name", required = true)
+            @PathParam("entity") String entityToken,
+            @ApiParam(name = "effector", value = "Name of the effector to trigger", required = true)
+            @PathParam("effector") String effectorName,
+            @ApiParam(name = "timeout", value = "Delay before server should respond with activity task rather than result "
+                    + "(in millis if no unit specified): 'never' (the default) to wait until it completes, "
+                    + "'0' or 'always' to return the activity task immediately",
+                    required = false, defaultValue = "never")
+            @QueryParam("timeout") String timeout,
+            @ApiParam(name = "parameters", value = "Effector parameters (as key value pairs)", required = false)
+            Map<String, Object> parameters,
+            @Suspended AsyncResponse response);
+
+    @GET
+    @Path("/activities/{task}")
+    @ApiOperation(value = "Wait for a task to complete, without holding a server thread while waiting",
+            notes = "Returns the task summary when the task is done, or with status 202 if the timeout expires first. "
+                    + "Use this to wait for the tasks returned when creating or deleting applications.",
+            response = org.apache.brooklyn.rest.domain.TaskSummary.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Could not find task")
+    })
+    public void waitForTask(
+            @ApiParam(value = "Task ID", required = true) @PathParam("task") String taskId,
+            @ApiParam(value = "Maximum time to wait (in millis if no unit specified), e.g. '30s'; "
+                    + "'never' (the default) to wait until the task is done", required = false)
+            @QueryParam("timeout") String timeout,
+            @Suspended AsyncResponse response);
+}
@@ -41,6 +41,8 @@ import org.apache.brooklyn.rest.domain.CatalogPolicySummary;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
@@ -138,6 +140,11 @@ public interface CatalogApi {
     @ApiOperation(value = "List available entity types optionally matching a query", 
             response = CatalogItemSummary.class,
             responseContainer = "List")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('config', 'sensors', 'effectors', 'tags', 'links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<CatalogEntitySummary> listEntities(
         @ApiParam(name = "regex", value = "Regular expression to search for")
         @QueryParam("regex") @DefaultValue("") String regex,
@@ -151,6 +158,11 @@ public interface CatalogApi {
     @ApiOperation(value = "Fetch a list of application templates optionally matching a query", 
             response = CatalogItemSummary.class,
             responseContainer = "List")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('config', 'sensors', 'effectors', 'tags', 'links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<CatalogItemSummary> listApplications(
             @ApiParam(name = "regex", value = "Regular expression to search for")
             @QueryParam("regex") @DefaultValue("") String regex,
@@ -222,6 +234,11 @@ public interface CatalogApi {
     @ApiOperation(value = "List available policies optionally matching a query", 
             response = CatalogPolicySummary.class,
             responseContainer = "List")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('config', 'links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<CatalogPolicySummary> listPolicies(
             @ApiParam(name = "regex", value = "Regular expression to search for")
             @QueryParam("regex") @DefaultValue("") String regex,
@@ -263,6 +280,11 @@ public interface CatalogApi {
     @ApiOperation(value = "List available locations optionally matching a query", 
             response = CatalogLocationSummary.class,
             responseContainer = "List")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<CatalogLocationSummary> listLocations(
             @ApiParam(name = "regex", value = "Regular expression to search for")
             @QueryParam("regex") @DefaultValue("") String regex,
@@ -25,6 +25,8 @@ import org.apache.brooklyn.rest.domain.TaskSummary;
 
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 
@@ -48,6 +50,11 @@ public interface EntityApi {
     @ApiResponses(value = {
             @ApiResponse(code = 404, message = "Application not found")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<EntitySummary> list(
             @ApiParam(value = "Application ID or name", required = true)
             @PathParam("application") final String application);
@@ -70,6 +77,11 @@ public interface EntityApi {
     @ApiOperation(value = "Fetch details about a specific application entity's children",
             response = org.apache.brooklyn.rest.domain.EntitySummary.class)
     @Path("/{entity}/children")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<EntitySummary> getChildren(
             @PathParam("application") final String application,
             @PathParam("entity") final String entity);
@@ -183,6 +195,11 @@ public interface EntityApi {
     @ApiResponses(value = {
             @ApiResponse(code = 404, message = "Application or entity missing")
     })
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "limit", value = "Maximum number of items to return; all if omitted", dataType = "int", paramType = "query"),
+            @ApiImplicitParam(name = "after", value = "ID of the last item of the previous page; items are returned in ID order", dataType = "string", paramType = "query"),
+            @ApiImplicitParam(name = "fields", value = "Optional parts of each item to include, comma-separated ('links'); all if omitted, or just 'id' for none", dataType = "string", paramType = "query")
+    })
     public List<EntitySummary> getDescendants(
             @ApiParam(value = "Application ID or name", required = true)
             @PathParam("application") String application,
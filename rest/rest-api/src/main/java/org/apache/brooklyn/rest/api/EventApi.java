@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.api;
+
+import io.swagger.annotations.Api;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import com.google.common.annotations.Beta;
+
+@Path("/events")
+@Api("Events")
+@Beta
+public interface EventApi {
+
+    public static final String SERVER_SENT_EVENTS = "text/event-stream";
+    public static final String NDJSON = "application/x-ndjson";
+
+    @GET
+    @Path("/stream")
+    @Produces({SERVER_SENT_EVENTS, NDJSON})
+    @ApiOperation(value = "Stream changes to sensors (including service up and lifecycle state) and notifications "
+            + "(including membership and children changes) of entities, as server-sent events or newline-delimited JSON",
+            notes = "Each event is a JSON object with a 'type' ('sensor', 'notification', 'overflow' if events were dropped "
+                    + "because the client did not keep up, or 'heartbeat'), and 'application', 'entity', 'sensor', 'value' "
+                    + "and 'timestamp' for sensors and notifications. Only entities and sensors the user is entitled to see "
+                    + "are included.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Could not find application or entity"),
+            @ApiResponse(code = 503, message = "Too many streams in progress")
+    })
+    public Response stream(
+            @ApiParam(value = "Application ID or name, to include only that application's entities", required = false)
+            @QueryParam("application") String application,
+            @ApiParam(value = "Entity ID or name, to include only that entity", required = false)
+            @QueryParam("entity") String entityToken,
+            @ApiParam(value = "Glob of sensor names to include, e.g. 'service.*' or '{service.isUp,host.name}'", required = false)
+            @QueryParam("sensors") @DefaultValue("*") String sensorGlob,
+            @ApiParam(value = "Whether to first send the current values of the matching sensors", required = false)
+            @QueryParam("initial") @DefaultValue("true") Boolean initial,
+            @ApiParam(value = "Return raw sensor data instead of display values", required = false)
+            @QueryParam("raw") @DefaultValue("false") Boolean raw,
+            @ApiParam(value = "Format: 'sse' for server-sent events, or 'ndjson'", required = false)
+            @QueryParam("format") @DefaultValue("sse") String format,
+            @ApiParam(value = "Maximum number of events to buffer for this client, beyond which events are dropped and an 'overflow' event sent", required = false)
+            @QueryParam("bufferSize") @DefaultValue("1000") Integer bufferSize,
+            @ApiParam(value = "Time after which to end the stream, e.g. '5m'; the server applies a default (10m) and a maximum (1h), "
+                    + "after which clients should reconnect", required = false)
+            @QueryParam("timeout") String timeout);
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.api;
+
+import io.swagger.annotations.Api;
+
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+
+import com.google.common.annotations.Beta;
+
+@Path("/sensors")
+@Api("Sensor Queries")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@Beta
+public interface SensorQueryApi {
+
+    @GET
+    @Path("/query")
+    @ApiOperation(value = "Fetch the values of sensors across all selected entities, optionally reduced",
+            notes = "Without reductions, returns a map from entity ID to a map of sensor name to value, for entities "
+                    + "with values for any of the sensors. With reductions, returns a map from sensor name to a map of "
+                    + "reduction to result: 'count', 'countByValue', 'sum', 'avg', 'min', 'max', or a percentile such as "
+                    + "'p95'. Only entities and sensors the user is entitled to see are included.")
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "No sensors or an unsupported reduction given"),
+            @ApiResponse(code = 404, message = "Could not find application or group")
+    })
+    public Map<String, Object> query(
+            @ApiParam(value = "Sensor names, comma-separated", required = true)
+            @QueryParam("sensors") String sensors,
+            @ApiParam(value = "Application ID or name, to include only that application's descendants (including those of nested applications)", required = false)
+            @QueryParam("application") String application,
+            @ApiParam(value = "Group entity ID, to include only its members", required = false)
+            @QueryParam("group") String group,
+            @ApiParam(value = "Regular expression which one of the interfaces the entity implements must match", required = false)
+            @QueryParam("typeRegex") String typeRegex,
+            @ApiParam(value = "Tag which the entity must have", required = false)
+            @QueryParam("tag") String tag,
+            @ApiParam(value = "Reductions to apply to the values of each sensor, comma-separated", required = false)
+            @QueryParam("reduce") String reductions,
+            @ApiParam(value = "Return raw sensor data instead of display values (without reductions)", required = false)
+            @QueryParam("raw") @DefaultValue("false") Boolean raw);
+}
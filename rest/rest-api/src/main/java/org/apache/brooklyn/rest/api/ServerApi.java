@@ -140,6 +140,24 @@ public interface ServerApi {
     @Path("/ha/metrics")
     @ApiOperation(value = "Returns a collection of HA metrics")
     public Map<String,Object> getHighAvailabilityMetrics();
+
+    @GET
+    @Path("/admission/metrics")
+    @ApiOperation(value = "Returns the counts of REST requests admitted and rejected by admission control")
+    @Beta
+    public Map<String,Object> getAdmissionMetrics();
+
+    @GET
+    @Path("/http/pool/metrics")
+    @ApiOperation(value = "Returns the utilisation of the keep-alive http connection pool shared by http feeds, if enabled")
+    @Beta
+    public Map<String,Object> getHttpConnectionPoolMetrics();
+
+    @GET
+    @Path("/entitlements/cache/metrics")
+    @ApiOperation(value = "Returns the size and hit rate of the cache of entitlement decisions, if enabled")
+    @Beta
+    public Map<String,Object> getEntitlementCacheMetrics();
     
     @POST
     @Path("/ha/state")
@@ -22,6 +22,7 @@ import io.swagger.annotations.Api;
 import java.util.List;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -29,6 +30,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
+import org.apache.brooklyn.rest.domain.ResourceUsageSummary;
 import org.apache.brooklyn.rest.domain.UsageStatistics;
 
 import io.swagger.annotations.ApiResponse;
@@ -153,4 +155,38 @@ public interface UsageApi {
                     required = false
             )
             @QueryParam("end") String endDate) ;
+
+    @GET
+    @Path("/resources/applications")
+    @ApiOperation(
+            value = "Retrieve management plane resources used by each application, highest CPU time first",
+            response = org.apache.brooklyn.rest.domain.ResourceUsageSummary.class,
+            responseContainer = "List"
+    )
+    @ApiResponses(value = {})
+    public List<ResourceUsageSummary> listApplicationsResourceUsage();
+
+    @GET
+    @Path("/resources/entities")
+    @ApiOperation(
+            value = "Retrieve management plane resources used by each entity, optionally filtering for a specific application, highest CPU time first",
+            response = org.apache.brooklyn.rest.domain.ResourceUsageSummary.class,
+            responseContainer = "List"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Application not found")
+    })
+    public List<ResourceUsageSummary> listEntitiesResourceUsage(
+            @ApiParam(
+                    name = "application",
+                    value = "Application id",
+                    required = false
+            )
+            @QueryParam("application") String application,
+            @ApiParam(
+                    name = "limit",
+                    value = "Maximum number of entities to return (0 for no limit)",
+                    required = false
+            )
+            @QueryParam("limit") @DefaultValue("0") int limit);
 }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Management plane resources used by an entity, or by all the entities of an application.
+ * Task counts and CPU time are only recorded if resource accounting is enabled.
+ */
+public class ResourceUsageSummary implements HasId, HasName, Serializable {
+
+    private static final long serialVersionUID = -4113093752286016497L;
+
+    private final String id;
+    private final String name;
+    private final String applicationId;
+    private final long tasksCompleted;
+    private final long taskCpuTimeMillis;
+    private final long tasksRetained;
+    private final long subscriptions;
+    private final long subscriptionDeliveries;
+    private final long persistedBytes;
+
+    public ResourceUsageSummary(
+            @JsonProperty("id") String id,
+            @JsonProperty("name") String name,
+            @JsonProperty("applicationId") String applicationId,
+            @JsonProperty("tasksCompleted") long tasksCompleted,
+            @JsonProperty("taskCpuTimeMillis") long taskCpuTimeMillis,
+            @JsonProperty("tasksRetained") long tasksRetained,
+            @JsonProperty("subscriptions") long subscriptions,
+            @JsonProperty("subscriptionDeliveries") long subscriptionDeliveries,
+            @JsonProperty("persistedBytes") long persistedBytes) {
+        this.id = checkNotNull(id, "id");
+        this.name = name;
+        this.applicationId = applicationId;
+        this.tasksCompleted = tasksCompleted;
+        this.taskCpuTimeMillis = taskCpuTimeMillis;
+        this.tasksRetained = tasksRetained;
+        this.subscriptions = subscriptions;
+        this.subscriptionDeliveries = subscriptionDeliveries;
+        this.persistedBytes = persistedBytes;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public long getTasksCompleted() {
+        return tasksCompleted;
+    }
+
+    public long getTaskCpuTimeMillis() {
+        return taskCpuTimeMillis;
+    }
+
+    public long getTasksRetained() {
+        return tasksRetained;
+    }
+
+    public long getSubscriptions() {
+        return subscriptions;
+    }
+
+    public long getSubscriptionDeliveries() {
+        return subscriptionDeliveries;
+    }
+
+    public long getPersistedBytes() {
+        return persistedBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResourceUsageSummary)) return false;
+        ResourceUsageSummary that = (ResourceUsageSummary) o;
+        return tasksCompleted == that.tasksCompleted &&
+                taskCpuTimeMillis == that.taskCpuTimeMillis &&
+                tasksRetained == that.tasksRetained &&
+                subscriptions == that.subscriptions &&
+                subscriptionDeliveries == that.subscriptionDeliveries &&
+                persistedBytes == that.persistedBytes &&
+                Objects.equals(id, that.id) &&
+                Objects.equals(name, that.name) &&
+                Objects.equals(applicationId, that.applicationId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, applicationId, tasksCompleted, taskCpuTimeMillis, tasksRetained,
+                subscriptions, subscriptionDeliveries, persistedBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceUsageSummary{" +
+                "id='" + id + '\'' +
+                ", name='" + name + '\'' +
+                ", applicationId='" + applicationId + '\'' +
+                ", tasksCompleted=" + tasksCompleted +
+                ", taskCpuTimeMillis=" + taskCpuTimeMillis +
+                ", tasksRetained=" + tasksRetained +
+                ", subscriptions=" + subscriptions +
+                ", subscriptionDeliveries=" + subscriptionDeliveries +
+                ", persistedBytes=" + persistedBytes +
+                '}';
+    }
+}
@@ -26,15 +26,18 @@ import org.apache.brooklyn.rest.resources.AccessResource;
 import org.apache.brooklyn.rest.resources.ActivityResource;
 import org.apache.brooklyn.rest.resources.ApidocResource;
 import org.apache.brooklyn.rest.resources.ApplicationResource;
+import org.apache.brooklyn.rest.resources.AsyncResource;
 import org.apache.brooklyn.rest.resources.CatalogResource;
 import org.apache.brooklyn.rest.resources.EffectorResource;
 import org.apache.brooklyn.rest.resources.EntityConfigResource;
 import org.apache.brooklyn.rest.resources.EntityResource;
+import org.apache.brooklyn.rest.resources.EventResource;
 import org.apache.brooklyn.rest.resources.LocationResource;
 import org.apache.brooklyn.rest.resources.LogoutResource;
 import org.apache.brooklyn.rest.resources.PolicyConfigResource;
 import org.apache.brooklyn.rest.resources.PolicyResource;
 import org.apache.brooklyn.rest.resources.ScriptResource;
+import org.apache.brooklyn.rest.resources.SensorQueryResource;
 import org.apache.brooklyn.rest.resources.SensorResource;
 import org.apache.brooklyn.rest.resources.ServerResource;
 import org.apache.brooklyn.rest.resources.UsageResource;
@@ -59,6 +62,9 @@ public class BrooklynRestApi {
         resources.add(new EntityResource());
         resources.add(new EntityConfigResource());
         resources.add(new SensorResource());
+        resources.add(new SensorQueryResource());
+        resources.add(new AsyncResource());
+        resources.add(new EventResource());
         resources.add(new EffectorResource());
         resources.add(new PolicyResource());
         resources.add(new PolicyConfigResource());
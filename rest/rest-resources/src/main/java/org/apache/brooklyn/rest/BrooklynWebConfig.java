@@ -26,6 +26,7 @@ import org.apache.brooklyn.core.config.ConfigPredicates;
 import org.apache.brooklyn.rest.security.provider.DelegatingSecurityProvider;
 import org.apache.brooklyn.rest.security.provider.ExplicitUsersSecurityProvider;
 import org.apache.brooklyn.rest.security.provider.SecurityProvider;
+import org.apache.brooklyn.util.time.Duration;
 
 public class BrooklynWebConfig {
 
@@ -157,6 +158,35 @@ public class BrooklynWebConfig {
             "SSL_DHE_DSS_WITH_CAMELLIA_128_CBC_SHA,SSL_RSA_WITH_CAMELLIA_128_CBC_SHA," +
             "SSL_RSA_WITH_3DES_EDE_CBC_SHA");
 
+    public final static ConfigKey<Boolean> GZIP_ENABLED = ConfigKeys.newBooleanConfigKey(
+            BASE_NAME+".gzip.enabled",
+            "Whether to gzip-compress web console responses to clients which accept it (the REST API compresses its own responses, "
+            + "other than streamed ones); false here can be overridden by CLI option", false);
+
+    public final static ConfigKey<Integer> GZIP_MIN_SIZE = ConfigKeys.newIntegerConfigKey(
+            BASE_NAME+".gzip.minSize",
+            "Minimum size in bytes of a web console response for it to be compressed; smaller responses are not worth the overhead", 1024);
+
+    public final static ConfigKey<String> GZIP_MIME_TYPES = ConfigKeys.newStringConfigKey(
+            BASE_NAME+".gzip.mimeTypes",
+            "Comma-separated content types of web console responses to compress",
+            "application/json,application/javascript,application/xml,application/x-yaml,"
+            + "text/html,text/plain,text/css,text/javascript,text/xml,image/svg+xml");
+
+    public final static ConfigKey<Duration> STREAM_DEFAULT_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            BASE_NAME+".stream.timeout.default",
+            "Time after which a streamed REST response (such as the event stream) ends, if the client does not give a timeout; "
+            + "clients wanting more should then reconnect", Duration.minutes(10));
+
+    public final static ConfigKey<Duration> STREAM_MAX_TIMEOUT = ConfigKeys.newConfigKey(Duration.class,
+            BASE_NAME+".stream.timeout.max",
+            "Longest time for which a streamed REST response may run, whatever timeout the client asks for", Duration.ONE_HOUR);
+
+    public final static ConfigKey<Integer> STREAM_MAX_CONCURRENT = ConfigKeys.newIntegerConfigKey(
+            BASE_NAME+".stream.maxConcurrent",
+            "Maximum number of streamed REST responses (each of which holds a web server thread while it runs) "
+            + "which can run at once; further requests fail with 503 (Service Unavailable); 0 for no limit", 20);
+
     public final static boolean hasNoSecurityOptions(ConfigMap config) {
         return config.submap(ConfigPredicates.nameStartsWith(BASE_NAME_SECURITY)).isEmpty();
     }
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.filter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Priority;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.entitlement.WebEntitlementContext;
+import org.apache.brooklyn.rest.domain.ApiError;
+import org.apache.brooklyn.rest.util.AdmissionControl;
+import org.apache.brooklyn.rest.util.AdmissionControl.Admission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the {@link AdmissionControl} limits of the management context to each request,
+ * rejecting requests over the limits with status 429 (Too Many Requests) and a {@code Retry-After} header.
+ * <p>
+ * This runs after {@link EntitlementContextFilter}, so requests are attributed to the user
+ * in the entitlement context; where there is none, to the client address.
+ * <p>
+ * A permit for an expensive endpoint is held until the response body has been written (so for as long as a
+ * streamed response is being written), and is given back however the write ends. Where the servlet filter
+ * {@code AdmissionControlReleaseFilter} is installed, it also gives back any permit still held when the request
+ * completes, e.g. if the response was never written; see {@link #releasePermit(ServletRequest)}.
+ */
+@Provider
+@Priority(500)
+public class AdmissionControlFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    private static final String ADMISSION_PROPERTY = AdmissionControlFilter.class.getName()+".admission";
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlFilter.class.getName()+".permit";
+
+    @Context
+    private ContextResolver<ManagementContext> mgmt;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private HttpServletRequest request;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        AdmissionControl admissionControl = AdmissionControl.get(mgmt.getContext(ManagementContext.class));
+        if (!admissionControl.isLimiting()) return;
+
+        String path = requestContext.getUriInfo().getPath();
+        Admission admission = admissionControl.admit(client(), endpoint(path), path);
+        if (!admission.isAdmitted()) {
+            log.debug("Request {} rejected by admission control: {}", RequestTaggingRsFilter.getTag(), admission.getReason());
+            requestContext.abortWith(ApiError.builder()
+                    .message(admission.getReason())
+                    .errorCode(TOO_MANY_REQUESTS)
+                    .build()
+                    .asJsonResponse());
+            requestContext.setProperty(ADMISSION_PROPERTY, admission);
+        } else if (admission.holdsPermit()) {
+            // kept on the servlet request, so it can be given back when the request completes
+            request.setAttribute(PERMIT_ATTRIBUTE, new Permit(admissionControl, admission));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        Admission admission = (Admission) requestContext.getProperty(ADMISSION_PROPERTY);
+        if (admission != null && !admission.isAdmitted()) {
+            responseContext.getHeaders().putSingle(HttpHeaders.RETRY_AFTER, admission.getRetryAfterSeconds());
+        }
+        if (!responseContext.hasEntity()) {
+            // nothing to write, so done
+            releasePermit(request);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        try {
+            context.proceed();
+        } finally {
+            releasePermit(request);
+        }
+    }
+
+    /** gives back the permit for an expensive endpoint held by the request, if any (and not already given back) */
+    public static void releasePermit(ServletRequest request) {
+        Permit permit = (Permit) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (permit != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.release();
+        }
+    }
+
+    private static class Permit {
+        private final AdmissionControl admissionControl;
+        private final Admission admission;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(AdmissionControl admissionControl, Admission admission) {
+            this.admissionControl = admissionControl;
+            this.admission = admission;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                admissionControl.release(admission);
+            }
+        }
+    }
+
+    private String client() {
+        EntitlementContext context = Entitlements.getEntitlementContext();
+        if (context != null && context.user() != null) return context.user();
+        if (context instanceof WebEntitlementContext && ((WebEntitlementContext) context).sourceIp() != null) {
+            return "address:"+((WebEntitlementContext) context).sourceIp();
+        }
+        return "address:"+request.getRemoteAddr();
+    }
+
+    private String endpoint(String path) {
+        if (resourceInfo == null || resourceInfo.getResourceMethod() == null) return path;
+        return resourceInfo.getResourceClass().getSimpleName()+"."+resourceInfo.getResourceMethod().getName();
+    }
+}
@@ -22,19 +22,38 @@ import javax.annotation.Priority;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.ext.Provider;
 
+import org.apache.brooklyn.rest.util.ETagUtils;
+
+/**
+ * Stops clients and proxies caching responses; except that responses with an ETag
+ * (see {@link ETagUtils#checkNotModified(javax.ws.rs.core.Request, javax.servlet.http.HttpServletRequest, EntityTag)}) may be stored by the client,
+ * so long as it revalidates them (with {@code If-None-Match}) before use.
+ */
 @Provider
 @Priority(200)
 public class NoCacheFilter implements ContainerResponseFilter {
 
     @Override
     public void filter(ContainerRequestContext request, ContainerResponseContext response) {
-        //https://developer.mozilla.org/en-US/docs/Web/HTTP/Caching_FAQ
         MultivaluedMap<String, Object> headers = response.getHeaders();
-        headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache, no-store");
+        // in a servlet container, request properties are the servlet request's attributes
+        Object tag = request.getProperty(ETagUtils.RESPONSE_TAG_ATTRIBUTE);
+        if (tag instanceof EntityTag && response.getStatus() == Status.OK.getStatusCode() && !headers.containsKey(HttpHeaders.ETAG)) {
+            headers.putSingle(HttpHeaders.ETAG, tag);
+        }
+
+        //https://developer.mozilla.org/en-US/docs/Web/HTTP/Caching_FAQ
+        if (headers.containsKey(HttpHeaders.ETAG)) {
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        } else {
+            headers.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache, no-store");
+        }
         headers.putSingle("Pragma", "no-cache");
         headers.putSingle(HttpHeaders.EXPIRES, "0");
     }
@@ -19,7 +19,10 @@
 package org.apache.brooklyn.rest.resources;
 
 import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.ContextResolver;
 
@@ -28,12 +31,16 @@ import org.apache.brooklyn.api.entity.EntityLocal;
 import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.core.config.render.RendererHints;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
+import org.apache.brooklyn.rest.BrooklynWebConfig;
 import org.apache.brooklyn.rest.util.BrooklynRestResourceUtils;
+import org.apache.brooklyn.rest.util.ETagUtils;
 import org.apache.brooklyn.rest.util.ManagementContextProvider;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.rest.util.json.BrooklynJacksonJsonProvider;
 import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.text.Strings;
 import org.apache.brooklyn.util.time.Duration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,6 +54,12 @@ public abstract class AbstractBrooklynRestResource {
     @Context
     private ContextResolver<ManagementContext> mgmt;
 
+    @Context
+    private Request request;
+
+    @Context
+    private HttpServletRequest servletRequest;
+
     private BrooklynRestResourceUtils brooklynRestResourceUtils;
     private ObjectMapper mapper;
 
@@ -73,6 +86,37 @@ public abstract class AbstractBrooklynRestResource {
         return brooklynRestResourceUtils;
     }
     
+    /**
+     * Responds {@code 304 Not Modified} (by throwing) if the client already has the version with the given tag,
+     * otherwise includes the tag in the response; see {@link ETagUtils#checkNotModified(Request, HttpServletRequest, EntityTag)}.
+     */
+    protected void checkNotModified(@Nullable EntityTag tag) {
+        // request is not injected when resources are used directly
+        if (request != null) ETagUtils.checkNotModified(request, servletRequest, tag);
+    }
+
+    /**
+     * The time for which to stream a response, given the timeout requested by the client (if any): at most
+     * {@link BrooklynWebConfig#STREAM_MAX_TIMEOUT}, and {@link BrooklynWebConfig#STREAM_DEFAULT_TIMEOUT} if not requested.
+     */
+    protected Duration streamTimeout(@Nullable String requested) {
+        Duration result;
+        try {
+            result = Strings.isBlank(requested) ? mgmt().getConfig().getConfig(BrooklynWebConfig.STREAM_DEFAULT_TIMEOUT) : Duration.parse(requested);
+        } catch (Exception e) {
+            Exceptions.propagateIfFatal(e);
+            throw WebResourceUtils.badRequest(e, "Invalid timeout '%s'", requested);
+        }
+        Duration max = mgmt().getConfig().getConfig(BrooklynWebConfig.STREAM_MAX_TIMEOUT);
+        if (result == null || (max != null && result.compareTo(max) > 0)) result = max;
+        return result;
+    }
+
+    /** stops the response being compressed, as for streamed responses, which compressing would buffer */
+    protected void disableCompression() {
+        WebResourceUtils.disableCompression(servletRequest);
+    }
+
     protected ObjectMapper mapper() {
         return mapper(mgmt());
     }
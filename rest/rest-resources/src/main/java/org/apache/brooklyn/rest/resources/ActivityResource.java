@@ -18,8 +18,8 @@
  */
 package org.apache.brooklyn.rest.resources;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Collections2;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.mgmt.HasTaskChildren;
@@ -30,12 +30,29 @@ import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.rest.api.ActivityApi;
 import org.apache.brooklyn.rest.domain.TaskSummary;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
+import org.apache.brooklyn.rest.util.ETagUtils;
+import org.apache.brooklyn.rest.util.ListingUtils;
+import org.apache.brooklyn.rest.util.StreamLimiter;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.brooklyn.util.time.Time;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
 public class ActivityResource extends AbstractBrooklynRestResource implements ActivityApi {
 
+    /** maximum number of bytes of a stream to read into memory at a time */
+    private static final int STREAM_CHUNK_SIZE = 64*1024;
+    /** how often to check for more output when following a stream */
+    private static final Duration STREAM_FOLLOW_PERIOD = Duration.millis(250);
+
     @Override
     public TaskSummary get(String taskId) {
         Task<?> t = mgmt().getExecutionManager().getTask(taskId);
@@ -43,6 +60,7 @@ public class ActivityResource extends AbstractBrooklynRestResource implements Ac
             throw WebResourceUtils.notFound("Cannot find task '%s'", taskId);
         }
         checkEntityEntitled(t);
+        checkNotModified(ETagUtils.forTask(mgmt(), t));
 
         return TaskTransformer.fromTask(ui.getBaseUriBuilder()).apply(t);
     }
@@ -81,8 +99,9 @@ public class ActivityResource extends AbstractBrooklynRestResource implements Ac
         if (!(t instanceof HasTaskChildren)) {
             return Collections.emptyList();
         }
-        return new LinkedList<TaskSummary>(Collections2.transform(Lists.newArrayList(((HasTaskChildren) t).getChildren()),
-                TaskTransformer.fromTask(ui.getBaseUriBuilder())));
+        List<Task<?>> children = ListingUtils.page(ui, ((HasTaskChildren) t).getChildren(), ListingUtils.TASK_ID);
+        return new LinkedList<TaskSummary>(Collections2.transform(children,
+                TaskTransformer.fromTask(ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.TASK_FIELDS))));
     }
 
     @Override
@@ -93,6 +112,8 @@ public class ActivityResource extends AbstractBrooklynRestResource implements Ac
         }
         checkEntityEntitled(t);
         checkStreamEntitled(t, streamId);
+        // streams of a task which is done no longer change
+        checkNotModified(ETagUtils.forTask(mgmt(), t));
 
         WrappedStream stream = BrooklynTaskTags.stream(t, streamId);
         if (stream == null) {
@@ -101,6 +122,85 @@ public class ActivityResource extends AbstractBrooklynRestResource implements Ac
         return stream.streamContents.get();
     }
 
+    @Override
+    public Response streamRange(String taskId, String streamId, Long offset, Long length, Boolean follow, String timeout) {
+        final Task<?> t = mgmt().getExecutionManager().getTask(taskId);
+        if (t == null) {
+            throw WebResourceUtils.notFound("Cannot find task '%s'", taskId);
+        }
+        checkEntityEntitled(t);
+        checkStreamEntitled(t, streamId);
+
+        WrappedStream stream = BrooklynTaskTags.stream(t, streamId);
+        if (stream == null) {
+            throw WebResourceUtils.notFound("Cannot find stream '%s' in task '%s'", streamId, taskId);
+        }
+        final boolean following = Boolean.TRUE.equals(follow);
+        // following runs in the request thread, so is always bounded
+        final Duration followTimeout = following ? streamTimeout(timeout) : null;
+        long requestedOffset = (offset != null) ? offset : 0;
+        final long maxLength = (length != null && length >= 0) ? length : Long.MAX_VALUE;
+        if (!following) {
+            checkNotModified(ETagUtils.forTask(mgmt(), t));
+        }
+
+        final SpoolingByteArrayOutputStream spooled = stream.getSpoolingStream();
+        if (spooled == null) {
+            // not spooled, so small enough to read in full
+            byte[] contents = stream.streamContents.get().getBytes(Charsets.UTF_8);
+            int start = (int) Math.max(0, Math.min(contents.length, requestedOffset < 0 ? contents.length + requestedOffset : requestedOffset));
+            int end = (int) Math.min(contents.length, start + Math.min(maxLength, Integer.MAX_VALUE));
+            return Response.ok(Arrays.copyOfRange(contents, start, end), MediaType.TEXT_PLAIN_TYPE)
+                    .header(STREAM_OFFSET_HEADER, start)
+                    .header(STREAM_SIZE_HEADER, contents.length)
+                    .build();
+        }
+
+        final long size = spooled.getTotalSize();
+        final long start = Math.max(Math.max(0, requestedOffset < 0 ? size + requestedOffset : requestedOffset), spooled.getDiscardedSize());
+        // following holds a web server thread until it ends
+        final StreamLimiter limiter = following ? StreamLimiter.get(mgmt()) : null;
+        if (limiter != null) {
+            limiter.acquire();
+            disableCompression();
+        }
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                try {
+                    writeRange(out);
+                } finally {
+                    if (limiter != null) limiter.release();
+                }
+            }
+            private void writeRange(OutputStream out) throws IOException {
+                long deadline = (followTimeout != null) ? System.currentTimeMillis() + followTimeout.toMilliseconds() : Long.MAX_VALUE;
+                long end = (maxLength == Long.MAX_VALUE) ? Long.MAX_VALUE : start + maxLength;
+                if (!following) end = Math.min(end, size);
+                long pos = start;
+                while (pos < end) {
+                    // check before reading, so nothing written before the task ended is missed
+                    boolean done = t.isDone();
+                    pos = Math.max(pos, spooled.getDiscardedSize());
+                    byte[] chunk = spooled.read(pos, (int) Math.min(STREAM_CHUNK_SIZE, end - pos));
+                    if (chunk.length > 0) {
+                        out.write(chunk);
+                        pos += chunk.length;
+                    } else if (!following || done || System.currentTimeMillis() > deadline) {
+                        break;
+                    } else {
+                        out.flush();
+                        Time.sleep(STREAM_FOLLOW_PERIOD);
+                    }
+                }
+            }
+        };
+        return Response.ok(output, MediaType.TEXT_PLAIN_TYPE)
+                .header(STREAM_OFFSET_HEADER, start)
+                .header(STREAM_SIZE_HEADER, size)
+                .build();
+    }
+
     protected void checkEntityEntitled(Task<?> task) {
         Entity entity = BrooklynTaskTags.getContextEntity(task);
         if (entity != null && !Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) {
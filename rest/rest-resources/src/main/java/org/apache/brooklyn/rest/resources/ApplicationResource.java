@@ -50,6 +50,7 @@ import org.apache.brooklyn.api.sensor.Sensor;
 import org.apache.brooklyn.api.typereg.RegisteredType;
 import org.apache.brooklyn.core.config.ConstraintViolationException;
 import org.apache.brooklyn.core.entity.Attributes;
+import org.apache.brooklyn.core.entity.EntityFunctions;
 import org.apache.brooklyn.core.entity.EntityPredicates;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
 import org.apache.brooklyn.core.entity.trait.Startable;
@@ -74,6 +75,8 @@ import org.apache.brooklyn.rest.transform.ApplicationTransformer;
 import org.apache.brooklyn.rest.transform.EntityTransformer;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
 import org.apache.brooklyn.rest.util.BrooklynRestResourceUtils;
+import org.apache.brooklyn.rest.util.ETagUtils;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.ResourceUtils;
@@ -176,6 +179,8 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
 
     @Override
     public List<EntityDetail> fetch(String entityIds) {
+        // details include the whole tree of every application
+        checkNotModified(ETagUtils.forEntities(mgmt(), mgmt().getEntityManager().getEntities()));
 
         List<EntityDetail> entitySummaries = Lists.newArrayList();
         for (Entity application : mgmt().getApplications()) {
@@ -207,17 +212,22 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
         if (Strings.isBlank(typeRegex)) {
             typeRegex = ".*";
         }
-        return FluentIterable
+        checkNotModified(ETagUtils.forEntities(mgmt(), mgmt().getApplications()));
+        Iterable<Application> apps = FluentIterable
                 .from(mgmt().getApplications())
                 .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY))
-                .filter(EntityPredicates.hasInterfaceMatching(typeRegex))
-                .transform(ApplicationTransformer.fromApplication(ui.getBaseUriBuilder()))
+                .filter(EntityPredicates.hasInterfaceMatching(typeRegex));
+        return FluentIterable
+                .from(ListingUtils.page(ui, apps, EntityFunctions.id()))
+                .transform(ApplicationTransformer.fromApplication(ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.ENTITY_FIELDS)))
                 .toList();
     }
 
     @Override
     public ApplicationSummary get(String application) {
-        return ApplicationTransformer.summaryFromApplication(brooklyn().getApplication(application), ui.getBaseUriBuilder());
+        Application app = brooklyn().getApplication(application);
+        checkNotModified(ETagUtils.forEntity(mgmt(), app));
+        return ApplicationTransformer.summaryFromApplication(app, ui.getBaseUriBuilder());
     }
 
     @Override
@@ -456,7 +466,9 @@ public class ApplicationResource extends AbstractBrooklynRestResource implements
 
     @Override
     public List<EntitySummary> getDescendants(String application, String typeRegex) {
-        return EntityTransformer.entitySummaries(brooklyn().descendantsOfType(application, application, typeRegex), ui.getBaseUriBuilder());
+        Iterable<Entity> descs = brooklyn().descendantsOfType(application, application, typeRegex);
+        return EntityTransformer.entitySummaries(ListingUtils.page(ui, descs, EntityFunctions.id()),
+                ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.ENTITY_FIELDS));
     }
 
     @Override
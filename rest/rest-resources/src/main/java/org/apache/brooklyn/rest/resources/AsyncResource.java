@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.rest.api.AsyncApi;
+import org.apache.brooklyn.rest.filter.HaHotStateRequired;
+import org.apache.brooklyn.rest.transform.TaskTransformer;
+import org.apache.brooklyn.rest.util.WebResourceUtils;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Time;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+@HaHotStateRequired
+public class AsyncResource extends AbstractBrooklynRestResource implements AsyncApi {
+
+    @Override
+    public void invoke(String application, String entityToken, String effectorName, String timeout,
+            Map<String, Object> parameters, AsyncResponse response) {
+        Entity entity = brooklyn().getEntity(application, entityToken);
+        Task<?> task = EffectorResource.invoke(mgmt(), entity, entityToken, effectorName, parameters);
+        resumeWhenDone(task, timeout, response, false);
+    }
+
+    @Override
+    public void waitForTask(String taskId, String timeout, AsyncResponse response) {
+        Task<?> task = mgmt().getExecutionManager().getTask(taskId);
+        if (task == null) {
+            throw WebResourceUtils.notFound("Cannot find task '%s'", taskId);
+        }
+        Entity entity = BrooklynTaskTags.getContextEntity(task);
+        if (entity != null && !Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized to see activity of entity '%s'",
+                    Entitlements.getEntitlementContext().user(), entity);
+        }
+        resumeWhenDone(task, timeout, response, true);
+    }
+
+    /**
+     * Resumes the response from a listener on the task, so no thread is held while waiting.
+     * Responds with the task summary (status 202) if the timeout expires first.
+     */
+    protected void resumeWhenDone(final Task<?> task, String timeout, final AsyncResponse response, final boolean summaryWhenDone) {
+        // the injected UriInfo is only valid on the request thread
+        final UriBuilder baseUri = ui.getBaseUriBuilder();
+
+        if (Strings.isNonBlank(timeout) && !"never".equalsIgnoreCase(timeout)) {
+            long timeoutMillis = "always".equalsIgnoreCase(timeout) ? 0 : Time.parseElapsedTime(timeout);
+            if (timeoutMillis <= 0 && !task.isDone()) {
+                response.resume(accepted(task, baseUri));
+                return;
+            }
+            response.setTimeoutHandler(new TimeoutHandler() {
+                @Override
+                public void handleTimeout(AsyncResponse asyncResponse) {
+                    asyncResponse.resume(accepted(task, baseUri));
+                }
+            });
+            response.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        task.addListener(new Runnable() {
+            @Override
+            public void run() {
+                Object result;
+                try {
+                    result = summaryWhenDone ? TaskTransformer.taskSummary(task, baseUri.clone()) : task.get();
+                } catch (Exception e) {
+                    Exceptions.propagateIfFatal(e);
+                    response.resume(e);
+                    return;
+                }
+                // if the timeout has already expired this does nothing
+                response.resume(Response.status(summaryWhenDone ? Response.Status.OK : Response.Status.ACCEPTED).entity(result).build());
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        // the entitlement context set by EntitlementContextFilter is cleared by its response filter,
+        // which runs when the response is resumed, possibly on another thread; so clear it on this one
+        if (!response.isDone()) Entitlements.clearEntitlementContext();
+    }
+
+    private static Response accepted(Task<?> task, UriBuilder baseUri) {
+        return Response.status(Response.Status.ACCEPTED).entity(TaskTransformer.taskSummary(task, baseUri.clone())).build();
+    }
+}
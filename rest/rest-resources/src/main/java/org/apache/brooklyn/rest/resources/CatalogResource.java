@@ -45,6 +45,7 @@ import org.apache.brooklyn.core.catalog.internal.BasicBrooklynCatalog;
 import org.apache.brooklyn.core.catalog.internal.CatalogDto;
 import org.apache.brooklyn.core.catalog.internal.CatalogItemComparator;
 import org.apache.brooklyn.core.catalog.internal.CatalogUtils;
+import org.apache.brooklyn.core.entity.EntityFunctions;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.StringAndArgument;
 import org.apache.brooklyn.core.typereg.RegisteredTypeLoadingContexts;
@@ -58,6 +59,7 @@ import org.apache.brooklyn.rest.domain.CatalogLocationSummary;
 import org.apache.brooklyn.rest.domain.CatalogPolicySummary;
 import org.apache.brooklyn.rest.filter.HaHotStateRequired;
 import org.apache.brooklyn.rest.transform.CatalogTransformer;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.collections.MutableSet;
@@ -84,11 +86,11 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
     private static final Logger log = LoggerFactory.getLogger(CatalogResource.class);
     
     @SuppressWarnings("rawtypes")
-    private Function<CatalogItem, CatalogItemSummary> toCatalogItemSummary(final UriInfo ui) {
+    private Function<CatalogItem, CatalogItemSummary> toCatalogItemSummary(final UriInfo ui, @Nullable final Set<String> fields) {
         return new Function<CatalogItem, CatalogItemSummary>() {
             @Override
             public CatalogItemSummary apply(@Nullable CatalogItem input) {
-                return CatalogTransformer.catalogItemSummary(brooklyn(), input, ui.getBaseUriBuilder());
+                return CatalogTransformer.catalogItemSummary(brooklyn(), input, ui.getBaseUriBuilder(), fields);
             }
         };
     };
@@ -229,7 +231,7 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
                 Predicates.and(
                         CatalogPredicates.IS_ENTITY,
                         CatalogPredicates.<Entity, EntitySpec<?>>disabled(false));
-        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions);
+        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions, ListingUtils.CATALOG_ENTITY_FIELDS);
         return castList(result, CatalogEntitySummary.class);
     }
 
@@ -241,7 +243,7 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
                         CatalogPredicates.IS_TEMPLATE,
                         CatalogPredicates.<Application,EntitySpec<? extends Application>>deprecated(false),
                         CatalogPredicates.<Application,EntitySpec<? extends Application>>disabled(false));
-        return getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions);
+        return getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions, ListingUtils.CATALOG_ENTITY_FIELDS);
     }
 
     @Override
@@ -299,7 +301,7 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
                 Predicates.and(
                         CatalogPredicates.IS_POLICY,
                         CatalogPredicates.<Policy, PolicySpec<?>>disabled(false));
-        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions);
+        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions, ListingUtils.CATALOG_POLICY_FIELDS);
         return castList(result, CatalogPolicySummary.class);
     }
 
@@ -345,7 +347,7 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
                 Predicates.and(
                         CatalogPredicates.IS_LOCATION,
                         CatalogPredicates.<Location, LocationSpec<?>>disabled(false));
-        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions);
+        List<CatalogItemSummary> result = getCatalogItemSummariesMatchingRegexFragment(filter, regex, fragment, allVersions, ListingUtils.CATALOG_LOCATION_FIELDS);
         return castList(result, CatalogLocationSummary.class);
     }
 
@@ -386,7 +388,8 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private <T,SpecT> List<CatalogItemSummary> getCatalogItemSummariesMatchingRegexFragment(Predicate<CatalogItem<T,SpecT>> type, String regex, String fragment, boolean allVersions) {
+    private <T,SpecT> List<CatalogItemSummary> getCatalogItemSummariesMatchingRegexFragment(Predicate<CatalogItem<T,SpecT>> type, String regex, String fragment, boolean allVersions,
+            Set<String> allowedFields) {
         List filters = new ArrayList();
         filters.add(type);
         if (Strings.isNonEmpty(regex))
@@ -402,7 +405,8 @@ public class CatalogResource extends AbstractBrooklynRestResource implements Cat
                 FluentIterable.from(brooklyn().getCatalog().getCatalogItems())
                     .filter(Predicates.and(filters))
                     .toSortedList(CatalogItemComparator.getInstance());
-        return Lists.transform(sortedItems, toCatalogItemSummary(ui));
+        List<CatalogItem<Object, Object>> page = ListingUtils.page(ui, sortedItems, EntityFunctions.id());
+        return Lists.transform(page, toCatalogItemSummary(ui, ListingUtils.parseFields(ui, allowedFields)));
     }
 
     @Override
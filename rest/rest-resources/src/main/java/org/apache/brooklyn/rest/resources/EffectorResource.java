@@ -28,6 +28,7 @@ import javax.ws.rs.core.Response;
 
 import org.apache.brooklyn.api.effector.Effector;
 import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.core.config.Sanitizer;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
@@ -80,18 +81,7 @@ public class EffectorResource extends AbstractBrooklynRestResource implements Ef
     public Response invoke(String application, String entityToken, String effectorName,
             String timeout, Map<String, Object> parameters) {
         final Entity entity = brooklyn().getEntity(application, entityToken);
-
-        // TODO check effectors?
-        Maybe<Effector<?>> effector = EffectorUtils.findEffectorDeclared(entity, effectorName);
-        if (effector.isAbsentOrNull()) {
-            throw WebResourceUtils.notFound("Entity '%s' has no effector with name '%s'", entityToken, effectorName);
-        } else if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.INVOKE_EFFECTOR,
-                Entitlements.EntityAndItem.of(entity, StringAndArgument.of(effector.get().getName(), null)))) {
-            throw WebResourceUtils.forbidden("User '%s' is not authorized to invoke effector %s on entity %s",
-                    Entitlements.getEntitlementContext().user(), effector.get().getName(), entity);
-        }
-        log.info("REST invocation of " + entity + "." + effector.get() + " " + Sanitizer.sanitize(parameters));
-        Task<?> t = entity.invoke(effector.get(), parameters);
+        Task<?> t = invoke(mgmt(), entity, entityToken, effectorName, parameters);
 
         try {
             Object result;
@@ -112,4 +102,19 @@ public class EffectorResource extends AbstractBrooklynRestResource implements Ef
         }
     }
 
+    /** checks the effector exists and the user is entitled to invoke it, then invokes it; shared with {@link AsyncResource} */
+    static Task<?> invoke(ManagementContext mgmt, Entity entity, String entityToken, String effectorName, Map<String, Object> parameters) {
+        // TODO check effectors?
+        Maybe<Effector<?>> effector = EffectorUtils.findEffectorDeclared(entity, effectorName);
+        if (effector.isAbsentOrNull()) {
+            throw WebResourceUtils.notFound("Entity '%s' has no effector with name '%s'", entityToken, effectorName);
+        } else if (!Entitlements.isEntitled(mgmt.getEntitlementManager(), Entitlements.INVOKE_EFFECTOR,
+                Entitlements.EntityAndItem.of(entity, StringAndArgument.of(effector.get().getName(), null)))) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized to invoke effector %s on entity %s",
+                    Entitlements.getEntitlementContext().user(), effector.get().getName(), entity);
+        }
+        log.info("REST invocation of " + entity + "." + effector.get() + " " + Sanitizer.sanitize(parameters));
+        return entity.invoke(effector.get(), parameters);
+    }
+
 }
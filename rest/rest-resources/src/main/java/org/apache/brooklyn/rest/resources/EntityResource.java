@@ -38,6 +38,7 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.api.location.Location;
 import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.entity.EntityFunctions;
 import org.apache.brooklyn.core.mgmt.BrooklynTags;
 import org.apache.brooklyn.core.mgmt.BrooklynTags.NamedStringTag;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
@@ -54,6 +55,8 @@ import org.apache.brooklyn.rest.transform.EntityTransformer;
 import org.apache.brooklyn.rest.transform.LocationTransformer;
 import org.apache.brooklyn.rest.transform.LocationTransformer.LocationDetailLevel;
 import org.apache.brooklyn.rest.transform.TaskTransformer;
+import org.apache.brooklyn.rest.util.ETagUtils;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableList;
 import org.apache.brooklyn.util.core.ResourceUtils;
@@ -63,6 +66,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Collections2;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.io.Files;
@@ -78,17 +82,20 @@ public class EntityResource extends AbstractBrooklynRestResource implements Enti
     
     @Override
     public List<EntitySummary> list(final String application) {
-        return FluentIterable
-                .from(brooklyn().getApplication(application).getChildren())
-                .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY))
-                .transform(EntityTransformer.fromEntity(ui.getBaseUriBuilder()))
-                .toList();
+        Entity app = brooklyn().getApplication(application);
+        checkNotModified(ETagUtils.forEntities(mgmt(), Iterables.concat(ImmutableList.of(app), app.getChildren())));
+        Iterable<Entity> entities = FluentIterable
+                .from(app.getChildren())
+                .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY));
+        return EntityTransformer.entitySummaries(ListingUtils.page(ui, entities, EntityFunctions.id()),
+                ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.ENTITY_FIELDS));
     }
 
     @Override
     public EntitySummary get(String application, String entityName) {
         Entity entity = brooklyn().getEntity(application, entityName);
         if (Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) {
+            checkNotModified(ETagUtils.forEntity(mgmt(), entity));
             return EntityTransformer.entitySummary(entity, ui.getBaseUriBuilder());
         }
         throw WebResourceUtils.forbidden("User '%s' is not authorized to get entity '%s'",
@@ -97,11 +104,13 @@ public class EntityResource extends AbstractBrooklynRestResource implements Enti
 
     @Override
     public List<EntitySummary> getChildren(final String application, final String entity) {
-        return FluentIterable
-                .from(brooklyn().getEntity(application, entity).getChildren())
-                .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY))
-                .transform(EntityTransformer.fromEntity(ui.getBaseUriBuilder()))
-                .toList();
+        Entity parent = brooklyn().getEntity(application, entity);
+        checkNotModified(ETagUtils.forEntities(mgmt(), Iterables.concat(ImmutableList.of(parent), parent.getChildren())));
+        Iterable<Entity> children = FluentIterable
+                .from(parent.getChildren())
+                .filter(EntitlementPredicates.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY));
+        return EntityTransformer.entitySummaries(ListingUtils.page(ui, children, EntityFunctions.id()),
+                ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.ENTITY_FIELDS));
     }
 
     @Override
@@ -193,7 +202,9 @@ public class EntityResource extends AbstractBrooklynRestResource implements Enti
 
     @Override
     public List<EntitySummary> getDescendants(String application, String entity, String typeRegex) {
-        return EntityTransformer.entitySummaries(brooklyn().descendantsOfType(application, entity, typeRegex), ui.getBaseUriBuilder());
+        Iterable<Entity> descs = brooklyn().descendantsOfType(application, entity, typeRegex);
+        return EntityTransformer.entitySummaries(ListingUtils.page(ui, descs, EntityFunctions.id()),
+                ui.getBaseUriBuilder(), ListingUtils.parseFields(ui, ListingUtils.ENTITY_FIELDS));
     }
 
     @Override
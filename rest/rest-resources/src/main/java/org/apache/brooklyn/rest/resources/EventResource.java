@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.rest.api.EventApi;
+import org.apache.brooklyn.rest.filter.HaHotStateRequired;
+import org.apache.brooklyn.rest.util.EntityEventStream;
+import org.apache.brooklyn.rest.util.EntityEventStream.Format;
+import org.apache.brooklyn.rest.util.StreamLimiter;
+import org.apache.brooklyn.rest.util.WebResourceUtils;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@HaHotStateRequired
+public class EventResource extends AbstractBrooklynRestResource implements EventApi {
+
+    private static final Logger log = LoggerFactory.getLogger(EventResource.class);
+
+    @Override
+    public Response stream(String application, String entityToken, String sensorGlob, Boolean initial, Boolean raw,
+            String format, Integer bufferSize, String timeout) {
+        Format streamFormat;
+        if ("sse".equalsIgnoreCase(format)) {
+            streamFormat = Format.SSE;
+        } else if ("ndjson".equalsIgnoreCase(format)) {
+            streamFormat = Format.NDJSON;
+        } else {
+            throw WebResourceUtils.badRequest("Unsupported format '%s'; must be 'sse' or 'ndjson'", format);
+        }
+        Duration streamTimeout = streamTimeout(timeout);
+
+        // these check that the user can see the application and entity
+        Entity app = Strings.isBlank(application) ? null : brooklyn().getApplication(application);
+        Entity entity = Strings.isBlank(entityToken) ? null : brooklyn().getEntity(application, entityToken);
+
+        if (log.isDebugEnabled())
+            log.debug("REST user "+Entitlements.getEntitlementContext()+" streaming events of "+(entity != null ? entity : app != null ? app : "all entities")
+                    +" (sensors "+sensorGlob+", format "+streamFormat+", for "+streamTimeout+")");
+
+        // the stream holds a web server thread until it ends
+        final StreamLimiter limiter = StreamLimiter.get(mgmt());
+        limiter.acquire();
+        final EntityEventStream stream;
+        try {
+            stream = new EntityEventStream(mgmt(), mapper(), app, entity, sensorGlob,
+                    !Boolean.FALSE.equals(initial), Boolean.TRUE.equals(raw), streamFormat,
+                    (bufferSize != null) ? bufferSize : 1000, streamTimeout);
+        } catch (RuntimeException e) {
+            limiter.release();
+            throw e;
+        }
+        StreamingOutput output = new StreamingOutput() {
+            @Override
+            public void write(OutputStream out) throws IOException {
+                try {
+                    stream.write(out);
+                } finally {
+                    limiter.release();
+                }
+            }
+        };
+        disableCompression();
+        return Response.ok(output, streamFormat == Format.SSE ? SERVER_SENT_EVENTS : NDJSON)
+                .header("Cache-Control", "no-cache")
+                // stop proxies such as nginx from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.entity.Group;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.Sensor;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityPredicates;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.EntityAndItem;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.rest.api.SensorQueryApi;
+import org.apache.brooklyn.rest.filter.HaHotStateRequired;
+import org.apache.brooklyn.rest.util.SensorAggregations;
+import org.apache.brooklyn.rest.util.WebResourceUtils;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.text.Strings;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Splitter;
+
+@HaHotStateRequired
+public class SensorQueryResource extends AbstractBrooklynRestResource implements SensorQueryApi {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorQueryResource.class);
+
+    @Override
+    public Map<String, Object> query(String sensors, String application, String group, String typeRegex, String tag,
+            String reductions, Boolean raw) {
+        List<String> sensorNames = split(sensors);
+        if (sensorNames.isEmpty()) {
+            throw WebResourceUtils.badRequest("No sensors given");
+        }
+        List<String> reduceList = split(reductions);
+        try {
+            SensorAggregations.checkValid(reduceList);
+        } catch (IllegalArgumentException e) {
+            throw WebResourceUtils.badRequest(e);
+        }
+
+        Predicate<Entity> typeMatches = null;
+        if (Strings.isNonBlank(typeRegex)) {
+            try {
+                typeMatches = EntityPredicates.hasInterfaceMatching(typeRegex);
+            } catch (PatternSyntaxException e) {
+                throw WebResourceUtils.badRequest("Invalid typeRegex '%s': %s", typeRegex, e.getDescription());
+            }
+        }
+
+        // these check that the user can see the application and group
+        Entity app = Strings.isBlank(application) ? null : brooklyn().getApplication(application);
+        Iterable<? extends Entity> candidates;
+        // whether candidates may be outside the application (group members can be anywhere)
+        boolean checkInApp = false;
+        if (Strings.isNonBlank(group)) {
+            Entity groupEntity = brooklyn().getEntity(application, group);
+            if (!(groupEntity instanceof Group)) {
+                throw WebResourceUtils.badRequest("Entity '%s' is not a group", group);
+            }
+            candidates = ((Group) groupEntity).getMembers();
+            checkInApp = (app != null);
+        } else if (app != null) {
+            candidates = brooklyn().descendantsOfAnyType(app.getId(), app.getId());
+        } else {
+            candidates = mgmt().getEntityManager().getEntities();
+        }
+
+        List<Entity> entities = MutableList.of();
+        EntitlementManager entitlements = mgmt().getEntitlementManager();
+        for (Entity entity : candidates) {
+            // descendants, rather than the application ID, so that entities of nested applications are included
+            if (checkInApp && !entity.equals(app) && !Entities.isAncestor(entity, app)) continue;
+            if (typeMatches != null && !typeMatches.apply(entity)) continue;
+            if (Strings.isNonBlank(tag) && !entity.tags().containsTag(tag)) continue;
+            if (!Entitlements.isEntitled(entitlements, Entitlements.SEE_ENTITY, entity)) continue;
+            entities.add(entity);
+        }
+        if (log.isDebugEnabled())
+            log.debug("REST user "+Entitlements.getEntitlementContext()+" querying sensors "+sensorNames+" of "+entities.size()+" entities"
+                    +(reduceList.isEmpty() ? "" : ", reducing by "+reduceList));
+
+        if (reduceList.isEmpty()) {
+            return values(entities, sensorNames, raw);
+        }
+        Map<String, Object> result = MutableMap.of();
+        for (String sensorName : sensorNames) {
+            AttributeSensor<Object> sensor = Sensors.newSensor(Object.class, sensorName);
+            List<Object> values = MutableList.of();
+            for (Entity entity : entities) {
+                if (!Entitlements.isEntitled(entitlements, Entitlements.SEE_SENSOR, new EntityAndItem<String>(entity, sensorName))) continue;
+                values.add(entity.sensors().get(sensor));
+            }
+            result.put(sensorName, SensorAggregations.reduce(values, reduceList));
+        }
+        return result;
+    }
+
+    private Map<String, Object> values(List<Entity> entities, List<String> sensorNames, Boolean raw) {
+        EntitlementManager entitlements = mgmt().getEntitlementManager();
+        Map<String, Object> result = MutableMap.of();
+        for (Entity entity : entities) {
+            Map<String, Object> entityValues = MutableMap.of();
+            for (String sensorName : sensorNames) {
+                if (!Entitlements.isEntitled(entitlements, Entitlements.SEE_SENSOR, new EntityAndItem<String>(entity, sensorName))) continue;
+                Object value = entity.sensors().get(Sensors.newSensor(Object.class, sensorName));
+                if (value == null) continue;
+                Sensor<?> sensor = entity.getEntityType().getSensor(sensorName);
+                entityValues.put(sensorName, resolving(value).preferJson(true).asJerseyOutermostReturnValue(false).raw(raw)
+                        .context(entity).timeout(Duration.ZERO).renderAs(sensor).resolve());
+            }
+            if (!entityValues.isEmpty()) result.put(entity.getId(), entityValues);
+        }
+        return result;
+    }
+
+    private static List<String> split(String list) {
+        if (Strings.isBlank(list)) return MutableList.of();
+        return MutableList.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(list));
+    }
+}
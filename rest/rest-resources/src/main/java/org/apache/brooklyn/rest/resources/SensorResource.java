@@ -34,7 +34,9 @@ import org.apache.brooklyn.rest.api.SensorApi;
 import org.apache.brooklyn.rest.domain.SensorSummary;
 import org.apache.brooklyn.rest.filter.HaHotStateRequired;
 import org.apache.brooklyn.rest.transform.SensorTransformer;
+import org.apache.brooklyn.rest.util.ETagUtils;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
+import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.core.task.ValueResolver;
 import org.apache.brooklyn.util.text.Strings;
 import org.apache.brooklyn.util.time.Duration;
@@ -56,6 +58,7 @@ public class SensorResource extends AbstractBrooklynRestResource implements Sens
             throw WebResourceUtils.forbidden("User '%s' is not authorized to see entity '%s'",
                     Entitlements.getEntitlementContext().user(), entity);
         }
+        checkNotModified(ETagUtils.forEntity(mgmt(), entity));
 
         List<SensorSummary> result = Lists.newArrayList();
         
@@ -79,11 +82,18 @@ public class SensorResource extends AbstractBrooklynRestResource implements Sens
             throw WebResourceUtils.forbidden("User '%s' is not authorized to see entity '%s'",
                     Entitlements.getEntitlementContext().user(), entity);
         }
+        checkNotModified(ETagUtils.forEntity(mgmt(), entity));
 
         Map<String, Object> sensorMap = Maps.newHashMap();
         @SuppressWarnings("rawtypes")
         Iterable<AttributeSensor> sensors = filter(entity.getEntityType().getSensors(), AttributeSensor.class);
 
+        // read all values from one snapshot, so the result is consistent (rather than one lookup per sensor)
+        Map<String, Object> values = Maps.newHashMap();
+        for (Map.Entry<AttributeSensor<?>, Object> entry : ((EntityInternal)entity).sensors().getAll().entrySet()) {
+            values.put(entry.getKey().getName(), entry.getValue());
+        }
+
         for (AttributeSensor<?> sensor : sensors) {
             // Exclude sensors that user is not allowed to see
             if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_SENSOR, new EntityAndItem<String>(entity, sensor.getName()))) {
@@ -92,7 +102,8 @@ public class SensorResource extends AbstractBrooklynRestResource implements Sens
                 continue;
             }
 
-            Object value = entity.getAttribute(findSensor(entity, sensor.getName()));
+            // coerced as by getAttribute, so values are as in the single-sensor GET
+            Object value = TypeCoercions.coerce(values.get(sensor.getName()), sensor.getType());
             sensorMap.put(sensor.getName(), 
                 resolving(value).preferJson(true).asJerseyOutermostReturnValue(false).raw(raw).context(entity).timeout(Duration.ZERO).renderAs(sensor).resolve());
         }
@@ -111,7 +122,8 @@ public class SensorResource extends AbstractBrooklynRestResource implements Sens
             throw WebResourceUtils.forbidden("User '%s' is not authorized to see entity '%s' sensor '%s'",
                     Entitlements.getEntitlementContext().user(), entity, sensor.getName());
         }
-        
+        checkNotModified(ETagUtils.forEntity(mgmt(), entity));
+
         Object value = entity.getAttribute(sensor);
         return resolving(value).preferJson(preferJson).asJerseyOutermostReturnValue(true).raw(raw).context(entity).timeout(ValueResolver.PRETTY_QUICK_WAIT).renderAs(sensor).resolve();
     }
@@ -39,6 +39,7 @@ import org.apache.brooklyn.api.entity.Application;
 import org.apache.brooklyn.api.mgmt.ManagementContext;
 import org.apache.brooklyn.api.mgmt.Task;
 import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementManager;
 import org.apache.brooklyn.api.mgmt.ha.HighAvailabilityManager;
 import org.apache.brooklyn.api.mgmt.ha.HighAvailabilityMode;
 import org.apache.brooklyn.api.mgmt.ha.ManagementNodeState;
@@ -51,7 +52,9 @@ import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.StartableApplication;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
+import org.apache.brooklyn.core.mgmt.entitlement.CachingEntitlementManager;
 import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.internal.AbstractManagementContext;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
 import org.apache.brooklyn.core.mgmt.persist.BrooklynPersistenceUtils;
 import org.apache.brooklyn.core.mgmt.persist.FileBasedObjectStore;
@@ -63,6 +66,7 @@ import org.apache.brooklyn.rest.domain.VersionSummary;
 import org.apache.brooklyn.rest.transform.BrooklynFeatureTransformer;
 import org.apache.brooklyn.rest.transform.HighAvailabilityTransformer;
 import org.apache.brooklyn.core.mgmt.ShutdownHandler;
+import org.apache.brooklyn.rest.util.AdmissionControl;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.ResourceUtils;
@@ -70,6 +74,7 @@ import org.apache.brooklyn.util.core.file.ArchiveBuilder;
 import org.apache.brooklyn.util.core.flags.TypeCoercions;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.guava.Maybe;
+import org.apache.brooklyn.util.http.HttpConnectionPool;
 import org.apache.brooklyn.util.os.Os;
 import org.apache.brooklyn.util.text.Identifiers;
 import org.apache.brooklyn.util.text.Strings;
@@ -420,6 +425,34 @@ public class ServerResource extends AbstractBrooklynRestResource implements Serv
         return mgmt().getHighAvailabilityManager().getMetrics();
     }
     
+    @Override
+    public Map<String, Object> getAdmissionMetrics() {
+        if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ALL_SERVER_INFO, null)) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized for this operation", Entitlements.getEntitlementContext().user());
+        }
+        return AdmissionControl.get(mgmt()).getMetrics();
+    }
+
+    @Override
+    public Map<String, Object> getHttpConnectionPoolMetrics() {
+        if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ALL_SERVER_INFO, null)) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized for this operation", Entitlements.getEntitlementContext().user());
+        }
+        HttpConnectionPool pool = (mgmt() instanceof AbstractManagementContext) ? ((AbstractManagementContext)mgmt()).getHttpConnectionPool() : null;
+        if (pool == null) return MutableMap.<String, Object>of("enabled", false);
+        return MutableMap.<String, Object>builder().put("enabled", true).putAll(pool.getMetrics()).build();
+    }
+
+    @Override
+    public Map<String, Object> getEntitlementCacheMetrics() {
+        EntitlementManager entitlementManager = mgmt().getEntitlementManager();
+        if (!Entitlements.isEntitled(entitlementManager, Entitlements.SEE_ALL_SERVER_INFO, null)) {
+            throw WebResourceUtils.forbidden("User '%s' is not authorized for this operation", Entitlements.getEntitlementContext().user());
+        }
+        if (!(entitlementManager instanceof CachingEntitlementManager)) return MutableMap.<String, Object>of("enabled", false);
+        return MutableMap.<String, Object>builder().put("enabled", true).putAll(((CachingEntitlementManager) entitlementManager).getMetrics()).build();
+    }
+
     @Override
     public long getHighAvailabitlityPriority() {
         return mgmt().getHighAvailabilityManager().getPriority();
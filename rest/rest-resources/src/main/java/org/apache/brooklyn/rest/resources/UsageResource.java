@@ -21,22 +21,34 @@ package org.apache.brooklyn.rest.resources;
 import static org.apache.brooklyn.rest.util.WebResourceUtils.notFound;
 
 import java.net.URI;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
+import javax.ws.rs.core.Response;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.brooklyn.api.entity.Application;
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.internal.AbstractManagementContext;
+import org.apache.brooklyn.core.mgmt.internal.EntityResourceAccounting;
 import org.apache.brooklyn.core.mgmt.usage.ApplicationUsage;
 import org.apache.brooklyn.core.mgmt.usage.LocationUsage;
 import org.apache.brooklyn.core.mgmt.usage.ApplicationUsage.ApplicationEvent;
 import org.apache.brooklyn.rest.api.UsageApi;
+import org.apache.brooklyn.rest.domain.ResourceUsageSummary;
 import org.apache.brooklyn.rest.domain.UsageStatistic;
 import org.apache.brooklyn.rest.domain.UsageStatistics;
 import org.apache.brooklyn.rest.transform.ApplicationTransformer;
+import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.exceptions.UserFacingException;
 import org.apache.brooklyn.util.text.Strings;
 import org.apache.brooklyn.util.time.Time;
@@ -44,6 +56,7 @@ import org.apache.brooklyn.util.time.Time;
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
@@ -238,6 +251,66 @@ public class UsageResource extends AbstractBrooklynRestResource implements Usage
         return result;
     }
     
+    @Override
+    public List<ResourceUsageSummary> listApplicationsResourceUsage() {
+        log.debug("REST call to get resource usage for all applications");
+        
+        EntityResourceAccounting accounting = getResourceAccounting();
+        List<ResourceUsageSummary> result = Lists.newArrayList();
+        for (Application app : mgmt().getApplications()) {
+            if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, app)) continue;
+            result.add(toSummary(app, accounting.getApplicationUsage(app)));
+        }
+        return sortByUsage(result);
+    }
+
+    @Override
+    public List<ResourceUsageSummary> listEntitiesResourceUsage(String application, int limit) {
+        log.debug("REST call to get resource usage for entities of application {}", application);
+        
+        EntityResourceAccounting accounting = getResourceAccounting();
+        Iterable<Entity> entities = (application != null) 
+                ? Entities.descendantsAndSelf(brooklyn().getApplication(application))
+                : mgmt().getEntityManager().getEntities();
+        List<ResourceUsageSummary> result = Lists.newArrayList();
+        for (Entity entity : entities) {
+            if (!Entitlements.isEntitled(mgmt().getEntitlementManager(), Entitlements.SEE_ENTITY, entity)) continue;
+            result.add(toSummary(entity, accounting.getUsage(entity)));
+        }
+        result = sortByUsage(result);
+        return (limit > 0 && result.size() > limit) ? result.subList(0, limit) : result;
+    }
+
+    private EntityResourceAccounting getResourceAccounting() {
+        EntityResourceAccounting result = (mgmt() instanceof AbstractManagementContext) 
+                ? ((AbstractManagementContext)mgmt()).getResourceAccounting() : null;
+        if (result == null) {
+            throw WebResourceUtils.throwWebApplicationException(Response.Status.SERVICE_UNAVAILABLE, "Resource accounting is not available");
+        }
+        return result;
+    }
+
+    private ResourceUsageSummary toSummary(Entity entity, EntityResourceAccounting.Usage usage) {
+        return new ResourceUsageSummary(entity.getId(), entity.getDisplayName(), entity.getApplicationId(), 
+                usage.getTasksCompleted(), TimeUnit.NANOSECONDS.toMillis(usage.getTaskCpuTimeNanos()), usage.getTasksRetained(), 
+                usage.getSubscriptions(), usage.getSubscriptionDeliveries(), usage.getPersistedBytes());
+    }
+
+    /** busiest first, by CPU time, then tasks completed, then tasks retained */
+    private List<ResourceUsageSummary> sortByUsage(List<ResourceUsageSummary> summaries) {
+        Collections.sort(summaries, new Comparator<ResourceUsageSummary>() {
+            @Override
+            public int compare(ResourceUsageSummary o1, ResourceUsageSummary o2) {
+                return ComparisonChain.start()
+                        .compare(o2.getTaskCpuTimeMillis(), o1.getTaskCpuTimeMillis())
+                        .compare(o2.getTasksCompleted(), o1.getTasksCompleted())
+                        .compare(o2.getTasksRetained(), o1.getTasksRetained())
+                        .result();
+            }
+        });
+        return summaries;
+    }
+
     private void checkDates(Date startDate, Date endDate) {
         if (startDate.compareTo(endDate) > 0) {
             throw new UserFacingException(new IllegalArgumentException("Start must be less than or equal to end: " + startDate + " > " + endDate + 
@@ -31,6 +31,7 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -42,7 +43,9 @@ import org.apache.brooklyn.core.entity.trait.Startable;
 import org.apache.brooklyn.rest.domain.ApplicationSpec;
 import org.apache.brooklyn.rest.domain.ApplicationSummary;
 import org.apache.brooklyn.rest.domain.Status;
+import org.apache.brooklyn.rest.util.ListingUtils;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableMap;
@@ -55,10 +58,16 @@ import static org.apache.brooklyn.rest.util.WebResourceUtils.serviceUriBuilder;
 public class ApplicationTransformer {
 
     public static Function<? super Application, ApplicationSummary> fromApplication(final UriBuilder ub) {
+        return fromApplication(ub, null);
+    };
+
+    /** as {@link #fromApplication(UriBuilder)}, including only the given parts (see {@link #summaryFromApplication(Application, UriBuilder, Set)}) */
+    @Beta
+    public static Function<? super Application, ApplicationSummary> fromApplication(final UriBuilder ub, @Nullable final Set<String> fields) {
         return new Function<Application, ApplicationSummary>() {
             @Override
             public ApplicationSummary apply(Application application) {
-                return summaryFromApplication(application, ub);
+                return summaryFromApplication(application, ub, fields);
             }
         };
     };
@@ -109,8 +118,17 @@ public class ApplicationTransformer {
     }
 
     public static ApplicationSummary summaryFromApplication(Application application, UriBuilder ub) {
+        return summaryFromApplication(application, ub, null);
+    }
+
+    /**
+     * As {@link #summaryFromApplication(Application, UriBuilder)}, but building the {@code links} only if included
+     * in the given fields (or if fields is null); the other fields are always included.
+     */
+    @Beta
+    public static ApplicationSummary summaryFromApplication(Application application, UriBuilder ub, @Nullable Set<String> fields) {
         Map<String, URI> links;
-        if (application.getId() == null) {
+        if (application.getId() == null || !ListingUtils.isIncluded(fields, "links")) {
             links = Collections.emptyMap();
         } else {
             URI selfUri = serviceUriBuilder(ub, ApplicationApi.class, "get").build(application.getId());
@@ -23,6 +23,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import org.apache.brooklyn.api.catalog.CatalogItem;
 import org.apache.brooklyn.api.catalog.CatalogItem.CatalogItemType;
 import org.apache.brooklyn.api.effector.Effector;
@@ -49,12 +51,14 @@ import org.apache.brooklyn.rest.domain.PolicyConfigSummary;
 import org.apache.brooklyn.rest.domain.SensorSummary;
 import org.apache.brooklyn.rest.domain.SummaryComparators;
 import org.apache.brooklyn.rest.util.BrooklynRestResourceUtils;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.collections.MutableSet;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.javalang.Reflections;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
@@ -69,56 +73,80 @@ public class CatalogTransformer {
 
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(CatalogTransformer.class);
     
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <T extends Entity> CatalogEntitySummary catalogEntitySummary(BrooklynRestResourceUtils b, CatalogItem<T,EntitySpec<? extends T>> item, UriBuilder ub) {
+        return catalogEntitySummary(b, item, ub, null);
+    }
+
+    /**
+     * As {@link #catalogEntitySummary(BrooklynRestResourceUtils, CatalogItem, UriBuilder)}, but including the
+     * {@code config}, {@code sensors}, {@code effectors}, {@code tags} and {@code links} only if included in the
+     * given fields (or if fields is null). The spec is only created if one of the first four is wanted,
+     * which is much the most expensive part of the summary.
+     */
+    @Beta
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T extends Entity> CatalogEntitySummary catalogEntitySummary(BrooklynRestResourceUtils b, CatalogItem<T,EntitySpec<? extends T>> item, UriBuilder ub, @Nullable Set<String> fields) {
         Set<EntityConfigSummary> config = Sets.newLinkedHashSet();
         Set<SensorSummary> sensors = Sets.newTreeSet(SummaryComparators.nameComparator());
         Set<EffectorSummary> effectors = Sets.newTreeSet(SummaryComparators.nameComparator());
 
         EntitySpec<?> spec = null;
 
-        try {
-            spec = (EntitySpec<?>) b.getCatalog().createSpec((CatalogItem) item);
-            EntityDynamicType typeMap = BrooklynTypes.getDefinedEntityType(spec.getType());
-            EntityType type = typeMap.getSnapshot();
-
-            for (SpecParameter<?> input: spec.getParameters())
-                config.add(EntityTransformer.entityConfigSummary(input));
-            for (Sensor<?> x: type.getSensors())
-                sensors.add(SensorTransformer.sensorSummaryForCatalog(x));
-            for (Effector<?> x: type.getEffectors())
-                effectors.add(EffectorTransformer.effectorSummaryForCatalog(x));
-
-        } catch (Exception e) {
-            Exceptions.propagateIfFatal(e);
+        boolean specWanted = ListingUtils.isIncluded(fields, "config") || ListingUtils.isIncluded(fields, "sensors")
+                || ListingUtils.isIncluded(fields, "effectors") || ListingUtils.isIncluded(fields, "tags");
+        if (specWanted) {
+            try {
+                spec = (EntitySpec<?>) b.getCatalog().createSpec((CatalogItem) item);
+                EntityDynamicType typeMap = BrooklynTypes.getDefinedEntityType(spec.getType());
+                EntityType type = typeMap.getSnapshot();
+
+                for (SpecParameter<?> input: spec.getParameters())
+                    config.add(EntityTransformer.entityConfigSummary(input));
+                for (Sensor<?> x: type.getSensors())
+                    sensors.add(SensorTransformer.sensorSummaryForCatalog(x));
+                for (Effector<?> x: type.getEffectors())
+                    effectors.add(EffectorTransformer.effectorSummaryForCatalog(x));
+
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
             
-            // templates with multiple entities can't have spec created in the manner above; just ignore
-            if (item.getCatalogItemType()==CatalogItemType.ENTITY) {
-                log.warn("Unable to create spec for "+item+": "+e, e);
-            }
-            if (log.isTraceEnabled()) {
-                log.trace("Unable to create spec for "+item+": "+e, e);
+                // templates with multiple entities can't have spec created in the manner above; just ignore
+                if (item.getCatalogItemType()==CatalogItemType.ENTITY) {
+                    log.warn("Unable to create spec for "+item+": "+e, e);
+                }
+                if (log.isTraceEnabled()) {
+                    log.trace("Unable to create spec for "+item+": "+e, e);
+                }
             }
         }
         
         return new CatalogEntitySummary(item.getSymbolicName(), item.getVersion(), item.getDisplayName(),
             item.getJavaType(), item.getPlanYaml(),
             item.getDescription(), tidyIconLink(b, item, item.getIconUrl(), ub),
-            makeTags(spec, item), config, sensors, effectors,
-            item.isDeprecated(), makeLinks(item, ub));
+            ListingUtils.isIncluded(fields, "tags") ? makeTags(spec, item) : null,
+            ListingUtils.isIncluded(fields, "config") ? config : null,
+            ListingUtils.isIncluded(fields, "sensors") ? sensors : null,
+            ListingUtils.isIncluded(fields, "effectors") ? effectors : null,
+            item.isDeprecated(), makeLinks(item, ub, fields));
     }
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static CatalogItemSummary catalogItemSummary(BrooklynRestResourceUtils b, CatalogItem item, UriBuilder ub) {
+        return catalogItemSummary(b, item, ub, null);
+    }
+
+    /** as {@link #catalogItemSummary(BrooklynRestResourceUtils, CatalogItem, UriBuilder)}, including only the given parts */
+    @Beta
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static CatalogItemSummary catalogItemSummary(BrooklynRestResourceUtils b, CatalogItem item, UriBuilder ub, @Nullable Set<String> fields) {
         try {
             switch (item.getCatalogItemType()) {
             case TEMPLATE:
             case ENTITY:
-                return catalogEntitySummary(b, item, ub);
+                return catalogEntitySummary(b, item, ub, fields);
             case POLICY:
-                return catalogPolicySummary(b, item, ub);
+                return catalogPolicySummary(b, item, ub, fields);
             case LOCATION:
-                return catalogLocationSummary(b, item, ub);
+                return catalogLocationSummary(b, item, ub, fields);
             default:
                 log.warn("Unexpected catalog item type when getting self link (supplying generic item): "+item.getCatalogItemType()+" "+item);
             }
@@ -128,38 +156,56 @@ public class CatalogTransformer {
         }
         return new CatalogItemSummary(item.getSymbolicName(), item.getVersion(), item.getDisplayName(),
             item.getJavaType(), item.getPlanYaml(),
-            item.getDescription(), tidyIconLink(b, item, item.getIconUrl(), ub), item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub));
+            item.getDescription(), tidyIconLink(b, item, item.getIconUrl(), ub), item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub, fields));
     }
 
     public static CatalogPolicySummary catalogPolicySummary(BrooklynRestResourceUtils b, CatalogItem<? extends Policy,PolicySpec<?>> item, UriBuilder ub) {
+        return catalogPolicySummary(b, item, ub, null);
+    }
+
+    /** as {@link #catalogPolicySummary(BrooklynRestResourceUtils, CatalogItem, UriBuilder)}, creating the spec only if {@code config} is included */
+    @Beta
+    public static CatalogPolicySummary catalogPolicySummary(BrooklynRestResourceUtils b, CatalogItem<? extends Policy,PolicySpec<?>> item, UriBuilder ub, @Nullable Set<String> fields) {
         final Set<PolicyConfigSummary> config = Sets.newLinkedHashSet();
-        try{
-            final PolicySpec<?> spec = (PolicySpec<?>) b.getCatalog().createSpec((CatalogItem) item);
-            for (final SpecParameter<?> input : spec.getParameters()){
-                config.add(EntityTransformer.policyConfigSummary(input));
+        if (ListingUtils.isIncluded(fields, "config")) {
+            try{
+                final PolicySpec<?> spec = (PolicySpec<?>) b.getCatalog().createSpec((CatalogItem) item);
+                for (final SpecParameter<?> input : spec.getParameters()){
+                    config.add(EntityTransformer.policyConfigSummary(input));
+                }
+            }catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                log.trace("Unable to create policy spec for "+item+": "+e, e);
             }
-        }catch (Exception e) {
-            Exceptions.propagateIfFatal(e);
-            log.trace("Unable to create policy spec for "+item+": "+e, e);
         }
         return new CatalogPolicySummary(item.getSymbolicName(), item.getVersion(), item.getDisplayName(),
                 item.getJavaType(), item.getPlanYaml(),
                 item.getDescription(), tidyIconLink(b, item, item.getIconUrl(), ub), config,
-                item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub));
+                item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub, fields));
     }
 
     public static CatalogLocationSummary catalogLocationSummary(BrooklynRestResourceUtils b, CatalogItem<? extends Location,LocationSpec<?>> item, UriBuilder ub) {
+        return catalogLocationSummary(b, item, ub, null);
+    }
+
+    /** as {@link #catalogLocationSummary(BrooklynRestResourceUtils, CatalogItem, UriBuilder)}, including only the given parts */
+    @Beta
+    public static CatalogLocationSummary catalogLocationSummary(BrooklynRestResourceUtils b, CatalogItem<? extends Location,LocationSpec<?>> item, UriBuilder ub, @Nullable Set<String> fields) {
         Set<LocationConfigSummary> config = ImmutableSet.of();
         return new CatalogLocationSummary(item.getSymbolicName(), item.getVersion(), item.getDisplayName(),
                 item.getJavaType(), item.getPlanYaml(),
                 item.getDescription(), tidyIconLink(b, item, item.getIconUrl(), ub), config,
-                item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub));
+                item.tags().getTags(), item.isDeprecated(), makeLinks(item, ub, fields));
     }
 
     protected static Map<String, URI> makeLinks(CatalogItem<?,?> item, UriBuilder ub) {
         return MutableMap.<String, URI>of().addIfNotNull("self", getSelfLink(item, ub));
     }
 
+    private static Map<String, URI> makeLinks(CatalogItem<?,?> item, UriBuilder ub, @Nullable Set<String> fields) {
+        return ListingUtils.isIncluded(fields, "links") ? makeLinks(item, ub) : null;
+    }
+
     protected static URI getSelfLink(CatalogItem<?,?> item, UriBuilder ub) {
         String itemId = item.getId();
         switch (item.getCatalogItemType()) {
@@ -24,6 +24,9 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
 
 import org.apache.brooklyn.api.catalog.CatalogConfig;
 import org.apache.brooklyn.api.entity.Application;
@@ -36,6 +39,7 @@ import org.apache.brooklyn.rest.domain.EntitySummary;
 import org.apache.brooklyn.rest.domain.PolicyConfigSummary;
 import org.apache.brooklyn.util.collections.MutableMap;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -46,6 +50,7 @@ import org.apache.brooklyn.rest.api.ApplicationApi;
 import org.apache.brooklyn.rest.api.CatalogApi;
 import org.apache.brooklyn.rest.api.EntityApi;
 import org.apache.brooklyn.rest.api.EntityConfigApi;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import static org.apache.brooklyn.rest.util.WebResourceUtils.serviceUriBuilder;
 
 /**
@@ -54,15 +59,35 @@ import static org.apache.brooklyn.rest.util.WebResourceUtils.serviceUriBuilder;
 public class EntityTransformer {
 
     public static final Function<? super Entity, EntitySummary> fromEntity(final UriBuilder ub) {
+        return fromEntity(ub, null);
+    };
+
+    /** as {@link #fromEntity(UriBuilder)}, including only the given parts (see {@link #entitySummary(Entity, UriBuilder, Set)}) */
+    @Beta
+    public static final Function<? super Entity, EntitySummary> fromEntity(final UriBuilder ub, @Nullable final Set<String> fields) {
         return new Function<Entity, EntitySummary>() {
             @Override
             public EntitySummary apply(Entity entity) {
-                return EntityTransformer.entitySummary(entity, ub);
+                return EntityTransformer.entitySummary(entity, ub, fields);
             }
         };
     };
 
     public static EntitySummary entitySummary(Entity entity, UriBuilder ub) {
+        return entitySummary(entity, ub, null);
+    }
+
+    /**
+     * As {@link #entitySummary(Entity, UriBuilder)}, but building the {@code links} only if included in the
+     * given fields (or if fields is null); the other fields are cheap so are always included.
+     */
+    @Beta
+    public static EntitySummary entitySummary(Entity entity, UriBuilder ub, @Nullable Set<String> fields) {
+        String type = entity.getEntityType().getName();
+        if (!ListingUtils.isIncluded(fields, "links")) {
+            return new EntitySummary(entity.getId(), entity.getDisplayName(), type, entity.getCatalogItemId(), null);
+        }
+
         URI applicationUri = serviceUriBuilder(ub, ApplicationApi.class, "get").build(entity.getApplicationId());
         URI entityUri = serviceUriBuilder(ub, EntityApi.class, "get").build(entity.getApplicationId(), entity.getId());
         ImmutableMap.Builder<String, URI> lb = ImmutableMap.<String, URI>builder()
@@ -104,17 +129,22 @@ public class EntityTransformer {
             lb.put("catalog", catalogUri);
         }
 
-        String type = entity.getEntityType().getName();
         return new EntitySummary(entity.getId(), entity.getDisplayName(), type, entity.getCatalogItemId(), lb.build());
     }
 
     public static List<EntitySummary> entitySummaries(Iterable<? extends Entity> entities, final UriBuilder ub) {
+        return entitySummaries(entities, ub, null);
+    }
+
+    /** as {@link #entitySummaries(Iterable, UriBuilder)}, including only the given parts (see {@link #entitySummary(Entity, UriBuilder, Set)}) */
+    @Beta
+    public static List<EntitySummary> entitySummaries(Iterable<? extends Entity> entities, final UriBuilder ub, @Nullable final Set<String> fields) {
         return Lists.newArrayList(transform(
             entities,
             new Function<Entity, EntitySummary>() {
                 @Override
                 public EntitySummary apply(Entity entity) {
-                    return EntityTransformer.entitySummary(entity, ub);
+                    return EntityTransformer.entitySummary(entity, ub, fields);
                 }
             }));
     }
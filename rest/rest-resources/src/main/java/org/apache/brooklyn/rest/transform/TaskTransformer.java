@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -36,12 +37,14 @@ import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags.WrappedStream;
 import org.apache.brooklyn.rest.domain.LinkWithMetadata;
 import org.apache.brooklyn.rest.domain.TaskSummary;
+import org.apache.brooklyn.rest.util.ListingUtils;
 import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.brooklyn.util.collections.MutableMap;
 import org.apache.brooklyn.util.core.task.TaskInternal;
 import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.text.Strings;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import javax.ws.rs.core.UriBuilder;
@@ -55,15 +58,31 @@ public class TaskTransformer {
     private static final Logger log = LoggerFactory.getLogger(TaskTransformer.class);
 
     public static final Function<Task<?>, TaskSummary> fromTask(final UriBuilder ub) {
+        return fromTask(ub, null);
+    };
+
+    /** as {@link #fromTask(UriBuilder)}, including only the given parts (see {@link #taskSummary(Task, UriBuilder, Set)}) */
+    @Beta
+    public static final Function<Task<?>, TaskSummary> fromTask(final UriBuilder ub, @Nullable final Set<String> fields) {
         return new Function<Task<?>, TaskSummary>() {
             @Override
             public TaskSummary apply(@Nullable Task<?> input) {
-                return taskSummary(input, ub);
+                return taskSummary(input, ub, fields);
             }
         };
     };
 
     public static TaskSummary taskSummary(Task<?> task, UriBuilder ub) {
+        return taskSummary(task, ub, null);
+    }
+
+    /**
+     * As {@link #taskSummary(Task, UriBuilder)}, but computing the {@code tags}, {@code result}, {@code children},
+     * {@code streams}, {@code detailedStatus} and {@code links} only if included in the given fields (or if fields
+     * is null); these are left null or empty otherwise. The other fields are cheap so are always included.
+     */
+    @Beta
+    public static TaskSummary taskSummary(Task<?> task, UriBuilder ub, @Nullable Set<String> fields) {
       try {
         Preconditions.checkNotNull(task);
         Entity entity = BrooklynTaskTags.getContextEntity(task);
@@ -83,32 +102,41 @@ public class TaskTransformer {
             entityLink = null;
         }
 
-        List<LinkWithMetadata> children = Collections.emptyList();
-        if (task instanceof HasTaskChildren) {
-            children = new ArrayList<LinkWithMetadata>();
-            for (Task<?> t: ((HasTaskChildren)task).getChildren()) {
-                children.add(asLink(t, ub));
+        List<LinkWithMetadata> children = null;
+        if (ListingUtils.isIncluded(fields, "children")) {
+            children = Collections.emptyList();
+            if (task instanceof HasTaskChildren) {
+                children = new ArrayList<LinkWithMetadata>();
+                for (Task<?> t: ((HasTaskChildren)task).getChildren()) {
+                    children.add(asLink(t, ub));
+                }
             }
         }
         
-        Map<String,LinkWithMetadata> streams = new MutableMap<String, LinkWithMetadata>();
-        for (WrappedStream stream: BrooklynTaskTags.streams(task)) {
-            MutableMap<String, Object> metadata = MutableMap.<String,Object>of("name", stream.streamType);
-            if (stream.streamSize.get()!=null) {
-                metadata.add("size", stream.streamSize.get());
-                metadata.add("sizeText", Strings.makeSizeString(stream.streamSize.get()));
+        Map<String,LinkWithMetadata> streams = null;
+        if (ListingUtils.isIncluded(fields, "streams")) {
+            streams = new MutableMap<String, LinkWithMetadata>();
+            for (WrappedStream stream: BrooklynTaskTags.streams(task)) {
+                MutableMap<String, Object> metadata = MutableMap.<String,Object>of("name", stream.streamType);
+                if (stream.streamSize.get()!=null) {
+                    metadata.add("size", stream.streamSize.get());
+                    metadata.add("sizeText", Strings.makeSizeString(stream.streamSize.get()));
+                }
+                String link = selfLink+"/stream/"+stream.streamType;
+                streams.put(stream.streamType, new LinkWithMetadata(link, metadata));
             }
-            String link = selfLink+"/stream/"+stream.streamType;
-            streams.put(stream.streamType, new LinkWithMetadata(link, metadata));
         }
         
-        Map<String,URI> links = MutableMap.of("self", new URI(selfLink),
-                "children", new URI(selfLink+"/"+"children"));
-        if (entityLink!=null) links.put("entity", entityLink);
+        Map<String,URI> links = null;
+        if (ListingUtils.isIncluded(fields, "links")) {
+            links = MutableMap.of("self", new URI(selfLink),
+                    "children", new URI(selfLink+"/"+"children"));
+            if (entityLink!=null) links.put("entity", entityLink);
+        }
         
         Object result;
         try {
-            if (task.isDone()) {
+            if (task.isDone() && ListingUtils.isIncluded(fields, "result")) {
                 result = WebResourceUtils.getValueForDisplay(task.get(), true, false);
             } else {
                 result = null;
@@ -118,12 +146,12 @@ public class TaskTransformer {
         }
         
         return new TaskSummary(task.getId(), task.getDisplayName(), task.getDescription(), entityId, entityDisplayName, 
-                task.getTags(), ifPositive(task.getSubmitTimeUtc()), ifPositive(task.getStartTimeUtc()), ifPositive(task.getEndTimeUtc()),
+                ListingUtils.isIncluded(fields, "tags") ? task.getTags() : null, ifPositive(task.getSubmitTimeUtc()), ifPositive(task.getStartTimeUtc()), ifPositive(task.getEndTimeUtc()),
                 task.getStatusSummary(), result, task.isError(), task.isCancelled(),
                 children, asLink(task.getSubmittedByTask(), ub),
                 task.isDone() ? null : task instanceof TaskInternal ? asLink(((TaskInternal<?>)task).getBlockingTask(), ub) : null,
                 task.isDone() ? null : task instanceof TaskInternal ? ((TaskInternal<?>)task).getBlockingDetails() : null, 
-                task.getStatusDetail(true),
+                ListingUtils.isIncluded(fields, "detailedStatus") ? task.getStatusDetail(true) : null,
                 streams,
                 links);
       } catch (URISyntaxException e) {
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.config.StringConfigMap;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+
+/**
+ * Admission control for REST requests, used by {@link org.apache.brooklyn.rest.filter.AdmissionControlFilter},
+ * so that a single heavy client cannot starve others of the management node.
+ * <p>
+ * Requests are limited by token buckets per user (or per client address, where there is no user) and per endpoint,
+ * and requests to expensive endpoints are limited in how many can run concurrently. Requests to exempt endpoints,
+ * by default the server and HA endpoints, are always admitted. All limits are off unless configured.
+ * <p>
+ * The instance for a management context is shared, so that the counters can be read by
+ * {@link org.apache.brooklyn.rest.api.ServerApi#getAdmissionMetrics()}.
+ */
+@Beta
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    public static final String ADMISSION_CONFIG_PREFIX = "brooklyn.rest.admission";
+
+    public static final ConfigKey<Double> USER_RATE = ConfigKeys.newDoubleConfigKey(ADMISSION_CONFIG_PREFIX+".user.rate",
+            "Requests per second allowed from each user (or client address, if there is no user); 0 (the default) for no limit", 0d);
+    public static final ConfigKey<Integer> USER_BURST = ConfigKeys.newIntegerConfigKey(ADMISSION_CONFIG_PREFIX+".user.burst",
+            "Requests allowed in a burst from each user, above the steady rate", 20);
+    public static final ConfigKey<Double> ENDPOINT_RATE = ConfigKeys.newDoubleConfigKey(ADMISSION_CONFIG_PREFIX+".endpoint.rate",
+            "Requests per second allowed to each endpoint, across all users; 0 (the default) for no limit", 0d);
+    public static final ConfigKey<Integer> ENDPOINT_BURST = ConfigKeys.newIntegerConfigKey(ADMISSION_CONFIG_PREFIX+".endpoint.burst",
+            "Requests allowed in a burst to each endpoint, above the steady rate", 50);
+    public static final ConfigKey<String> EXPENSIVE_PATHS = ConfigKeys.newStringConfigKey(ADMISSION_CONFIG_PREFIX+".expensive.paths",
+            "Regular expression for the paths (relative to the REST API root) of expensive endpoints, "
+            + "including those which stream their response (which hold a permit while streaming)",
+            "applications/fetch|sensors/query|.*/descendants(/.*)?|.*/activities|activities/[^/]+/children(/.*)?"
+            + "|events/stream|activities/[^/]+/stream/[^/]+/range");
+    public static final ConfigKey<Integer> EXPENSIVE_MAX_CONCURRENT = ConfigKeys.newIntegerConfigKey(ADMISSION_CONFIG_PREFIX+".expensive.maxConcurrent",
+            "Maximum number of requests to expensive endpoints which can run concurrently; 0 (the default) for no limit", 0);
+    public static final ConfigKey<String> EXEMPT_PATHS = ConfigKeys.newStringConfigKey(ADMISSION_CONFIG_PREFIX+".exempt.paths",
+            "Regular expression for the paths (relative to the REST API root) of endpoints which are never limited, "
+            + "such as the server status and HA endpoints", "server(/.*)?");
+
+    private static final String ADMISSION_CONTROL_ATTRIBUTE = AdmissionControl.class.getName();
+
+    /** returns the admission control for the management context, creating it from its properties if necessary */
+    public static AdmissionControl get(ManagementContext mgmt) {
+        checkNotNull(mgmt, "mgmt");
+        synchronized (mgmt) {
+            ConfigKey<AdmissionControl> key = ConfigKeys.newConfigKey(AdmissionControl.class, ADMISSION_CONTROL_ATTRIBUTE);
+            AdmissionControl result = mgmt.getConfig().getConfig(key);
+            if (result == null) {
+                result = new AdmissionControl(mgmt.getConfig());
+                ((BrooklynProperties) mgmt.getConfig()).put(key, result);
+            }
+            return result;
+        }
+    }
+
+    /** the outcome of {@link AdmissionControl#admit(String, String, String)}: whether admitted, and if not why not */
+    public static class Admission {
+        private final boolean admitted;
+        private final boolean holdsPermit;
+        private final String reason;
+        private final long retryAfterSeconds;
+
+        private Admission(boolean admitted, boolean holdsPermit, String reason, long retryAfterSeconds) {
+            this.admitted = admitted;
+            this.holdsPermit = holdsPermit;
+            this.reason = reason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isAdmitted() { return admitted; }
+        /** whether {@link AdmissionControl#release(Admission)} must be called when the request is done */
+        public boolean holdsPermit() { return holdsPermit; }
+        public String getReason() { return reason; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+
+    private static final Admission ADMITTED = new Admission(true, false, null, 0);
+    private static final Admission ADMITTED_WITH_PERMIT = new Admission(true, true, null, 0);
+
+    private final double userRate;
+    private final int userBurst;
+    private final double endpointRate;
+    private final int endpointBurst;
+    private final Pattern expensivePaths;
+    private final Pattern exemptPaths;
+    private final int expensiveMaxConcurrent;
+    private final Semaphore expensivePermits;
+
+    private final LoadingCache<String, TokenBucket> userBuckets;
+    private final LoadingCache<String, TokenBucket> endpointBuckets;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong exempt = new AtomicLong();
+    private final AtomicLong rejectedUserRate = new AtomicLong();
+    private final AtomicLong rejectedEndpointRate = new AtomicLong();
+    private final AtomicLong rejectedConcurrency = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> rejectedByEndpoint = Maps.newConcurrentMap();
+
+    @VisibleForTesting
+    public AdmissionControl(StringConfigMap config) {
+        userRate = config.getConfig(USER_RATE);
+        userBurst = Math.max(1, config.getConfig(USER_BURST));
+        endpointRate = config.getConfig(ENDPOINT_RATE);
+        endpointBurst = Math.max(1, config.getConfig(ENDPOINT_BURST));
+        expensivePaths = compile(config.getConfig(EXPENSIVE_PATHS));
+        exemptPaths = compile(config.getConfig(EXEMPT_PATHS));
+        expensiveMaxConcurrent = config.getConfig(EXPENSIVE_MAX_CONCURRENT);
+        expensivePermits = expensiveMaxConcurrent > 0 ? new Semaphore(expensiveMaxConcurrent) : null;
+
+        // idle users' buckets are discarded; a new bucket starts full so this loses nothing
+        userBuckets = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES)
+                .build(new TokenBucketLoader(userRate, userBurst));
+        endpointBuckets = CacheBuilder.newBuilder()
+                .build(new TokenBucketLoader(endpointRate, endpointBurst));
+
+        if (isLimiting()) {
+            log.info("REST admission control: user rate "+userRate+"/s (burst "+userBurst+"), endpoint rate "+endpointRate
+                    +"/s (burst "+endpointBurst+"), expensive endpoints concurrency "+expensiveMaxConcurrent);
+        }
+    }
+
+    private static Pattern compile(@Nullable String regex) {
+        return Strings.isBlank(regex) ? null : Pattern.compile(regex);
+    }
+
+    /** whether any limits are configured */
+    public boolean isLimiting() {
+        return userRate > 0 || endpointRate > 0 || expensivePermits != null;
+    }
+
+    /**
+     * Decides whether to admit a request.
+     *
+     * @param user the user, or some other identifier of the client such as its address
+     * @param endpoint identifies the endpoint, e.g. the resource method
+     * @param path the path of the request relative to the REST API root, e.g. {@code applications/fetch}
+     */
+    public Admission admit(String user, String endpoint, String path) {
+        if (exemptPaths != null && exemptPaths.matcher(path).matches()) {
+            exempt.incrementAndGet();
+            return ADMITTED;
+        }
+        if (userRate > 0) {
+            long wait = bucket(userBuckets, user).tryAcquire();
+            if (wait > 0) {
+                rejectedUserRate.incrementAndGet();
+                return reject(endpoint, "Too many requests from user '"+user+"'", wait);
+            }
+        }
+        if (endpointRate > 0) {
+            long wait = bucket(endpointBuckets, endpoint).tryAcquire();
+            if (wait > 0) {
+                rejectedEndpointRate.incrementAndGet();
+                return reject(endpoint, "Too many requests to "+endpoint, wait);
+            }
+        }
+        if (expensivePermits != null && expensivePaths != null && expensivePaths.matcher(path).matches()) {
+            if (!expensivePermits.tryAcquire()) {
+                rejectedConcurrency.incrementAndGet();
+                return reject(endpoint, "Too many concurrent requests to expensive endpoints", 1);
+            }
+            admitted.incrementAndGet();
+            return ADMITTED_WITH_PERMIT;
+        }
+        admitted.incrementAndGet();
+        return ADMITTED;
+    }
+
+    /** to be called when a request admitted with {@link Admission#holdsPermit()} is done */
+    public void release(Admission admission) {
+        if (admission.holdsPermit() && expensivePermits != null) {
+            expensivePermits.release();
+        }
+    }
+
+    private Admission reject(String endpoint, String reason, long retryAfterSeconds) {
+        AtomicLong count = rejectedByEndpoint.get(endpoint);
+        if (count == null) {
+            rejectedByEndpoint.putIfAbsent(endpoint, new AtomicLong());
+            count = rejectedByEndpoint.get(endpoint);
+        }
+        count.incrementAndGet();
+        return new Admission(false, false, reason, retryAfterSeconds);
+    }
+
+    private static TokenBucket bucket(LoadingCache<String, TokenBucket> buckets, String key) {
+        try {
+            return buckets.get(key);
+        } catch (ExecutionException e) {
+            throw Exceptions.propagate(e.getCause());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Long> byEndpoint = MutableMap.of();
+        for (Map.Entry<String, AtomicLong> entry : rejectedByEndpoint.entrySet()) {
+            byEndpoint.put(entry.getKey(), entry.getValue().get());
+        }
+        return MutableMap.<String, Object>builder()
+                .put("limiting", isLimiting())
+                .put("admitted", admitted.get())
+                .put("exempt", exempt.get())
+                .put("rejectedUserRate", rejectedUserRate.get())
+                .put("rejectedEndpointRate", rejectedEndpointRate.get())
+                .put("rejectedConcurrency", rejectedConcurrency.get())
+                .put("rejectedByEndpoint", byEndpoint)
+                .put("expensiveInFlight", expensivePermits == null ? 0 : expensiveMaxConcurrent - expensivePermits.availablePermits())
+                .build();
+    }
+
+    private static class TokenBucketLoader extends CacheLoader<String, TokenBucket> {
+        private final double rate;
+        private final int burst;
+
+        TokenBucketLoader(double rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        @Override
+        public TokenBucket load(String key) {
+            return new TokenBucket(rate, burst);
+        }
+    }
+
+    /** a bucket which fills at {@code rate} tokens per second, up to {@code capacity} */
+    @VisibleForTesting
+    static class TokenBucket {
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double rate, double capacity) {
+            this.rate = rate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /** takes a token if there is one, returning 0, otherwise returns the number of seconds until there will be one */
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1e9 * rate);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / rate));
+        }
+    }
+}
@@ -66,6 +66,12 @@ public class DefaultExceptionMapper implements ExceptionMapper<Throwable> {
             return null;
         }
 
+        // not an error (e.g. 304 Not Modified for a conditional GET), so no need to log
+        if (throwable1 instanceof WebApplicationException) {
+            Response response = ((WebApplicationException) throwable1).getResponse();
+            if (response != null && response.getStatus() < 400) return response;
+        }
+
         Throwable throwable2 = Exceptions.getFirstInteresting(throwable1);
         if (isSevere(throwable2)) {
             LOG.warn("REST request running as {} threw: {}", Entitlements.getEntitlementContext(), 
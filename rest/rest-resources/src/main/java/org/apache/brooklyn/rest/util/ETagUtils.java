@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.rest.filter.NoCacheFilter;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Support for conditional GETs: computes cheap (weak) {@link EntityTag}s for the state of entities and tasks,
+ * and short-circuits a request with {@code 304 Not Modified} if the client already has the current version.
+ * <p>
+ * Tags are computed from {@link org.apache.brooklyn.core.mgmt.internal.EntityManagementSupport#getChangeVersion()},
+ * so need no transformation or serialization of the response. They include the management node id (as versions
+ * are not comparable across nodes or restarts) and the user (as entitlements affect what is returned).
+ */
+@Beta
+public class ETagUtils {
+
+    /**
+     * Request attribute (and so {@link javax.ws.rs.container.ContainerRequestContext} property) holding the tag
+     * to be returned with the response.
+     */
+    public static final String RESPONSE_TAG_ATTRIBUTE = ETagUtils.class.getName()+".responseTag";
+
+    private ETagUtils() {}
+
+    /** a tag which changes when the entity changes */
+    public static EntityTag forEntity(ManagementContext mgmt, Entity entity) {
+        return forEntities(mgmt, ImmutableList.of(entity));
+    }
+
+    /** a tag which changes when any of the entities changes, or when entities are added to or removed from the set */
+    public static EntityTag forEntities(ManagementContext mgmt, Iterable<? extends Entity> entities) {
+        long version = 0;
+        int count = 0;
+        for (Entity entity : entities) {
+            version = Math.max(version, ((EntityInternal)entity).getManagementSupport().getChangeVersion());
+            count++;
+        }
+        return newTag(mgmt, Long.toHexString(version)+"-"+count);
+    }
+
+    /** a tag for a task, if it is done (and so will not change); otherwise null */
+    @Nullable
+    public static EntityTag forTask(ManagementContext mgmt, Task<?> task) {
+        if (!task.isDone()) return null;
+        return newTag(mgmt, task.getId()+"-"+Long.toHexString(task.getEndTimeUtc()));
+    }
+
+    private static EntityTag newTag(ManagementContext mgmt, String version) {
+        EntitlementContext entitlementContext = Entitlements.getEntitlementContext();
+        String user = (entitlementContext != null) ? entitlementContext.user() : null;
+        return new EntityTag(mgmt.getManagementNodeId()+"-"+version+"-"+Integer.toHexString(Objects.hashCode(user)), true);
+    }
+
+    /**
+     * Throws a {@code 304 Not Modified} response if the request's {@code If-None-Match} matches the given tag;
+     * otherwise records the tag in the request's {@link #RESPONSE_TAG_ATTRIBUTE}, to be returned with the response
+     * (by {@link NoCacheFilter}), and returns so that the caller can compute the response. Does nothing if the tag is null.
+     * <p>
+     * The tag should be computed before reading the state to be returned, so that concurrent changes result in a
+     * different tag next time.
+     */
+    public static void checkNotModified(Request request, @Nullable HttpServletRequest servletRequest, @Nullable EntityTag tag) {
+        if (tag == null) return;
+        ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            throw new WebApplicationException(notModified.tag(tag).build());
+        }
+        if (servletRequest != null) servletRequest.setAttribute(RESPONSE_TAG_ATTRIBUTE, tag);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.brooklyn.api.entity.Entity;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.SubscriptionHandle;
+import org.apache.brooklyn.api.mgmt.entitlement.EntitlementContext;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.api.sensor.Sensor;
+import org.apache.brooklyn.api.sensor.SensorEvent;
+import org.apache.brooklyn.api.sensor.SensorEventListener;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements;
+import org.apache.brooklyn.core.mgmt.entitlement.Entitlements.EntityAndItem;
+import org.apache.brooklyn.rest.resources.AbstractBrooklynRestResource.RestValueResolver;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.text.Identifiers;
+import org.apache.brooklyn.util.text.WildcardGlobs;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+
+/**
+ * Streams the sensor and notification events of entities to a REST client, as server-sent events or
+ * newline-delimited JSON, for as long as the client stays connected or until a timeout.
+ * <p>
+ * Subscribes (with a wildcard subscription, filtered when the event is published) and reads the current values
+ * (if requested) when constructed, so no events are missed between then and the stream being written. Events are only included for the entities and
+ * sensors the user is entitled to see, checked with the user's entitlement context at the time of the request.
+ * <p>
+ * Events are buffered for the client up to a bound; if the client does not keep up, events are dropped and
+ * an {@code overflow} event (with the number dropped) is sent, after which the client should re-read the
+ * current state.
+ */
+@Beta
+public class EntityEventStream implements StreamingOutput {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityEventStream.class);
+
+    public enum Format {
+        SSE,
+        NDJSON
+    }
+
+    public static final int MAX_BUFFER_SIZE = 10000;
+
+    /** interval at which to send a heartbeat when there are no events, so that proxies keep the connection open */
+    public static final Duration HEARTBEAT_INTERVAL = Duration.seconds(15);
+
+    /** maximum number of events to write before flushing */
+    private static final int MAX_BATCH = 100;
+
+    private final ManagementContext mgmt;
+    private final ObjectMapper mapper;
+    private final EntitlementContext entitlementContext;
+    private final @Nullable String applicationId;
+    private final @Nullable Entity entity;
+    private final List<String> sensorGlobs;
+    private final boolean raw;
+    private final Format format;
+    private final @Nullable Duration timeout;
+
+    private final BlockingQueue<Map<String, Object>> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<String, Boolean> sensorNameMatches = new ConcurrentHashMap<String, Boolean>();
+    private final ConcurrentMap<String, Boolean> entityEntitlements = new ConcurrentHashMap<String, Boolean>();
+    private final SubscriptionHandle subscription;
+    private List<Map<String, Object>> initialEvents;
+
+    /**
+     * Subscribes for events of the given entity, or else of all entities of the given application, or else of all
+     * entities; {@link #write(OutputStream)} must then be called, to write the events and finally unsubscribe.
+     */
+    public EntityEventStream(ManagementContext mgmt, ObjectMapper mapper, @Nullable Entity application, @Nullable Entity entity,
+            String sensorGlob, boolean initial, boolean raw, Format format, int bufferSize, @Nullable Duration timeout) {
+        this.mgmt = mgmt;
+        this.mapper = mapper;
+        this.entitlementContext = Entitlements.getEntitlementContext();
+        this.applicationId = (application != null) ? application.getApplicationId() : null;
+        this.entity = entity;
+        this.sensorGlobs = WildcardGlobs.getGlobsAfterBraceExpansion(sensorGlob);
+        this.raw = raw;
+        this.format = format;
+        this.timeout = timeout;
+        this.buffer = new ArrayBlockingQueue<Map<String, Object>>(Math.max(1, Math.min(bufferSize, MAX_BUFFER_SIZE)));
+
+        Map<String, Object> flags = MutableMap.<String, Object>of(
+                "subscriber", "rest-event-stream-"+Identifiers.makeRandomId(8),
+                "eventFilter", new Predicate<SensorEvent<Object>>() {
+                    @Override public boolean apply(SensorEvent<Object> input) {
+                        return isInScope(input.getSource()) && isSensorNameMatched(input.getSensor().getName());
+                    }});
+        subscription = mgmt.getSubscriptionManager().subscribe(flags, entity, null, new SensorEventListener<Object>() {
+            @Override public void onEvent(SensorEvent<Object> event) {
+                offer(event.getSource(), event.getSensor(), event.getValue(), event.getTimestamp());
+            }});
+
+        // not buffered, as there may be more than the buffer holds
+        initialEvents = MutableList.of();
+        if (initial) {
+            for (Entity e : getEntitiesInScope()) {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<AttributeSensor<?>, Object> entry : ((EntityInternal)e).sensors().getAll().entrySet()) {
+                    if (isSensorNameMatched(entry.getKey().getName()) && isEntitled(e, entry.getKey())) {
+                        initialEvents.add(newEvent(e, entry.getKey(), entry.getValue(), now));
+                    }
+                }
+            }
+        }
+    }
+
+    private Iterable<? extends Entity> getEntitiesInScope() {
+        if (entity != null) return MutableList.of(entity);
+        if (applicationId != null) {
+            Entity application = mgmt.getEntityManager().getEntity(applicationId);
+            return (application == null) ? MutableList.<Entity>of() : Entities.descendantsAndSelf(application);
+        }
+        return mgmt.getEntityManager().getEntities();
+    }
+
+    private boolean isInScope(Entity source) {
+        // the subscription is to the entity, if given
+        return applicationId == null || applicationId.equals(source.getApplicationId());
+    }
+
+    private boolean isSensorNameMatched(String name) {
+        Boolean result = sensorNameMatches.get(name);
+        if (result == null) {
+            result = false;
+            for (String glob : sensorGlobs) {
+                if (WildcardGlobs.isNoBraceGlobMatched(glob, name)) {
+                    result = true;
+                    break;
+                }
+            }
+            sensorNameMatches.put(name, result);
+        }
+        return result;
+    }
+
+    private boolean isEntitled(Entity source, Sensor<?> sensor) {
+        Boolean seeEntity = entityEntitlements.get(source.getId());
+        if (seeEntity == null) {
+            seeEntity = mgmt.getEntitlementManager().isEntitled(entitlementContext, Entitlements.SEE_ENTITY, source);
+            entityEntitlements.put(source.getId(), seeEntity);
+        }
+        return seeEntity && mgmt.getEntitlementManager().isEntitled(entitlementContext, Entitlements.SEE_SENSOR,
+                new EntityAndItem<String>(source, sensor.getName()));
+    }
+
+    private Map<String, Object> newEvent(Entity source, Sensor<?> sensor, Object value, long timestamp) {
+        Object renderedValue = RestValueResolver.resolving(value).mapper(mapper).preferJson(true).asJerseyOutermostReturnValue(false)
+                .raw(raw).context(source).timeout(Duration.ZERO).renderAs(sensor).resolve();
+        return MutableMap.<String, Object>of(
+                "type", (sensor instanceof AttributeSensor) ? "sensor" : "notification",
+                "application", source.getApplicationId(),
+                "entity", source.getId(),
+                "sensor", sensor.getName(),
+                "value", renderedValue,
+                "timestamp", timestamp);
+    }
+
+    private void offer(Entity source, Sensor<?> sensor, Object value, long timestamp) {
+        if (!isEntitled(source, sensor)) return;
+        Map<String, Object> event = newEvent(source, sensor, value, timestamp);
+        if (!buffer.offer(event)) {
+            if (dropped.incrementAndGet() == 1) {
+                log.debug("Event stream buffer full for {}, dropping events until the client catches up", entitlementContext);
+            }
+        }
+    }
+
+    @Override
+    public void write(OutputStream out) throws IOException, WebApplicationException {
+        long deadline = (timeout != null) ? System.currentTimeMillis() + timeout.toMilliseconds() : Long.MAX_VALUE;
+        List<Map<String, Object>> batch = MutableList.of();
+        try {
+            if (initialEvents != null) {
+                for (Map<String, Object> e : initialEvents) {
+                    writeEvent(out, e);
+                }
+                initialEvents = null;
+                out.flush();
+            }
+            while (true) {
+                long waitMillis = Math.min(HEARTBEAT_INTERVAL.toMilliseconds(), deadline - System.currentTimeMillis());
+                if (waitMillis <= 0) break;
+                Map<String, Object> event = buffer.poll(waitMillis, TimeUnit.MILLISECONDS);
+
+                long droppedCount = dropped.getAndSet(0);
+                if (droppedCount > 0) {
+                    writeEvent(out, MutableMap.<String, Object>of("type", "overflow", "dropped", droppedCount));
+                }
+                if (event == null) {
+                    if (System.currentTimeMillis() < deadline) writeHeartbeat(out);
+                } else {
+                    writeEvent(out, event);
+                    buffer.drainTo(batch, MAX_BATCH);
+                    for (Map<String, Object> e : batch) {
+                        writeEvent(out, e);
+                    }
+                    batch.clear();
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // typically the client has disconnected
+            log.debug("Event stream for {} ended: {}", entitlementContext, e.toString());
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        } finally {
+            mgmt.getSubscriptionManager().unsubscribe(subscription);
+            buffer.clear();
+        }
+    }
+
+    private void writeEvent(OutputStream out, Map<String, Object> event) throws IOException {
+        String json = mapper.writeValueAsString(event);
+        String text = (format == Format.SSE)
+                ? "id: "+sequence.incrementAndGet()+"\nevent: "+event.get("type")+"\ndata: "+json+"\n\n"
+                : json+"\n";
+        out.write(text.getBytes(Charsets.UTF_8));
+    }
+
+    private void writeHeartbeat(OutputStream out) throws IOException {
+        if (format == Format.SSE) {
+            out.write(": heartbeat\n\n".getBytes(Charsets.UTF_8));
+        } else {
+            writeEvent(out, MutableMap.<String, Object>of("type", "heartbeat"));
+        }
+    }
+
+    /** the number of events dropped (since last reported to the client) because the buffer was full */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** the number of events currently buffered, waiting to be written */
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.util.collections.MutableSet;
+import org.apache.brooklyn.util.text.Strings;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
+
+/**
+ * Support for the {@code limit}, {@code after} and {@code fields} query parameters of REST listings.
+ * <p>
+ * These are read from the request's {@link UriInfo} rather than declared on the API methods,
+ * so that the Java API (and the clients generated from it) is unchanged.
+ * <p>
+ * Pages are selected with a cursor rather than an offset: when paging, items are returned in ID order
+ * and {@code after} is the ID of the last item of the previous page, so that pages stay consistent when
+ * items are added or removed elsewhere in the listing (including the item named by the cursor itself).
+ * Paging is applied before items are transformed, so only the items returned are transformed.
+ * <p>
+ * {@code fields} selects which of the parts of each item which are costly to compute (such as {@code links})
+ * are included; cheap fields such as the ID and name are always included, and {@code id} on its own
+ * selects none of the optional parts.
+ */
+@Beta
+public class ListingUtils {
+
+    public static final String LIMIT_PARAM = "limit";
+    public static final String AFTER_PARAM = "after";
+    public static final String FIELDS_PARAM = "fields";
+
+    public static final Set<String> ENTITY_FIELDS = ImmutableSet.of("id", "links");
+    public static final Set<String> CATALOG_ENTITY_FIELDS = ImmutableSet.of("id", "config", "sensors", "effectors", "tags", "links");
+    public static final Set<String> CATALOG_POLICY_FIELDS = ImmutableSet.of("id", "config", "links");
+    public static final Set<String> CATALOG_LOCATION_FIELDS = ImmutableSet.of("id", "links");
+    public static final Set<String> TASK_FIELDS = ImmutableSet.of("id", "tags", "result", "children", "streams", "detailedStatus", "links");
+
+    public static final Function<Task<?>, String> TASK_ID = new Function<Task<?>, String>() {
+        @Override
+        public String apply(Task<?> input) {
+            return input.getId();
+        }
+    };
+
+    private ListingUtils() {}
+
+    /** as {@link #parseFields(String, Set)}, for the {@code fields} query parameter of the request */
+    @Nullable
+    public static Set<String> parseFields(UriInfo ui, Set<String> allowed) {
+        return parseFields(ui.getQueryParameters().getFirst(FIELDS_PARAM), allowed);
+    }
+
+    /**
+     * Parses a comma-separated list of fields; returns null, meaning all fields, if blank.
+     *
+     * @throws javax.ws.rs.WebApplicationException (bad request) if any field is not one of {@code allowed}
+     */
+    @Nullable
+    public static Set<String> parseFields(@Nullable String fields, Set<String> allowed) {
+        if (Strings.isBlank(fields)) return null;
+        Set<String> result = MutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(fields));
+        for (String field : result) {
+            if (!allowed.contains(field)) {
+                throw WebResourceUtils.badRequest("Invalid field '%s'; must be one of %s", field, allowed);
+            }
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
+    /** whether the given field should be included, where null fields means all */
+    public static boolean isIncluded(@Nullable Set<String> fields, String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /** as {@link #page(Iterable, Function, String, Integer)}, for the {@code after} and {@code limit} query parameters of the request */
+    public static <T> List<T> page(UriInfo ui, Iterable<? extends T> items, Function<? super T, String> toId) {
+        MultivaluedMap<String, String> params = ui.getQueryParameters();
+        String limit = params.getFirst(LIMIT_PARAM);
+        Integer limitVal = null;
+        if (Strings.isNonBlank(limit)) {
+            try {
+                limitVal = Integer.valueOf(limit.trim());
+            } catch (NumberFormatException e) {
+                throw WebResourceUtils.badRequest("Invalid limit '%s'; must be an integer", limit);
+            }
+        }
+        return page(items, toId, params.getFirst(AFTER_PARAM), limitVal);
+    }
+
+    /**
+     * Returns the items whose IDs come after {@code after} in ID order (or from the start, if null),
+     * up to {@code limit} items (or all, if null).
+     * <p>
+     * If neither {@code after} nor {@code limit} is given, all items are returned in their original order.
+     * Otherwise items are returned in ID order, and {@code after} need not be the ID of an item still present.
+     *
+     * @throws javax.ws.rs.WebApplicationException (bad request) if the limit is negative
+     */
+    public static <T> List<T> page(Iterable<? extends T> items, final Function<? super T, String> toId, @Nullable final String after, @Nullable Integer limit) {
+        if (limit != null && limit < 0) {
+            throw WebResourceUtils.badRequest("Invalid limit %s; must not be negative", limit);
+        }
+        if (Strings.isBlank(after) && limit == null) {
+            return ImmutableList.<T>copyOf(items);
+        }
+        // safe as the items are only read
+        @SuppressWarnings("unchecked")
+        Iterable<T> remaining = (Iterable<T>) items;
+        if (Strings.isNonBlank(after)) {
+            remaining = Iterables.filter(remaining, new Predicate<T>() {
+                @Override
+                public boolean apply(T input) {
+                    return toId.apply(input).compareTo(after) > 0;
+                }
+            });
+        }
+        Ordering<T> byId = Ordering.natural().onResultOf(new Function<T, String>() {
+            @Override
+            public String apply(T input) {
+                return toId.apply(input);
+            }
+        });
+        return (limit == null) ? byId.sortedCopy(remaining) : byId.leastOf(remaining, limit);
+    }
+}
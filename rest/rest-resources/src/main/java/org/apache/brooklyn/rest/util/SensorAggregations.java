@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Reductions of the values of a sensor across many entities, for {@link org.apache.brooklyn.rest.api.SensorQueryApi}.
+ * <p>
+ * Supported reductions are {@code count} (of non-null values), {@code countByValue} (a map of each value's string
+ * form to its count, most frequent first), and {@code sum}, {@code avg}, {@code min}, {@code max} and percentiles
+ * such as {@code p95} or {@code p99.9} (nearest rank). The numeric reductions consider only values which are numbers
+ * or strings which parse as numbers, and are null if there are none.
+ */
+@Beta
+public class SensorAggregations {
+
+    public static final String COUNT = "count";
+    public static final String COUNT_BY_VALUE = "countByValue";
+    public static final String SUM = "sum";
+    public static final String AVG = "avg";
+    public static final String MIN = "min";
+    public static final String MAX = "max";
+
+    private static final Collection<String> NAMED_REDUCTIONS = ImmutableSet.of(COUNT, COUNT_BY_VALUE, SUM, AVG, MIN, MAX);
+
+    private SensorAggregations() {}
+
+    /** @throws IllegalArgumentException if any of the reductions is not supported */
+    public static void checkValid(Iterable<String> reductions) {
+        for (String reduction : reductions) {
+            if (!NAMED_REDUCTIONS.contains(reduction)) percentile(reduction);
+        }
+    }
+
+    /** applies each of the reductions to the (non-null) values, returning a map from reduction name to result */
+    public static Map<String, Object> reduce(Iterable<?> values, Iterable<String> reductions) {
+        List<Object> nonNull = MutableList.of();
+        for (Object value : values) {
+            if (value != null) nonNull.add(value);
+        }
+        double[] numbers = null;
+
+        Map<String, Object> result = MutableMap.of();
+        for (String reduction : reductions) {
+            if (COUNT.equals(reduction)) {
+                result.put(reduction, nonNull.size());
+            } else if (COUNT_BY_VALUE.equals(reduction)) {
+                result.put(reduction, countByValue(nonNull));
+            } else {
+                if (numbers == null) numbers = sortedNumbers(nonNull);
+                result.put(reduction, reduceNumbers(numbers, reduction));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> countByValue(List<Object> values) {
+        final Map<String, Integer> counts = MutableMap.of();
+        for (Object value : values) {
+            String key = value.toString();
+            Integer count = counts.get(key);
+            counts.put(key, (count == null) ? 1 : count + 1);
+        }
+        List<String> keys = MutableList.copyOf(counts.keySet());
+        Collections.sort(keys, new Comparator<String>() {
+            @Override
+            public int compare(String o1, String o2) {
+                return counts.get(o2).compareTo(counts.get(o1));
+            }
+        });
+        Map<String, Integer> result = MutableMap.of();
+        for (String key : keys) {
+            result.put(key, counts.get(key));
+        }
+        return result;
+    }
+
+    private static double[] sortedNumbers(List<Object> values) {
+        double[] result = new double[values.size()];
+        int count = 0;
+        for (Object value : values) {
+            if (value instanceof Number) {
+                result[count++] = ((Number) value).doubleValue();
+            } else if (value instanceof CharSequence) {
+                try {
+                    result[count++] = Double.parseDouble(value.toString().trim());
+                } catch (NumberFormatException e) {
+                    // not numeric; ignored
+                }
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static Double reduceNumbers(double[] sorted, String reduction) {
+        if (sorted.length == 0) return null;
+        if (MIN.equals(reduction)) return sorted[0];
+        if (MAX.equals(reduction)) return sorted[sorted.length - 1];
+        if (SUM.equals(reduction) || AVG.equals(reduction)) {
+            double sum = 0;
+            for (double number : sorted) {
+                sum += number;
+            }
+            return SUM.equals(reduction) ? sum : sum / sorted.length;
+        }
+        double p = percentile(reduction);
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double percentile(String reduction) {
+        if (reduction.length() > 1 && reduction.charAt(0) == 'p') {
+            try {
+                double p = Double.parseDouble(reduction.substring(1));
+                if (p > 0 && p <= 100) return p;
+            } catch (NumberFormatException e) {
+                // fall through to error
+            }
+        }
+        throw new IllegalArgumentException("Unsupported reduction '"+reduction+"'; must be one of "+NAMED_REDUCTIONS
+                +" or a percentile such as p95");
+    }
+}
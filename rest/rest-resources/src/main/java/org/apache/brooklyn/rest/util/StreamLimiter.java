@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.Semaphore;
+
+import javax.ws.rs.core.Response;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.config.ConfigKey;
+import org.apache.brooklyn.core.config.ConfigKeys;
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.rest.BrooklynWebConfig;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Limits how many long-running streamed REST responses (the event stream, and following an activity stream)
+ * run at once, as each holds a web server thread for as long as it runs
+ * (up to {@link BrooklynWebConfig#STREAM_MAX_TIMEOUT}); see {@link BrooklynWebConfig#STREAM_MAX_CONCURRENT}.
+ */
+@Beta
+public class StreamLimiter {
+
+    private static final String STREAM_LIMITER_ATTRIBUTE = StreamLimiter.class.getName();
+
+    /** returns the limiter for the management context, creating it from its properties if necessary */
+    public static StreamLimiter get(ManagementContext mgmt) {
+        checkNotNull(mgmt, "mgmt");
+        synchronized (mgmt) {
+            ConfigKey<StreamLimiter> key = ConfigKeys.newConfigKey(StreamLimiter.class, STREAM_LIMITER_ATTRIBUTE);
+            StreamLimiter result = mgmt.getConfig().getConfig(key);
+            if (result == null) {
+                result = new StreamLimiter(mgmt.getConfig().getConfig(BrooklynWebConfig.STREAM_MAX_CONCURRENT));
+                ((BrooklynProperties) mgmt.getConfig()).put(key, result);
+            }
+            return result;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final Semaphore permits;
+
+    public StreamLimiter(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+    }
+
+    /**
+     * Takes a slot for a stream, which must be given back with {@link #release()} when the stream ends.
+     *
+     * @throws javax.ws.rs.WebApplicationException with status 503 (Service Unavailable) if there are too many streams
+     */
+    public void acquire() {
+        if (permits != null && !permits.tryAcquire()) {
+            throw WebResourceUtils.throwWebApplicationException(Response.Status.SERVICE_UNAVAILABLE,
+                    "Too many streamed responses in progress (at most %s); try again later", maxConcurrent);
+        }
+    }
+
+    public void release() {
+        if (permits != null) permits.release();
+    }
+
+    /** the number of streams in progress, if limited */
+    public int getActiveCount() {
+        return permits == null ? 0 : maxConcurrent - permits.availablePermits();
+    }
+}
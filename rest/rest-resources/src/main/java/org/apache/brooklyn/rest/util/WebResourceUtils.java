@@ -21,7 +21,9 @@ package org.apache.brooklyn.rest.util;
 import java.io.IOException;
 import java.util.Map;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
@@ -39,6 +41,7 @@ import org.apache.brooklyn.util.text.StringEscapes.JavaStringEscapes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 
@@ -46,6 +49,17 @@ public class WebResourceUtils {
 
     private static final Logger log = LoggerFactory.getLogger(WebResourceUtils.class);
 
+    /**
+     * Request attribute which, when set, stops the response being compressed; for streamed responses,
+     * as compressing buffers the output until enough has been written.
+     */
+    public static final String NO_COMPRESSION_ATTRIBUTE = WebResourceUtils.class.getName()+".noCompression";
+
+    /** sets {@link #NO_COMPRESSION_ATTRIBUTE} on the request, if there is one (not when resources are used directly) */
+    public static void disableCompression(@Nullable HttpServletRequest request) {
+        if (request != null) request.setAttribute(NO_COMPRESSION_ATTRIBUTE, true);
+    }
+
     /** @throws WebApplicationException with an ApiError as its body and the given status as its response code. */
     public static WebApplicationException throwWebApplicationException(Response.Status status, String format, Object... args) {
         return throwWebApplicationException(status, null, format, args);
@@ -197,7 +211,11 @@ public class WebResourceUtils {
         target.setStatus(source.getStatus());
         target.setContentType(MediaType.APPLICATION_JSON);
         target.setCharacterEncoding("UTF-8");
-        target.getWriter().write(BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt).writeValueAsString(source.getEntity()));
+        // stream rather than building the whole body as a string; the generator does not close the servlet's writer
+        ObjectMapper mapper = BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt);
+        JsonGenerator jgen = mapper.getFactory().createGenerator(target.getWriter());
+        mapper.writeValue(jgen, source.getEntity());
+        jgen.flush();
     }
 
     /**
@@ -144,7 +144,7 @@ public class BrooklynJacksonJsonProvider extends JacksonJsonProvider implements
     }
 
     /**
-     * @return A new Brooklyn-specific ObjectMapper.
+     * @return A new Brooklyn-specific ObjectMapper, with the {@link RestDomainSerializers} for the REST domain objects.
      *   Normally {@link #findSharedObjectMapper(ManagementContext)} is preferred
      */
     public static ObjectMapper newPrivateObjectMapper(ManagementContext mgmt) {
@@ -152,7 +152,9 @@ public class BrooklynJacksonJsonProvider extends JacksonJsonProvider implements
             throw new IllegalStateException("No management context available for creating ObjectMapper");
         }
 
-        return BrooklynObjectsJsonMapper.newMapper(mgmt);
+        ObjectMapper mapper = BrooklynObjectsJsonMapper.newMapper(mgmt);
+        mapper.registerModule(new RestDomainSerializers());
+        return mapper;
     }
 
 }
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util.json;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.brooklyn.rest.domain.EntitySummary;
+import org.apache.brooklyn.rest.domain.LinkWithMetadata;
+import org.apache.brooklyn.rest.domain.SensorSummary;
+import org.apache.brooklyn.rest.domain.TaskSummary;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.Serializers;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.google.common.annotations.Beta;
+
+/**
+ * Hand-written serializers for the REST domain objects which appear in large numbers in responses
+ * (entity and task listings, activity trees and sensor listings).
+ * <p>
+ * These write the same JSON as the reflective bean serializers would with the visibility rules of
+ * {@link org.apache.brooklyn.util.core.json.BrooklynObjectsJsonMapper} (all fields, in declaration order, respecting
+ * their {@code NON_NULL} inclusion), but without the per-field reflection. Values of arbitrary type, such as task
+ * results and tags, are still written by the provider so they get Brooklyn's usual handling.
+ * Any change to the fields of these types must be made here too; {@code RestDomainSerializersTest} checks that the
+ * output matches.
+ * <p>
+ * Each serializer applies only to exactly its type, not to subclasses (such as {@code EntityDetail}), which would
+ * otherwise lose their extra fields; those use the bean serializers as before.
+ */
+@Beta
+public class RestDomainSerializers extends SimpleModule {
+
+    private static final long serialVersionUID = -2263440851196577262L;
+
+    public RestDomainSerializers() {
+        super("BrooklynRestDomain", new Version(0, 0, 0, "ignored", null, null));
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        super.setupModule(context);
+        ExactTypeSerializers serializers = new ExactTypeSerializers();
+        serializers.add(new EntitySummarySerializer());
+        serializers.add(new TaskSummarySerializer());
+        serializers.add(new SensorSummarySerializer());
+        serializers.add(new LinkWithMetadataSerializer());
+        context.addSerializers(serializers);
+    }
+
+    /** unlike {@link com.fasterxml.jackson.databind.module.SimpleSerializers}, does not match subclasses */
+    private static class ExactTypeSerializers extends Serializers.Base {
+        private final Map<Class<?>, JsonSerializer<?>> serializers = new ConcurrentHashMap<Class<?>, JsonSerializer<?>>();
+
+        void add(StdSerializer<?> serializer) {
+            serializers.put(serializer.handledType(), serializer);
+        }
+
+        @Override
+        public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+            return serializers.get(type.getRawClass());
+        }
+    }
+
+    public static class EntitySummarySerializer extends StdSerializer<EntitySummary> {
+        public EntitySummarySerializer() {
+            super(EntitySummary.class);
+        }
+
+        @Override
+        public void serialize(EntitySummary value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeStringField("id", value.getId());
+            jgen.writeStringField("name", value.getName());
+            jgen.writeStringField("type", value.getType());
+            if (value.getCatalogItemId() != null) {
+                jgen.writeStringField("catalogItemId", value.getCatalogItemId());
+            }
+            writeLinks("links", value.getLinks(), jgen);
+            jgen.writeEndObject();
+        }
+    }
+
+    public static class TaskSummarySerializer extends StdSerializer<TaskSummary> {
+        public TaskSummarySerializer() {
+            super(TaskSummary.class);
+        }
+
+        @Override
+        public void serialize(TaskSummary value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeStringField("id", value.getId());
+            jgen.writeStringField("displayName", value.getDisplayName());
+            jgen.writeStringField("entityId", value.getEntityId());
+            jgen.writeStringField("entityDisplayName", value.getEntityDisplayName());
+            jgen.writeStringField("description", value.getDescription());
+            provider.defaultSerializeField("tags", value.getRawTags(), jgen);
+            writeLong("submitTimeUtc", value.getSubmitTimeUtc(), jgen);
+            writeLong("startTimeUtc", value.getStartTimeUtc(), jgen);
+            writeLong("endTimeUtc", value.getEndTimeUtc(), jgen);
+            jgen.writeStringField("currentStatus", value.getCurrentStatus());
+            provider.defaultSerializeField("result", value.getResult(), jgen);
+            jgen.writeBooleanField("isError", value.isError());
+            jgen.writeBooleanField("isCancelled", value.isCancelled());
+            writeLinkList("children", value.getChildren(), jgen, provider);
+            writeLink("submittedByTask", value.getSubmittedByTask(), jgen, provider);
+            if (value.getBlockingTask() != null) {
+                writeLink("blockingTask", value.getBlockingTask(), jgen, provider);
+            }
+            if (value.getBlockingDetails() != null) {
+                jgen.writeStringField("blockingDetails", value.getBlockingDetails());
+            }
+            jgen.writeStringField("detailedStatus", value.getDetailedStatus());
+            if (value.getStreams() != null) {
+                jgen.writeObjectFieldStart("streams");
+                for (Map.Entry<String, LinkWithMetadata> entry : value.getStreams().entrySet()) {
+                    writeLink(entry.getKey(), entry.getValue(), jgen, provider);
+                }
+                jgen.writeEndObject();
+            }
+            writeLinks("links", value.getLinks(), jgen);
+            jgen.writeEndObject();
+        }
+    }
+
+    public static class SensorSummarySerializer extends StdSerializer<SensorSummary> {
+        public SensorSummarySerializer() {
+            super(SensorSummary.class);
+        }
+
+        @Override
+        public void serialize(SensorSummary value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeStringField("name", value.getName());
+            jgen.writeStringField("type", value.getType());
+            if (value.getDescription() != null) {
+                jgen.writeStringField("description", value.getDescription());
+            }
+            if (value.getLinks() != null) {
+                writeLinks("links", value.getLinks(), jgen);
+            }
+            jgen.writeEndObject();
+        }
+    }
+
+    public static class LinkWithMetadataSerializer extends StdSerializer<LinkWithMetadata> {
+        public LinkWithMetadataSerializer() {
+            super(LinkWithMetadata.class);
+        }
+
+        @Override
+        public void serialize(LinkWithMetadata value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            jgen.writeStringField("link", value.getLink());
+            provider.defaultSerializeField("metadata", value.getMetadata(), jgen);
+            jgen.writeEndObject();
+        }
+    }
+
+    private static void writeLong(String name, Long value, JsonGenerator jgen) throws IOException {
+        if (value == null) {
+            jgen.writeNullField(name);
+        } else {
+            jgen.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeLinks(String name, Map<String, URI> links, JsonGenerator jgen) throws IOException {
+        if (links == null) {
+            jgen.writeNullField(name);
+            return;
+        }
+        jgen.writeObjectFieldStart(name);
+        for (Map.Entry<String, URI> entry : links.entrySet()) {
+            URI uri = entry.getValue();
+            if (uri == null) {
+                jgen.writeNullField(entry.getKey());
+            } else {
+                jgen.writeStringField(entry.getKey(), uri.toString());
+            }
+        }
+        jgen.writeEndObject();
+    }
+
+    private static void writeLink(String name, LinkWithMetadata link, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        jgen.writeFieldName(name);
+        writeLink(link, jgen, provider);
+    }
+
+    private static void writeLink(LinkWithMetadata link, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        if (link == null) {
+            jgen.writeNull();
+        } else {
+            provider.findValueSerializer(LinkWithMetadata.class, null).serialize(link, jgen, provider);
+        }
+    }
+
+    private static void writeLinkList(String name, List<LinkWithMetadata> links, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        if (links == null) {
+            jgen.writeNullField(name);
+            return;
+        }
+        jgen.writeArrayFieldStart(name);
+        for (LinkWithMetadata link : links) {
+            writeLink(link, jgen, provider);
+        }
+        jgen.writeEndArray();
+    }
+}
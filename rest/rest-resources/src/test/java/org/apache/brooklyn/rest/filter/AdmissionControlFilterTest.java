@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.filter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
+import org.apache.brooklyn.rest.util.AdmissionControl;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.testng.annotations.Test;
+
+public class AdmissionControlFilterTest extends BrooklynRestResourceTest {
+
+    private static volatile CountDownLatch streamStarted;
+    private static volatile CountDownLatch streamFinish;
+
+    @Path("/test")
+    public static class AdmissionResource {
+        @GET
+        @Path("/expensive")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String expensive() {
+            return "done";
+        }
+
+        @GET
+        @Path("/expensive/empty")
+        public Response empty() {
+            return Response.noContent().build();
+        }
+
+        @GET
+        @Path("/expensive/stream")
+        @Produces(MediaType.TEXT_PLAIN)
+        public StreamingOutput stream() {
+            return new StreamingOutput() {
+                @Override
+                public void write(OutputStream output) throws IOException, WebApplicationException {
+                    output.write("started\n".getBytes());
+                    output.flush();
+                    streamStarted.countDown();
+                    try {
+                        streamFinish.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    output.write("done\n".getBytes());
+                }
+            };
+        }
+
+        @GET
+        @Path("/expensive/failing")
+        @Produces(MediaType.TEXT_PLAIN)
+        public StreamingOutput failing() {
+            return new StreamingOutput() {
+                @Override
+                public void write(OutputStream output) throws IOException, WebApplicationException {
+                    throw new IOException("simulated failure writing response");
+                }
+            };
+        }
+    }
+
+    @Override
+    protected void configureCXF(JAXRSServerFactoryBean sf) {
+        BrooklynProperties props = (BrooklynProperties) getManagementContext().getConfig();
+        props.put(AdmissionControl.EXPENSIVE_PATHS, "test/expensive(/.*)?");
+        props.put(AdmissionControl.EXPENSIVE_MAX_CONCURRENT, 1);
+        super.configureCXF(sf);
+    }
+
+    @Override
+    protected void addBrooklynResources() {
+        addResource(new AdmissionControlFilter());
+        addResource(new AdmissionResource());
+    }
+
+    @Test
+    public void testPermitHeldWhileStreamingAndReleasedAfter() throws Exception {
+        streamStarted = new CountDownLatch(1);
+        streamFinish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response> streaming = executor.submit(new Callable<Response>() {
+                @Override public Response call() {
+                    Response response = fetch("/test/expensive/stream");
+                    response.bufferEntity();
+                    return response;
+                }
+            });
+            assertTrue(streamStarted.await(30, TimeUnit.SECONDS));
+
+            Response rejected = fetch("/test/expensive");
+            assertEquals(rejected.getStatus(), AdmissionControlFilter.TOO_MANY_REQUESTS);
+            assertEquals(rejected.getHeaderString(HttpHeaders.RETRY_AFTER), "1");
+            assertExpensiveInFlight(1);
+
+            streamFinish.countDown();
+            Response streamed = streaming.get(30, TimeUnit.SECONDS);
+            assertEquals(streamed.getStatus(), 200);
+            assertEquals(streamed.readEntity(String.class), "started\ndone\n");
+            assertExpensiveInFlightEventually(0);
+
+            Response admitted = fetch("/test/expensive");
+            assertEquals(admitted.getStatus(), 200);
+            assertEquals(admitted.readEntity(String.class), "done");
+            assertExpensiveInFlightEventually(0);
+        } finally {
+            streamFinish.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPermitReleasedWithoutEntity() throws Exception {
+        assertEquals(fetch("/test/expensive/empty").getStatus(), 204);
+        assertExpensiveInFlightEventually(0);
+        assertEquals(fetch("/test/expensive/empty").getStatus(), 204);
+    }
+
+    @Test
+    public void testPermitReleasedWhenWriteFails() throws Exception {
+        assertNotEquals(fetch("/test/expensive/failing").getStatus(), 200);
+        assertExpensiveInFlightEventually(0);
+        assertEquals(fetch("/test/expensive").getStatus(), 200);
+    }
+
+    private Response fetch(String path) {
+        return WebClient.create(getEndpointAddress(), clientProviders)
+                .path(path)
+                .accept(MediaType.TEXT_PLAIN_TYPE)
+                .get();
+    }
+
+    private void assertExpensiveInFlight(int expected) {
+        assertEquals(AdmissionControl.get(getManagementContext()).getMetrics().get("expensiveInFlight"), expected);
+    }
+
+    private void assertExpensiveInFlightEventually(final int expected) {
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertExpensiveInFlight(expected);
+            }
+        });
+    }
+}
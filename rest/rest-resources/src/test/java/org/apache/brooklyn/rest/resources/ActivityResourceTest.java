@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
+import org.apache.brooklyn.rest.api.ActivityApi;
+import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+
+@Test(singleThreaded = true,
+        // by using a different suite name we disallow interleaving other tests between the methods of this test class, which wrecks the test fixtures
+        suiteName = "ActivityResourceTest")
+public class ActivityResourceTest extends BrooklynRestResourceTest {
+
+    @Test
+    public void testStreamRange() throws Exception {
+        // small spool sizes, so the reads are across spool files and the in-memory tail
+        final SpoolingByteArrayOutputStream stdout = new SpoolingByteArrayOutputStream(4, 8, 10);
+        Task<?> task = Tasks.builder().displayName("writer")
+                .tag(BrooklynTaskTags.tagForStream(BrooklynTaskTags.STREAM_STDOUT, stdout))
+                .body(new Runnable() {
+                    @Override public void run() {
+                        write(stdout, "0123456789abcdefghij");
+                    }})
+                .build();
+        getManagementContext().getExecutionManager().submit(task).get();
+
+        Response response = client().path("/activities/"+task.getId()+"/stream/stdout/range")
+                .query("offset", 6).query("length", 10)
+                .accept(MediaType.TEXT_PLAIN)
+                .get();
+        assertEquals(response.readEntity(String.class), "6789abcdef");
+        assertEquals(response.getHeaderString(ActivityApi.STREAM_OFFSET_HEADER), "6");
+        assertEquals(response.getHeaderString(ActivityApi.STREAM_SIZE_HEADER), "20");
+
+        response = client().path("/activities/"+task.getId()+"/stream/stdout/range")
+                .query("offset", -3)
+                .accept(MediaType.TEXT_PLAIN)
+                .get();
+        assertEquals(response.readEntity(String.class), "hij");
+        assertEquals(response.getHeaderString(ActivityApi.STREAM_OFFSET_HEADER), "17");
+    }
+
+    @Test
+    public void testStreamRangeFollowsUntilTaskEnds() throws Exception {
+        final SpoolingByteArrayOutputStream stdout = new SpoolingByteArrayOutputStream();
+        final CountDownLatch latch = new CountDownLatch(1);
+        Task<?> task = Tasks.builder().displayName("writer")
+                .tag(BrooklynTaskTags.tagForStream(BrooklynTaskTags.STREAM_STDOUT, stdout))
+                .body(new Runnable() {
+                    @Override public void run() {
+                        write(stdout, "started\n");
+                        try {
+                            latch.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw Exceptions.propagate(e);
+                        }
+                        write(stdout, "finished\n");
+                    }})
+                .build();
+        getManagementContext().getExecutionManager().submit(task);
+
+        Thread releaser = new Thread() {
+            @Override public void run() {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                latch.countDown();
+            }};
+        releaser.start();
+        try {
+            Response response = client().path("/activities/"+task.getId()+"/stream/stdout/range")
+                    .query("follow", true)
+                    .accept(MediaType.TEXT_PLAIN)
+                    .get();
+            assertEquals(response.readEntity(String.class), "started\nfinished\n");
+        } finally {
+            releaser.interrupt();
+            latch.countDown();
+        }
+    }
+
+    private static void write(SpoolingByteArrayOutputStream out, String text) {
+        byte[] bytes = text.getBytes(Charsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+}
@@ -25,16 +25,19 @@ import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Nullable;
+import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.MediaType;
 
 import org.apache.brooklyn.api.entity.Entity;
 import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.EntityFunctions;
 import org.apache.brooklyn.core.entity.EntityInternal;
 import org.apache.brooklyn.core.test.entity.TestEntity;
 import org.apache.brooklyn.entity.stock.BasicApplication;
 import org.apache.brooklyn.entity.stock.BasicEntity;
 import org.apache.brooklyn.rest.domain.ApplicationSpec;
 import org.apache.brooklyn.rest.domain.EntitySpec;
+import org.apache.brooklyn.rest.domain.EntitySummary;
 import org.apache.brooklyn.rest.domain.TaskSummary;
 import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
 import org.apache.brooklyn.rest.testing.mocks.RestMockSimpleEntity;
@@ -53,6 +56,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
 import javax.ws.rs.core.Response;
 
 @Test(singleThreaded = true,
@@ -183,6 +187,47 @@ public class EntityResourceTest extends BrooklynRestResourceTest {
         }
     }
     
+    @Test
+    public void testListChildrenPaginatedWithFields() throws Exception {
+        List<Entity> children = MutableList.of();
+        try {
+            for (int i = 0; i < 3; i++) {
+                children.add(entity.addChild(org.apache.brooklyn.api.entity.EntitySpec.create(BasicEntity.class)));
+            }
+
+            // pages are in ID order
+            List<Entity> sorted = Ordering.natural().onResultOf(EntityFunctions.id()).sortedCopy(children);
+
+            List<EntitySummary> page = client().path(entityEndpoint + "/children")
+                    .query("limit", 2).query("fields", "id")
+                    .get(new GenericType<List<EntitySummary>>() {});
+            assertEquals(page.size(), 2);
+            assertEquals(page.get(0).getId(), sorted.get(0).getId());
+            assertEquals(page.get(1).getId(), sorted.get(1).getId());
+            assertEquals(page.get(0).getName(), sorted.get(0).getDisplayName());
+            Assert.assertTrue(page.get(0).getLinks().isEmpty(), "links should not be included: "+page.get(0));
+
+            // the cursor need not still exist
+            Entities.unmanage(sorted.get(1));
+            page = client().path(entityEndpoint + "/children")
+                    .query("limit", 2).query("after", sorted.get(1).getId())
+                    .get(new GenericType<List<EntitySummary>>() {});
+            assertEquals(page.size(), 1);
+            assertEquals(page.get(0).getId(), sorted.get(2).getId());
+            Assert.assertFalse(page.get(0).getLinks().isEmpty(), "links should be included: "+page.get(0));
+
+            Response response = client().path(entityEndpoint + "/children")
+                    .query("fields", "no-such-field")
+                    .get();
+            assertEquals(response.getStatus(), 400);
+        } finally {
+            // restore it for other tests
+            for (Entity child : children) {
+                if (Entities.isManaged(child)) Entities.unmanage(child);
+            }
+        }
+    }
+    
     @Test
     public void testTagsDoNotSerializeTooMuch() throws Exception {
         entity.tags().addTag("foo");
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.test.entity.TestApplication;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+@Test(singleThreaded = true,
+        // by using a different suite name we disallow interleaving other tests between the methods of this test class, which wrecks the test fixtures
+        suiteName = "SensorQueryResourceTest")
+public class SensorQueryResourceTest extends BrooklynRestResourceTest {
+
+    private TestApplication app;
+    private List<TestEntity> entities;
+
+    @BeforeMethod(alwaysRun = true)
+    public void setUpApp() throws Exception {
+        app = getManagementContext().getEntityManager().createEntity(EntitySpec.create(TestApplication.class));
+        entities = MutableList.of();
+        for (int i = 1; i <= 4; i++) {
+            TestEntity entity = app.addChild(EntitySpec.create(TestEntity.class));
+            entity.sensors().set(TestEntity.SEQUENCE, i);
+            entity.sensors().set(TestEntity.NAME, i % 2 == 0 ? "even" : "odd");
+            if (i > 1) entity.tags().addTag("member");
+            entities.add(entity);
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDownApp() throws Exception {
+        if (app != null) Entities.unmanage(app);
+    }
+
+    @Test
+    public void testQueryValues() throws Exception {
+        Map<String, Object> result = client().path("/sensors/query")
+                .query("application", app.getId())
+                .query("sensors", TestEntity.SEQUENCE.getName())
+                .query("tag", "member")
+                .get(new GenericType<Map<String, Object>>() {});
+        assertEquals(result, ImmutableMap.of(
+                entities.get(1).getId(), ImmutableMap.of(TestEntity.SEQUENCE.getName(), 2),
+                entities.get(2).getId(), ImmutableMap.of(TestEntity.SEQUENCE.getName(), 3),
+                entities.get(3).getId(), ImmutableMap.of(TestEntity.SEQUENCE.getName(), 4)));
+    }
+
+    @Test
+    public void testQueryReductions() throws Exception {
+        Map<String, Object> result = client().path("/sensors/query")
+                .query("application", app.getId())
+                .query("typeRegex", ".*TestEntity.*")
+                .query("sensors", TestEntity.SEQUENCE.getName()+","+TestEntity.NAME.getName())
+                .query("reduce", "count,sum,avg,min,max,p50,countByValue")
+                .get(new GenericType<Map<String, Object>>() {});
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sequence = (Map<String, Object>) result.get(TestEntity.SEQUENCE.getName());
+        assertEquals(sequence.get("count"), 4);
+        assertEquals(sequence.get("sum"), 10.0);
+        assertEquals(sequence.get("avg"), 2.5);
+        assertEquals(sequence.get("min"), 1.0);
+        assertEquals(sequence.get("max"), 4.0);
+        assertEquals(sequence.get("p50"), 2.0);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> name = (Map<String, Object>) result.get(TestEntity.NAME.getName());
+        assertEquals(name.get("countByValue"), ImmutableMap.of("even", 2, "odd", 2));
+        assertEquals(name.get("sum"), null);
+    }
+
+    @Test
+    public void testQueryIncludesNestedApplications() throws Exception {
+        TestApplication nested = app.addChild(EntitySpec.create(TestApplication.class));
+        TestEntity nestedEntity = nested.addChild(EntitySpec.create(TestEntity.class));
+        nestedEntity.sensors().set(TestEntity.SEQUENCE, 5);
+
+        Map<String, Object> result = client().path("/sensors/query")
+                .query("application", app.getId())
+                .query("typeRegex", TestEntity.class.getName())
+                .query("sensors", TestEntity.SEQUENCE.getName())
+                .query("reduce", "count")
+                .get(new GenericType<Map<String, Object>>() {});
+        assertEquals(result, ImmutableMap.of(TestEntity.SEQUENCE.getName(), ImmutableMap.of("count", 5)));
+    }
+
+    @Test
+    public void testQueryRejectsUnsupportedReduction() throws Exception {
+        Response response = client().path("/sensors/query")
+                .query("sensors", TestEntity.SEQUENCE.getName())
+                .query("reduce", "median")
+                .get();
+        assertEquals(response.getStatus(), 400);
+    }
+}
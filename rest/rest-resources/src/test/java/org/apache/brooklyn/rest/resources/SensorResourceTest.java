@@ -19,9 +19,12 @@
 package org.apache.brooklyn.rest.resources;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
 
 import java.util.Map;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -33,6 +36,7 @@ import org.apache.brooklyn.core.sensor.Sensors;
 import org.apache.brooklyn.rest.api.SensorApi;
 import org.apache.brooklyn.rest.domain.ApplicationSpec;
 import org.apache.brooklyn.rest.domain.EntitySpec;
+import org.apache.brooklyn.rest.filter.NoCacheFilter;
 import org.apache.brooklyn.rest.test.config.render.TestRendererHints;
 import org.apache.brooklyn.rest.testing.BrooklynRestResourceTest;
 import org.apache.brooklyn.rest.testing.mocks.RestMockSimpleEntity;
@@ -80,6 +84,13 @@ public class SensorResourceTest extends BrooklynRestResourceTest {
      * Adds a sensor and sets its value to {@code 12345}. Configures a display value
      * hint that appends {@code frogs} to the value of the sensor.
      */
+    @Override
+    protected void addBrooklynResources() {
+        super.addBrooklynResources();
+        // adds ETags to responses
+        addResource(new NoCacheFilter());
+    }
+
     @BeforeClass(alwaysRun = true)
     public void setUp() throws Exception {
         // Deploy application
@@ -120,6 +131,42 @@ public class SensorResourceTest extends BrooklynRestResourceTest {
         }
     }
 
+    /** Check a client with the current version (by ETag) is told it is not modified, until a sensor changes. */
+    @Test
+    public void testBatchSensorReadConditionalGet() throws Exception {
+        Response response = client().path(SENSORS_ENDPOINT + "/current-state")
+                .accept(MediaType.APPLICATION_JSON)
+                .get();
+        assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        String etag = response.getHeaderString(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        response = client().path(SENSORS_ENDPOINT + "/current-state")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .get();
+        assertEquals(response.getStatus(), Response.Status.NOT_MODIFIED.getStatusCode());
+
+        try {
+            entity.sensors().set(SENSOR, 54321);
+            response = client().path(SENSORS_ENDPOINT + "/current-state")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .get();
+            assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+            assertNotEquals(response.getHeaderString(HttpHeaders.ETAG), etag);
+
+            // removing a sensor is also a change
+            etag = response.getHeaderString(HttpHeaders.ETAG);
+            entity.sensors().remove(SENSOR);
+            response = client().path(SENSORS_ENDPOINT + "/current-state")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.IF_NONE_MATCH, etag)
+                    .get();
+            assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        } finally { addAmphibianSensor(entity); }
+    }
+
     /** Check setting {@code raw} to {@code true} ignores display value hint. */
     @Test(dependsOnMethods = "testBatchSensorRead")
     public void testBatchSensorReadRaw() throws Exception {
@@ -21,6 +21,7 @@ package org.apache.brooklyn.rest.resources;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -82,6 +83,20 @@ public class ServerResourceTest extends BrooklynRestResourceTest {
         assertEquals(summary.getNodes().get(ownNodeId).getLocalTimestamp(), summary.getNodes().get(ownNodeId).getRemoteTimestamp());
     }
 
+    @Test
+    public void testGetHttpConnectionPoolMetricsWhenDisabled() throws Exception {
+        // the pool is off unless brooklyn.http.pool.enabled is set
+        Map<?, ?> metrics = client().path("/server/http/pool/metrics").get(Map.class);
+        assertEquals(metrics.get("enabled"), false);
+    }
+
+    @Test
+    public void testGetEntitlementCacheMetricsWhenDisabled() throws Exception {
+        // the cache is off unless brooklyn.entitlements.cache.maxSize is set
+        Map<?, ?> metrics = client().path("/server/entitlements/cache/metrics").get(Map.class);
+        assertEquals(metrics.get("enabled"), false);
+    }
+
     @SuppressWarnings("serial")
     @Test
     public void testReloadsBrooklynProperties() throws Exception {
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.apache.brooklyn.core.internal.BrooklynProperties;
+import org.apache.brooklyn.rest.util.AdmissionControl.Admission;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AdmissionControlTest {
+
+    private BrooklynProperties props;
+
+    @BeforeMethod(alwaysRun = true)
+    public void setUp() {
+        props = BrooklynProperties.Factory.newEmpty();
+    }
+
+    @Test
+    public void testNotLimitingByDefault() {
+        AdmissionControl admissionControl = new AdmissionControl(props);
+        assertFalse(admissionControl.isLimiting());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(admissionControl.admit("alice", "ApplicationResource.fetch", "applications/fetch").isAdmitted());
+        }
+    }
+
+    @Test
+    public void testUserRateLimited() {
+        props.put(AdmissionControl.USER_RATE, 0.001);
+        props.put(AdmissionControl.USER_BURST, 2);
+        AdmissionControl admissionControl = new AdmissionControl(props);
+
+        assertTrue(admissionControl.admit("alice", "EntityResource.list", "applications/a/entities").isAdmitted());
+        assertTrue(admissionControl.admit("alice", "EntityResource.list", "applications/a/entities").isAdmitted());
+        Admission rejected = admissionControl.admit("alice", "EntityResource.list", "applications/a/entities");
+        assertFalse(rejected.isAdmitted());
+        assertTrue(rejected.getRetryAfterSeconds() > 0, "retryAfter="+rejected.getRetryAfterSeconds());
+
+        // other users have their own bucket, and exempt paths are always admitted
+        assertTrue(admissionControl.admit("bob", "EntityResource.list", "applications/a/entities").isAdmitted());
+        assertTrue(admissionControl.admit("alice", "ServerResource.getHighAvailabilityNodeState", "server/ha/state").isAdmitted());
+
+        Map<String, Object> metrics = admissionControl.getMetrics();
+        assertEquals(metrics.get("admitted"), 3L);
+        assertEquals(metrics.get("exempt"), 1L);
+        assertEquals(metrics.get("rejectedUserRate"), 1L);
+        assertEquals(((Map<?, ?>) metrics.get("rejectedByEndpoint")).get("EntityResource.list"), 1L);
+    }
+
+    @Test
+    public void testExpensiveConcurrencyLimited() {
+        props.put(AdmissionControl.EXPENSIVE_MAX_CONCURRENT, 1);
+        AdmissionControl admissionControl = new AdmissionControl(props);
+
+        Admission first = admissionControl.admit("alice", "ApplicationResource.fetch", "applications/fetch");
+        assertTrue(first.isAdmitted());
+        assertTrue(first.holdsPermit());
+        assertFalse(admissionControl.admit("bob", "ActivityResource.children", "activities/t1/children/recurse").isAdmitted());
+        assertFalse(admissionControl.admit("bob", "EventResource.stream", "events/stream").isAdmitted());
+        assertFalse(admissionControl.admit("bob", "ActivityResource.streamRange", "activities/t1/stream/stdout/range").isAdmitted());
+        assertTrue(admissionControl.admit("bob", "ApplicationResource.list", "applications").isAdmitted());
+        assertEquals(admissionControl.getMetrics().get("expensiveInFlight"), 1);
+
+        admissionControl.release(first);
+        assertTrue(admissionControl.admit("bob", "ActivityResource.children", "activities/t1/children/recurse").isAdmitted());
+    }
+}
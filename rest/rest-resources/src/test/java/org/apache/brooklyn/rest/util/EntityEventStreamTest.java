@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.sensor.AttributeSensor;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.core.test.BrooklynAppUnitTestSupport;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.rest.util.EntityEventStream.Format;
+import org.apache.brooklyn.rest.util.json.BrooklynJacksonJsonProvider;
+import org.apache.brooklyn.test.Asserts;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.time.Duration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+
+public class EntityEventStreamTest extends BrooklynAppUnitTestSupport {
+
+    private static final AttributeSensor<String> MY_SENSOR = Sensors.newStringSensor("my.sensor");
+    private static final AttributeSensor<String> OTHER_SENSOR = Sensors.newStringSensor("other.sensor");
+
+    private TestEntity entity;
+    private ObjectMapper mapper;
+
+    @BeforeMethod(alwaysRun=true)
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        entity = app.createAndManageChild(EntitySpec.create(TestEntity.class));
+        mapper = BrooklynJacksonJsonProvider.findAnyObjectMapper(mgmt);
+    }
+
+    @Test
+    public void testStreamsInitialValuesThenChanges() throws Exception {
+        entity.sensors().set(MY_SENSOR, "a");
+        entity.sensors().set(OTHER_SENSOR, "x");
+        EntityEventStream stream = new EntityEventStream(mgmt, mapper, app, null, "my.*", true, false, Format.NDJSON, 100, Duration.millis(500));
+        entity.sensors().set(MY_SENSOR, "b");
+        entity.sensors().set(OTHER_SENSOR, "y");
+
+        List<Map<?, ?>> events = readEvents(stream);
+        assertEquals(values(events, MY_SENSOR.getName()), MutableList.of("a", "b"), "events="+events);
+        assertEquals(values(events, OTHER_SENSOR.getName()), MutableList.of(), "events="+events);
+        Map<?, ?> event = events.get(0);
+        assertEquals(event.get("type"), "sensor");
+        assertEquals(event.get("application"), app.getId());
+        assertEquals(event.get("entity"), entity.getId());
+    }
+
+    @Test
+    public void testReportsOverflowWhenClientDoesNotKeepUp() throws Exception {
+        final EntityEventStream stream = new EntityEventStream(mgmt, mapper, null, entity, "my.sensor", false, false, Format.NDJSON, 1, Duration.millis(500));
+        for (int i = 0; i < 5; i++) {
+            entity.sensors().set(MY_SENSOR, "v"+i);
+        }
+        Asserts.succeedsEventually(new Runnable() {
+            @Override public void run() {
+                assertEquals(stream.getDroppedCount(), 4);
+            }});
+
+        List<Map<?, ?>> events = readEvents(stream);
+        assertEquals(events.get(0).get("type"), "overflow", "events="+events);
+        assertEquals(events.get(0).get("dropped"), 4);
+        assertEquals(values(events, MY_SENSOR.getName()), MutableList.of("v0"), "events="+events);
+    }
+
+    @Test
+    public void testServerSentEventsFormat() throws Exception {
+        entity.sensors().set(MY_SENSOR, "a");
+        EntityEventStream stream = new EntityEventStream(mgmt, mapper, null, entity, "my.sensor", true, false, Format.SSE, 100, Duration.millis(100));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.write(out);
+        String text = new String(out.toByteArray(), Charsets.UTF_8);
+        assertTrue(text.startsWith("id: 1\nevent: sensor\ndata: {"), "text="+text);
+        assertTrue(text.contains("\"value\":\"a\""), "text="+text);
+        assertTrue(text.endsWith("\n\n"), "text="+text);
+    }
+
+    private List<Map<?, ?>> readEvents(EntityEventStream stream) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.write(out);
+        List<Map<?, ?>> result = MutableList.of();
+        for (String line : new String(out.toByteArray(), Charsets.UTF_8).split("\n")) {
+            Map<?, ?> event = mapper.readValue(line, Map.class);
+            if (!"heartbeat".equals(event.get("type"))) result.add(event);
+        }
+        return result;
+    }
+
+    private List<Object> values(List<Map<?, ?>> events, String sensorName) {
+        List<Object> result = MutableList.of();
+        for (Map<?, ?> event : events) {
+            if (sensorName.equals(event.get("sensor"))) result.add(event.get("value"));
+        }
+        return result;
+    }
+}
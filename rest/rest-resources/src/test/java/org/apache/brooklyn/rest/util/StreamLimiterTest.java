@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util;
+
+import static org.testng.Assert.assertEquals;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.brooklyn.test.Asserts;
+import org.testng.annotations.Test;
+
+public class StreamLimiterTest {
+
+    @Test
+    public void testRejectsStreamsOverLimitUntilReleased() {
+        StreamLimiter limiter = new StreamLimiter(2);
+        limiter.acquire();
+        limiter.acquire();
+        assertEquals(limiter.getActiveCount(), 2);
+        try {
+            limiter.acquire();
+            Asserts.shouldHaveFailedPreviously();
+        } catch (WebApplicationException e) {
+            assertEquals(e.getResponse().getStatus(), 503);
+        }
+        
+        limiter.release();
+        limiter.acquire();
+        assertEquals(limiter.getActiveCount(), 2);
+    }
+
+    @Test
+    public void testNotLimitedIfZero() {
+        StreamLimiter limiter = new StreamLimiter(0);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+        }
+    }
+}
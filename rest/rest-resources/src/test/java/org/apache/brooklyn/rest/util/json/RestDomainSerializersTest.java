@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.util.json;
+
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.core.entity.Entities;
+import org.apache.brooklyn.core.entity.lifecycle.Lifecycle;
+import org.apache.brooklyn.core.test.entity.LocalManagementContextForTests;
+import org.apache.brooklyn.rest.domain.EntityDetail;
+import org.apache.brooklyn.rest.domain.EntitySummary;
+import org.apache.brooklyn.rest.domain.LinkWithMetadata;
+import org.apache.brooklyn.rest.domain.SensorSummary;
+import org.apache.brooklyn.rest.domain.TaskSummary;
+import org.apache.brooklyn.util.collections.MutableList;
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.collections.MutableSet;
+import org.apache.brooklyn.util.core.json.BrooklynObjectsJsonMapper;
+import org.apache.brooklyn.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class RestDomainSerializersTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RestDomainSerializersTest.class);
+
+    private ManagementContext mgmt;
+    private ObjectMapper restMapper;
+    private ObjectMapper beanMapper;
+
+    @BeforeMethod(alwaysRun = true)
+    public void setUp() throws Exception {
+        mgmt = LocalManagementContextForTests.newInstance();
+        restMapper = BrooklynJacksonJsonProvider.newPrivateObjectMapper(mgmt);
+        // the mapper without the hand-written serializers, i.e. using reflective bean serialization
+        beanMapper = BrooklynObjectsJsonMapper.newMapper(mgmt);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws Exception {
+        if (mgmt != null) Entities.destroyAll(mgmt);
+    }
+
+    @Test
+    public void testEntitySummaryMatchesBeanSerialization() throws Exception {
+        assertSameJson(newEntitySummary("a1", "app1"));
+        assertSameJson(new EntitySummary("e1", null, "org.example.Entity", null, null));
+    }
+
+    @Test
+    public void testEntityDetailKeepsAllFields() throws Exception {
+        EntityDetail detail = new EntityDetail("a1", "e1", "p1", "entity", "org.example.Entity", true, Lifecycle.RUNNING,
+                "/applications/a1/entities/e1/icon", "catalog-item:1.0",
+                ImmutableList.of(newEntitySummary("c1", "child")),
+                ImmutableList.of("g1", "g2"),
+                ImmutableList.<Map<String, String>>of(ImmutableMap.of("id", "m1", "name", "member")));
+        assertSameJson(detail);
+
+        EntityDetail copy = restMapper.readValue(restMapper.writeValueAsString(detail), EntityDetail.class);
+        assertEquals(copy.getApplicationId(), "a1");
+        assertEquals(copy.getId(), "e1");
+        assertEquals(copy.getParentId(), "p1");
+        assertEquals(copy.getName(), "entity");
+        assertEquals(copy.getType(), "org.example.Entity");
+        assertEquals(copy.getServiceUp(), Boolean.TRUE);
+        assertEquals(copy.getServiceState(), Lifecycle.RUNNING);
+        assertEquals(copy.getIconUrl(), "/applications/a1/entities/e1/icon");
+        assertEquals(copy.getCatalogItemId(), "catalog-item:1.0");
+        assertEquals(copy.getChildren().size(), 1);
+        assertEquals(copy.getChildren().get(0).getId(), "c1");
+        assertEquals(copy.getChildren().get(0).getLinks().get("self"), URI.create("/applications/a1/entities/c1"));
+        assertEquals(copy.getGroupIds(), ImmutableList.of("g1", "g2"));
+        assertEquals(copy.getMembers(), ImmutableList.of(ImmutableMap.of("id", "m1", "name", "member")));
+    }
+
+    @Test
+    public void testTaskSummaryMatchesBeanSerialization() throws Exception {
+        assertSameJson(newTaskSummary("t1", true));
+        assertSameJson(newTaskSummary("t2", false));
+    }
+
+    @Test
+    public void testSensorSummaryMatchesBeanSerialization() throws Exception {
+        assertSameJson(new SensorSummary("service.isUp", "java.lang.Boolean", "Whether the service is up",
+                ImmutableMap.of("self", URI.create("/applications/a1/entities/e1/sensors/service.isUp"))));
+        assertSameJson(new SensorSummary("service.isUp", "java.lang.Boolean", null, null));
+    }
+
+    @Test
+    public void testListingMatchesBeanSerialization() throws Exception {
+        assertSameJson(newListing(10));
+    }
+
+    /** not a rigorous benchmark, but gives an indication of the speed-up over reflective serialization */
+    @Test(groups = "Integration")
+    public void testSerializationSpeed() throws Exception {
+        List<Object> listing = newListing(1000);
+        Duration bean = time(beanMapper, listing, 200);
+        Duration rest = time(restMapper, listing, 200);
+        log.info("Serializing listing of 1000 entities and tasks 200 times: bean serialization "+bean
+                +", hand-written serializers "+rest);
+    }
+
+    private Duration time(ObjectMapper mapper, Object value, int iterations) throws Exception {
+        // warm up, so the serializers are cached
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        for (int i = 0; i < iterations; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        return Duration.of(stopwatch);
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        String expected = beanMapper.writeValueAsString(value);
+        String actual = restMapper.writeValueAsString(value);
+        assertEquals(restMapper.readTree(actual), beanMapper.readTree(expected), "actual="+actual+"; expected="+expected);
+    }
+
+    private List<Object> newListing(int size) {
+        List<Object> result = MutableList.of();
+        for (int i = 0; i < size; i++) {
+            result.add(newEntitySummary("e"+i, "entity "+i));
+            result.add(newTaskSummary("t"+i, i % 2 == 0));
+        }
+        return result;
+    }
+
+    private EntitySummary newEntitySummary(String id, String name) {
+        return new EntitySummary(id, name, "org.example.Entity", "catalog-item:1.0",
+                ImmutableMap.of(
+                        "self", URI.create("/applications/a1/entities/"+id),
+                        "sensors", URI.create("/applications/a1/entities/"+id+"/sensors")));
+    }
+
+    private TaskSummary newTaskSummary(String id, boolean complete) {
+        LinkWithMetadata entityLink = new LinkWithMetadata("/applications/a1/entities/e1",
+                ImmutableMap.of("id", "e1", "displayName", "entity"));
+        LinkWithMetadata childLink = new LinkWithMetadata("/activities/"+id+"-child",
+                ImmutableMap.of("id", id+"-child", "taskName", "child"));
+        Map<String, LinkWithMetadata> streams = complete
+                ? ImmutableMap.of("stdout", new LinkWithMetadata("/activities/"+id+"/stream/stdout", ImmutableMap.of("name", "stdout", "size", 12)))
+                : null;
+        return new TaskSummary(id, "task "+id, "a task", "e1", "entity",
+                MutableSet.<Object>of("EFFECTOR", ImmutableMap.of("entityId", "e1")),
+                1000L, 1001L, complete ? 1002L : null,
+                complete ? "Completed" : "In progress",
+                complete ? MutableMap.of("value", 42, "list", MutableList.of("a", "b")) : null,
+                false, false,
+                MutableList.of(childLink), entityLink,
+                complete ? null : childLink, complete ? null : "waiting for child",
+                "detailed status",
+                streams,
+                ImmutableMap.of("self", URI.create("/activities/"+id), "children", URI.create("/activities/"+id+"/children")));
+    }
+}
@@ -24,12 +24,18 @@ import java.util.EnumSet;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
+import javax.servlet.http.HttpServletRequest;
 
 import org.apache.brooklyn.rest.apidoc.RestApiResourceScanner;
+import org.apache.brooklyn.rest.util.WebResourceUtils;
 import org.apache.cxf.BusFactory;
+import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.jaxrs.servlet.CXFNonSpringJaxrsServlet;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
 import org.apache.cxf.transport.common.gzip.GZIPInInterceptor;
 import org.apache.cxf.transport.common.gzip.GZIPOutInterceptor;
+import org.apache.cxf.transport.http.AbstractHTTPDestination;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 
@@ -49,8 +55,10 @@ public class RestApiSetup {
         servlet.setBus(BusFactory.newInstance().createBus());
         servlet.getBus().getInInterceptors().add(new GZIPInInterceptor());
         servlet.getBus().getInFaultInterceptors().add(new GZIPInInterceptor());
-        servlet.getBus().getOutInterceptors().add(new GZIPOutInterceptor());
+        servlet.getBus().getOutInterceptors().add(new GZIPOutUnlessStreamedInterceptor());
         final ServletHolder servletHolder = new ServletHolder(servlet);
+        // for the suspended responses of AsyncResource; the filters on the path must also support async
+        servletHolder.setAsyncSupported(true);
 
         context.addServlet(servletHolder, "/v1/*");
     }
@@ -62,7 +70,7 @@ public class RestApiSetup {
 
     public static void installServletFilters(ServletContextHandler context, Collection<Class<? extends Filter>> filters) {
         for (Class<? extends Filter> filter : filters) {
-            context.addFilter(filter, "/*", EnumSet.allOf(DispatcherType.class));
+            context.addFilter(filter, "/*", EnumSet.allOf(DispatcherType.class)).setAsyncSupported(true);
         }
     }
 
@@ -70,4 +78,19 @@ public class RestApiSetup {
         ScannerFactory.setScanner(new RestApiResourceScanner());
     }
 
+    /** Does not compress responses marked as streamed (see {@link WebResourceUtils#NO_COMPRESSION_ATTRIBUTE}). */
+    private static class GZIPOutUnlessStreamedInterceptor extends GZIPOutInterceptor {
+        @Override
+        public UseGzip gzipPermitted(Message message) throws Fault {
+            Exchange exchange = message.getExchange();
+            Message request = (exchange != null) ? exchange.getInMessage() : null;
+            Object servletRequest = (request != null) ? request.get(AbstractHTTPDestination.HTTP_REQUEST) : null;
+            if (servletRequest instanceof HttpServletRequest
+                    && ((HttpServletRequest)servletRequest).getAttribute(WebResourceUtils.NO_COMPRESSION_ATTRIBUTE) != null) {
+                return UseGzip.NO;
+            }
+            return super.gzipPermitted(message);
+        }
+    }
+
 }
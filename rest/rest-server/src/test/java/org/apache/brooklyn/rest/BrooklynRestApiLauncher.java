@@ -36,6 +36,8 @@ import org.apache.brooklyn.core.mgmt.internal.LocalManagementContext;
 import org.apache.brooklyn.core.mgmt.internal.ManagementContextInternal;
 import org.apache.brooklyn.core.server.BrooklynServerConfig;
 import org.apache.brooklyn.core.server.BrooklynServiceAttributes;
+import org.apache.brooklyn.rest.filter.AdmissionControlFilter;
+import org.apache.brooklyn.rest.filter.AdmissionControlReleaseFilter;
 import org.apache.brooklyn.rest.filter.EntitlementContextFilter;
 import org.apache.brooklyn.rest.filter.HaHotCheckResourceFilter;
 import org.apache.brooklyn.rest.filter.LoggingFilter;
@@ -96,7 +98,8 @@ public class BrooklynRestApiLauncher {
 
     public static final List<Class<? extends Filter>> DEFAULT_FILTERS = ImmutableList.<Class<? extends Filter>>of(
             RequestTaggingFilter.class,
-            LoggingFilter.class);
+            LoggingFilter.class,
+            AdmissionControlReleaseFilter.class);
 
     private boolean forceUseOfDefaultCatalogWithJavaClassPath = false;
     private Class<? extends SecurityProvider> securityProvider;
@@ -227,7 +230,8 @@ public class BrooklynRestApiLauncher {
                 new RequestTaggingRsFilter(),
                 new NoCacheFilter(),
                 new HaHotCheckResourceFilter(),
-                new EntitlementContextFilter());
+                new EntitlementContextFilter(),
+                new AdmissionControlFilter());
         RestApiSetup.installServletFilters(context, this.filters);
 
         context.setContextPath("/");
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import static org.apache.brooklyn.util.http.HttpTool.httpClientBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.api.mgmt.Task;
+import org.apache.brooklyn.core.test.entity.TestApplication;
+import org.apache.brooklyn.core.test.entity.TestEntity;
+import org.apache.brooklyn.rest.BrooklynRestApiLauncherTestFixture;
+import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.HttpToolResponse;
+import org.apache.http.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class AsyncResourceIntegrationTest extends BrooklynRestApiLauncherTestFixture {
+
+    private static final Map<String, String> NO_HEADERS = ImmutableMap.of();
+
+    @Test(groups = "Integration")
+    public void testWaitForTaskTimesOutThenCompletes() throws Exception {
+        Server server = useServerForTest(newServer());
+        ManagementContext mgmt = getManagementContextFromJettyServerAttributes(server);
+        HttpClient client = httpClientBuilder().uri(getBaseUriRest(server)).build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        Task<?> task = mgmt.getExecutionManager().submit(Tasks.builder().displayName("waiting")
+                .body(new Runnable() {
+                    @Override public void run() {
+                        try {
+                            latch.await(30, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw Exceptions.propagate(e);
+                        }
+                    }})
+                .build());
+        try {
+            URI uri = URI.create(getBaseUriRest(server) + "async/activities/" + task.getId());
+            HttpToolResponse response = HttpTool.httpGet(client, URI.create(uri + "?timeout=100ms"), NO_HEADERS);
+            assertEquals(response.getResponseCode(), 202);
+            assertTrue(response.getContentAsString().contains("\"endTimeUtc\":null"), response.getContentAsString());
+
+            latch.countDown();
+            response = HttpTool.httpGet(client, uri, NO_HEADERS);
+            assertEquals(response.getResponseCode(), 200);
+            assertTrue(task.isDone());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test(groups = "Integration")
+    public void testInvokeEffector() throws Exception {
+        Server server = useServerForTest(newServer());
+        ManagementContext mgmt = getManagementContextFromJettyServerAttributes(server);
+        HttpClient client = httpClientBuilder().uri(getBaseUriRest(server)).build();
+
+        TestApplication app = mgmt.getEntityManager().createEntity(EntitySpec.create(TestApplication.class));
+        TestEntity entity = app.addChild(EntitySpec.create(TestEntity.class));
+
+        URI uri = URI.create(getBaseUriRest(server) + "async/applications/" + app.getId() + "/entities/" + entity.getId()
+                + "/effectors/" + TestEntity.MY_EFFECTOR.getName());
+        HttpToolResponse response = HttpTool.httpPost(client, uri, ImmutableMap.of("Content-Type", "application/json"),
+                "{}".getBytes());
+        assertEquals(response.getResponseCode(), 202);
+        assertTrue(entity.getCallHistory().contains(TestEntity.MY_EFFECTOR.getName()), "calls="+entity.getCallHistory());
+    }
+}
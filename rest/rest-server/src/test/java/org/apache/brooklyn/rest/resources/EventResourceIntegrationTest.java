@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.rest.resources;
+
+import static org.apache.brooklyn.util.http.HttpTool.httpClientBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.brooklyn.api.entity.EntitySpec;
+import org.apache.brooklyn.api.mgmt.ManagementContext;
+import org.apache.brooklyn.core.sensor.Sensors;
+import org.apache.brooklyn.core.test.entity.TestApplication;
+import org.apache.brooklyn.rest.BrooklynRestApiLauncherTestFixture;
+import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.HttpToolResponse;
+import org.apache.http.client.HttpClient;
+import org.eclipse.jetty.server.Server;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class EventResourceIntegrationTest extends BrooklynRestApiLauncherTestFixture {
+
+    @Test(groups = "Integration")
+    public void testStreamNotCompressedWhenClientAcceptsGzip() throws Exception {
+        Server server = useServerForTest(newServer());
+        ManagementContext mgmt = getManagementContextFromJettyServerAttributes(server);
+        HttpClient client = httpClientBuilder().uri(getBaseUriRest(server)).build();
+
+        TestApplication app = mgmt.getEntityManager().createEntity(EntitySpec.create(TestApplication.class));
+        app.sensors().set(Sensors.newStringSensor("test.streamed"), "myval");
+
+        URI uri = URI.create(getBaseUriRest(server) + "events/stream?format=ndjson&timeout=1s&application=" + app.getId());
+        HttpToolResponse response = HttpTool.httpGet(client, uri, ImmutableMap.of("Accept-Encoding", "gzip"));
+
+        assertEquals(response.getResponseCode(), 200);
+        for (Map.Entry<String, List<String>> header : response.getHeaderLists().entrySet()) {
+            if ("Content-Encoding".equalsIgnoreCase(header.getKey())) {
+                assertFalse(header.getValue().contains("gzip"), "headers="+response.getHeaderLists());
+            }
+        }
+        String content = response.getContentAsString();
+        assertTrue(content.contains("\"sensor\":\"test.streamed\""), content);
+    }
+}
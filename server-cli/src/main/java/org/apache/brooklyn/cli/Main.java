@@ -250,6 +250,10 @@ public class Main extends AbstractMain {
         @Option(name = { "--https" },
             description = "Launch the web console on https")
         public boolean useHttps = false;
+
+        @Option(name = { "--gzip" },
+            description = "Compress web console responses for clients which accept gzip (REST API responses are compressed regardless)")
+        public boolean useGzip = false;
         
         @Option(name = { "-nc", "--noConsole" },
                 description = "Do not start the web console or REST API")
@@ -595,6 +599,10 @@ public class Main extends AbstractMain {
                 // (no way currently to override config key, but that could be added)
                 launcher.webconsoleHttps(useHttps);
             }
+            if (useGzip) {
+                // as for https, not set falls back to the config key
+                launcher.webconsoleGzip(useGzip);
+            }
             launcher.webconsolePort(port);
             
             if (noGlobalBrooklynProperties) {
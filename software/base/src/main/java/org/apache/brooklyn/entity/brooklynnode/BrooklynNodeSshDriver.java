@@ -152,7 +152,7 @@ public class BrooklynNodeSshDriver extends JavaSoftwareProcessSshDriver implemen
                 getMachine().copyTo(distroStream, getInstallDir()+"/"+saveAs);
             }
         } else {
-            commands.addAll(BashCommands.commandsToDownloadUrlsAs(urls, saveAs));
+            commands.addAll(commandsToDownloadUrlsAs(urls, saveAs));
         }
         commands.add(BashCommands.INSTALL_TAR);
         commands.add("tar xzfv " + saveAs);
@@ -37,6 +37,7 @@ import org.apache.brooklyn.core.entity.Attributes;
 import org.apache.brooklyn.core.entity.BrooklynConfigKeys;
 import org.apache.brooklyn.core.entity.Entities;
 import org.apache.brooklyn.core.entity.EntityInternal;
+import org.apache.brooklyn.core.entity.drivers.downloads.DownloadCache;
 import org.apache.brooklyn.core.feed.ConfigToAttributes;
 import org.apache.brooklyn.core.mgmt.BrooklynTaskTags;
 import org.apache.brooklyn.entity.software.base.lifecycle.NaiveScriptRunner;
@@ -52,17 +53,22 @@ import org.apache.brooklyn.util.exceptions.Exceptions;
 import org.apache.brooklyn.util.os.Os;
 import org.apache.brooklyn.util.ssh.BashCommands;
 import org.apache.brooklyn.util.stream.KnownSizeInputStream;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
 import org.apache.brooklyn.util.stream.Streams;
+import org.apache.brooklyn.util.text.StringEscapes.BashStringEscapes;
 import org.apache.brooklyn.util.text.StringPredicates;
 import org.apache.brooklyn.util.text.Strings;
 import org.apache.brooklyn.util.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -86,6 +92,9 @@ public abstract class AbstractSoftwareProcessSshDriver extends AbstractSoftwareP
 
     private final Object installDirSetupMutex = new Object();
 
+    /** artifacts to copy from the download cache in the next install script, destination to URLs; see {@link #commandsToDownloadUrlsAs(List, String)} */
+    private final Map<String, List<String>> pendingCacheCopies = Maps.newLinkedHashMap();
+
     protected volatile DownloadResolver resolver;
 
     @Override
@@ -274,9 +283,9 @@ public abstract class AbstractSoftwareProcessSshDriver extends AbstractSoftwareP
                     Streams.byteArrayOfString(Strings.join(script, "\n"))));
             }
             if (BrooklynTaskTags.stream(Tasks.current(), BrooklynTaskTags.STREAM_STDOUT)==null) {
-                ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+                ByteArrayOutputStream stdout = new SpoolingByteArrayOutputStream();
                 Tasks.addTagDynamically(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDOUT, stdout));
-                ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+                ByteArrayOutputStream stderr = new SpoolingByteArrayOutputStream();
                 Tasks.addTagDynamically(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDERR, stderr));
                 flags.put("out", stdout);
                 flags.put("err", stderr);
@@ -340,6 +349,63 @@ public abstract class AbstractSoftwareProcessSshDriver extends AbstractSoftwareP
         executeSuccessfully(BrooklynConfigKeys.POST_LAUNCH_COMMAND, "running post-launch commands");
     }
 
+    /**
+     * Commands to download the first available of the given URLs to the given file on the machine (relative
+     * to the install dir, if not absolute), for use in install scripts.
+     * <p>
+     * If the management node's {@link DownloadCache} is enabled and any of the URLs are http(s), then the next 
+     * {@link #INSTALLING} script first copies the artifact from the cache (fetching it into the cache once, for
+     * all machines), while holding the install mutex and only if not already installed; the commands then download
+     * it as usual only if it is not present.
+     */
+    @Beta
+    protected List<String> commandsToDownloadUrlsAs(List<String> urls, String saveAs) {
+        DownloadCache cache = DownloadCache.get(getEntity().getManagementContext());
+        List<String> cacheableUrls = Lists.newArrayList();
+        for (String url : urls) {
+            if (DownloadCache.isCacheable(url)) cacheableUrls.add(url);
+        }
+        if (cache.isEnabled() && !cacheableUrls.isEmpty()) {
+            String destination = Os.isAbsolutish(saveAs) ? saveAs : Os.mergePathsUnix(getInstallDir(), saveAs);
+            synchronized (pendingCacheCopies) {
+                pendingCacheCopies.put(destination, cacheableUrls);
+            }
+            return ImmutableList.of(BashCommands.alternatives(
+                    "test -f "+BashStringEscapes.wrapBash(destination),
+                    BashCommands.commandToDownloadUrlsAs(urls, saveAs)));
+        }
+        return BashCommands.commandsToDownloadUrlsAs(urls, saveAs);
+    }
+
+    /** 
+     * Copies the given artifacts (destination to URLs) from the download cache, unless already installed;
+     * run by the install script while it holds the install mutex. Failures are logged, removing any partial
+     * copy, so that the script downloads the artifact instead.
+     */
+    protected void copyFromDownloadCache(Map<String, List<String>> copies) {
+        String marker = BashStringEscapes.wrapBash(Os.mergePathsUnix(getInstallDir(), "BROOKLYN"));
+        if (getMachine().execCommands("checkIfInstalled", ImmutableList.of("test -f "+marker)) == 0) return;
+
+        DownloadCache cache = DownloadCache.get(getEntity().getManagementContext());
+        for (Map.Entry<String, List<String>> copy : copies.entrySet()) {
+            String destination = copy.getKey();
+            List<String> urls = copy.getValue();
+            String path = BashStringEscapes.wrapBash(destination);
+            try {
+                int lastSlashIndex = destination.lastIndexOf("/");
+                if (lastSlashIndex > 0) {
+                    getMachine().execCommands("createParentDir", ImmutableList.of("mkdir -p "+BashStringEscapes.wrapBash(destination.substring(0, lastSlashIndex))));
+                }
+                if (cache.installTo(resource, getMachine(), urls, destination) == 0) continue;
+                log.warn("Failed to copy "+urls+" from download cache to "+getMachine()+"; downloading on the machine instead");
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                log.warn("Failed to copy "+urls+" from download cache to "+getMachine()+"; downloading on the machine instead: "+e);
+            }
+            getMachine().execCommands("removePartialCopy", ImmutableList.of("rm -f "+path));
+        }
+    }
+
     /**
      * The environment variables to be set when executing the commands (for install, run, check running, etc).
      * @see SoftwareProcess#SHELL_ENVIRONMENT
@@ -546,6 +612,18 @@ public abstract class AbstractSoftwareProcessSshDriver extends AbstractSoftwareP
             if (INSTALLING.equals(phase)) {
                 // mutexId should be global because otherwise package managers will contend with each other
                 s.useMutex(getLocation(), "installation lock at host", "installing "+elvis(entity,this));
+                final Map<String, List<String>> cacheCopies;
+                synchronized (pendingCacheCopies) {
+                    cacheCopies = ImmutableMap.copyOf(pendingCacheCopies);
+                    pendingCacheCopies.clear();
+                }
+                if (!cacheCopies.isEmpty()) {
+                    s.preExecute(new Runnable() {
+                        @Override public void run() {
+                            copyFromDownloadCache(cacheCopies);
+                        }
+                    });
+                }
                 s.header.append(
                         "export INSTALL_DIR=\""+getInstallDir()+"\"",
                         "mkdir -p $INSTALL_DIR",
@@ -45,6 +45,7 @@ import org.apache.brooklyn.util.core.task.TaskBuilder;
 import org.apache.brooklyn.util.core.task.Tasks;
 import org.apache.brooklyn.util.exceptions.RuntimeInterruptedException;
 import org.apache.brooklyn.util.groovy.GroovyJavaMethods;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
 import org.apache.brooklyn.util.stream.Streams;
 import org.apache.brooklyn.util.text.Identifiers;
 import org.apache.brooklyn.util.text.Strings;
@@ -198,6 +199,8 @@ public class ScriptHelper {
         }
     };
 
+    protected final List<Runnable> preExecuteSteps = new LinkedList<Runnable>();
+
     /**
      * indicates that the script should acquire the given mutexId on the given mutexSupport
      * and maintain it for the duration of script execution;
@@ -224,6 +227,16 @@ public class ScriptHelper {
         return this;
     }
 
+    /**
+     * adds a step to run (locally) immediately before the script is executed, while holding any mutex
+     * (see {@link #useMutex(WithMutexes, String, String)}); e.g. to copy files which the script uses
+     */
+    @Beta
+    public ScriptHelper preExecute(Runnable step) {
+        preExecuteSteps.add(step);
+        return this;
+    }
+
     public ScriptHelper gatherOutput() {
         return gatherOutput(true);
     }
@@ -307,9 +320,9 @@ public class ScriptHelper {
         }
         
         if (gatherOutput) {
-            stdout = new ByteArrayOutputStream();
+            stdout = new SpoolingByteArrayOutputStream();
             tb.tag(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDOUT, stdout));
-            stderr = new ByteArrayOutputStream();
+            stderr = new SpoolingByteArrayOutputStream();
             tb.tag(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDERR, stderr));
         }
         task = tb.build();
@@ -352,13 +365,16 @@ public class ScriptHelper {
         int result;
         try {
             mutexAcquire.run();
+            for (Runnable step : preExecuteSteps) {
+                step.run();
+            }
             Map flags = getFlags();
             if (closeSshConnection) {
                 flags.put("close", true);
             }
             if (gatherOutput) {
-                if (stdout==null) stdout = new ByteArrayOutputStream();
-                if (stderr==null) stderr = new ByteArrayOutputStream();
+                if (stdout==null) stdout = new SpoolingByteArrayOutputStream();
+                if (stderr==null) stderr = new SpoolingByteArrayOutputStream();
                 flags.put("out", stdout);
                 flags.put("err", stderr);
             }
@@ -370,6 +386,9 @@ public class ScriptHelper {
             throw logWithDetailsAndThrow(format("Execution failed, invocation error for %s: %s", summary, e.getMessage()), e);
         } finally {
             mutexRelease.run();
+            // the output is still readable; this just releases any file being spooled to
+            if (stdout!=null) Streams.closeQuietly(stdout);
+            if (stderr!=null) Streams.closeQuietly(stderr);
         }
         if (log.isTraceEnabled()) log.trace("finished executing: {} - result code {}", summary, result);
         
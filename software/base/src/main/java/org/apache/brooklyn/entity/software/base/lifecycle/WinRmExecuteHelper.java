@@ -36,6 +36,7 @@ import org.apache.brooklyn.util.core.internal.winrm.WinRmTool;
 import org.apache.brooklyn.util.core.task.DynamicTasks;
 import org.apache.brooklyn.util.core.task.TaskBuilder;
 import org.apache.brooklyn.util.core.task.Tasks;
+import org.apache.brooklyn.util.stream.SpoolingByteArrayOutputStream;
 import org.apache.brooklyn.util.stream.Streams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -124,9 +125,9 @@ public class WinRmExecuteHelper {
         }
 
         if (gatherOutput) {
-            stdout = new ByteArrayOutputStream();
+            stdout = new SpoolingByteArrayOutputStream();
             tb.tag(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDOUT, stdout));
-            stderr = new ByteArrayOutputStream();
+            stderr = new SpoolingByteArrayOutputStream();
             tb.tag(BrooklynTaskTags.tagForStreamSoft(BrooklynTaskTags.STREAM_STDERR, stderr));
         }
         task = tb.build();
@@ -144,8 +145,8 @@ public class WinRmExecuteHelper {
     public int executeInternal() {
         int result;
         if (gatherOutput) {
-            if (stdout==null) stdout = new ByteArrayOutputStream();
-            if (stderr==null) stderr = new ByteArrayOutputStream();
+            if (stdout==null) stdout = new SpoolingByteArrayOutputStream();
+            if (stderr==null) stderr = new SpoolingByteArrayOutputStream();
             flags.put("out", stdout);
             flags.put("err", stderr);
         }
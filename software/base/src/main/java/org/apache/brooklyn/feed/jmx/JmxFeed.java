@@ -37,6 +37,7 @@ import org.apache.brooklyn.core.config.ConfigKeys;
 import org.apache.brooklyn.core.feed.AbstractFeed;
 import org.apache.brooklyn.core.feed.AttributePollHandler;
 import org.apache.brooklyn.core.feed.DelegatingPollHandler;
+import org.apache.brooklyn.core.feed.PollConfig;
 import org.apache.brooklyn.core.feed.PollHandler;
 import org.apache.brooklyn.core.feed.Poller;
 import org.apache.brooklyn.entity.software.base.SoftwareProcessImpl;
@@ -45,8 +46,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
@@ -97,6 +102,8 @@ public class JmxFeed extends AbstractFeed {
     public static final ConfigKey<Boolean> OWN_HELPER = ConfigKeys.newBooleanConfigKey("ownHelper");
     public static final ConfigKey<String> JMX_URI = ConfigKeys.newStringConfigKey("jmxUri");
     public static final ConfigKey<Long> JMX_CONNECTION_TIMEOUT = ConfigKeys.newLongConfigKey("jmxConnectionTimeout");
+    public static final ConfigKey<Boolean> BATCH_ATTRIBUTE_POLLS = ConfigKeys.newBooleanConfigKey("batchAttributePolls",
+            "Whether to poll the attributes of an MBean which have the same period in a single request", true);
     
     @SuppressWarnings("serial")
     public static final ConfigKey<SetMultimap<String, JmxAttributePollConfig<?>>> ATTRIBUTE_POLLS = ConfigKeys.newConfigKey(
@@ -127,6 +134,7 @@ public class JmxFeed extends AbstractFeed {
         private List<JmxOperationPollConfig<?>> operationPolls = Lists.newArrayList();
         private List<JmxNotificationSubscriptionConfig<?>> notificationSubscriptions = Lists.newArrayList();
         private String uniqueTag;
+        private boolean batchAttributePolls = true;
         private volatile boolean built;
         
         public Builder entity(EntityLocal val) {
@@ -160,6 +168,14 @@ public class JmxFeed extends AbstractFeed {
             notificationSubscriptions.add(config);
             return this;
         }
+        /**
+         * Whether to poll the attributes of each MBean with the same period in a single request
+         * (default true), rather than making a request for each attribute.
+         */
+        public Builder batchAttributePolls(boolean val) {
+            this.batchAttributePolls = val;
+            return this;
+        }
         public Builder uniqueTag(String uniqueTag) {
             this.uniqueTag = uniqueTag;
             return this;
@@ -194,6 +210,7 @@ public class JmxFeed extends AbstractFeed {
             setConfig(JMX_URI, helper.getUrl());
         }
         setConfig(JMX_CONNECTION_TIMEOUT, builder.jmxConnectionTimeout);
+        setConfig(BATCH_ATTRIBUTE_POLLS, builder.batchAttributePolls);
         
         SetMultimap<String, JmxAttributePollConfig<?>> attributePolls = HashMultimap.<String,JmxAttributePollConfig<?>>create();
         for (JmxAttributePollConfig<?> config : builder.attributePolls) {
@@ -287,8 +304,12 @@ public class JmxFeed extends AbstractFeed {
         }
         
         // Setup polling of sensors
-        for (final String jmxAttributeName : attributePolls.keys()) {
-            registerAttributePoller(attributePolls.get(jmxAttributeName));
+        if (Boolean.FALSE.equals(getConfig(BATCH_ATTRIBUTE_POLLS))) {
+            for (final String jmxAttributeName : attributePolls.keys()) {
+                registerAttributePoller(attributePolls.get(jmxAttributeName));
+            }
+        } else {
+            registerBatchedAttributePollers(attributePolls);
         }
         
         // Setup polling of operations
@@ -332,7 +353,7 @@ public class JmxFeed extends AbstractFeed {
             if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
         }
         
-        getPoller().scheduleAtFixedRate(
+        getPoller().scheduleAdaptive(
                 new Callable<Object>() {
                     public Object call() throws Exception {
                         if (log.isDebugEnabled()) log.debug("jmx operation polling for {} sensors at {} -> {}", new Object[] {getEntity(), getJmxUri(), operationName});
@@ -343,7 +364,7 @@ public class JmxFeed extends AbstractFeed {
                         }
                     }
                 }, 
-                new DelegatingPollHandler<Object>(handlers), minPeriod);
+                new DelegatingPollHandler<Object>(handlers), Duration.millis(minPeriod), PollConfig.getAdaptiveMaxPeriod(configs), null);
     }
 
     /**
@@ -362,14 +383,151 @@ public class JmxFeed extends AbstractFeed {
         }
         
         // TODO Not good calling this holding the synchronization lock
-        getPoller().scheduleAtFixedRate(
+        getPoller().scheduleAdaptive(
                 new Callable<Object>() {
                     public Object call() throws Exception {
                         if (log.isTraceEnabled()) log.trace("jmx attribute polling for {} sensors at {} -> {}", new Object[] {getEntity(), getJmxUri(), jmxAttributeName});
                         return getHelper().getAttribute(objectName, jmxAttributeName);
                     }
                 }, 
-                new DelegatingPollHandler<Object>(handlers), minPeriod);
+                new DelegatingPollHandler<Object>(handlers), Duration.millis(minPeriod), PollConfig.getAdaptiveMaxPeriod(configs), null);
+    }
+
+    /**
+     * Registers to poll jmx-attributes, with one poller for each ObjectName + period which gets 
+     * all of that MBean's attributes in one request; the values are then passed to each attribute's handlers.
+     */
+    private void registerBatchedAttributePollers(SetMultimap<String, JmxAttributePollConfig<?>> attributePolls) {
+        Map<List<?>, Map<String, Set<AttributePollHandler<? super Object>>>> batches = Maps.newLinkedHashMap();
+        
+        for (String key : attributePolls.keySet()) {
+            Set<JmxAttributePollConfig<?>> configs = attributePolls.get(key);
+            ObjectName objectName = Iterables.get(configs, 0).getObjectName();
+            String jmxAttributeName = Iterables.get(configs, 0).getAttributeName();
+            Set<AttributePollHandler<? super Object>> handlers = Sets.newLinkedHashSet();
+            long minPeriod = Integer.MAX_VALUE;
+            
+            for (JmxAttributePollConfig<?> config : configs) {
+                handlers.add(new AttributePollHandler<Object>(config, getEntity(), this));
+                if (config.getPeriod() > 0) minPeriod = Math.min(minPeriod, config.getPeriod());
+            }
+            
+            Duration maxPeriod = PollConfig.getAdaptiveMaxPeriod(configs);
+            List<?> batchKey = ImmutableList.of(objectName, minPeriod, (maxPeriod == null) ? -1L : maxPeriod.toMilliseconds());
+            Map<String, Set<AttributePollHandler<? super Object>>> batch = batches.get(batchKey);
+            if (batch == null) {
+                batch = Maps.newLinkedHashMap();
+                batches.put(batchKey, batch);
+            }
+            batch.put(jmxAttributeName, handlers);
+        }
+        
+        for (Map.Entry<List<?>, Map<String, Set<AttributePollHandler<? super Object>>>> entry : batches.entrySet()) {
+            long maxPeriod = (Long) entry.getKey().get(2);
+            registerBatchedAttributePoller((ObjectName) entry.getKey().get(0), (Long) entry.getKey().get(1), 
+                    (maxPeriod < 0) ? null : Duration.millis(maxPeriod), entry.getValue());
+        }
+    }
+
+    private void registerBatchedAttributePoller(final ObjectName objectName, long period, Duration maxPeriod, Map<String, Set<AttributePollHandler<? super Object>>> handlersByAttribute) {
+        final Set<String> jmxAttributeNames = ImmutableSet.copyOf(handlersByAttribute.keySet());
+        
+        getPoller().scheduleAdaptive(
+                new Callable<Object>() {
+                    public Object call() throws Exception {
+                        long requestCountBefore = getHelper().getRequestCount();
+                        BatchedAttributeValues result = new BatchedAttributeValues();
+                        Map<String, Object> values = getHelper().getAttributes(objectName, jmxAttributeNames);
+                        for (String jmxAttributeName : jmxAttributeNames) {
+                            if (values == null) {
+                                // MBean not found; as for getAttribute
+                                result.values.put(jmxAttributeName, null);
+                            } else if (values.containsKey(jmxAttributeName)) {
+                                result.values.put(jmxAttributeName, values.get(jmxAttributeName));
+                            } else {
+                                // getAttributes omits attributes it could not get; get it alone, to report the error
+                                try {
+                                    result.values.put(jmxAttributeName, getHelper().getAttribute(objectName, jmxAttributeName));
+                                } catch (Exception e) {
+                                    result.failures.put(jmxAttributeName, e);
+                                }
+                            }
+                        }
+                        if (log.isTraceEnabled()) log.trace("jmx attribute polling for {} sensors at {} -> {} {}, in {} request(s)", 
+                                new Object[] {getEntity(), getJmxUri(), objectName, jmxAttributeNames, getHelper().getRequestCount()-requestCountBefore});
+                        return result;
+                    }
+                    @Override public String toString() { return "Poll JMX "+objectName+" "+jmxAttributeNames; }
+                }, 
+                new BatchedAttributePollHandler(handlersByAttribute), Duration.millis(period), maxPeriod, null);
+    }
+
+    /**
+     * The number of requests made to the JMX server by this feed's {@link JmxHelper} (which may be shared 
+     * with other feeds), e.g. for comparing with the number of polls.
+     */
+    public long getRequestCount() {
+        JmxHelper helper = getHelper();
+        return (helper == null) ? 0 : helper.getRequestCount();
+    }
+
+    private static class BatchedAttributeValues {
+        final Map<String, Object> values = Maps.newLinkedHashMap();
+        final Map<String, Exception> failures = Maps.newLinkedHashMap();
+    }
+
+    /**
+     * Passes each attribute's value (or error) from a {@link BatchedAttributeValues} to the handlers for that attribute.
+     * (Extends {@link DelegatingPollHandler}, with all the handlers, so the poller knows all the sensors set.)
+     */
+    private static class BatchedAttributePollHandler extends DelegatingPollHandler<Object> {
+        private final Map<String, PollHandler<Object>> handlers;
+
+        BatchedAttributePollHandler(Map<String, Set<AttributePollHandler<? super Object>>> handlersByAttribute) {
+            super(Iterables.concat(handlersByAttribute.values()));
+            Map<String, PollHandler<Object>> handlers = Maps.newLinkedHashMap();
+            for (Map.Entry<String, Set<AttributePollHandler<? super Object>>> entry : handlersByAttribute.entrySet()) {
+                handlers.put(entry.getKey(), new DelegatingPollHandler<Object>(entry.getValue()));
+            }
+            this.handlers = ImmutableMap.copyOf(handlers);
+        }
+        @Override
+        public boolean checkSuccess(Object val) {
+            // success is checked for each attribute
+            return true;
+        }
+        @Override
+        public void onSuccess(Object val) {
+            BatchedAttributeValues batch = (BatchedAttributeValues) val;
+            for (Map.Entry<String, PollHandler<Object>> entry : handlers.entrySet()) {
+                PollHandler<Object> handler = entry.getValue();
+                Exception failure = batch.failures.get(entry.getKey());
+                if (failure != null) {
+                    handler.onException(failure);
+                } else {
+                    Object attributeVal = batch.values.get(entry.getKey());
+                    if (handler.checkSuccess(attributeVal)) {
+                        handler.onSuccess(attributeVal);
+                    } else {
+                        handler.onFailure(attributeVal);
+                    }
+                }
+            }
+        }
+        @Override
+        public void onFailure(Object val) {
+            onSuccess(val);
+        }
+        @Override
+        public void onException(Exception exception) {
+            for (PollHandler<Object> handler : handlers.values()) {
+                handler.onException(exception);
+            }
+        }
+        @Override
+        public String getDescription() {
+            return "jmx attributes "+handlers.keySet();
+        }
     }
 
     /**
@@ -26,6 +26,7 @@ import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -34,8 +35,10 @@ import java.util.WeakHashMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -161,6 +164,9 @@ public class JmxHelper {
     private transient long failedReconnectingTime;
     private int minTimeBetweenReconnectAttempts = 1000;
     private final AtomicBoolean terminated = new AtomicBoolean();
+    // a primitive (rather than an AtomicLong) so that it is zero for helpers deserialized from older state
+    private transient volatile long requestCount;
+    private static final AtomicLongFieldUpdater<JmxHelper> REQUEST_COUNT = AtomicLongFieldUpdater.newUpdater(JmxHelper.class, "requestCount");
     
     // Tracks the MBeans we have failed to find for this JmsHelper's connection URL (so can log just once for each)
     private final Set<ObjectName> notFoundMBeans;
@@ -485,13 +491,23 @@ public class JmxHelper {
         }
     }
 
+    /**
+     * The number of requests (i.e. round trips to the JMX server) made by this helper, including retries,
+     * for monitoring the cost of polling.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
     private <T> T invokeWithReconnect(Callable<T> task) {
         try {
+            REQUEST_COUNT.incrementAndGet(this);
             return task.call();
         } catch (Exception e) {
             if (shouldRetryOn(e)) {
                 try {
                     reconnectWithRetryDampened();
+                    REQUEST_COUNT.incrementAndGet(this);
                     return task.call();
                 } catch (Exception e2) {
                     throw Throwables.propagate(e2);
@@ -634,6 +650,33 @@ public class JmxHelper {
         }
     }
 
+    /**
+     * Returns the given attributes of a JMX {@link ObjectName}, fetched in a single request
+     * (plus one query if the object name is a pattern), keyed by attribute name. 
+     * As with {@link MBeanServerConnection#getAttributes(ObjectName, String[])}, attributes which 
+     * could not be retrieved are omitted. Returns null if no (unique) matching MBean is found.
+     */
+    public Map<String, Object> getAttributes(ObjectName objectName, Collection<String> attributes) {
+        final ObjectName realObjectName = toLiteralObjectName(objectName);
+        final String[] attributeNames = attributes.toArray(new String[attributes.size()]);
+        
+        if (realObjectName != null) {
+            AttributeList attributeList = invokeWithReconnect(new Callable<AttributeList>() {
+                    public AttributeList call() throws Exception {
+                        return getConnectionOrFail().getAttributes(realObjectName, attributeNames);
+                    }});
+
+            Map<String, Object> result = new LinkedHashMap<String, Object>();
+            for (javax.management.Attribute attribute : attributeList.asList()) {
+                result.put(attribute.getName(), attribute.getValue());
+            }
+            if (LOG.isTraceEnabled()) LOG.trace("From {}, for jmx attributes {}.{}, got values {}", new Object[] {url, objectName.getCanonicalName(), attributes, result});
+            return result;
+        } else {
+            return null;
+        }
+    }
+
     public void setAttribute(String objectName, String attribute, Object val) {
         setAttribute(createObjectName(objectName), attribute, val);
     }
@@ -177,6 +177,41 @@ public class JmxFeedTest {
         assertSensorEventually(intAttribute, 64, TIMEOUT_MS);
     }
 
+    @Test
+    public void testJmxAttributesOfSameMBeanPolledTogether() throws Exception {
+        GeneralisedDynamicMBean mbean = jmxService.registerMBean(ImmutableMap.of(attributeName, 42, "myattrib2", "foo"), objectName);
+
+        feed = JmxFeed.builder()
+                .entity(entity)
+                .pollAttribute(new JmxAttributePollConfig<Integer>(intAttribute)
+                        .objectName(objectName)
+                        .period(50)
+                        .attributeName(attributeName))
+                .pollAttribute(new JmxAttributePollConfig<String>(stringAttribute)
+                        .objectName(objectName)
+                        .period(50)
+                        .attributeName("myattrib2"))
+                .build();
+        
+        assertSensorEventually(intAttribute, 42, TIMEOUT_MS);
+        assertSensorEventually(stringAttribute, "foo", TIMEOUT_MS);
+
+        mbean.updateAttributeValue("myattrib2", "bar");
+        assertSensorEventually(stringAttribute, "bar", TIMEOUT_MS);
+        assertEquals(entity.getAttribute(intAttribute), (Integer)42);
+    }
+
+    @Test
+    public void testJmxHelperGetsAttributesInOneRequest() throws Exception {
+        jmxService.registerMBean(ImmutableMap.of(attributeName, 42, "myattrib2", "foo"), objectName);
+        jmxHelper.connect(TIMEOUT_MS);
+
+        long requestsBefore = jmxHelper.getRequestCount();
+        Map<String, Object> values = jmxHelper.getAttributes(jmxObjectName, ImmutableList.of(attributeName, "myattrib2"));
+        assertEquals(values, ImmutableMap.of(attributeName, 42, "myattrib2", "foo"));
+        assertEquals(jmxHelper.getRequestCount() - requestsBefore, 1);
+    }
+
     @Test
     public void testJmxAttributeSensor() throws Exception {
         GeneralisedDynamicMBean mbean = jmxService.registerMBean(ImmutableMap.of(attributeName, 42), objectName);
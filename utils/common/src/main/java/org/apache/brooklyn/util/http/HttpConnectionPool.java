@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.http;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A pool of keep-alive HTTP connections, for sharing between the {@link HttpTool} clients of many callers
+ * (e.g. all the {@code HttpFeed}s of a management context), so that repeated requests to the same host
+ * reuse connections rather than paying for a new TCP (and TLS) handshake each time.
+ * <p>
+ * A connection manager is kept for each trust mode (default, trust self-signed, trust all), each with a
+ * single SSL socket factory so that TLS sessions are also reused. Connections idle for longer than the
+ * configured time are closed periodically.
+ * <p>
+ * Callers must consume or close each response (as {@link HttpTool#execAndConsume(org.apache.http.client.HttpClient, org.apache.http.client.methods.HttpUriRequest)}
+ * does) so that its connection is returned to the pool, and must not shut down the connection manager of
+ * a client using this pool.
+ */
+@Beta
+@SuppressWarnings("deprecation")
+public class HttpConnectionPool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionPool.class);
+
+    private final int maxTotal;
+    private final int maxPerRoute;
+    private final Duration idleTimeout;
+
+    private PoolingClientConnectionManager defaultManager;
+    private PoolingClientConnectionManager trustSelfSignedManager;
+    private PoolingClientConnectionManager trustAllManager;
+    private ScheduledExecutorService evictor;
+    private boolean closed;
+
+    /**
+     * @param maxTotal maximum connections in each of the pool's connection managers
+     * @param maxPerRoute maximum connections to any one host:port
+     * @param idleTimeout how long a connection can be idle before it is closed
+     */
+    public HttpConnectionPool(int maxTotal, int maxPerRoute, Duration idleTimeout) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /** the connection manager to use for the given trust mode; trustAll takes precedence over trustSelfSigned */
+    public synchronized ClientConnectionManager getConnectionManager(boolean trustAll, boolean trustSelfSigned) {
+        if (closed) throw new IllegalStateException("Connection pool "+this+" has been closed");
+        if (trustAll) {
+            if (trustAllManager == null) trustAllManager = newConnectionManager(true, false);
+            return trustAllManager;
+        } else if (trustSelfSigned) {
+            if (trustSelfSignedManager == null) trustSelfSignedManager = newConnectionManager(false, true);
+            return trustSelfSignedManager;
+        } else {
+            if (defaultManager == null) defaultManager = newConnectionManager(false, false);
+            return defaultManager;
+        }
+    }
+
+    protected PoolingClientConnectionManager newConnectionManager(boolean trustAll, boolean trustSelfSigned) {
+        SchemeRegistry registry = SchemeRegistryFactory.createDefault();
+        try {
+            if (trustAll) {
+                registry.register(new Scheme("https", 443, new SSLSocketFactory(new HttpTool.TrustAllStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)));
+            } else if (trustSelfSigned) {
+                registry.register(new Scheme("https", 443, new SSLSocketFactory(new TrustSelfSignedStrategy(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER)));
+            }
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+        PoolingClientConnectionManager result = new PoolingClientConnectionManager(registry);
+        result.setMaxTotal(maxTotal);
+        result.setDefaultMaxPerRoute(maxPerRoute);
+        startEvictorIfNecessary();
+        return result;
+    }
+
+    private void startEvictorIfNecessary() {
+        if (evictor != null) return;
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override public Thread newThread(Runnable r) {
+                Thread result = new Thread(r, "brooklyn-http-pool-evictor");
+                result.setDaemon(true);
+                return result;
+            }});
+        long periodMillis = Math.max(1000, idleTimeout.toMilliseconds() / 2);
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override public void run() {
+                try {
+                    for (PoolingClientConnectionManager manager : getConnectionManagers()) {
+                        manager.closeExpiredConnections();
+                        manager.closeIdleConnections(idleTimeout.toMilliseconds(), TimeUnit.MILLISECONDS);
+                    }
+                } catch (Exception e) {
+                    LOG.warn("Problem evicting idle connections from "+HttpConnectionPool.this+" (continuing)", e);
+                }
+            }}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized List<PoolingClientConnectionManager> getConnectionManagers() {
+        ImmutableList.Builder<PoolingClientConnectionManager> result = ImmutableList.builder();
+        if (defaultManager != null) result.add(defaultManager);
+        if (trustSelfSignedManager != null) result.add(trustSelfSignedManager);
+        if (trustAllManager != null) result.add(trustAllManager);
+        return result.build();
+    }
+
+    /**
+     * Utilisation of the pool, summed over its connection managers: connections {@code leased} (in use),
+     * {@code available} (idle), {@code pending} (requests waiting for a connection) and {@code max}.
+     */
+    public Map<String, Object> getMetrics() {
+        int leased = 0, available = 0, pending = 0, max = 0;
+        for (PoolingClientConnectionManager manager : getConnectionManagers()) {
+            PoolStats stats = manager.getTotalStats();
+            leased += stats.getLeased();
+            available += stats.getAvailable();
+            pending += stats.getPending();
+            max += stats.getMax();
+        }
+        return MutableMap.<String, Object>of("leased", leased, "available", available, "pending", pending, "max", max);
+    }
+
+    /** closes all connections; the pool cannot be used afterwards */
+    @Override
+    public void close() {
+        List<PoolingClientConnectionManager> managers;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            managers = getConnectionManagers();
+            if (evictor != null) evictor.shutdownNow();
+        }
+        for (PoolingClientConnectionManager manager : managers) {
+            try {
+                manager.shutdown();
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                LOG.debug("Problem shutting down connection manager of "+this+" (continuing): "+e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[maxTotal="+maxTotal+"; maxPerRoute="+maxPerRoute+"; idleTimeout="+idleTimeout+"]";
+    }
+}
@@ -86,6 +86,7 @@ import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
@@ -253,6 +254,7 @@ public class HttpTool {
         private ConnectionReuseStrategy reuseStrategy;
         private boolean trustAll;
         private boolean trustSelfSigned;
+        private HttpConnectionPool connectionPool;
 
         public static HttpClientBuilder fromBuilder(HttpClientBuilder other) {
             HttpClientBuilder result = httpClientBuilder();
@@ -267,6 +269,7 @@ public class HttpTool {
             result.reuseStrategy = other.reuseStrategy;
             result.trustAll = other.trustAll;
             result.trustSelfSigned = other.trustSelfSigned;
+            result.connectionPool = other.connectionPool;
             return result;
         }
         public HttpClientBuilder clientConnectionManager(ClientConnectionManager val) {
@@ -343,8 +346,26 @@ public class HttpTool {
             this.trustSelfSigned = val;
             return this;
         }
+        /**
+         * Use connections from the given pool, unless a {@link #clientConnectionManager(ClientConnectionManager)},
+         * {@link #socketFactory(SchemeSocketFactory)} or {@link #port(int)} is also set.
+         * Responses must then be consumed, e.g. using {@link HttpTool#execAndConsume(HttpClient, HttpUriRequest)},
+         * to return connections to the pool.
+         */
+        @Beta
+        public HttpClientBuilder connectionPool(HttpConnectionPool val) {
+            this.connectionPool = val;
+            return this;
+        }
         public HttpClient build() {
-            final DefaultHttpClient httpClient = new DefaultHttpClient(clientConnectionManager);
+            ClientConnectionManager connectionManager = clientConnectionManager;
+            boolean pooled = false;
+            if (connectionManager == null && connectionPool != null && socketFactory == null && port == null) {
+                // the pool's connection managers already have the https scheme for this trust mode
+                connectionManager = connectionPool.getConnectionManager(trustAll, trustSelfSigned);
+                pooled = true;
+            }
+            final DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
             httpClient.setParams(httpParams);
     
             // support redirects for POST (similar to `curl --post301 -L`)
@@ -355,7 +376,7 @@ public class HttpTool {
             if (reuseStrategy != null) {
                 httpClient.setReuseStrategy(reuseStrategy);
             }
-            if (https == Boolean.TRUE || (uri!=null && uri.toString().startsWith("https:"))) {
+            if (!pooled && (https == Boolean.TRUE || (uri!=null && uri.toString().startsWith("https:")))) {
                 try {
                     if (port == null) {
                         port = (uri != null && uri.getPort() >= 0) ? uri.getPort() : 443;
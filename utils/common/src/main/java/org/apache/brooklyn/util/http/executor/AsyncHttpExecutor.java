@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.http.executor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * An {@link HttpExecutor} which can also send requests without blocking the caller, 
+ * completing the returned future when the response has been received.
+ */
+@Beta
+public interface AsyncHttpExecutor extends HttpExecutor {
+
+    /**
+     * Asynchronously send the request. The returned future completes with the response 
+     * (with its content fully read) or fails with the {@link java.io.IOException} or other error 
+     * encountered. Cancelling the future aborts the request.
+     * <p>
+     * Listeners on the returned future may be called from an I/O thread, so should not block.
+     * 
+     * @throws RuntimeException (and subclasses) if an unexpected error occurs creating the request.
+     */
+    ListenableFuture<HttpResponse> executeAsync(HttpRequest request);
+}
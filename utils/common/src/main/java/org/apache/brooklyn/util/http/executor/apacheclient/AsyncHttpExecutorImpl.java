@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.http.executor.apacheclient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.brooklyn.util.collections.MutableMap;
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.http.HttpTool;
+import org.apache.brooklyn.util.http.executor.AsyncHttpExecutor;
+import org.apache.brooklyn.util.http.executor.HttpConfig;
+import org.apache.brooklyn.util.http.executor.HttpExecutor;
+import org.apache.brooklyn.util.http.executor.HttpRequest;
+import org.apache.brooklyn.util.http.executor.HttpResponse;
+import org.apache.brooklyn.util.time.Duration;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * An {@link AsyncHttpExecutor} using the non-blocking Apache HttpAsyncClient.
+ * <p>
+ * A small number of I/O threads (see {@link #IO_THREADS}) serve all requests, using a pool of
+ * keep-alive connections, so a large number of concurrent requests to slow servers do not each
+ * hold a thread. One client (and connection pool) is created for each combination of
+ * {@link HttpConfig} settings used.
+ * <p>
+ * Most callers should use the {@link #getShared() shared instance}.
+ */
+@Beta
+public class AsyncHttpExecutorImpl implements AsyncHttpExecutor, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHttpExecutorImpl.class);
+
+    /** property (passed to the constructor) for the number of I/O threads; defaults to the number of processors */
+    public static final String IO_THREADS = "httpExecutor.async.ioThreads";
+    /** property for the maximum number of connections in the pool; default 1000 */
+    public static final String MAX_CONNECTIONS = "httpExecutor.async.maxConnections";
+    /** property for the maximum number of connections in the pool to any one host:port; default 4 */
+    public static final String MAX_CONNECTIONS_PER_ROUTE = "httpExecutor.async.maxConnectionsPerRoute";
+    /** property for the connect timeout; default 30s */
+    public static final String CONNECT_TIMEOUT = "httpExecutor.async.connectTimeout";
+    /** property for the timeout waiting for data once connected; default 30s */
+    public static final String SOCKET_TIMEOUT = "httpExecutor.async.socketTimeout";
+
+    private static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
+
+    private static final HttpConfig DEFAULT_CONFIG = HttpConfig.builder()
+            .laxRedirect(false)
+            .trustAll(false)
+            .trustSelfSigned(false)
+            .build();
+
+    private static AsyncHttpExecutorImpl shared;
+
+    /**
+     * The instance shared by all callers in this JVM (e.g. by all {@code HttpFeed}s), created on first use
+     * with the default settings.
+     */
+    public static synchronized AsyncHttpExecutorImpl getShared() {
+        if (shared == null || shared.isClosed()) {
+            shared = new AsyncHttpExecutorImpl(MutableMap.of(), true);
+        }
+        return shared;
+    }
+
+    public static AsyncHttpExecutorImpl newInstance() {
+        return new AsyncHttpExecutorImpl();
+    }
+
+    private final int ioThreads;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final Duration connectTimeout;
+    private final Duration socketTimeout;
+    /** whether this is the {@link #getShared() shared instance}; a deserialized copy of that resolves to the shared instance */
+    private final boolean sharedInstance;
+
+    /** clients, keyed by the list of {@link HttpConfig} settings they implement; transient so that feeds referencing this can be persisted */
+    private transient Map<List<Boolean>, CloseableHttpAsyncClient> clients;
+    private transient volatile boolean closed;
+
+    public AsyncHttpExecutorImpl() {
+        this(MutableMap.of());
+    }
+
+    public AsyncHttpExecutorImpl(Map<?, ?> props) {
+        this(props, false);
+    }
+
+    private AsyncHttpExecutorImpl(Map<?, ?> props, boolean sharedInstance) {
+        this.sharedInstance = sharedInstance;
+        ioThreads = intProp(props, IO_THREADS, Runtime.getRuntime().availableProcessors());
+        maxConnections = intProp(props, MAX_CONNECTIONS, 1000);
+        maxConnectionsPerRoute = intProp(props, MAX_CONNECTIONS_PER_ROUTE, 4);
+        connectTimeout = durationProp(props, CONNECT_TIMEOUT, Duration.THIRTY_SECONDS);
+        socketTimeout = durationProp(props, SOCKET_TIMEOUT, Duration.THIRTY_SECONDS);
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        try {
+            return executeAsync(request).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw Exceptions.propagate(e.getCause());
+        } catch (InterruptedException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    @Override
+    public ListenableFuture<HttpResponse> executeAsync(HttpRequest request) {
+        HttpConfig config = (request.config() != null) ? request.config() : DEFAULT_CONFIG;
+        CloseableHttpAsyncClient client = getClient(config);
+
+        URI uri = request.uri();
+        HttpRequestBase httpRequest = newRequest(request);
+        for (Map.Entry<String, String> entry : request.headers().entries()) {
+            httpRequest.addHeader(entry.getKey(), entry.getValue());
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        if (request.credentials() != null) {
+            BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+            credentialsProvider.setCredentials(new AuthScope(uri.getHost(), uri.getPort()),
+                    new UsernamePasswordCredentials(request.credentials().getUser(), request.credentials().getPassword()));
+            context.setCredentialsProvider(credentialsProvider);
+        }
+
+        final SettableFuture<HttpResponse> result = SettableFuture.create();
+        final Future<org.apache.http.HttpResponse> httpFuture = client.execute(httpRequest, context, new FutureCallback<org.apache.http.HttpResponse>() {
+            @Override
+            public void completed(org.apache.http.HttpResponse response) {
+                try {
+                    result.set(toResponse(response));
+                } catch (Throwable t) {
+                    result.setException(t);
+                }
+            }
+            @Override
+            public void failed(Exception e) {
+                result.setException(e);
+            }
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+        result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                if (result.isCancelled()) httpFuture.cancel(true);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        return result;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /** whether this is the {@link #getShared() shared instance}, which callers should not close */
+    public boolean isShared() {
+        return sharedInstance;
+    }
+
+    /**
+     * When deserialized (e.g. when an entity's feeds are rebinded), the shared instance resolves to the 
+     * current shared instance, rather than to a copy with its own I/O threads and connection pool.
+     */
+    private Object readResolve() {
+        return sharedInstance ? getShared() : this;
+    }
+
+    /** Closes all clients, aborting any requests in progress. */
+    @Override
+    public void close() {
+        List<CloseableHttpAsyncClient> toClose;
+        synchronized (this) {
+            closed = true;
+            if (clients == null) return;
+            toClose = ImmutableList.copyOf(clients.values());
+            clients.clear();
+        }
+        for (CloseableHttpAsyncClient client : toClose) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                Exceptions.propagateIfFatal(e);
+                LOG.debug("Problem closing async http client "+client+" (continuing): "+e);
+            }
+        }
+    }
+
+    protected CloseableHttpAsyncClient getClient(HttpConfig config) {
+        List<Boolean> key = ImmutableList.of(config.laxRedirect(), config.trustAll(), config.trustSelfSigned());
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("Async http executor "+this+" has been closed");
+            if (clients == null) clients = MutableMap.of();
+            CloseableHttpAsyncClient client = clients.get(key);
+            if (client == null) {
+                client = newClient(config);
+                client.start();
+                clients.put(key, client);
+            }
+            return client;
+        }
+    }
+
+    protected CloseableHttpAsyncClient newClient(HttpConfig config) {
+        try {
+            SchemeIOSessionStrategy sslStrategy;
+            if (config.trustAll()) {
+                SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null, new HttpTool.TrustAllStrategy()).build();
+                sslStrategy = new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE);
+            } else if (config.trustSelfSigned()) {
+                SSLContext sslContext = SSLContexts.custom().loadTrustMaterial(null, new TrustSelfSignedStrategy()).build();
+                sslStrategy = new SSLIOSessionStrategy(sslContext, NoopHostnameVerifier.INSTANCE);
+            } else {
+                sslStrategy = SSLIOSessionStrategy.getDefaultStrategy();
+            }
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", sslStrategy)
+                    .build();
+
+            IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                    .setIoThreadCount(ioThreads)
+                    .setConnectTimeout((int) connectTimeout.toMilliseconds())
+                    .setSoTimeout((int) socketTimeout.toMilliseconds())
+                    .build();
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig), registry);
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout((int) connectTimeout.toMilliseconds())
+                    .setSocketTimeout((int) socketTimeout.toMilliseconds())
+                    .build();
+            HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig);
+            if (config.laxRedirect()) {
+                builder.setRedirectStrategy(new LaxRedirectStrategy());
+            }
+            return builder.build();
+        } catch (Exception e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    protected HttpRequestBase newRequest(HttpRequest request) {
+        URI uri = request.uri();
+        switch (request.method().toUpperCase()) {
+        case HttpExecutor.GET:
+            return new HttpGet(uri);
+        case HttpExecutor.HEAD:
+            return new HttpHead(uri);
+        case HttpExecutor.POST:
+            HttpPost post = new HttpPost(uri);
+            post.setEntity(new ByteArrayEntity(orEmpty(request.body())));
+            return post;
+        case HttpExecutor.PUT:
+            HttpPut put = new HttpPut(uri);
+            put.setEntity(new ByteArrayEntity(orEmpty(request.body())));
+            return put;
+        case HttpExecutor.DELETE:
+            return new HttpDelete(uri);
+        default:
+            throw new IllegalArgumentException("Unsupported method '"+request.method()+"' for URI "+uri);
+        }
+    }
+
+    protected HttpResponse toResponse(org.apache.http.HttpResponse response) throws IOException {
+        HttpResponse.Builder builder = new HttpResponse.Builder()
+                .code(response.getStatusLine().getStatusCode())
+                .reasonPhrase(response.getStatusLine().getReasonPhrase());
+        for (Header header : response.getAllHeaders()) {
+            builder.header(header.getName(), header.getValue());
+        }
+        // the entity has already been read into memory by the async client
+        HttpEntity entity = response.getEntity();
+        builder.content((entity != null) ? EntityUtils.toByteArray(entity) : EMPTY_BYTE_ARRAY);
+        return builder.build();
+    }
+
+    protected byte[] orEmpty(byte[] val) {
+        return (val != null) ? val : EMPTY_BYTE_ARRAY;
+    }
+
+    private static int intProp(Map<?, ?> props, String key, int defaultVal) {
+        Object val = props.get(key);
+        return (val == null) ? defaultVal : Integer.parseInt(val.toString());
+    }
+
+    private static Duration durationProp(Map<?, ?> props, String key, Duration defaultVal) {
+        Object val = props.get(key);
+        return (val == null) ? defaultVal : Duration.of(val);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()+"[ioThreads="+ioThreads+"; maxConnections="+maxConnections
+                +"; maxConnectionsPerRoute="+maxConnectionsPerRoute+"]";
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.brooklyn.util.http.executor.apacheclient;
 import java.io.IOException;
 import java.util.Map;
 
+import org.apache.brooklyn.util.http.HttpConnectionPool;
 import org.apache.brooklyn.util.http.HttpTool;
 import org.apache.brooklyn.util.http.HttpToolResponse;
 import org.apache.brooklyn.util.http.executor.HttpConfig;
@@ -49,6 +50,14 @@ public class HttpExecutorImpl implements HttpExecutor {
         return new HttpExecutorImpl();
     }
 
+    /** as {@link #newInstance()}, but taking connections from the given pool (if not null) */
+    public static HttpExecutorImpl newInstance(HttpConnectionPool connectionPool) {
+        return new HttpExecutorImpl(connectionPool);
+    }
+
+    /** transient, so that feeds referencing this executor can be persisted; such a feed should re-supply the pool on rebind */
+    private transient HttpConnectionPool connectionPool;
+
     /**
      * A must have constructor.
      */
@@ -59,6 +68,19 @@ public class HttpExecutorImpl implements HttpExecutor {
     public HttpExecutorImpl() {
     }
 
+    public HttpExecutorImpl(HttpConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /** a copy of this executor which takes connections from the given pool (or none, if null) */
+    public HttpExecutorImpl withConnectionPool(HttpConnectionPool connectionPool) {
+        return new HttpExecutorImpl(connectionPool);
+    }
+
+    public HttpConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     @Override
     public HttpResponse execute(HttpRequest request) throws IOException {
         HttpConfig config = (request.config() != null) ? request.config() : DEFAULT_CONFIG;
@@ -69,6 +91,7 @@ public class HttpExecutorImpl implements HttpExecutor {
                 .laxRedirect(config.laxRedirect())
                 .trustSelfSigned(config.trustSelfSigned())
                 .trustAll(config.trustAll())
+                .connectionPool(connectionPool)
                 .build();
         
         HttpToolResponse response;
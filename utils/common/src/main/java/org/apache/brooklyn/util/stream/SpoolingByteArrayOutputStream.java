@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.brooklyn.util.exceptions.Exceptions;
+import org.apache.brooklyn.util.os.Os;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * A {@link ByteArrayOutputStream} which keeps only a bounded tail in memory, spooling earlier output to files
+ * on disk, and which keeps only a bounded number of those files, discarding the oldest output when that is exceeded.
+ * <p>
+ * Intended for the output of long-running processes, such as the stdout and stderr of tasks, so that it does not
+ * hold large amounts of heap, and so that parts of it can be read with {@link #read(long, int)} (e.g. to follow
+ * the output) without copying all of it. Positions are relative to all output ever written, i.e. from 0 to
+ * {@link #getTotalSize()}, of which output before {@link #getDiscardedSize()} is no longer available.
+ * <p>
+ * {@link #toByteArray()}, {@link #toString()} and {@link #size()} refer to all the output which is still available,
+ * so the stream can be used wherever a {@link ByteArrayOutputStream} is expected.
+ * The spool file being written is kept open until the next is started or the stream is {@link #close() closed}.
+ * Spool files are deleted by {@link #reset()} or {@link #discard()}, or by {@link Spool#delete()} on the handle from
+ * {@link #getSpool()}, which can be kept by holders of only a soft or weak reference to the stream, as it deletes the
+ * files even once the stream has been GC'd. Deleting them when the stream is finalized or the JVM exits is only a backstop.
+ */
+@Beta
+public class SpoolingByteArrayOutputStream extends ByteArrayOutputStream {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolingByteArrayOutputStream.class);
+
+    /** default size of the in-memory tail, beyond which output is spooled to disk */
+    public static final int DEFAULT_MEMORY_SIZE = 16*1024;
+    /** default size of each spool file */
+    public static final long DEFAULT_SEGMENT_SIZE = 8*1024*1024;
+    /** default number of spool files to keep */
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+
+    private static File spoolDir;
+
+    private static synchronized File getSpoolDir() {
+        if (spoolDir == null || !spoolDir.isDirectory()) {
+            // deleted (with its contents) on exit
+            spoolDir = Os.newTempDir("brooklyn-streams");
+        }
+        return spoolDir;
+    }
+
+    private static class Segment {
+        final File file;
+        final long start;
+        long length;
+        /** open while this is the segment being written, until the stream is closed */
+        FileOutputStream out;
+
+        Segment(File file, long start) {
+            this.file = file;
+            this.start = start;
+        }
+        long end() {
+            return start + length;
+        }
+    }
+
+    /**
+     * Records the spool files of a stream, so that they can be deleted deterministically by whatever drops the stream,
+     * without holding the stream itself (and its in-memory output) strongly.
+     */
+    public static final class Spool {
+        private final WeakReference<SpoolingByteArrayOutputStream> stream;
+        private final Set<File> files = new LinkedHashSet<File>();
+
+        private Spool(SpoolingByteArrayOutputStream stream) {
+            this.stream = new WeakReference<SpoolingByteArrayOutputStream>(stream);
+        }
+
+        private synchronized void add(File file) {
+            files.add(file);
+        }
+
+        private synchronized void remove(File file) {
+            files.remove(file);
+        }
+
+        /** the spool files currently in use */
+        public synchronized List<File> getFiles() {
+            return new ArrayList<File>(files);
+        }
+
+        /** {@link SpoolingByteArrayOutputStream#discard() discards} the stream's output or, if it has been GC'd, deletes its spool files */
+        public void delete() {
+            // not holding our lock, as the stream calls in to us holding its own
+            SpoolingByteArrayOutputStream s = stream.get();
+            if (s != null) {
+                s.discard();
+                return;
+            }
+            List<File> toDelete;
+            synchronized (this) {
+                toDelete = new ArrayList<File>(files);
+                files.clear();
+            }
+            for (File file : toDelete) {
+                deleteFile(file);
+            }
+        }
+    }
+
+    private final Spool spool = new Spool(this);
+    private final int memorySize;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+    private long discarded = 0;
+
+    public SpoolingByteArrayOutputStream() {
+        this(DEFAULT_MEMORY_SIZE, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * @param memorySize size of the in-memory tail, beyond which output is spooled to disk
+     * @param segmentSize size of each spool file (which may be exceeded by the last write to it)
+     * @param maxSegments number of spool files to keep, beyond which the oldest output is discarded
+     */
+    public SpoolingByteArrayOutputStream(int memorySize, long segmentSize, int maxSegments) {
+        checkArgument(memorySize > 0, "memorySize must be positive");
+        checkArgument(segmentSize > 0, "segmentSize must be positive");
+        checkArgument(maxSegments > 0, "maxSegments must be positive");
+        this.memorySize = memorySize;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        super.write(b);
+        if (count >= memorySize) spool();
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+        super.write(b, off, len);
+        if (count >= memorySize) spool();
+    }
+
+    private void spool() {
+        try {
+            Segment current = segments.peekLast();
+            if (current == null || current.length >= segmentSize) {
+                if (current != null) closeQuietly(current);
+                current = new Segment(File.createTempFile("stream-", ".out", getSpoolDir()), getMemoryStart());
+                segments.addLast(current);
+                spool.add(current.file);
+                while (segments.size() > maxSegments) {
+                    Segment oldest = segments.removeFirst();
+                    discarded = oldest.end();
+                    delete(oldest);
+                }
+            }
+            if (current.out == null) current.out = new FileOutputStream(current.file, true);
+            current.out.write(buf, 0, count);
+            current.length += count;
+            count = 0;
+            if (buf.length > 2*memorySize) {
+                // don't hold on to the space used by a large write
+                buf = new byte[memorySize];
+            }
+        } catch (IOException e) {
+            // keep memory bounded, at the cost of the output
+            log.warn("Unable to spool output to disk; discarding it: "+e);
+            discarded = getTotalSize();
+            deleteSegments();
+            count = 0;
+        }
+    }
+
+    private long getMemoryStart() {
+        Segment last = segments.peekLast();
+        return (last != null) ? last.end() : discarded;
+    }
+
+    /** the number of bytes ever written (since created or {@link #reset()}) */
+    public synchronized long getTotalSize() {
+        return getMemoryStart() + count;
+    }
+
+    /** the number of bytes at the start of the output which have been discarded, so can no longer be read */
+    public synchronized long getDiscardedSize() {
+        return discarded;
+    }
+
+    /** the number of bytes which can be read, capped at {@link Integer#MAX_VALUE} */
+    @Override
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, getTotalSize() - discarded);
+    }
+
+    /**
+     * Reads up to {@code maxLength} bytes of the output starting at the given position (or at {@link #getDiscardedSize()},
+     * if that is later); returns an empty array if there is no output there (yet).
+     */
+    public synchronized byte[] read(long offset, int maxLength) throws IOException {
+        long start = Math.max(offset, discarded);
+        long end = Math.min(getTotalSize(), start + Math.max(0, maxLength));
+        if (end <= start) return new byte[0];
+
+        byte[] result = new byte[(int) (end - start)];
+        int pos = 0;
+        for (Segment segment : segments) {
+            long from = start + pos;
+            if (segment.end() <= from) continue;
+            if (segment.start >= end) break;
+            int length = (int) (Math.min(segment.end(), end) - from);
+            RandomAccessFile file = new RandomAccessFile(segment.file, "r");
+            try {
+                file.seek(from - segment.start);
+                file.readFully(result, pos, length);
+            } finally {
+                file.close();
+            }
+            pos += length;
+        }
+        if (pos < result.length) {
+            System.arraycopy(buf, (int) (start + pos - getMemoryStart()), result, pos, result.length - pos);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized byte[] toByteArray() {
+        if (segments.isEmpty()) return super.toByteArray();
+        try {
+            return read(discarded, size());
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return new String(toByteArray());
+    }
+
+    @Override
+    public synchronized String toString(String charsetName) throws UnsupportedEncodingException {
+        return new String(toByteArray(), charsetName);
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        long pos = discarded;
+        long end = getTotalSize();
+        while (pos < end) {
+            byte[] chunk = read(pos, memorySize);
+            out.write(chunk);
+            pos += chunk.length;
+        }
+    }
+
+    /** discards all output, deleting any spool files */
+    @Override
+    public synchronized void reset() {
+        deleteSegments();
+        discarded = 0;
+        super.reset();
+    }
+
+    /** as {@link #reset()}, for use when the output is no longer wanted */
+    public void discard() {
+        reset();
+    }
+
+    /** a handle for deleting the spool files, usable even after this stream has been GC'd */
+    public Spool getSpool() {
+        return spool;
+    }
+
+    /**
+     * Closes the spool file being written, when there will be no more output for a while (or ever);
+     * the output can still be read, and any further output is still accepted.
+     */
+    @Override
+    public synchronized void close() {
+        Segment current = segments.peekLast();
+        if (current != null) closeQuietly(current);
+    }
+
+    /** a backstop, for streams dropped without their output being {@link #discard() discarded} */
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            deleteSegments();
+        } finally {
+            super.finalize();
+        }
+    }
+
+    private void deleteSegments() {
+        for (Segment segment : segments) {
+            delete(segment);
+        }
+        segments.clear();
+    }
+
+    private void closeQuietly(Segment segment) {
+        if (segment.out != null) {
+            Streams.closeQuietly(segment.out);
+            segment.out = null;
+        }
+    }
+
+    private void delete(Segment segment) {
+        closeQuietly(segment);
+        spool.remove(segment.file);
+        deleteFile(segment.file);
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            log.debug("Unable to delete spooled output "+file+"; will be deleted on exit");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.brooklyn.util.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+
+public class SpoolingByteArrayOutputStreamTest {
+
+    private SpoolingByteArrayOutputStream out;
+
+    @AfterMethod(alwaysRun=true)
+    public void tearDown() throws Exception {
+        if (out != null) out.discard();
+    }
+
+    @Test
+    public void testSmallOutputIsKeptInMemory() throws Exception {
+        out = new SpoolingByteArrayOutputStream(16, 32, 2);
+        out.write("hello".getBytes(Charsets.UTF_8));
+        assertEquals(out.toString(), "hello");
+        assertEquals(out.size(), 5);
+        assertEquals(out.getTotalSize(), 5);
+        assertEquals(read(1, 3), "ell");
+    }
+
+    @Test
+    public void testSpoolsToDiskAndReadsAcrossSegments() throws Exception {
+        out = new SpoolingByteArrayOutputStream(4, 8, 10);
+        String text = "0123456789abcdefghijklmnopqrstuvwxyz";
+        for (char c : text.toCharArray()) {
+            out.write(c);
+        }
+        assertEquals(out.toString(), text);
+        assertEquals(out.getDiscardedSize(), 0);
+        assertEquals(read(6, 10), "6789abcdef");
+        assertEquals(read(30, 100), "uvwxyz");
+        assertEquals(read(36, 100), "");
+
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        out.writeTo(copy);
+        assertEquals(new String(copy.toByteArray(), Charsets.UTF_8), text);
+    }
+
+    @Test
+    public void testDiscardsOldestSegments() throws Exception {
+        out = new SpoolingByteArrayOutputStream(4, 4, 2);
+        for (char c : "0123456789abcdefghijklmnop".toCharArray()) {
+            out.write(c);
+        }
+        assertEquals(out.getTotalSize(), 26);
+        // two segments of 4 on disk, and the in-memory tail
+        assertEquals(out.getDiscardedSize(), 16);
+        assertEquals(out.toString(), "ghijklmnop");
+        // reads from before what is retained start at the oldest retained output
+        assertEquals(read(0, 2), "gh");
+
+        out.reset();
+        assertEquals(out.getTotalSize(), 0);
+        assertEquals(out.toString(), "");
+    }
+
+    @Test
+    public void testReadableAndWritableAfterClose() throws Exception {
+        out = new SpoolingByteArrayOutputStream(4, 64, 2);
+        out.write("01234567".getBytes(Charsets.UTF_8));
+        out.close();
+        assertEquals(out.toString(), "01234567");
+
+        // appends to the same spool file
+        out.write("89abcdef".getBytes(Charsets.UTF_8));
+        out.close();
+        assertEquals(out.toString(), "0123456789abcdef");
+        assertEquals(out.getDiscardedSize(), 0);
+    }
+
+    @Test
+    public void testSpoolDeletesFiles() throws Exception {
+        out = new SpoolingByteArrayOutputStream(4, 4, 2);
+        for (char c : "01234567".toCharArray()) {
+            out.write(c);
+        }
+        List<File> files = out.getSpool().getFiles();
+        assertEquals(files.size(), 2);
+
+        // files of discarded segments are deleted, and no longer tracked
+        for (char c : "89ab".toCharArray()) {
+            out.write(c);
+        }
+        assertEquals(out.getSpool().getFiles().size(), 2);
+        assertFalse(files.get(0).exists());
+
+        files = out.getSpool().getFiles();
+        for (File file : files) {
+            assertTrue(file.exists(), "file="+file);
+        }
+        out.getSpool().delete();
+        for (File file : files) {
+            assertFalse(file.exists(), "file="+file);
+        }
+        assertEquals(out.getSpool().getFiles().size(), 0);
+        assertEquals(out.getTotalSize(), 0);
+    }
+
+    private String read(long offset, int length) throws Exception {
+        return new String(out.read(offset, length), Charsets.UTF_8);
+    }
+}